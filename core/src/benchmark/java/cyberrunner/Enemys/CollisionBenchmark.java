@@ -0,0 +1,455 @@
+// Author: Martin Taylor
+// File: CollisionBenchmark.java
+// Date: 2026-10-17
+// Description:
+//   Headless benchmark for entity movement: box-vs-wall tests, the spatial
+//   hash broadphase, swept moves, ORCA crowd steering through a corridor,
+//   and the contact solver on an idling pile.
+//   Run with: gradlew core:collisionBenchmark
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Random;
+
+public final class CollisionBenchmark {
+
+    private CollisionBenchmark() { }
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 20251104L;
+        System.out.println("map         box(px)  queries  corners(ns)  exact(ns)  blocked  missed by corners");
+        for (float box : new float[] { 48f, 72f, 160f }) runRectBlocked(1000, box, 1000000, seed);
+
+        System.out.println();
+        System.out.println("broadphase  entities  pairs  all-pairs(us)  hash(us)  box query brute(ns)  hash(ns)  hits/query");
+        for (int n : new int[] { 200, 1000, 5000, 20000 }) runBroadphase(n, seed);
+
+        System.out.println();
+        System.out.println("map         sweep  moves  stepped(ns)  swept(ns)  end apart  arrow fps  endpoint tunnels  swept tunnels");
+        runSweep(1000, 100000, 15f, seed);
+        runSweep(1000, 100000, 4f, seed);
+
+        System.out.println();
+        System.out.println("corridor    steering  flow      agents  arrived  steps  pushes/step  deep/step  solve(us/agent)");
+        for (boolean crossing : new boolean[] { false, true }) {
+            runCrowdSteering(100, false, crossing, seed);
+            runCrowdSteering(100, true, crossing, seed);
+            runCrowdSteering(300, false, crossing, seed);
+            runCrowdSteering(300, true, crossing, seed);
+        }
+
+        System.out.println();
+        System.out.println("pile        contacts  agents  steps  settle(us/step)  idle(us/step)  checked/step  awake  deep at end");
+        for (int n : new int[] { 200, 1000, 4000 }) {
+            runContactPile(n, 0, seed);
+            runContactPile(n, 1, seed);
+            runContactPile(n, 2, seed);
+        }
+    }
+
+    // Random boxes centred on open tiles; "missed" are boxes over a wall that
+    // the old corner sampling called free (only possible above one tile wide)
+    private static void runRectBlocked(int size, float box, int queries, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        Random rng = new Random(seed ^ 0xb0bL);
+        float[] xy = new float[queries * 2];
+        for (int q = 0; q < queries; q++) {
+            int tx, ty;
+            do { tx = rng.nextInt(size); ty = rng.nextInt(size); } while (dungeon.isSolid(tx, ty));
+            xy[q * 2]     = (tx + rng.nextFloat()) * 64f - box * 0.5f;
+            xy[q * 2 + 1] = (ty + rng.nextFloat()) * 64f - box * 0.5f;
+        }
+        Rectangle rect = new Rectangle(0f, 0f, box, box);
+        boolean[] corners = new boolean[queries];
+        int blocked = 0, missed = 0;
+        long cornerNanos = 0, exactNanos = 0;
+        for (int pass = 0; pass < 3; pass++) {   // early passes warm up the JIT
+            long t0 = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                rect.setPosition(xy[q * 2], xy[q * 2 + 1]);
+                corners[q] = legacyCornerBlocked(dungeon, rect);
+            }
+            long t1 = System.nanoTime();
+            blocked = 0;
+            for (int q = 0; q < queries; q++) {
+                rect.setPosition(xy[q * 2], xy[q * 2 + 1]);
+                if (dungeon.rectBlocked(rect)) blocked++;
+            }
+            long t2 = System.nanoTime();
+            cornerNanos = t1 - t0;
+            exactNanos = t2 - t1;
+        }
+        int cornerBlocked = 0;
+        for (int q = 0; q < queries; q++) if (corners[q]) cornerBlocked++;
+        missed = blocked - cornerBlocked;
+        System.out.printf("%-10s  %7.0f  %7d  %11.1f  %9.1f  %6.1f%%  %17d%n",
+                size + "x" + size, box, queries, (double)cornerNanos / queries, (double)exactNanos / queries,
+                100.0 * blocked / queries, missed);
+    }
+
+    // The original Dungeon.rectBlocked: four half-pixel-inset corners
+    private static boolean legacyCornerBlocked(Dungeon dungeon, Rectangle rect) {
+        float left = rect.x + 0.5f, bottom = rect.y + 0.5f;
+        float right = rect.x + rect.width - 0.5f, top = rect.y + rect.height - 0.5f;
+        return dungeon.isSolidWorld(left, bottom) || dungeon.isSolidWorld(right, bottom)
+            || dungeon.isSolidWorld(left, top) || dungeon.isSolidWorld(right, top);
+    }
+
+    // Enemy-sized boxes at sandbox crowd density; the hash is rebuilt inside the timing
+    private static void runBroadphase(int entities, long seed) {
+        Random rng = new Random(seed ^ 0xb0adL);
+        float side = (float)Math.sqrt(entities) * 120f;
+        float[] x = new float[entities], y = new float[entities], w = new float[entities], h = new float[entities];
+        for (int i = 0; i < entities; i++) {
+            w[i] = 40f + rng.nextFloat() * 24f; h[i] = 40f + rng.nextFloat() * 24f;
+            x[i] = rng.nextFloat() * side;      y[i] = rng.nextFloat() * side;
+        }
+        int reps = Math.max(1, 2000000 / entities / Math.max(1, entities / 50));
+        long brutePairs = 0;
+        long t0 = System.nanoTime();
+        for (int r = 0; r < reps; r++) {
+            brutePairs = 0;
+            for (int a = 0; a < entities; a++) {
+                for (int b = a + 1; b < entities; b++) {
+                    if (x[a] < x[b] + w[b] && x[a] + w[a] > x[b] && y[a] < y[b] + h[b] && y[a] + h[a] > y[b]) brutePairs++;
+                }
+            }
+        }
+        double bruteUs = (System.nanoTime() - t0) / 1e3 / reps;
+
+        SpatialHash hash = new SpatialHash(64f);
+        IntArray pairs = new IntArray();
+        int hashReps = Math.max(10, 200000 / entities);
+        t0 = System.nanoTime();
+        for (int r = 0; r < hashReps; r++) {
+            hash.clear();
+            for (int i = 0; i < entities; i++) hash.add(x[i], y[i], w[i], h[i]);
+            hash.build();
+            pairs.clear();
+            hash.queryPairs(pairs);
+        }
+        double hashUs = (System.nanoTime() - t0) / 1e3 / hashReps;
+
+        // melee-box sized queries
+        int queries = 20000;
+        float[] q = new float[queries * 2];
+        for (int i = 0; i < q.length; i++) q[i] = rng.nextFloat() * side;
+        IntArray out = new IntArray();
+        long sink = 0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            float qx = q[i * 2], qy = q[i * 2 + 1];
+            int found = 0;
+            for (int k = 0; k < entities; k++) {
+                if (x[k] < qx + 96f && x[k] + w[k] > qx && y[k] < qy + 96f && y[k] + h[k] > qy) found++;
+            }
+            sink += found;
+        }
+        double bruteNs = (double)(System.nanoTime() - t0) / queries;
+        long hashFound = 0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            out.clear();
+            hashFound += hash.queryBox(q[i * 2], q[i * 2 + 1], q[i * 2] + 96f, q[i * 2 + 1] + 96f, out);
+        }
+        double queryNs = (double)(System.nanoTime() - t0) / queries;
+        // correctness against the scan lives in SpatialHashTest; the sum keeps the brute loop alive
+        System.out.printf("%-10s  %8d  %5d  %13.1f  %8.1f  %19.1f  %8.1f  %10.2f%n", "", entities, brutePairs,
+                bruteUs, hashUs, bruteNs, queryNs, (double)(hashFound + sink) / (2 * queries));
+    }
+
+    // Dash-length moves (the old sandbox loop vs moveAndSlide), then arrows flying
+    // one frame at the given rate: a wall crossed mid-step and missed at the end
+    // position is a tunnel
+    private static void runSweep(int size, int moves, float fps, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        Random rng = new Random(seed ^ 0x5eedL);
+        Rectangle box = new Rectangle();
+        float[] start = new float[moves * 2], dir = new float[moves * 2];
+        for (int m = 0; m < moves; m++) {
+            do {
+                box.set(rng.nextFloat() * size * 64f, rng.nextFloat() * size * 64f, 40f, 40f);
+            } while (dungeon.rectBlocked(box));
+            double a = rng.nextDouble() * Math.PI * 2;
+            start[m * 2] = box.x; start[m * 2 + 1] = box.y;
+            dir[m * 2] = (float)Math.cos(a); dir[m * 2 + 1] = (float)Math.sin(a);
+        }
+        final float dash = 220f;
+        double sink = 0;
+        long t0 = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            t0 = System.nanoTime();
+            for (int m = 0; m < moves; m++) {
+                box.set(start[m * 2], start[m * 2 + 1], 40f, 40f);
+                legacySteppedMove(dungeon, box, dir[m * 2] * dash, dir[m * 2 + 1] * dash);
+                sink += box.x;
+            }
+        }
+        double steppedNs = (double)(System.nanoTime() - t0) / moves;
+        for (int pass = 0; pass < 2; pass++) {
+            t0 = System.nanoTime();
+            for (int m = 0; m < moves; m++) {
+                box.set(start[m * 2], start[m * 2 + 1], 40f, 40f);
+                dungeon.moveAndSlide(box, dir[m * 2] * dash, dir[m * 2 + 1] * dash);
+                sink += box.x;
+            }
+        }
+        double sweptNs = (double)(System.nanoTime() - t0) / moves;
+        // how far the two end points land apart (the 8 px loop stops up to a step short)
+        double apart = 0;
+        Rectangle other = new Rectangle();
+        for (int m = 0; m < moves; m++) {
+            box.set(start[m * 2], start[m * 2 + 1], 40f, 40f);
+            other.set(box);
+            legacySteppedMove(dungeon, box, dir[m * 2] * dash, dir[m * 2 + 1] * dash);
+            dungeon.moveAndSlide(other, dir[m * 2] * dash, dir[m * 2 + 1] * dash);
+            apart += Math.hypot(box.x - other.x, box.y - other.y);
+        }
+
+        SweepHit hit = new SweepHit();
+        float step = 420f / fps;
+        int endpointTunnels = 0, sweptTunnels = 0;
+        for (int m = 0; m < moves; m++) {
+            box.set(start[m * 2], start[m * 2 + 1], 18f, 6f);
+            float dx = dir[m * 2] * step, dy = dir[m * 2 + 1] * step;
+            boolean crossed = false;
+            for (int k = 1; k <= 64 && !crossed; k++) {
+                other.set(box.x + dx * k / 64f, box.y + dy * k / 64f, 18f, 6f);
+                crossed = dungeon.rectBlocked(other);
+            }
+            if (!crossed) continue;
+            other.set(box.x + dx, box.y + dy, 18f, 6f);
+            if (!dungeon.rectBlocked(other)) endpointTunnels++;
+            if (!dungeon.sweep(box, dx, dy, hit)) sweptTunnels++;
+        }
+        if (sink == 0) System.out.println();   // keep the reads alive
+        System.out.printf("%-10s  %5s  %5d  %11.1f  %9.1f  %9.2f  %9.0f  %16d  %13d%n", size + "x" + size, "",
+                moves, steppedNs, sweptNs, apart / moves, fps, endpointTunnels, sweptTunnels);
+    }
+
+    // The old dash: 8 px steps, each axis tried whole and undone if blocked
+    private static void legacySteppedMove(Dungeon dungeon, Rectangle box, float dx, float dy) {
+        float step = 8f;
+        float len = (float)Math.sqrt(dx * dx + dy * dy);
+        int steps = Math.max(1, (int)(len / step));
+        float ux = dx / len * step, uy = dy / len * step;
+        float ox = box.x, oy = box.y;
+        for (int i = 0; i < steps; i++) {
+            float curX = box.x, curY = box.y;
+            box.x = curX + ux; if (dungeon.rectBlocked(box)) box.x = curX;
+            box.y = curY + uy; if (dungeon.rectBlocked(box)) box.y = curY;
+            if (Math.abs(box.x - ox) + Math.abs(box.y - oy) < 0.001f) break;
+        }
+    }
+
+    // Two rooms joined by a 3-tile corridor. One-way: every agent starts on the left
+    // and heads right (a crowd chasing the player). Crossing: half start on each side,
+    // so the groups meet head-on. Boxes slide on walls and the sandbox's push pass
+    // runs after every step either way. A push is an overlapping pair; deep ones
+    // overlap by over a quarter radius.
+    private static void runCrowdSteering(int agents, boolean orca, boolean crossing, long seed) {
+        final int W = 64, H = 28, ts = 64, maxSteps = 4000;
+        final float dt = 1f / 60f, speed = 200f, size = 40f, radius = size * 0.5f;
+        final int corridorX0 = 22, corridorX1 = 41, corridorY = 13;
+        Dungeon dungeon = new Dungeon(W, H, ts);
+        for (int y = 0; y < H; y++) for (int x = 0; x < W; x++) {
+            boolean room = y >= 1 && y < H - 1 && ((x >= 1 && x < corridorX0) || (x > corridorX1 && x < W - 1));
+            boolean corridor = x >= corridorX0 && x <= corridorX1 && Math.abs(y - corridorY) <= 1;
+            dungeon.setSolid(x, y, !room && !corridor);
+        }
+        final float mouthL = corridorX0 * ts + radius, mouthR = (corridorX1 + 1) * ts - radius;
+        final float laneY = corridorY * ts + ts * 0.5f;
+        final float goalL = 4f * ts, goalR = (W - 4) * ts;
+
+        Random rng = new Random(seed ^ 0xc40dL);
+        Rectangle[] box = new Rectangle[agents];
+        float[] velX = new float[agents], velY = new float[agents];
+        boolean[] rightward = new boolean[agents], done = new boolean[agents];
+        for (int a = 0; a < agents; a++) {
+            rightward[a] = !crossing || a % 2 == 0;
+            box[a] = new Rectangle(0, 0, size, size);
+            do {
+                float x = (rightward[a] ? 1 : corridorX1 + 1) * ts + rng.nextFloat() * (corridorX0 - 2) * ts;
+                box[a].setPosition(x, ts + rng.nextFloat() * (H - 3) * ts);
+            } while (dungeon.rectBlocked(box[a]));
+        }
+
+        CrowdSolver crowd = new CrowdSolver(dungeon, ts);
+        SpatialHash hash = new SpatialHash(ts);
+        IntArray pairs = new IntArray();
+        IntArray live = new IntArray();
+        com.badlogic.gdx.math.Vector2 v = new com.badlogic.gdx.math.Vector2();
+        long pushes = 0, deep = 0, solveNanos = 0, solves = 0;
+        int arrived = 0, steps = 0;
+        for (int step = 0; step < maxSteps && arrived < agents; step++) {
+            live.clear();
+            crowd.clear();
+            for (int a = 0; a < agents; a++) {
+                if (done[a]) continue;
+                live.add(a);
+                crowd.addAgent(box[a].x + radius, box[a].y + radius, radius, radius, velX[a], velY[a], speed);
+            }
+            crowd.build();
+            for (int h = 0; h < live.size; h++) {
+                int a = live.get(h);
+                float cx = box[a].x + radius, cy = box[a].y + radius;
+                // waypoints: near mouth, far mouth, goal
+                float tx, ty;
+                if (rightward[a]) {
+                    if (cx < mouthL)      { tx = mouthL; ty = laneY; }
+                    else if (cx < mouthR) { tx = mouthR + ts; ty = laneY; }
+                    else                  { tx = goalR; ty = cy; }
+                } else {
+                    if (cx > mouthR)      { tx = mouthR; ty = laneY; }
+                    else if (cx > mouthL) { tx = mouthL - ts; ty = laneY; }
+                    else                  { tx = goalL; ty = cy; }
+                }
+                float dx = tx - cx, dy = ty - cy, len = (float)Math.sqrt(dx * dx + dy * dy);
+                if (len < 1e-4f) len = 1f;
+                float pvx = dx / len * speed, pvy = dy / len * speed;
+                if (orca) {
+                    long t0 = System.nanoTime();
+                    crowd.solve(h, pvx, pvy, dt, v);
+                    solveNanos += System.nanoTime() - t0;
+                    solves++;
+                } else {
+                    v.set(pvx, pvy);
+                }
+                float ox = box[a].x, oy = box[a].y;
+                dungeon.moveAndSlide(box[a], v.x * dt, v.y * dt);
+                velX[a] = (box[a].x - ox) / dt;
+                velY[a] = (box[a].y - oy) / dt;
+            }
+
+            // the sandbox's separation pass
+            hash.clear();
+            for (int h = 0; h < live.size; h++) hash.add(box[live.get(h)]);
+            hash.build();
+            pairs.clear();
+            hash.queryPairs(pairs);
+            for (int p = 0; p < pairs.size; p += 2) {
+                Rectangle ra = box[live.get(pairs.get(p))], rb = box[live.get(pairs.get(p + 1))];
+                float dx = rb.x - ra.x, dy = rb.y - ra.y, d2 = dx * dx + dy * dy, min = radius * 2f;
+                if (d2 >= min * min || d2 <= 1e-5f) continue;
+                float d = (float)Math.sqrt(d2), push = (min - d) * 0.5f;
+                pushes++;
+                if (min - d > radius * 0.25f) deep++;
+                dungeon.moveAndSlide(ra, -dx / d * push, -dy / d * push);
+                dungeon.moveAndSlide(rb, dx / d * push, dy / d * push);
+            }
+
+            for (int h = 0; h < live.size; h++) {
+                int a = live.get(h);
+                float cx = box[a].x + radius;
+                if (rightward[a] ? cx >= goalR - ts : cx <= goalL + ts) { done[a] = true; arrived++; }
+            }
+            steps++;
+        }
+        System.out.printf("%-10s  %-8s  %-8s  %6d  %7d  %5d  %11.2f  %9.2f  %15s%n", W + "x" + H, orca ? "orca" : "seek",
+                crossing ? "crossing" : "one-way", agents, arrived, steps, (double)pushes / steps, (double)deep / steps,
+                orca ? String.format("%.2f", solveNanos / 1e3 / Math.max(1, solves)) : "-");
+    }
+
+    // Agents run to one spot and stop for good once inside its rim (a disc
+    // roomy enough to hold them) or held back by the pile, then the pile
+    // idles for as long again. Mode 0 is the sandbox's old single push pass,
+    // 1 the contact solver never sleeping, 2 the solver with sleeping. Idle
+    // cost is what a standing pile costs every frame.
+    private static void runContactPile(int agents, int mode, long seed) {
+        final int W = 72, H = 72, ts = 64, settleSteps = 600, idleSteps = 600;
+        final float dt = 1f / 60f, speed = 200f, size = 40f, radius = size * 0.5f;
+        Dungeon dungeon = new Dungeon(W, H, ts);
+        for (int y = 0; y < H; y++) for (int x = 0; x < W; x++) {
+            dungeon.setSolid(x, y, x == 0 || y == 0 || x == W - 1 || y == H - 1);
+        }
+        final float goalX = W * ts * 0.5f, goalY = H * ts * 0.5f;
+        final float rim = radius * (float)Math.sqrt(agents / 0.6);
+
+        Random rng = new Random(seed ^ 0x911eL);
+        Rectangle[] box = new Rectangle[agents];
+        float[] rest = new float[agents];
+        boolean[] asleep = new boolean[agents], stopped = new boolean[agents];
+        for (int a = 0; a < agents; a++) {
+            box[a] = new Rectangle(ts + rng.nextFloat() * (W - 2) * ts - size,
+                    ts + rng.nextFloat() * (H - 2) * ts - size, size, size);
+            box[a].setPosition(Math.max(ts, box[a].x), Math.max(ts, box[a].y));
+        }
+
+        ContactSolver contacts = new ContactSolver(dungeon, ts);
+        if (mode == 1) contacts.setSleep(0f, Float.MAX_VALUE);
+        SpatialHash hash = new SpatialHash(ts);
+        IntArray pairs = new IntArray();
+        float[] speedNow = new float[agents], startX = new float[agents], startY = new float[agents];
+        long settleNanos = 0, idleNanos = 0, checked = 0;
+        int awake = agents;
+        for (int step = 0; step < settleSteps + idleSteps; step++) {
+            for (int a = 0; a < agents; a++) {
+                startX[a] = box[a].x;
+                startY[a] = box[a].y;
+                float cx = box[a].x + radius, cy = box[a].y + radius;
+                float dx = goalX - cx, dy = goalY - cy, len = (float)Math.sqrt(dx * dx + dy * dy);
+                if (stopped[a] || len <= rim) { stopped[a] = true; speedNow[a] = 0f; continue; }
+                float move = Math.min(speed * dt, len - rim);
+                float ox = box[a].x, oy = box[a].y;
+                dungeon.moveAndSlide(box[a], dx / len * move, dy / len * move);
+                speedNow[a] = Math.abs(box[a].x - ox) / dt + Math.abs(box[a].y - oy) / dt;
+            }
+
+            long t0 = System.nanoTime();
+            if (mode == 0) {
+                hash.clear();
+                for (int a = 0; a < agents; a++) hash.add(box[a]);
+                hash.build();
+                pairs.clear();
+                hash.queryPairs(pairs);
+                checked += pairs.size / 2;
+                for (int p = 0; p < pairs.size; p += 2) {
+                    Rectangle ra = box[pairs.get(p)], rb = box[pairs.get(p + 1)];
+                    float dx = rb.x - ra.x, dy = rb.y - ra.y, d2 = dx * dx + dy * dy, min = radius * 2f;
+                    if (d2 >= min * min || d2 <= 1e-5f) continue;
+                    float d = (float)Math.sqrt(d2), push = (min - d) * 0.5f;
+                    dungeon.moveAndSlide(ra, -dx / d * push, -dy / d * push);
+                    dungeon.moveAndSlide(rb, dx / d * push, dy / d * push);
+                }
+            } else {
+                contacts.clear();
+                for (int a = 0; a < agents; a++) {
+                    contacts.addBody(box[a].x + radius, box[a].y + radius, radius, radius, speedNow[a], rest[a], asleep[a]);
+                }
+                contacts.solve(dt);
+                checked += contacts.getLastContacts() + contacts.getLastTileContacts();
+                for (int a = 0; a < agents; a++) {
+                    float cx = contacts.getCorrectionX(a), cy = contacts.getCorrectionY(a);
+                    if (cx != 0f || cy != 0f) dungeon.moveAndSlide(box[a], cx, cy);
+                    rest[a] = contacts.getRestSeconds(a);
+                    asleep[a] = contacts.isSleeping(a);
+                }
+                awake = contacts.getLastAwake();
+            }
+            long spent = System.nanoTime() - t0;
+            if (step < settleSteps) settleNanos += spent; else idleNanos += spent;
+
+            // an agent the pile holds back (under a tenth of its step made good) has arrived too
+            for (int a = 0; a < agents; a++) {
+                if (stopped[a] || speedNow[a] == 0f) continue;
+                float mx = box[a].x - startX[a], my = box[a].y - startY[a];
+                if (mx * mx + my * my < speed * dt * 0.1f * speed * dt * 0.1f) stopped[a] = true;
+            }
+        }
+
+        int deep = 0;
+        for (int a = 0; a < agents; a++) for (int b = a + 1; b < agents; b++) {
+            float dx = box[b].x - box[a].x, dy = box[b].y - box[a].y, min = radius * 2f - radius * 0.25f;
+            if (dx * dx + dy * dy < min * min) deep++;
+        }
+        String name = mode == 0 ? "push" : mode == 1 ? "solver" : "solver+sleep";
+        System.out.printf("%-10s  %-12s  %6d  %5d  %15.1f  %13.1f  %12.1f  %5s  %11d%n", W + "x" + H, name, agents,
+                settleSteps + idleSteps, settleNanos / 1e3 / settleSteps, idleNanos / 1e3 / idleSteps,
+                (double)checked / (settleSteps + idleSteps), mode == 0 ? "-" : String.valueOf(awake), deep);
+    }
+}
@@ -0,0 +1,557 @@
+// Author: Martin Taylor
+// File: PathfindingBenchmark.java
+// Date: 2026-10-17
+// Description:
+//   Headless benchmark for path queries: the legacy sandbox A* against each
+//   TilePathfinder (checking A* returns identical paths), the moving-target
+//   planner, the navmesh, footprint-aware paths, grid line of sight, and a
+//   crowd converging with and without space-time reservations.
+//   Run with: gradlew core:pathBenchmark
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Random;
+
+public final class PathfindingBenchmark {
+
+    // Navmesh agent half-width: the sandbox's largest melee chaser
+    private static final float NAVMESH_RADIUS = 24f;
+    private static final int WARMUP_QUERIES = 200;
+
+    private PathfindingBenchmark() { }
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 20251104L;
+        System.out.println("map         engine   queries   us/query  expanded  found  notes");
+        run(100, 2000, seed);
+        run(1000, 60, seed);
+        run(2000, 30, seed);
+
+        System.out.println();
+        System.out.println("map         moving target  steps  astar(us)  astar-exp  planner(us)  planner-exp  reroots  cost");
+        runMovingTarget(100, 40, 60, seed);
+        runMovingTarget(1000, 10, 60, seed);
+
+        System.out.println();
+        System.out.println("map         navmesh  polys  build(ms)  queries  astar+smooth(us)  navmesh(us)  expanded  length");
+        runNavMesh(100, 2000, seed);
+        runNavMesh(1000, 60, seed);
+
+        System.out.println();
+        System.out.println("map         footprint  paths      agents  arrived  stuck/agent  repaths/agent");
+        for (float footprint : new float[] { 32f, 48f, 72f }) {
+            runFootprint(100, footprint, false, 300, seed);
+            runFootprint(100, footprint, true, 300, seed);
+        }
+
+        System.out.println();
+        System.out.println("map         line of sight  queries  sampled(us)  dda(us)  thick(us)  visible  missed corners");
+        runLineOfSight(100, 200000, seed);
+        runLineOfSight(1000, 200000, seed);
+
+        System.out.println();
+        System.out.println("map         crowd        agents  arrived  steps  overlaps/step  plan(us)  expanded");
+        runCrowd(100, 40, false, seed);
+        runCrowd(100, 40, true, seed);
+        runCrowd(100, 120, false, seed);
+        runCrowd(100, 120, true, seed);
+    }
+
+    private static void run(int size, int queries, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        NavGrid grid = NavGrid.build(dungeon);
+        String map = size + "x" + size;
+
+        int[] starts = new int[queries], goals = new int[queries];
+        Random rng = new Random(seed ^ size);
+        for (int q = 0; q < queries; q++) {
+            starts[q] = randomWalkable(grid, rng);
+            goals[q] = randomWalkable(grid, rng);
+        }
+
+        // Legacy reference
+        IntArray[] legacyPaths = new IntArray[queries];
+        boolean[] legacyFound = new boolean[queries];
+        for (int q = 0; q < Math.min(queries, 500); q++) legacyFindPath(grid, starts[q], goals[q], new IntArray());
+        long nanos = 0;
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            legacyPaths[q] = new IntArray();
+            long t0 = System.nanoTime();
+            legacyFound[q] = legacyFindPath(grid, starts[q], goals[q], legacyPaths[q]);
+            nanos += System.nanoTime() - t0;
+            if (legacyFound[q]) found++;
+        }
+        double legacyUs = nanos / 1000.0 / queries;
+        System.out.printf("%-10s  %-7s  %7d  %9.1f  %8s  %5d%n", map, "legacy", queries, legacyUs, "-", found);
+
+        long buildStart = System.nanoTime();
+        HierarchicalPathfinder hpa = new HierarchicalPathfinder(grid);
+        double hpaBuildMs = (System.nanoTime() - buildStart) / 1e6;
+
+        TilePathfinder[] engines = { new AStarPathfinder(grid), new JumpPointPathfinder(grid), hpa };
+        String[] names = { "astar", "jps", "hpa" };
+        for (int k = 0; k < engines.length; k++) {
+            TilePathfinder engine = engines[k];
+            IntArray path = new IntArray();
+            for (int q = 0; q < Math.min(queries, 500); q++) query(engine, grid, starts[q], goals[q], path);
+
+            nanos = 0;
+            long expanded = 0;
+            found = 0;
+            int mismatches = 0, compared = 0;
+            double excess = 0;
+            for (int q = 0; q < queries; q++) {
+                long t0 = System.nanoTime();
+                boolean ok = query(engine, grid, starts[q], goals[q], path);
+                nanos += System.nanoTime() - t0;
+                expanded += engine.getLastExpanded();
+                if (ok) found++;
+                if (ok != legacyFound[q] || !samePath(legacyPaths[q], path)) mismatches++;
+                double legacyCost = pathCost(grid, legacyPaths[q]);
+                if (ok && legacyFound[q] && legacyCost > 0) {
+                    excess += pathCost(grid, path) / legacyCost - 1.0;
+                    compared++;
+                }
+            }
+            double us = nanos / 1000.0 / queries;
+            String notes = k == 0
+                    ? String.format("%.1fx vs legacy, %d mismatches", legacyUs / Math.max(us, 1e-3), mismatches)
+                    : String.format("%.1fx vs legacy, cost %+.1f%%", legacyUs / Math.max(us, 1e-3), 100.0 * excess / Math.max(compared, 1));
+            if (engine == hpa)
+                notes += String.format(", %d nodes, build %.0f ms", hpa.getNodeCount(), hpaBuildMs);
+            System.out.printf("%-10s  %-7s  %7d  %9.1f  %8d  %5d  %s%n", map, names[k], queries, us, expanded / queries, found, notes);
+        }
+    }
+
+    // The target random-walks one tile per step and the chaser advances one
+    // tile along its path; fresh A* every step vs the incremental planner.
+    private static void runMovingTarget(int size, int agents, int steps, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        NavGrid grid = NavGrid.build(dungeon);
+        AStarPathfinder astar = new AStarPathfinder(grid);
+        MovingTargetPlanner planner = new MovingTargetPlanner(grid);
+        IntArray astarPath = new IntArray(), plannerPath = new IntArray();
+        Random rng = new Random(seed ^ (size * 31L));
+
+        long astarNanos = 0, plannerNanos = 0, astarExpanded = 0, plannerExpanded = 0;
+        int samples = 0, reroots = 0, compared = 0;
+        double excess = 0;
+        for (int a = 0; a < agents; a++) {
+            int start = randomWalkable(grid, rng), goal = randomWalkable(grid, rng);
+            planner.reset();
+            for (int step = 0; step < steps; step++) {
+                goal = randomNeighbour(grid, goal, rng);
+                int sx = grid.tileX(start), sy = grid.tileY(start), tx = grid.tileX(goal), ty = grid.tileY(goal);
+
+                long t0 = System.nanoTime();
+                boolean astarOk = astar.findPath(sx, sy, tx, ty, astarPath);
+                long t1 = System.nanoTime();
+                boolean plannerOk = planner.plan(sx, sy, tx, ty, plannerPath);
+                long t2 = System.nanoTime();
+
+                astarNanos += t1 - t0;
+                plannerNanos += t2 - t1;
+                astarExpanded += astar.getLastExpanded();
+                plannerExpanded += planner.getLastExpanded();
+                if (planner.wasLastRerooted()) reroots++;
+                samples++;
+                double astarCost = pathCost(grid, astarPath);
+                if (astarOk && plannerOk && astarCost > 0) {
+                    excess += pathCost(grid, plannerPath) / astarCost - 1.0;
+                    compared++;
+                }
+                if (plannerOk && plannerPath.size > 1) start = plannerPath.get(1);
+            }
+        }
+        System.out.printf("%-10s  %13s  %5d  %9.1f  %9d  %11.1f  %11d  %6.1f%%  %+.2f%%%n",
+                size + "x" + size, "", samples,
+                astarNanos / 1000.0 / samples, astarExpanded / samples,
+                plannerNanos / 1000.0 / samples, plannerExpanded / samples,
+                100.0 * reroots / samples, 100.0 * excess / Math.max(compared, 1));
+    }
+
+    // Tile-centre to tile-centre queries: A* plus waypoint smoothing vs a navmesh
+    // query; length is the navmesh polyline over the smoothed A* polyline.
+    private static void runNavMesh(int size, int queries, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        NavGrid grid = NavGrid.build(dungeon);
+        float half = grid.tileSize * 0.5f;
+
+        long buildStart = System.nanoTime();
+        NavMesh mesh = new NavMesh(grid, NAVMESH_RADIUS);
+        double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+        AStarPathfinder astar = new AStarPathfinder(grid);
+        IntArray tiles = new IntArray();
+        Array<Vector2> wps = new Array<>();
+        FloatArray meshPath = new FloatArray();
+        Random rng = new Random(seed ^ (size * 17L));
+
+        long astarNanos = 0, meshNanos = 0, expanded = 0;
+        double astarLength = 0, meshLength = 0;
+        for (int q = 0; q < queries + WARMUP_QUERIES; q++) {
+            int s = randomWalkable(grid, rng), t = randomWalkable(grid, rng);
+            float sx = grid.tileX(s) * grid.tileSize + half, sy = grid.tileY(s) * grid.tileSize + half;
+            float gx = grid.tileX(t) * grid.tileSize + half, gy = grid.tileY(t) * grid.tileSize + half;
+
+            long t0 = System.nanoTime();
+            boolean astarOk = query(astar, grid, s, t, tiles);
+            if (astarOk) {
+                wps.clear();
+                for (int i = tiles.size >= 2 ? 1 : 0; i < tiles.size; i++)
+                    wps.add(new Vector2(grid.tileX(tiles.get(i)) * grid.tileSize + half, grid.tileY(tiles.get(i)) * grid.tileSize + half));
+                PathSmoother.smooth(grid, wps, sx, sy);
+            }
+            long t1 = System.nanoTime();
+            boolean meshOk = mesh.findPath(sx, sy, gx, gy, meshPath);
+            long t2 = System.nanoTime();
+            if (q < WARMUP_QUERIES) continue;
+
+            astarNanos += t1 - t0;
+            meshNanos += t2 - t1;
+            expanded += mesh.getLastExpanded();
+            if (astarOk && meshOk) {
+                float px = sx, py = sy;
+                for (int i = 0; i < wps.size; i++) {
+                    astarLength += Math.hypot(wps.get(i).x - px, wps.get(i).y - py);
+                    px = wps.get(i).x; py = wps.get(i).y;
+                }
+                px = sx; py = sy;
+                for (int i = 0; i + 1 < meshPath.size; i += 2) {
+                    meshLength += Math.hypot(meshPath.get(i) - px, meshPath.get(i + 1) - py);
+                    px = meshPath.get(i); py = meshPath.get(i + 1);
+                }
+            }
+        }
+        System.out.printf("%-10s  %7s  %5d  %9.1f  %7d  %16.1f  %11.1f  %8d  %+.1f%%%n",
+                size + "x" + size, "", mesh.getPolyCount(), buildMs, queries,
+                astarNanos / 1000.0 / queries, meshNanos / 1000.0 / queries, expanded / queries,
+                100.0 * (meshLength / Math.max(astarLength, 1e-6) - 1.0));
+    }
+
+    // Same follow / per-axis slide / stuck rules as the sandbox chasers. Every
+    // stuck detection forces a repath from where the agent stands.
+    private static void runFootprint(int size, float footprint, boolean sizeAware, int agents, long seed) {
+        final float dt = 1f / 60f, speed = 140f, maxTime = 120f;
+        final float stuckEps = 0.25f, stuckTime = 0.30f, arrive = 14f;
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        NavGrid grid = NavGrid.build(dungeon);
+        AStarPathfinder astar = new AStarPathfinder(grid);
+        float probe = sizeAware ? footprint : 0f;
+        int clearanceClass = grid.clearanceClassFor(probe);
+        astar.setAgentClearance(clearanceClass);
+        AStarPathfinder reference = new AStarPathfinder(grid);
+        reference.setAgentClearance(grid.clearanceClassFor(footprint));
+        float ts = grid.tileSize, half = ts * 0.5f;
+
+        Random rng = new Random(seed ^ 0x5eedL);
+        IntArray tiles = new IntArray();
+        Array<Vector2> wps = new Array<>();
+        Rectangle box = new Rectangle();
+        int arrived = 0;
+        long stuck = 0, repaths = 0;
+        for (int a = 0; a < agents; a++) {
+            // pairs this footprint can actually travel between, so only snags count as failures
+            int start, goal;
+            do {
+                start = randomWalkable(grid, rng);
+                goal = randomWalkable(grid, rng);
+            } while (grid.wallDistanceIndex(start) < reference.getAgentClearance() || !query(reference, grid, start, goal, tiles));
+            float x = grid.tileX(start) * ts + half, y = grid.tileY(start) * ts + half;
+            float gx = grid.tileX(goal) * ts + half, gy = grid.tileY(goal) * ts + half;
+
+            boolean needPath = true;
+            int current = 0;
+            float lastX = x, lastY = y, still = 0f;
+            for (float t = 0f; t < maxTime; t += dt) {
+                if (needPath) {
+                    needPath = false;
+                    repaths++;
+                    wps.clear();
+                    current = 0;
+                    if (astar.findPath(grid.worldToTileX(x), grid.worldToTileY(y), grid.tileX(goal), grid.tileY(goal), tiles)) {
+                        for (int i = tiles.size >= 2 ? 1 : 0; i < tiles.size; i++)
+                            wps.add(new Vector2(grid.tileX(tiles.get(i)) * ts + half, grid.tileY(tiles.get(i)) * ts + half));
+                        Vector2 from = new Vector2(grid.tileX(tiles.get(0)) * ts + half, grid.tileY(tiles.get(0)) * ts + half);
+                        PathSmoother.smooth(grid, wps, from.x, from.y, probe);
+                    }
+                }
+                if ((x - gx) * (x - gx) + (y - gy) * (y - gy) < arrive * arrive) { arrived++; break; }
+
+                float tx = gx, ty = gy;
+                while (current < wps.size) {
+                    Vector2 wp = wps.get(current);
+                    if ((x - wp.x) * (x - wp.x) + (y - wp.y) * (y - wp.y) < arrive * arrive) current++;
+                    else { tx = wp.x; ty = wp.y; break; }
+                }
+                float dx = tx - x, dy = ty - y;
+                float len = (float)Math.sqrt(dx * dx + dy * dy);
+                if (len < 1e-4f) len = 1f;
+                float step = speed * dt;
+                float nx = x + dx / len * step, ny = y + dy / len * step;
+                box.set(nx - footprint * 0.5f, y - footprint * 0.5f, footprint, footprint);
+                if (!dungeon.rectBlocked(box)) x = nx;
+                box.set(x - footprint * 0.5f, ny - footprint * 0.5f, footprint, footprint);
+                if (!dungeon.rectBlocked(box)) y = ny;
+
+                if (Math.abs(x - lastX) + Math.abs(y - lastY) < stuckEps) {
+                    still += dt;
+                    if (still >= stuckTime) { stuck++; still = 0f; needPath = true; }
+                } else {
+                    still = 0f;
+                    lastX = x; lastY = y;
+                }
+            }
+        }
+        System.out.printf("%-10s  %7.0fpx  %-9s  %6d  %6.1f%%  %11.2f  %13.2f%n",
+                size + "x" + size, footprint, sizeAware ? "footprint" : "point", agents,
+                100.0 * arrived / agents, (double)stuck / agents, (double)repaths / agents);
+    }
+
+    // Random segments up to 24 tiles long between open points. "Missed corners"
+    // are segments the sampled test passed that actually clip a wall tile.
+    private static void runLineOfSight(int size, int queries, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        NavGrid grid = NavGrid.build(dungeon);
+        Random rng = new Random(seed ^ 0x105L);
+        float ts = grid.tileSize, thickHalf = 24f;
+        float[] seg = new float[queries * 4];
+        for (int q = 0; q < queries; q++) {
+            int a = randomWalkable(grid, rng), b;
+            do { b = randomWalkable(grid, rng); }
+            while (Math.abs(grid.tileX(a) - grid.tileX(b)) > 24 || Math.abs(grid.tileY(a) - grid.tileY(b)) > 24);
+            seg[q * 4]     = (grid.tileX(a) + rng.nextFloat()) * ts;
+            seg[q * 4 + 1] = (grid.tileY(a) + rng.nextFloat()) * ts;
+            seg[q * 4 + 2] = (grid.tileX(b) + rng.nextFloat()) * ts;
+            seg[q * 4 + 3] = (grid.tileY(b) + rng.nextFloat()) * ts;
+        }
+        int visible = 0, missed = 0;
+        boolean[] sampled = new boolean[queries];
+        for (int pass = 0; pass < 2; pass++) {   // first pass warms up the JIT
+            long t0 = System.nanoTime();
+            for (int q = 0; q < queries; q++)
+                sampled[q] = legacySampledLineOfSight(grid, seg[q * 4], seg[q * 4 + 1], seg[q * 4 + 2], seg[q * 4 + 3]);
+            long t1 = System.nanoTime();
+            visible = 0;
+            missed = 0;
+            for (int q = 0; q < queries; q++) {
+                boolean clear = grid.hasLineOfSight(seg[q * 4], seg[q * 4 + 1], seg[q * 4 + 2], seg[q * 4 + 3]);
+                if (clear) visible++;
+                else if (sampled[q]) missed++;
+            }
+            long t2 = System.nanoTime();
+            int thick = 0;
+            for (int q = 0; q < queries; q++)
+                if (grid.hasLineOfSight(seg[q * 4], seg[q * 4 + 1], seg[q * 4 + 2], seg[q * 4 + 3], thickHalf)) thick++;
+            long t3 = System.nanoTime();
+            if (pass == 1) {
+                System.out.printf("%-10s  %13s  %7d  %11.3f  %7.3f  %9.3f  %6.1f%%  %14d%n",
+                        size + "x" + size, "", queries,
+                        (t1 - t0) / 1000.0 / queries, (t2 - t1) / 1000.0 / queries, (t3 - t2) / 1000.0 / queries,
+                        100.0 * visible / queries, missed);
+            }
+        }
+    }
+
+    // The sandbox's original test: sample every half tile along the segment
+    private static boolean legacySampledLineOfSight(NavGrid grid, float x0, float y0, float x1, float y1) {
+        float dx = x1 - x0, dy = y1 - y0;
+        float dist = (float)Math.sqrt(dx*dx + dy*dy);
+        if (dist < 1f) return true;
+        int steps = Math.max(2, (int)(dist / (grid.tileSize * 0.5f)));
+        float sx = dx / steps, sy = dy / steps;
+        float x = x0, y = y0;
+        for (int i = 0; i <= steps; i++) {
+            if (grid.isSolidWorld(x + 0.5f, y + 0.5f)) return false;
+            if (grid.clearance(grid.worldToTileX(x), grid.worldToTileY(y)) < NavGrid.MIN_CLEAR_TILES) return false;
+            x += sx; y += sy;
+        }
+        return true;
+    }
+
+    // Discrete crowd: agents start within a few tiles' walk of one goal and take
+    // one tile per step. Independent agents follow the flow field; cooperative
+    // ones follow reserved WHCA* windows, replanning every half window. An
+    // overlap is an extra agent on an occupied tile (what the sandbox has to
+    // resolve with separation pushes). Arrivals leave the map.
+    private static void runCrowd(int size, int agents, boolean cooperative, long seed) {
+        final int maxSteps = 600, window = CooperativePlanner.DEFAULT_WINDOW, replan = window / 2;
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        NavGrid grid = NavGrid.build(dungeon);
+        FlowField field = new FlowField(grid);
+        ReservationTable table = new ReservationTable(window);
+        CooperativePlanner planner = new CooperativePlanner(grid, table, window);
+        Random rng = new Random(seed ^ 0xc0deL);
+
+        int goal;
+        do { goal = randomWalkable(grid, rng); } while (grid.wallDistanceIndex(goal) < 2);
+        field.update(grid.tileX(goal), grid.tileY(goal));
+
+        int[] at = new int[agents], planStep = new int[agents];
+        IntArray[] plans = new IntArray[agents];
+        boolean[] done = new boolean[agents];
+        for (int a = 0; a < agents; a++) {
+            int t;
+            do { t = randomWalkable(grid, rng); }
+            while (t == goal || field.costAt(grid.tileX(t), grid.tileY(t)) > 30f);
+            at[a] = t;
+            plans[a] = new IntArray();
+            planStep[a] = -1;
+        }
+
+        int[] occupancy = new int[grid.size()];
+        long overlaps = 0, planNanos = 0, expanded = 0, arrivalSteps = 0;
+        int planCount = 0, arrived = 0, steps = 0;
+        for (int step = 0; step < maxSteps && arrived < agents; step++) {
+            for (int a = 0; a < agents; a++) {
+                if (done[a]) continue;
+                int x = grid.tileX(at[a]), y = grid.tileY(at[a]);
+                int next;
+                if (cooperative) {
+                    int k = planStep[a] < 0 ? -1 : step - planStep[a];
+                    if (k < 0 || k >= replan) {
+                        if (planStep[a] >= 0) planner.release(a, plans[a], planStep[a], step);
+                        long t0 = System.nanoTime();
+                        boolean ok = planner.plan(a, x, y, field, step, plans[a]);
+                        planNanos += System.nanoTime() - t0;
+                        expanded += planner.getLastExpanded();
+                        planCount++;
+                        planStep[a] = ok ? step : -1;
+                        k = 0;
+                    }
+                    next = planStep[a] >= 0 ? plans[a].get(k + 1) : field.nextTile(x, y);
+                } else {
+                    next = field.nextTile(x, y);
+                }
+                if (next >= 0) at[a] = next;
+                if (at[a] == goal) {
+                    done[a] = true;
+                    arrived++;
+                    arrivalSteps += step + 1;
+                    if (planStep[a] >= 0) planner.release(a, plans[a], planStep[a], step + 1);
+                }
+            }
+            for (int a = 0; a < agents; a++) {
+                if (!done[a] && occupancy[at[a]]++ > 0) overlaps++;
+            }
+            for (int a = 0; a < agents; a++) occupancy[at[a]] = 0;
+            steps++;
+        }
+        System.out.printf("%-10s  %-11s  %6d  %6.1f%%  %5.1f  %13.2f  %8.1f  %8d%n",
+                size + "x" + size, cooperative ? "cooperative" : "independent", agents,
+                100.0 * arrived / agents, arrivalSteps / (double)Math.max(arrived, 1),
+                overlaps / (double)steps,
+                planCount == 0 ? 0.0 : planNanos / 1000.0 / planCount, planCount == 0 ? 0 : expanded / planCount);
+    }
+
+    private static int randomNeighbour(NavGrid grid, int tile, Random rng) {
+        int x = grid.tileX(tile), y = grid.tileY(tile);
+        for (int tries = 0; tries < 8; tries++) {
+            int i = rng.nextInt(4);
+            int nx = x + AStarPathfinder.DX8[i], ny = y + AStarPathfinder.DY8[i];
+            if (grid.isWalkable(nx, ny)) return grid.index(nx, ny);
+        }
+        return tile;
+    }
+
+    private static boolean query(TilePathfinder engine, NavGrid grid, int s, int t, IntArray out) {
+        return engine.findPath(grid.tileX(s), grid.tileY(s), grid.tileX(t), grid.tileY(t), out);
+    }
+
+    // Path cost under the A* cost model (step + clearance soft cost)
+    private static double pathCost(NavGrid grid, IntArray path) {
+        double cost = 0;
+        for (int i = 1; i < path.size; i++) {
+            int a = path.get(i - 1), b = path.get(i);
+            boolean diagonal = grid.tileX(a) != grid.tileX(b) && grid.tileY(a) != grid.tileY(b);
+            cost += (diagonal ? 1.41421356 : 1.0) + grid.softCostIndex(b);
+        }
+        return cost;
+    }
+
+    private static int randomWalkable(NavGrid grid, Random rng) {
+        while (true) {
+            int i = rng.nextInt(grid.size());
+            if (grid.isWalkableIndex(i)) return i;
+        }
+    }
+
+    private static boolean samePath(IntArray a, IntArray b) {
+        if (a.size != b.size) return false;
+        for (int i = 0; i < a.size; i++) if (a.get(i) != b.get(i)) return false;
+        return true;
+    }
+
+    // ------------------------------------------------------------------------
+    // Legacy reference: the original EnemySandboxApp.findPathAStar search,
+    // kept verbatim apart from reading the NavGrid instead of the app fields.
+    // ------------------------------------------------------------------------
+    private static class Node {
+        int x,y; float g,f; Node parent;
+        Node(int x,int y,float g,float f,Node p){this.x=x;this.y=y;this.g=g;this.f=f;this.parent=p;}
+    }
+
+    private static boolean legacyFindPath(NavGrid grid, int startIndex, int goalIndex, IntArray out) {
+        out.clear();
+        int sx = grid.tileX(startIndex), sy = grid.tileY(startIndex);
+        int tx = grid.tileX(goalIndex), ty = grid.tileY(goalIndex);
+
+        final int W=grid.width,H=grid.height;
+        final int[] dx8={1,-1,0,0, 1, 1,-1,-1};
+        final int[] dy8={0,0,1,-1,1,-1, 1,-1};
+        final float[] stepCost={1,1,1,1,1.41421356f,1.41421356f,1.41421356f,1.41421356f};
+
+        float[][] bestG=new float[W][H];
+        for(int x=0;x<W;x++) for(int y=0;y<H;y++) bestG[x][y]=Float.POSITIVE_INFINITY;
+
+        Array<Node> open=new Array<>(256);
+        Node start=new Node(sx,sy,0f,AStarPathfinder.heuristicOctile(sx,sy,tx,ty),null);
+        open.add(start); bestG[sx][sy]=0f;
+
+        Node goal=null;
+        int guard=AStarPathfinder.DEFAULT_MAX_EXPANSIONS;
+        while (open.size>0 && guard-- > 0){
+            int bi=0; float bf=open.get(0).f;
+            for (int i=1;i<open.size;i++){ if(open.get(i).f<bf){bf=open.get(i).f;bi=i;} }
+            Node cur=open.removeIndex(bi);
+            if (cur.x==tx && cur.y==ty) { goal=cur; break; }
+
+            for (int i=0;i<8;i++){
+                int nx=cur.x+dx8[i], ny=cur.y+dy8[i];
+                if (!grid.inBounds(nx,ny) || grid.isSolid(nx,ny)) continue;
+
+                float clear = grid.clearance(nx,ny);
+                if (clear < NavGrid.MIN_CLEAR_TILES) continue;
+                if (i>=4){
+                    if (grid.isSolid(cur.x+dx8[i],cur.y) || grid.isSolid(cur.x, cur.y+dy8[i])) continue;
+                }
+                float ng = cur.g + stepCost[i];
+                if (clear < NavGrid.PREFERRED_CLEAR_TILES) ng += NavGrid.CLEAR_SOFTCOST*(NavGrid.PREFERRED_CLEAR_TILES - clear);
+
+                if (ng < bestG[nx][ny]){
+                    bestG[nx][ny]=ng;
+                    float nf = ng + AStarPathfinder.heuristicOctile(nx,ny,tx,ty);
+                    open.add(new Node(nx,ny,ng,nf,cur));
+                }
+            }
+        }
+        if (goal==null) return false;
+
+        for(Node n=goal; n!=null; n=n.parent) out.add(grid.index(n.x, n.y));
+        out.reverse();
+        return true;
+    }
+}
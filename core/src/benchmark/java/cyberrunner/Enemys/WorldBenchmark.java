@@ -0,0 +1,304 @@
+// Author: Martin Taylor
+// File: WorldBenchmark.java
+// Date: 2026-10-17
+// Description:
+//   Headless benchmark for building and querying levels: generation per
+//   stage for each stock pipeline, the nav grid build, cached level loads,
+//   spawn placement, nearest-open snapping, and a long run through the
+//   chunked endless dungeon to show memory stays bounded.
+//   Run with: gradlew core:worldBenchmark
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+import java.util.Random;
+
+public final class WorldBenchmark {
+
+    private WorldBenchmark() { }
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 20251104L;
+        System.out.println("map         navgrid build(ms)  cores");
+        for (int size : new int[] { 1000, 2000, 4000 }) runGridBuild(size, seed);
+
+        System.out.println();
+        System.out.println("map         generator  total(ms)  alloc(KB)  open    joined  filled  stages (ms / KB)");
+        for (int size : new int[] { 100, 1000, 4000 }) {
+            runGeneration(size, GeneratorPipeline.classic(), seed);
+            runGeneration(size, GeneratorPipeline.bsp(), seed);
+            runGeneration(size, GeneratorPipeline.cellular(), seed);
+        }
+
+        System.out.println();
+        System.out.println("map         level cache  rebuild(ms)  store(ms)  load(ms)  file KB  identical");
+        for (int size : new int[] { 100, 1000, 4000 }) runLevelCache(size, seed);
+
+        System.out.println();
+        System.out.println("map         spawn  min dist  guesses(us)  failed  stranded  index(us)  failed  build(ms)");
+        runSpawn(100, 8f, seed);
+        runSpawn(100, 45f, seed);
+        runSpawn(1000, 8f, seed);
+        runSpawn(1000, 400f, seed);
+
+        System.out.println();
+        System.out.println("map         nearest open  queries  spiral(ns)  table(ns)  build(ms)  spiral farther");
+        runNearestOpen(100, 200000, seed);
+        runNearestOpen(1000, 200000, seed);
+
+        System.out.println();
+        System.out.println("endless     tiles run  generated  us/chunk  clearance  evicted  peak chunks  peak KB");
+        runEndless(2000, 2L * 1024 * 1024, seed);
+        runEndless(20000, 2L * 1024 * 1024, seed);
+    }
+
+    // Solidity copy, exact distance transform, and gradient table; best of three
+    private static void runGridBuild(int size, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        NavGrid.build(dungeon);
+        long best = Long.MAX_VALUE;
+        for (int rep = 0; rep < 3; rep++) {
+            long t0 = System.nanoTime();
+            NavGrid.build(dungeon);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        System.out.printf("%-10s  %17.1f  %5d%n", size + "x" + size, best / 1e6, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Best of a few runs after a warm-up; bytes are what this thread allocated
+    // inside each stage (-1 where the JVM cannot report it)
+    private static void runGeneration(int size, GeneratorPipeline pipeline, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        final int stages = pipeline.getStageCount();
+        final long[] stageBytes = new long[stages];
+        final long[] stageNanos = new long[stages];
+        final long[] bytesAtStart = new long[1];
+        final int[] stageIndex = new int[1];
+        pipeline.setListener(new GeneratorPipeline.Listener() {
+            @Override public void onStageStart(String stage) { bytesAtStart[0] = allocatedBytes(); }
+            @Override public void onStageEnd(String stage, long nanos) {
+                long now = allocatedBytes();
+                stageBytes[stageIndex[0]++] = now < 0 ? -1 : now - bytesAtStart[0];
+            }
+        });
+
+        int runs = size >= 4000 ? 2 : (size >= 1000 ? 4 : 20);
+        long bestTotal = Long.MAX_VALUE;
+        long[] bestBytes = new long[stages];
+        for (int r = 0; r < runs; r++) {
+            stageIndex[0] = 0;
+            dungeon.generate(pipeline, seed);
+            if (pipeline.getLastTotalNanos() < bestTotal) {
+                bestTotal = pipeline.getLastTotalNanos();
+                for (int i = 0; i < stages; i++) stageNanos[i] = pipeline.getLastStageNanos(i);
+                System.arraycopy(stageBytes, 0, bestBytes, 0, stages);
+            }
+        }
+        pipeline.setListener(null);
+
+        long open = 0, totalBytes = 0;
+        for (int ty = 0; ty < size; ty++) open += size - dungeon.countSolid(0, ty, size - 1, ty);
+        StringBuilder detail = new StringBuilder();
+        for (int i = 0; i < stages; i++) {
+            totalBytes = bestBytes[i] < 0 || totalBytes < 0 ? -1 : totalBytes + bestBytes[i];
+            detail.append(String.format("%s %.1f/%d  ", pipeline.getStageName(i), stageNanos[i] / 1e6,
+                    bestBytes[i] < 0 ? -1 : bestBytes[i] / 1024));
+        }
+        System.out.printf("%-10s  %-9s  %9.1f  %9d  %4.1f%%  %6d  %6d  %s%n", size + "x" + size, pipeline.getName(),
+                bestTotal / 1e6, totalBytes < 0 ? -1 : totalBytes / 1024, 100.0 * open / ((long)size * size),
+                pipeline.getLastRegionsJoined(), pipeline.getLastRegionsFilled(), detail);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Rebuild = generate + NavGrid.build; load = mapped read of the cached file
+    private static void runLevelCache(int size, long seed) {
+        java.io.File dir;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("levelcache").toFile();
+        } catch (java.io.IOException e) {
+            System.out.printf("%-10s  %s%n", size + "x" + size, "no temp dir: " + e.getMessage());
+            return;
+        }
+        DungeonGenerator generator = GeneratorPipeline.classic();
+        DungeonCache cache = new DungeonCache(dir);
+        Dungeon built = new Dungeon(size, size, 64);
+        long t0 = System.nanoTime();
+        built.generate(generator, seed);
+        NavGrid grid = NavGrid.build(built);
+        long rebuild = System.nanoTime() - t0;
+        t0 = System.nanoTime();
+        try {
+            cache.store(built, grid, generator, seed);
+        } catch (java.io.IOException e) {
+            System.out.printf("%-10s  %s%n", size + "x" + size, "store failed: " + e.getMessage());
+            return;
+        }
+        long store = System.nanoTime() - t0;
+
+        Dungeon loaded = new Dungeon(size, size, 64);
+        long load = Long.MAX_VALUE;
+        NavGrid cached = null;
+        for (int r = 0; r < 3; r++) {
+            t0 = System.nanoTime();
+            cached = cache.load(loaded, generator, seed);
+            load = Math.min(load, System.nanoTime() - t0);
+        }
+        boolean same = cached != null;
+        for (int ty = 0; same && ty < size; ty++) {
+            for (int tx = 0; tx < size; tx++) {
+                if (loaded.isSolid(tx, ty) != built.isSolid(tx, ty) || cached.clearance(tx, ty) != grid.clearance(tx, ty)
+                        || cached.wallDistance(tx, ty) != grid.wallDistance(tx, ty)
+                        || cached.clearanceGradientX(tx, ty) != grid.clearanceGradientX(tx, ty)) { same = false; break; }
+            }
+        }
+        java.io.File file = cache.fileFor(generator, seed, size, size);
+        long kb = file.length() / 1024;
+        file.delete();
+        dir.delete();
+        System.out.printf("%-10s  %11s  %11.1f  %9.1f  %8.1f  %7d  %9s%n", size + "x" + size, "",
+                rebuild / 1e6, store / 1e6, load / 1e6, kb, same ? "yes" : "NO");
+    }
+
+    // 72px boxes (clearance class 2) spawned away from a player at the map centre.
+    // "stranded" = a guess that passed the old checks but cannot reach the player
+    private static void runSpawn(int size, float minDistTiles, long seed) {
+        final int spawns = 20000;
+        final float box = 72f, inset = 12f;   // the sandbox hobgoblin and its collision inset
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        NavGrid grid = NavGrid.build(dungeon);
+        int px = size / 2, py = size / 2;
+        long t0 = System.nanoTime();
+        SpawnIndex index = new SpawnIndex(grid, px, py, 3);
+        double buildMs = (System.nanoTime() - t0) / 1e6;
+        int clearanceClass = grid.clearanceClassFor(box - 2f * inset);
+
+        Random rng = new Random(seed ^ 0x5bL);
+        Rectangle rect = new Rectangle();
+        int legacyFailed = 0, stranded = 0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < spawns; i++) {
+            int tile = legacySpawn(dungeon, grid, rect, box, inset, px, py, minDistTiles, rng);
+            if (tile < 0) legacyFailed++;
+            else if (!index.isReachable(grid.tileX(tile), grid.tileY(tile))) stranded++;
+        }
+        double legacyUs = (System.nanoTime() - t0) / 1000.0 / spawns;
+
+        int failed = 0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < spawns; i++) {
+            if (index.sample(clearanceClass, px, py, minDistTiles, rng) < 0) failed++;
+        }
+        double indexUs = (System.nanoTime() - t0) / 1000.0 / spawns;
+        System.out.printf("%-10s  %5s  %8.0f  %11.2f  %5.1f%%  %8d  %9.2f  %5.1f%%  %9.1f%n", size + "x" + size, "",
+                minDistTiles, legacyUs, 100.0 * legacyFailed / spawns, stranded, indexUs, 100.0 * failed / spawns, buildMs);
+    }
+
+    // The sandbox's old spawnAnywhere: 80 random guesses, -1 if all fail
+    private static int legacySpawn(Dungeon dungeon, NavGrid grid, Rectangle rect, float box, float inset,
+                                   int px, int py, float minDistTiles, Random rng) {
+        for (int tries = 0; tries < 80; tries++) {
+            int tx = 1 + rng.nextInt(dungeon.width - 2), ty = 1 + rng.nextInt(dungeon.height - 2);
+            if (dungeon.isSolid(tx, ty) || grid.clearance(tx, ty) < NavGrid.MIN_CLEAR_TILES) continue;
+            float cx = tx * 64f + 32f, cy = ty * 64f + 32f;
+            rect.set(cx - box * 0.5f + inset, cy - box * 0.5f + inset, box - 2f * inset, box - 2f * inset);
+            if (dungeon.rectBlocked(rect)) continue;
+            float dx = tx - px, dy = ty - py;
+            if (dx * dx + dy * dy < minDistTiles * minDistTiles) continue;
+            return grid.index(tx, ty);
+        }
+        return -1;
+    }
+
+    // Points inside walls (where snapping actually runs); "spiral farther" counts
+    // answers where the ring spiral's first hit was not the closest open tile
+    private static void runNearestOpen(int size, int queries, long seed) {
+        Dungeon dungeon = new Dungeon(size, size, 64);
+        dungeon.generate(seed);
+        Random rng = new Random(seed ^ 0x0fe1L);
+        float[] xy = new float[queries * 2];
+        for (int q = 0; q < queries; q++) {
+            int tx, ty;
+            do { tx = rng.nextInt(size); ty = rng.nextInt(size); } while (!dungeon.isSolid(tx, ty));
+            xy[q * 2] = tx * 64f + rng.nextFloat() * 64f;
+            xy[q * 2 + 1] = ty * 64f + rng.nextFloat() * 64f;
+        }
+        long t0 = System.nanoTime();
+        dungeon.nearestOpenTiles();
+        double buildMs = (System.nanoTime() - t0) / 1e6;
+
+        Vector2 out = new Vector2();
+        double sink = 0;
+        for (int q = 0; q < 20000; q++) sink += legacyNearestOpen(dungeon, xy[q * 2], xy[q * 2 + 1], 12)[0];
+        t0 = System.nanoTime();
+        int farther = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] p = legacyNearestOpen(dungeon, xy[q * 2], xy[q * 2 + 1], 12);
+            sink += p[0];
+        }
+        double spiralNs = (double)(System.nanoTime() - t0) / queries;
+        for (int q = 0; q < 20000; q++) if (dungeon.nearestOpen(xy[q * 2], xy[q * 2 + 1], 12, out)) sink += out.x;
+        t0 = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            if (dungeon.nearestOpen(xy[q * 2], xy[q * 2 + 1], 12, out)) sink += out.x;
+        }
+        double tableNs = (double)(System.nanoTime() - t0) / queries;
+        for (int q = 0; q < queries; q++) {
+            float[] p = legacyNearestOpen(dungeon, xy[q * 2], xy[q * 2 + 1], 12);
+            if (!dungeon.nearestOpen(xy[q * 2], xy[q * 2 + 1], 12, out)) continue;
+            float sx = (float)Math.floor(xy[q * 2] / 64f) * 64f + 32f, sy = (float)Math.floor(xy[q * 2 + 1] / 64f) * 64f + 32f;
+            if (Vector2.dst2(p[0], p[1], sx, sy) > Vector2.dst2(out.x, out.y, sx, sy) + 1e-3f) farther++;
+        }
+        if (sink == 0) System.out.println();   // keep the reads alive
+        System.out.printf("%-10s  %12s  %7d  %10.1f  %9.1f  %9.1f  %14d%n", size + "x" + size, "",
+                queries, spiralNs, tableNs, buildMs, farther);
+    }
+
+    // The old Dungeon.nearestOpen: square rings outward, a new array per answer
+    private static float[] legacyNearestOpen(Dungeon dungeon, float worldX, float worldY, int maxRadiusTiles) {
+        int sx = (int)Math.floor(worldX / dungeon.tileSize), sy = (int)Math.floor(worldY / dungeon.tileSize);
+        float half = dungeon.tileSize * 0.5f;
+        if (!dungeon.isSolid(sx, sy)) return new float[]{ sx * dungeon.tileSize + half, sy * dungeon.tileSize + half };
+        for (int radius = 1; radius <= maxRadiusTiles; radius++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                int x = sx + dx;
+                if (!dungeon.isSolid(x, sy + radius)) return new float[]{ x * dungeon.tileSize + half, (sy + radius) * dungeon.tileSize + half };
+                if (!dungeon.isSolid(x, sy - radius)) return new float[]{ x * dungeon.tileSize + half, (sy - radius) * dungeon.tileSize + half };
+            }
+            for (int dy = -radius + 1; dy <= radius - 1; dy++) {
+                int y = sy + dy;
+                if (!dungeon.isSolid(sx + radius, y)) return new float[]{ (sx + radius) * dungeon.tileSize + half, y * dungeon.tileSize + half };
+                if (!dungeon.isSolid(sx - radius, y)) return new float[]{ (sx - radius) * dungeon.tileSize + half, y * dungeon.tileSize + half };
+            }
+        }
+        return new float[]{ 0f, 0f };
+    }
+
+    // A runner heads east with some drift, keeping two chunks around it loaded
+    // and reading clearance under its feet, as the endless mode would
+    private static void runEndless(int tiles, long budgetBytes, long seed) {
+        ChunkedDungeon world = new ChunkedDungeon(seed, ChunkedDungeon.DEFAULT_CHUNK_TILES, 64, budgetBytes);
+        float x = world.spawnX(), y = world.spawnY();
+        double sink = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < tiles; i++) {
+            x += 64f;
+            y += (float)Math.sin(i * 0.01) * 32f;
+            world.ensureLoaded(x, y, 2);
+            sink += world.clearance((int)Math.floor(x / 64f), (int)Math.floor(y / 64f));
+        }
+        long nanos = System.nanoTime() - t0;
+        if (sink < 0) System.out.println();   // keep the reads alive
+        System.out.printf("%-10s  %9d  %9d  %8.1f  %9d  %7d  %11d  %7d%n",
+                "", tiles, world.getGeneratedCount(), nanos / 1000.0 / Math.max(1, world.getGeneratedCount()),
+                world.getClearanceBuilds(), world.getEvictedCount(), world.getPeakChunks(), world.getPeakBytes() / 1024);
+    }
+}
@@ -0,0 +1,214 @@
+// Author: Martin Taylor
+// File: AStarPathfinder.java
+// Date: 2026-10-17
+// Description:
+//   8-connected A* over a NavGrid with the clearance soft cost. All search
+//   buffers are allocated once and stamped with a search generation, so a
+//   query never clears arrays and never allocates per node.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Reusable A* engine. Not thread-safe: give each thread its own instance.
+ * Like the original sandbox search it keeps duplicate open entries instead of
+ * decreasing keys, so it expands nodes in the same order and returns the same
+ * tile paths; entries are just pooled ints/floats instead of Node objects.
+ * The search can also be run a slice at a time through begin/step.
+ */
+public class AStarPathfinder implements IncrementalPathfinder {
+
+    /** Node expansion cap per query (matches the old sandbox guard). */
+    public static final int DEFAULT_MAX_EXPANSIONS = 15000;
+
+    static final int[] DX8 = {1,-1,0,0, 1, 1,-1,-1};
+    static final int[] DY8 = {0,0,1,-1,1,-1, 1,-1};
+    static final float[] STEP_COST = {1,1,1,1,1.41421356f,1.41421356f,1.41421356f,1.41421356f};
+
+    private final NavGrid grid;
+
+    // Best g per tile, valid only where seen[i] == generation
+    private final float[] bestG;
+    private final int[] seen;
+    private int generation = 0;
+
+    // Search entries (one per push, like the old Node objects), grow-only
+    private int[] entryNode = new int[1024];
+    private int[] entryParent = new int[1024];
+    private float[] entryG = new float[1024];
+    private float[] entryF = new float[1024];
+    private int entryCount = 0;
+
+    // Open list: binary heap of entry ids ordered by (f, push order)
+    private int[] heap = new int[1024];
+    private int heapSize = 0;
+
+    private int maxExpansions = DEFAULT_MAX_EXPANSIONS;
+    private int agentClearance = 1;
+    private int lastExpanded = 0;
+
+    // In-flight search (see begin/step)
+    private int status = FAILED;
+    private int goal, goalX, goalY;
+    private int goalEntry = -1;
+
+    public AStarPathfinder(NavGrid grid) {
+        this.grid = grid;
+        this.bestG = new float[grid.size()];
+        this.seen = new int[grid.size()];
+    }
+
+    @Override
+    public NavGrid getGrid() { return grid; }
+
+    public void setMaxExpansions(int maxExpansions) { this.maxExpansions = Math.max(1, maxExpansions); }
+    public int getMaxExpansions() { return maxExpansions; }
+
+    @Override
+    public void setAgentClearance(int clearanceClass) { this.agentClearance = Math.max(1, clearanceClass); }
+    public int getAgentClearance() { return agentClearance; }
+
+    @Override
+    public int getLastExpanded() { return lastExpanded; }
+
+    @Override
+    public boolean findPath(int sx, int sy, int tx, int ty, IntArray outTiles) {
+        begin(sx, sy, tx, ty);
+        step(Integer.MAX_VALUE);
+        return buildPath(outTiles);
+    }
+
+    @Override
+    public void begin(int sx, int sy, int tx, int ty) {
+        lastExpanded = 0;
+        goalEntry = -1;
+        entryCount = 0;
+        heapSize = 0;
+        if (!grid.inBounds(sx, sy) || !grid.inBounds(tx, ty)) { status = FAILED; return; }
+
+        final int start = grid.index(sx, sy);
+        goalX = tx; goalY = ty;
+        goal = grid.index(tx, ty);
+
+        nextGeneration();
+        seen[start] = generation;
+        bestG[start] = 0f;
+        heapPush(newEntry(start, -1, 0f, heuristicOctile(sx, sy, tx, ty)));
+        status = RUNNING;
+    }
+
+    @Override
+    public int step(int maxSteps) {
+        if (status != RUNNING) return status;
+
+        final int W = grid.width;
+        final int tx = goalX, ty = goalY;
+        int expansions = lastExpanded;
+        int budget = maxSteps;
+        while (heapSize > 0 && expansions < maxExpansions && budget-- > 0) {
+            int e = heapPop();
+            expansions++;
+            int cur = entryNode[e];
+            if (cur == goal) { goalEntry = e; break; }
+
+            int cx = cur % W, cy = cur / W;
+            float cg = entryG[e];
+            for (int i = 0; i < 8; i++) {
+                int nx = cx + DX8[i], ny = cy + DY8[i];
+                if (!grid.inBounds(nx, ny)) continue;
+                int ni = nx + ny * W;
+                if (!grid.isWalkableIndex(ni, agentClearance)) continue;
+                if (i >= 4) {
+                    if (grid.isSolid(nx, cy) || grid.isSolid(cx, ny)) continue;
+                }
+                float ng = cg + STEP_COST[i];
+                ng += grid.softCostIndex(ni);
+
+                if (seen[ni] != generation || ng < bestG[ni]) {
+                    seen[ni] = generation;
+                    bestG[ni] = ng;
+                    heapPush(newEntry(ni, e, ng, ng + heuristicOctile(nx, ny, tx, ty)));
+                }
+            }
+        }
+        lastExpanded = expansions;
+        if (goalEntry >= 0) status = FOUND;
+        else if (heapSize == 0 || expansions >= maxExpansions) status = FAILED;
+        return status;
+    }
+
+    @Override
+    public boolean buildPath(IntArray outTiles) {
+        outTiles.clear();
+        if (status != FOUND) return false;
+        for (int e = goalEntry; e != -1; e = entryParent[e]) outTiles.add(entryNode[e]);
+        outTiles.reverse();
+        return true;
+    }
+
+    private void nextGeneration() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            generation = 1;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Entry pool + heap (entry ids double as FIFO tie-break)
+    // ------------------------------------------------------------------------
+    private int newEntry(int node, int parentEntry, float gScore, float fScore) {
+        if (entryCount == entryNode.length) {
+            int cap = entryCount * 2;
+            entryNode = Arrays.copyOf(entryNode, cap);
+            entryParent = Arrays.copyOf(entryParent, cap);
+            entryG = Arrays.copyOf(entryG, cap);
+            entryF = Arrays.copyOf(entryF, cap);
+        }
+        int e = entryCount++;
+        entryNode[e] = node;
+        entryParent[e] = parentEntry;
+        entryG[e] = gScore;
+        entryF[e] = fScore;
+        return e;
+    }
+
+    private boolean before(int a, int b) {
+        float fa = entryF[a], fb = entryF[b];
+        return fa < fb || (fa == fb && a < b);
+    }
+
+    private void heapPush(int e) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        int slot = heapSize++;
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            if (!before(e, heap[parentSlot])) break;
+            heap[slot] = heap[parentSlot];
+            slot = parentSlot;
+        }
+        heap[slot] = e;
+    }
+
+    private int heapPop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        int slot = 0, half = heapSize >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) child++;
+            if (!before(heap[child], last)) break;
+            heap[slot] = heap[child];
+            slot = child;
+        }
+        if (heapSize > 0) heap[slot] = last;
+        return top;
+    }
+
+    static float heuristicOctile(int x0, int y0, int x1, int y1) {
+        float dx = Math.abs(x1 - x0), dy = Math.abs(y1 - y0), mi = Math.min(dx, dy), ma = Math.max(dx, dy);
+        return (float)(1.41421356 * mi + (ma - mi));
+    }
+}
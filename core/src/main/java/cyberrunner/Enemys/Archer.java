@@ -67,9 +67,9 @@ public class Archer extends Enemy {
 
         moveToward(target.x, target.y, dt, ctx);
 
-        // Shoot when ready
-        fireCooldown -= dt;
-        if (fireCooldown <= 0f) {
+        // Shoot when ready, and only with a clear view (holds the shot behind walls)
+        fireCooldown = Math.max(0f, fireCooldown - dt);
+        if (fireCooldown <= 0f && ctx.isVisibleToPlayer(centerX, centerY)) {
             fireCooldown = FIRE_INTERVAL;
 
             Vector2 dir = new Vector2(player.x - centerX, player.y - centerY);
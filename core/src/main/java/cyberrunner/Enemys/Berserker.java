@@ -63,6 +63,7 @@ public class Berserker extends Enemy {
                 break;
             }
             case CHARGING: {
+                velocity.setZero();
                 chargeTimer -= dt;
                 if (chargeTimer <= 0f) {
                     // lock dash direction at charge end
@@ -75,9 +76,8 @@ public class Berserker extends Enemy {
             case DASHING: {
                 float step = DASH_SPEED * dt;
 
-                float oldX = b.x, oldY = b.y;
-                b.x = oldX + dashDir.x * step; if (ctx.isBlocked(b)) b.x = oldX;
-                b.y = oldY + dashDir.y * step; if (ctx.isBlocked(b)) b.y = oldY;
+                // committed: the dash is not steered, but others see its velocity and give way
+                moveBy(dashDir.x * step, dashDir.y * step, dt, ctx);
 
                 dashTimer -= dt;
                 if (dashTimer <= 0f) {
@@ -87,6 +87,7 @@ public class Berserker extends Enemy {
                 break;
             }
             case RECOVER: {
+                velocity.setZero();
                 recoverTimer -= dt;
                 if (recoverTimer <= 0f) state = State.APPROACH;
                 break;
@@ -0,0 +1,343 @@
+// Author: Martin Taylor
+// File: ChunkedDungeon.java
+// Date: 2026-10-17
+// Description:
+//   Endless dungeon split into fixed-size square chunks. Each chunk is
+//   generated on demand from (seed, chunkX, chunkY) alone, with corridor
+//   doors placed by the shared border so neighbours always line up, and
+//   the least recently used chunks are dropped once a memory budget is
+//   passed (regenerating one later gives the same tiles).
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * World-space tile queries over an unbounded grid (tile coordinates may be
+ * negative). Every chunk holds a small {@link Dungeon} for its tiles, so
+ * region queries stay word-parallel inside a chunk, plus a clearance field
+ * built on first use from the chunk and a margin of its neighbours.
+ * <p>
+ * Each chunk has a hub room joined by 3-wide corridors to one door on each
+ * side and to a few side rooms. A door's position comes from a hash of the
+ * border it sits on, so the chunks on both sides carve to the same spot and
+ * the whole world is connected.
+ * <p>
+ * Chunks are kept in an LRU list; {@link #ensureLoaded} prefetches the area
+ * around the camera or an agent, and the budget must comfortably exceed
+ * that working set. Game thread only.
+ */
+public class ChunkedDungeon {
+
+    public static final int DEFAULT_CHUNK_TILES = 64;
+    public static final long DEFAULT_BUDGET_BYTES = 8L * 1024 * 1024;
+
+    /** Clearance is exact up to this many tiles and capped there. */
+    public static final int CLEARANCE_MARGIN = 8;
+
+    private static final int MIN_RESIDENT_CHUNKS = 16;
+    private static final int CHUNK_OVERHEAD_BYTES = 160;   // Chunk + Dungeon objects, map entry
+
+    /** One generated chunk. */
+    static final class Chunk {
+        final int cx, cy;
+        final Dungeon tiles;
+        final int hubX, hubY;        // local tile at the hub room's centre
+        float[] clearance;           // lazily built, chunk-local row-major
+        Chunk prev, next;            // LRU list, head = most recent
+
+        Chunk(int cx, int cy, Dungeon tiles, int hubX, int hubY) {
+            this.cx = cx; this.cy = cy; this.tiles = tiles; this.hubX = hubX; this.hubY = hubY;
+        }
+    }
+
+    public final long seed;
+    public final int chunkTiles;
+    public final int tileSize;
+    private final int chunkShift;    // chunkTiles == 1 << chunkShift
+    private final long budgetBytes;
+
+    private final LongMap<Chunk> chunks = new LongMap<>();
+    private Chunk head, tail;
+    private Chunk last;              // most recent lookup, skips the map for runs of nearby queries
+    private long bytesHeld = 0;
+
+    private final GridRaycast.TileTest openTile = (tx, ty) -> !isSolid(tx, ty);
+
+    private long generated = 0, evicted = 0, clearanceBuilds = 0;
+    private long peakBytes = 0;
+    private int peakChunks = 0;
+
+    public ChunkedDungeon(long seed) {
+        this(seed, DEFAULT_CHUNK_TILES, 64, DEFAULT_BUDGET_BYTES);
+    }
+
+    /** chunkTiles must be a power of two, at least 32. */
+    public ChunkedDungeon(long seed, int chunkTiles, int tileSize, long budgetBytes) {
+        if (chunkTiles < 32 || Integer.bitCount(chunkTiles) != 1) {
+            throw new IllegalArgumentException("chunkTiles must be a power of two >= 32: " + chunkTiles);
+        }
+        this.seed = seed;
+        this.chunkTiles = chunkTiles;
+        this.tileSize = tileSize;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkTiles);
+        this.budgetBytes = Math.max(budgetBytes, MIN_RESIDENT_CHUNKS * chunkBytes(true));
+    }
+
+    // ------------------------------------------------------------------------
+    // Tile queries (global tile coordinates)
+    // ------------------------------------------------------------------------
+    public boolean isSolid(int tx, int ty) {
+        Chunk c = chunk(tx >> chunkShift, ty >> chunkShift);
+        int mask = chunkTiles - 1;
+        return c.tiles.isSolid(tx & mask, ty & mask);
+    }
+
+    public boolean isSolidWorld(float worldX, float worldY) {
+        return isSolid((int)Math.floor(worldX / tileSize), (int)Math.floor(worldY / tileSize));
+    }
+
+    /** Same exact box test as {@link Dungeon#rectBlocked}, split along chunk borders. */
+    public boolean rectBlocked(Rectangle rect) {
+        float epsilon = 0.5f;
+        int left   = (int)Math.floor((rect.x + epsilon) / tileSize);
+        int bottom = (int)Math.floor((rect.y + epsilon) / tileSize);
+        int right  = Math.max(left,   (int)Math.floor((rect.x + rect.width  - epsilon) / tileSize));
+        int top    = Math.max(bottom, (int)Math.floor((rect.y + rect.height - epsilon) / tileSize));
+        return anySolid(left, bottom, right, top);
+    }
+
+    /** True if any tile in [tx0,tx1] x [ty0,ty1] is a wall. */
+    public boolean anySolid(int tx0, int ty0, int tx1, int ty1) {
+        final int mask = chunkTiles - 1;
+        for (int cy = ty0 >> chunkShift; cy <= ty1 >> chunkShift; cy++) {
+            int y0 = Math.max(ty0, cy << chunkShift), y1 = Math.min(ty1, (cy << chunkShift) + mask);
+            for (int cx = tx0 >> chunkShift; cx <= tx1 >> chunkShift; cx++) {
+                int x0 = Math.max(tx0, cx << chunkShift), x1 = Math.min(tx1, (cx << chunkShift) + mask);
+                if (chunk(cx, cy).tiles.anySolid(x0 & mask, y0 & mask, x1 & mask, y1 & mask)) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Exact line of sight through walls (see {@link GridRaycast}). */
+    public boolean hasLineOfSight(float x0, float y0, float x1, float y1) {
+        return GridRaycast.isClear(openTile, tileSize, x0, y0, x1, y1);
+    }
+
+    /**
+     * Euclidean distance in tiles to the nearest wall, capped at
+     * {@link #CLEARANCE_MARGIN}. Builds the chunk's field on first use.
+     */
+    public float clearance(int tx, int ty) {
+        Chunk c = chunk(tx >> chunkShift, ty >> chunkShift);
+        if (c.clearance == null) buildClearance(c);
+        int mask = chunkTiles - 1;
+        return c.clearance[(tx & mask) + (ty & mask) * chunkTiles];
+    }
+
+    /** World centre of the hub room in chunk (0,0): a safe spawn point. */
+    public float spawnX() { return (chunk(0, 0).hubX + 0.5f) * tileSize; }
+    public float spawnY() { return (chunk(0, 0).hubY + 0.5f) * tileSize; }
+
+    // ------------------------------------------------------------------------
+    // Streaming
+    // ------------------------------------------------------------------------
+    /** Make sure every chunk within radiusChunks of the world point is resident (and recently used). */
+    public void ensureLoaded(float worldX, float worldY, int radiusChunks) {
+        int ccx = (int)Math.floor(worldX / tileSize) >> chunkShift;
+        int ccy = (int)Math.floor(worldY / tileSize) >> chunkShift;
+        for (int dy = -radiusChunks; dy <= radiusChunks; dy++)
+            for (int dx = -radiusChunks; dx <= radiusChunks; dx++)
+                chunk(ccx + dx, ccy + dy);
+    }
+
+    public int getLoadedChunks() { return chunks.size; }
+    public long getBytesHeld() { return bytesHeld; }
+    public long getPeakBytes() { return peakBytes; }
+    public int getPeakChunks() { return peakChunks; }
+    public long getGeneratedCount() { return generated; }
+    public long getEvictedCount() { return evicted; }
+    public long getClearanceBuilds() { return clearanceBuilds; }
+
+    private Chunk chunk(int cx, int cy) {
+        Chunk c = last;
+        if (c != null && c.cx == cx && c.cy == cy) return c;
+        long key = key(cx, cy);
+        c = chunks.get(key);
+        if (c == null) {
+            c = generate(cx, cy);
+            chunks.put(key, c);
+            linkFront(c);
+            bytesHeld += chunkBytes(false);
+            generated++;
+            evictOverBudget(c);
+            peakChunks = Math.max(peakChunks, chunks.size);
+        } else {
+            moveToFront(c);
+        }
+        last = c;
+        return c;
+    }
+
+    private void evictOverBudget(Chunk keep) {
+        while (bytesHeld > budgetBytes && tail != null && tail != keep) {
+            Chunk victim = tail;
+            unlink(victim);
+            chunks.remove(key(victim.cx, victim.cy));
+            bytesHeld -= chunkBytes(victim.clearance != null);
+            if (last == victim) last = null;
+            evicted++;
+        }
+        peakBytes = Math.max(peakBytes, bytesHeld);
+    }
+
+    private long chunkBytes(boolean withClearance) {
+        long words = (long)((chunkTiles + 63) >>> 6) * chunkTiles;
+        return CHUNK_OVERHEAD_BYTES + words * 8L + (withClearance ? 4L * chunkTiles * chunkTiles : 0L);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long)cx << 32) | (cy & 0xffffffffL);
+    }
+
+    // ------------------------------------------------------------------------
+    // Generation
+    // ------------------------------------------------------------------------
+    private Chunk generate(int cx, int cy) {
+        final int n = chunkTiles;
+        RngStream rng = new RngStream(mix(seed, cx, cy, 0));
+        Dungeon tiles = new Dungeon(n, n, tileSize);
+        tiles.fill(true);
+
+        // hub room somewhere in the middle half
+        int hubX = n / 4 + rng.nextInt(n / 2), hubY = n / 4 + rng.nextInt(n / 2);
+        int hw = 5 + rng.nextInt(5), hh = 5 + rng.nextInt(5);
+        tiles.carveRect(hubX - hw / 2, hubY - hh / 2, hw, hh);
+
+        // one door per side, shared with the neighbour across that border
+        int west  = doorOffset(cx - 1, cy, false), east  = doorOffset(cx, cy, false);
+        int south = doorOffset(cx, cy - 1, true),  north = doorOffset(cx, cy, true);
+        // (legs leave the border square-on, so they never run along it)
+        tiles.carveLineX(0, hubX, west);      tiles.carveLineY(west, hubY, hubX);
+        tiles.carveLineX(n - 1, hubX, east);  tiles.carveLineY(east, hubY, hubX);
+        tiles.carveLineY(0, hubY, south);     tiles.carveLineX(south, hubX, hubY);
+        tiles.carveLineY(n - 1, hubY, north); tiles.carveLineX(north, hubX, hubY);
+
+        // side rooms off the hub
+        int rooms = 3 + rng.nextInt(4);
+        for (int i = 0; i < rooms; i++) {
+            int w = 5 + rng.nextInt(7), h = 5 + rng.nextInt(7);
+            int x = 2 + rng.nextInt(n - w - 4), y = 2 + rng.nextInt(n - h - 4);
+            tiles.carveRect(x, y, w, h);
+            corridor(tiles, rng, x + w / 2, y + h / 2, hubX, hubY);
+        }
+        tiles.markChanged();
+        return new Chunk(cx, cy, tiles, hubX, hubY);
+    }
+
+    // L-shaped 3-wide corridor, random leg order (like Dungeon's)
+    private static void corridor(Dungeon tiles, RngStream rng, int x0, int y0, int x1, int y1) {
+        if (rng.nextBoolean()) {
+            tiles.carveLineX(x0, x1, y0);
+            tiles.carveLineY(y0, y1, x1);
+        } else {
+            tiles.carveLineY(y0, y1, x0);
+            tiles.carveLineX(x0, x1, y1);
+        }
+    }
+
+    /**
+     * Door position along the border after chunk (cx,cy): its east side, or its
+     * north side if horizontal. Kept 3 tiles off the corners.
+     */
+    private int doorOffset(int cx, int cy, boolean horizontal) {
+        long h = mix(seed, cx, cy, horizontal ? 2 : 1);
+        return 3 + (int)((h >>> 1) % (chunkTiles - 6));
+    }
+
+    // SplitMix64 finaliser over the seed and the chunk/border coordinates
+    private static long mix(long seed, int a, int b, int salt) {
+        long z = seed ^ (a * 0x9E3779B97F4A7C15L) ^ (b * 0xC2B2AE3D27D4EB4FL) ^ (salt * 0x165667B19E3779F9L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Chunk plus a margin of its neighbours through the exact transform, capped at the margin
+    private void buildClearance(Chunk c) {
+        final int n = chunkTiles, m = CLEARANCE_MARGIN, span = n + 2 * m;
+        final int baseX = (c.cx << chunkShift) - m, baseY = (c.cy << chunkShift) - m;
+        boolean[] solid = new boolean[span * span];
+        for (int y = 0; y < span; y++)
+            for (int x = 0; x < span; x++)
+                solid[x + y * span] = isSolid(baseX + x, baseY + y);
+        // the neighbour lookups may have shuffled the LRU; keep this chunk at the front
+        moveToFront(c);
+        last = c;
+
+        int[] edt = new int[span * span], cheb = new int[span * span];
+        DistanceTransform.compute(span, span, solid, edt, cheb);
+        float[] clearance = new float[n * n];
+        for (int y = 0; y < n; y++)
+            for (int x = 0; x < n; x++)
+                clearance[x + y * n] = Math.min(m, (float)Math.sqrt(edt[(x + m) + (y + m) * span]));
+        c.clearance = clearance;
+        bytesHeld += chunkBytes(true) - chunkBytes(false);
+        clearanceBuilds++;
+        evictOverBudget(c);
+    }
+
+    // ------------------------------------------------------------------------
+    // LRU list
+    // ------------------------------------------------------------------------
+    private void linkFront(Chunk c) {
+        c.prev = null;
+        c.next = head;
+        if (head != null) head.prev = c;
+        head = c;
+        if (tail == null) tail = c;
+    }
+
+    private void unlink(Chunk c) {
+        if (c.prev != null) c.prev.next = c.next; else head = c.next;
+        if (c.next != null) c.next.prev = c.prev; else tail = c.prev;
+        c.prev = c.next = null;
+    }
+
+    private void moveToFront(Chunk c) {
+        if (head == c) return;
+        unlink(c);
+        linkFront(c);
+    }
+
+    // ------------------------------------------------------------------------
+    // Rendering
+    // ------------------------------------------------------------------------
+    /** Draw the tiles that intersect the view, one chunk at a time (loading chunks as needed). */
+    public void render(SpriteBatch batch, Texture floorTexture, Texture wallTexture,
+                       float viewLeft, float viewBottom, float viewWidth, float viewHeight) {
+        int tileLeft   = (int)Math.floor(viewLeft / tileSize) - 1;
+        int tileBottom = (int)Math.floor(viewBottom / tileSize) - 1;
+        int tileRight  = (int)Math.ceil((viewLeft + viewWidth) / tileSize) + 1;
+        int tileTop    = (int)Math.ceil((viewBottom + viewHeight) / tileSize) + 1;
+        final int mask = chunkTiles - 1;
+
+        for (int cy = tileBottom >> chunkShift; cy <= tileTop >> chunkShift; cy++) {
+            for (int cx = tileLeft >> chunkShift; cx <= tileRight >> chunkShift; cx++) {
+                Dungeon tiles = chunk(cx, cy).tiles;
+                int x0 = Math.max(tileLeft, cx << chunkShift), x1 = Math.min(tileRight, (cx << chunkShift) + mask);
+                int y0 = Math.max(tileBottom, cy << chunkShift), y1 = Math.min(tileTop, (cy << chunkShift) + mask);
+                for (int ty = y0; ty <= y1; ty++) {
+                    for (int tx = x0; tx <= x1; tx++) {
+                        Texture tileTexture = tiles.isSolid(tx & mask, ty & mask) ? wallTexture : floorTexture;
+                        batch.draw(tileTexture, tx * tileSize, ty * tileSize, tileSize, tileSize);
+                    }
+                }
+            }
+        }
+    }
+}
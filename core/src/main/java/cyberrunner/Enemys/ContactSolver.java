@@ -0,0 +1,287 @@
+// Author: Martin Taylor
+// File: ContactSolver.java
+// Date: 2026-10-17
+// Description:
+//   Small position-based contact solver for circular bodies: circle-vs-circle
+//   and circle-vs-wall-tile contacts, relaxed over a few Gauss-Seidel
+//   iterations, grouped into islands, with islands that stay still put to
+//   sleep so idle crowds stop costing contact work.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Per frame: {@link #clear()}, {@link #addBody} every body (handles are
+ * insertion indices) with the speed it moved at on its own this frame and
+ * the sleep state it had last frame, {@link #solve(float)}, then read back
+ * each body's correction and new sleep state. Sleep state lives with the
+ * caller so bodies can come and go between frames.
+ * <p>
+ * Only awake bodies look for contacts, through a SpatialHash over all
+ * bodies, and each pair is found once. A sleeping body an awake one presses
+ * into (deeper than the slop) wakes, and looks for contacts in turn; one it
+ * only touches acts as a fixed obstacle. Wall tiles near an awake body are
+ * fixed obstacles too, so pushes do not fight the walls. The work per frame
+ * is one linear hash build (skipped when nothing is awake) plus a cost
+ * proportional to awake bodies and their contacts.
+ * <p>
+ * Iterations relax each contact in turn (Gauss-Seidel), splitting the
+ * correction between the bodies that may move. Contacts between awake
+ * bodies join them into islands; an island falls asleep only once every
+ * body in it has moved slower than the sleep speed for the sleep time,
+ * so one restless body keeps its whole pile awake. Game thread only.
+ */
+public class ContactSolver {
+
+    public static final int   DEFAULT_ITERATIONS = 4;
+    /** Penetration (px) left alone; keeps resting contacts from jittering. */
+    public static final float DEFAULT_SLOP = 0.5f;
+    /** Speed (px/s) under which a body counts as still. */
+    public static final float DEFAULT_SLEEP_SPEED = 6f;
+    /** Seconds an island must stay still before it sleeps. */
+    public static final float DEFAULT_SLEEP_TIME = 0.5f;
+    private static final float EPSILON = 1e-5f;
+
+    private final Dungeon dungeon;
+    private final SpatialHash grid;
+    private int iterations = DEFAULT_ITERATIONS;
+    private float slop = DEFAULT_SLOP;
+    private float sleepSpeed = DEFAULT_SLEEP_SPEED, sleepTime = DEFAULT_SLEEP_TIME;
+
+    // bodies by handle
+    private float[] x = new float[64], y = new float[64], startX = new float[64], startY = new float[64];
+    private float[] radius = new float[64], wallRadius = new float[64], speed = new float[64], rest = new float[64];
+    private boolean[] asleep = new boolean[64], awake = new boolean[64], queried = new boolean[64];
+    private int[] parent = new int[64];
+    private float[] islandMinRest = new float[64];
+    private int count = 0;
+
+    // contacts: body pairs, and (body, tileX, tileY) wall triples
+    private final IntArray pairs = new IntArray();
+    private final IntArray tiles = new IntArray();
+    private final IntArray awakeList = new IntArray();
+    private final IntArray found = new IntArray();
+
+    private int lastContacts = 0, lastTileContacts = 0, lastAwake = 0, lastIslands = 0, lastPushes = 0;
+
+    public ContactSolver(Dungeon dungeon, float cellSize) {
+        this.dungeon = dungeon;
+        this.grid = new SpatialHash(cellSize);
+    }
+
+    public void setIterations(int iterations) { this.iterations = Math.max(1, iterations); }
+    public void setSlop(float slop) { this.slop = Math.max(0f, slop); }
+
+    public void setSleep(float speed, float seconds) {
+        this.sleepSpeed = speed;
+        this.sleepTime = seconds;
+    }
+
+    // ------------------------------------------------------------------------
+    // Bodies
+    // ------------------------------------------------------------------------
+
+    /** Drop every body. Handles restart at 0. */
+    public void clear() {
+        count = 0;
+        grid.clear();
+    }
+
+    /**
+     * Add a circle at centre (cx, cy); returns its handle. radius is used
+     * against other bodies, wallRadius against wall tiles. ownSpeed is how
+     * fast it moved by itself this frame; restSeconds and sleeping are the
+     * state read back after the last solve (0 and false for a new body).
+     */
+    public int addBody(float cx, float cy, float radius, float wallRadius,
+                       float ownSpeed, float restSeconds, boolean sleeping) {
+        if (count == x.length) grow(count * 2);
+        x[count] = startX[count] = cx;
+        y[count] = startY[count] = cy;
+        this.radius[count] = radius;
+        this.wallRadius[count] = wallRadius;
+        speed[count] = ownSpeed;
+        rest[count] = restSeconds;
+        asleep[count] = sleeping;
+        grid.add(cx - radius, cy - radius, radius * 2f, radius * 2f);
+        return count++;
+    }
+
+    public int size() { return count; }
+
+    // ------------------------------------------------------------------------
+    // Solve
+    // ------------------------------------------------------------------------
+
+    /** Resolve overlaps for a frame of length dt and update sleep state. */
+    public void solve(float dt) {
+        pairs.clear();
+        tiles.clear();
+        awakeList.clear();
+        lastPushes = 0;
+
+        // Bodies moving on their own are awake; the rest keep last frame's state
+        for (int b = 0; b < count; b++) {
+            if (speed[b] >= sleepSpeed) { rest[b] = 0f; asleep[b] = false; }
+            awake[b] = !asleep[b];
+            queried[b] = false;
+            parent[b] = b;
+            if (awake[b]) awakeList.add(b);
+        }
+        if (awakeList.size > 0) grid.build();
+
+        // Contacts from awake bodies; pressed sleepers wake and join the list
+        for (int k = 0; k < awakeList.size; k++) {
+            int a = awakeList.get(k);
+            queried[a] = true;
+            found.clear();
+            grid.queryBox(x[a] - radius[a], y[a] - radius[a], x[a] + radius[a], y[a] + radius[a], found);
+            for (int f = 0; f < found.size; f++) {
+                int b = found.get(f);
+                if (b == a || queried[b]) continue;
+                float pen = radius[a] + radius[b] - dist(a, b);
+                if (pen <= 0f) continue;
+                if (!awake[b]) {
+                    if (pen <= slop) { pairs.add(a); pairs.add(b); continue; }   // resting on a sleeper
+                    awake[b] = true;
+                    asleep[b] = false;
+                    rest[b] = 0f;
+                    awakeList.add(b);
+                }
+                pairs.add(a);
+                pairs.add(b);
+                union(a, b);
+            }
+            gatherTiles(a);
+        }
+
+        // Gauss-Seidel over the contacts; sleepers do not move
+        for (int it = 0; it < iterations; it++) {
+            for (int p = 0; p < pairs.size; p += 2) {
+                int a = pairs.get(p), b = pairs.get(p + 1);
+                float dx = x[b] - x[a], dy = y[b] - y[a];
+                float d2 = dx * dx + dy * dy;
+                float target = radius[a] + radius[b];
+                if (d2 >= target * target || d2 < EPSILON) continue;
+                float d = (float)Math.sqrt(d2);
+                float pen = target - d;
+                if (pen <= slop) continue;
+                if (it == 0) lastPushes++;
+                float wa = awake[a] ? 1f : 0f, wb = awake[b] ? 1f : 0f;
+                float corr = (pen - slop) / (wa + wb);
+                float nx = dx / d, ny = dy / d;
+                x[a] -= nx * corr * wa; y[a] -= ny * corr * wa;
+                x[b] += nx * corr * wb; y[b] += ny * corr * wb;
+            }
+            for (int t = 0; t < tiles.size; t += 3) pushOutOfTile(tiles.get(t), tiles.get(t + 1), tiles.get(t + 2));
+        }
+
+        // Rest timers from total motion; an island sleeps once its most restless body has rested long enough
+        Arrays.fill(islandMinRest, 0, count, Float.MAX_VALUE);
+        for (int k = 0; k < awakeList.size; k++) {
+            int b = awakeList.get(k);
+            float moved = Math.abs(x[b] - startX[b]) + Math.abs(y[b] - startY[b]);
+            float motion = speed[b] + (dt > 0f ? moved / dt : 0f);
+            rest[b] = motion < sleepSpeed ? rest[b] + dt : 0f;
+            int root = find(b);
+            islandMinRest[root] = Math.min(islandMinRest[root], rest[b]);
+        }
+        int islands = 0;
+        for (int k = 0; k < awakeList.size; k++) {
+            int b = awakeList.get(k);
+            int root = find(b);
+            if (root == b) islands++;
+            asleep[b] = islandMinRest[root] >= sleepTime;
+        }
+
+        lastContacts = pairs.size / 2;
+        lastTileContacts = tiles.size / 3;
+        lastAwake = awakeList.size;
+        lastIslands = islands;
+    }
+
+    // ------------------------------------------------------------------------
+    // Results
+    // ------------------------------------------------------------------------
+
+    /** How far the solve moved the body this frame. */
+    public float getCorrectionX(int h) { return x[h] - startX[h]; }
+    public float getCorrectionY(int h) { return y[h] - startY[h]; }
+    public float getRestSeconds(int h) { return rest[h]; }
+    public boolean isSleeping(int h) { return asleep[h]; }
+
+    /** Body pairs checked last solve (only those involving an awake body). */
+    public int getLastContacts() { return lastContacts; }
+    public int getLastTileContacts() { return lastTileContacts; }
+    /** Contacts deeper than the slop on the first iteration (what used to be a push). */
+    public int getLastPushes() { return lastPushes; }
+    public int getLastAwake() { return lastAwake; }
+    public int getLastIslands() { return lastIslands; }
+
+    // ------------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    // Wall tiles the body could touch this frame (its wall circle plus its radius of slack)
+    private void gatherTiles(int b) {
+        final float ts = dungeon.tileSize, reach = wallRadius[b] + radius[b];
+        int tx0 = (int)Math.floor((x[b] - reach) / ts), tx1 = (int)Math.floor((x[b] + reach) / ts);
+        int ty0 = (int)Math.floor((y[b] - reach) / ts), ty1 = (int)Math.floor((y[b] + reach) / ts);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                if (!dungeon.isSolid(tx, ty)) continue;
+                tiles.add(b);
+                tiles.add(tx);
+                tiles.add(ty);
+            }
+        }
+    }
+
+    // Walls are fixed: the body takes the whole correction
+    private void pushOutOfTile(int b, int tx, int ty) {
+        final float ts = dungeon.tileSize;
+        float x0 = tx * ts, y0 = ty * ts;
+        float cx = Math.max(x0, Math.min(x[b], x0 + ts)), cy = Math.max(y0, Math.min(y[b], y0 + ts));
+        float dx = x[b] - cx, dy = y[b] - cy;
+        float d2 = dx * dx + dy * dy;
+        float r = wallRadius[b];
+        if (d2 >= r * r) return;
+        if (d2 < EPSILON) return;   // centre inside the tile: leave it to the swept move
+        float d = (float)Math.sqrt(d2);
+        float push = r - d;
+        x[b] += dx / d * push;
+        y[b] += dy / d * push;
+    }
+
+    private float dist(int a, int b) {
+        float dx = x[b] - x[a], dy = y[b] - y[a];
+        return (float)Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private int find(int b) {
+        while (parent[b] != b) {
+            parent[b] = parent[parent[b]];
+            b = parent[b];
+        }
+        return b;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra != rb) parent[ra] = rb;
+    }
+
+    private void grow(int cap) {
+        x = Arrays.copyOf(x, cap); y = Arrays.copyOf(y, cap);
+        startX = Arrays.copyOf(startX, cap); startY = Arrays.copyOf(startY, cap);
+        radius = Arrays.copyOf(radius, cap); wallRadius = Arrays.copyOf(wallRadius, cap);
+        speed = Arrays.copyOf(speed, cap); rest = Arrays.copyOf(rest, cap);
+        asleep = Arrays.copyOf(asleep, cap); awake = Arrays.copyOf(awake, cap);
+        queried = Arrays.copyOf(queried, cap);
+        parent = Arrays.copyOf(parent, cap);
+        islandMinRest = Arrays.copyOf(islandMinRest, cap);
+    }
+}
@@ -0,0 +1,223 @@
+// Author: Martin Taylor
+// File: CooperativePlanner.java
+// Date: 2026-10-17
+// Description:
+//   Windowed cooperative A* (WHCA*). Each chaser searches space-time for the
+//   next few steps, avoiding tiles other chasers have already reserved, and
+//   then reserves its own route. Beyond the window the shared flow field
+//   supplies the true remaining distance, so agents queue and fan out
+//   instead of all piling onto the same tile.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Plans one agent at a time against a {@link ReservationTable}. The search
+ * runs over (tile, step) states within a square of radius window around the
+ * agent; moves follow the usual 8-way and corner rules, and waiting in place
+ * is also a move. The heuristic is the {@link FlowField} cost to the goal,
+ * which is exact for the static map (the abstract half of hierarchical
+ * cooperative A*), so the window search only has to sort out other agents.
+ * <p>
+ * Agents planned earlier get priority; replanning in a rotating order keeps
+ * that fair. Not thread-safe; one instance serves every agent.
+ */
+public class CooperativePlanner {
+
+    public static final int DEFAULT_WINDOW = 8;
+
+    /** Cost of standing still for one step (same as an orthogonal move). */
+    static final float WAIT_COST = 1f;
+
+    private final NavGrid grid;
+    private final ReservationTable table;
+    private final int window;
+    private final int span;        // 2 * window + 1
+    private final int layer;       // span * span states per time step
+
+    // Space-time search state, valid only where the stamp equals the generation
+    private final float[] gScore;
+    private final int[] parent;
+    private final int[] seen;
+    private final int[] closed;
+    private int generation = 0;
+    private final IndexedMinHeap open;
+    private final IntArray claimed = new IntArray();   // 1 where plan() made a new reservation
+
+    private int agentClearance = 1;
+
+    private int lastExpanded = 0;
+    private int lastWaits = 0;
+    private int blockedMoves = 0;
+
+    public CooperativePlanner(NavGrid grid, ReservationTable table, int window) {
+        if (window > table.getHorizon()) {
+            throw new IllegalArgumentException("window " + window + " exceeds reservation horizon " + table.getHorizon());
+        }
+        this.grid = grid;
+        this.table = table;
+        this.window = Math.max(1, window);
+        this.span = 2 * this.window + 1;
+        this.layer = span * span;
+        int n = layer * (this.window + 1);
+        this.gScore = new float[n];
+        this.parent = new int[n];
+        this.seen = new int[n];
+        this.closed = new int[n];
+        this.open = new IndexedMinHeap(n);
+    }
+
+    public int getWindow() { return window; }
+    public ReservationTable getTable() { return table; }
+
+    /** Clearance class for the plans that follow (see {@link TilePathfinder#setAgentClearance}). */
+    public void setAgentClearance(int clearanceClass) { this.agentClearance = Math.max(1, clearanceClass); }
+
+    /** States expanded by the most recent plan() (for profiling). */
+    public int getLastExpanded() { return lastExpanded; }
+
+    /** Wait steps in the most recent plan. */
+    public int getLastWaits() { return lastWaits; }
+
+    /** Moves rejected because another agent held the tile, since construction. */
+    public int getBlockedMoves() { return blockedMoves; }
+
+    /**
+     * Plan window steps for agent, standing on (sx,sy) at step now, toward
+     * field's goal. On success writes window + 1 tile indices into out (out[i]
+     * is where the agent should be at step now + i; the goal is repeated once
+     * reached), reserves them, and returns true. The goal only ends the search
+     * early if it is free for every remaining step of the window. Returns
+     * false, reserving nothing, if the goal is unreachable, every route is
+     * blocked, or a tile of the plan (the start included) is already held.
+     */
+    public boolean plan(int agent, int sx, int sy, FlowField field, int now, IntArray out) {
+        out.clear();
+        lastExpanded = 0;
+        lastWaits = 0;
+        if (!grid.inBounds(sx, sy) || !field.isReachable(sx, sy)) return false;
+
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        open.clear();
+
+        final int W = grid.width;
+        final int goal = field.getGoal();
+        final int ox = sx - window, oy = sy - window;   // local origin
+
+        int startState = state(0, window, window);
+        seen[startState] = generation;
+        gScore[startState] = 0f;
+        parent[startState] = -1;
+        open.push(startState, field.costAt(sx, sy));
+
+        int end = -1;
+        while (!open.isEmpty()) {
+            int cur = open.pop();
+            closed[cur] = generation;
+            lastExpanded++;
+
+            int t = cur / layer, rem = cur - t * layer;
+            int lx = rem % span, ly = rem / span;
+            int cx = ox + lx, cy = oy + ly;
+            int cTile = cx + cy * W;
+            if (t == window || (cTile == goal && freeUntil(goal, now + t, now + window, agent))) { end = cur; break; }
+
+            int step = now + t;
+            float cg = gScore[cur];
+
+            // wait in place
+            if (table.isFree(cTile, step + 1, agent)) {
+                relax(cur, state(t + 1, lx, ly), cg + WAIT_COST, field.costAt(cx, cy));
+            } else {
+                blockedMoves++;
+            }
+
+            for (int i = 0; i < 8; i++) {
+                int nlx = lx + AStarPathfinder.DX8[i], nly = ly + AStarPathfinder.DY8[i];
+                if (nlx < 0 || nly < 0 || nlx >= span || nly >= span) continue;
+                int nx = ox + nlx, ny = oy + nly;
+                if (!grid.inBounds(nx, ny)) continue;
+                int ni = nx + ny * W;
+                if (!grid.isWalkableIndex(ni, agentClearance)) continue;
+                if (i >= 4 && (!grid.isWalkable(nx, cy, agentClearance) || !grid.isWalkable(cx, ny, agentClearance))) continue;
+                float h = field.costAt(nx, ny);
+                if (h == Float.POSITIVE_INFINITY) continue;
+                int nState = state(t + 1, nlx, nly);
+                if (closed[nState] == generation) continue;
+
+                // vertex conflict, then head-on swap with whoever is on ni now
+                if (!table.isFree(ni, step + 1, agent)) { blockedMoves++; continue; }
+                int other = table.ownerAt(ni, step);
+                if (other != ReservationTable.FREE && other != agent && table.ownerAt(cTile, step + 1) == other) {
+                    blockedMoves++;
+                    continue;
+                }
+                relax(cur, nState, cg + AStarPathfinder.STEP_COST[i] + grid.softCostIndex(ni), h);
+            }
+        }
+        if (end < 0) return false;
+
+        // walk back to the start, then pad at the goal up to the full window
+        for (int s = end; s != -1; s = parent[s]) {
+            int rem = s % layer;
+            out.add((ox + rem % span) + (oy + rem / span) * W);
+        }
+        out.reverse();
+        while (out.size <= window) out.add(out.peek());
+
+        for (int i = 0; i < out.size; i++) {
+            int tile = out.get(i);
+            boolean held = table.ownerAt(tile, now + i) == agent;
+            if (!table.reserve(tile, now + i, agent)) {
+                // someone holds it (only possible for the start): undo this call's claims
+                for (int j = 0; j < i; j++) {
+                    if (claimed.get(j) != 0) table.release(out.get(j), now + j, agent);
+                }
+                out.clear();
+                claimed.clear();
+                lastWaits = 0;
+                return false;
+            }
+            claimed.add(held ? 0 : 1);
+            if (i > 0 && tile == out.get(i - 1)) lastWaits++;
+        }
+        claimed.clear();
+        return true;
+    }
+
+    // True if nobody but agent holds tile at any step in [from, to]
+    private boolean freeUntil(int tile, int from, int to, int agent) {
+        for (int step = from; step <= to; step++) {
+            if (!table.isFree(tile, step, agent)) return false;
+        }
+        return true;
+    }
+
+    /** Give back reservations made by plan() for steps at or after fromStep. */
+    public void release(int agent, IntArray tiles, int planStep, int fromStep) {
+        for (int i = Math.max(0, fromStep - planStep); i < tiles.size; i++) {
+            table.release(tiles.get(i), planStep + i, agent);
+        }
+    }
+
+    private void relax(int from, int to, float g, float h) {
+        if (closed[to] == generation) return;
+        if (seen[to] != generation || g < gScore[to]) {
+            seen[to] = generation;
+            gScore[to] = g;
+            parent[to] = from;
+            open.push(to, g + h);
+        }
+    }
+
+    private int state(int t, int lx, int ly) {
+        return t * layer + ly * span + lx;
+    }
+}
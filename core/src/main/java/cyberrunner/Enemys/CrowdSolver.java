@@ -0,0 +1,396 @@
+// Author: Martin Taylor
+// File: CrowdSolver.java
+// Date: 2026-10-17
+// Description:
+//   Velocity-level crowd avoidance (ORCA, optimal reciprocal collision
+//   avoidance): each agent picks the velocity closest to the one it wants
+//   that stays clear of its nearest neighbours and of the wall tiles
+//   around it for a short time horizon.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Per frame: {@link #clear()}, {@link #addAgent} every agent with its current
+ * centre and velocity (handles are insertion indices), {@link #build()},
+ * then {@link #solve} each agent as it moves. All agents solve against the
+ * same snapshot, which is what makes the avoidance reciprocal: each takes
+ * half the responsibility for every pair, so two agents heading at each
+ * other both step aside instead of mirroring.
+ * <p>
+ * Every neighbour and every nearby wall tile contributes a half-plane of
+ * allowed velocities; the answer is the point in all of them (and inside the
+ * agent's speed disc) nearest the preferred velocity, found with the small
+ * incremental 2D linear program from RVO2. Wall half-planes are hard. If the
+ * neighbour half-planes cannot all be met (a packed crowd), the solver
+ * minimises the worst violation of them instead, keeping the walls.
+ * <p>
+ * Neighbours come from a SpatialHash over the agents, capped at the nearest
+ * {@link #DEFAULT_MAX_NEIGHBOURS}, so a solve costs the same in a crowd of
+ * ten or of a thousand. Walls are the solid tiles within the distance the
+ * agent could cover in the wall horizon; agents have a separate wall radius
+ * so an agent whose wall box is inset from its sprite is not kept back from
+ * walls it could touch. No allocation after warm-up. Game thread only.
+ */
+public class CrowdSolver {
+
+    /** Seconds ahead an agent looks for agent collisions. */
+    public static final float DEFAULT_TIME_HORIZON = 0.5f;
+    /** Seconds ahead for walls; short, since moveAndSlide handles contact anyway. */
+    public static final float DEFAULT_WALL_TIME_HORIZON = 0.15f;
+    public static final int   DEFAULT_MAX_NEIGHBOURS = 10;
+    private static final float EPSILON = 1e-5f;
+
+    private final Dungeon dungeon;
+    private final SpatialHash grid;
+    private float timeHorizon = DEFAULT_TIME_HORIZON;
+    private float wallTimeHorizon = DEFAULT_WALL_TIME_HORIZON;
+    private int maxNeighbours = DEFAULT_MAX_NEIGHBOURS;
+
+    // agent snapshot by handle
+    private float[] posX = new float[64], posY = new float[64], velX = new float[64], velY = new float[64];
+    private float[] radius = new float[64], wallRadius = new float[64], maxSpeed = new float[64];
+    private int count = 0;
+    private float maxRadius = 0f;
+
+    // nearest neighbours of the agent being solved, by distance
+    private final IntArray found = new IntArray();
+    private int[] nearest = new int[DEFAULT_MAX_NEIGHBOURS];
+    private float[] nearestDist2 = new float[DEFAULT_MAX_NEIGHBOURS];
+
+    // half-planes: allowed side is left of (dirX, dirY) through (pointX, pointY)
+    private float[] pointX = new float[32], pointY = new float[32], dirX = new float[32], dirY = new float[32];
+    private int lineCount = 0;
+    // lines projected onto a violated line (linear program 3)
+    private float[] projPointX = new float[32], projPointY = new float[32], projDirX = new float[32], projDirY = new float[32];
+    private int projCount = 0;
+    private float resultX, resultY;
+
+    private int solves = 0, infeasible = 0;
+    private long linesTotal = 0;
+
+    public CrowdSolver(Dungeon dungeon, float cellSize) {
+        this.dungeon = dungeon;
+        this.grid = new SpatialHash(cellSize);
+    }
+
+    public void setTimeHorizons(float agents, float walls) {
+        this.timeHorizon = Math.max(EPSILON, agents);
+        this.wallTimeHorizon = Math.max(EPSILON, walls);
+    }
+
+    public void setMaxNeighbours(int max) {
+        this.maxNeighbours = Math.max(0, max);
+        if (nearest.length < maxNeighbours) {
+            nearest = new int[maxNeighbours];
+            nearestDist2 = new float[maxNeighbours];
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Snapshot
+    // ------------------------------------------------------------------------
+
+    /** Drop every agent. Handles restart at 0. */
+    public void clear() {
+        count = 0;
+        maxRadius = 0f;
+        grid.clear();
+    }
+
+    /**
+     * Add an agent at centre (x, y) moving at (vx, vy); returns its handle.
+     * radius is used against other agents, wallRadius against walls.
+     */
+    public int addAgent(float x, float y, float radius, float wallRadius, float vx, float vy, float maxSpeed) {
+        if (count == posX.length) {
+            int cap = count * 2;
+            posX = Arrays.copyOf(posX, cap); posY = Arrays.copyOf(posY, cap);
+            velX = Arrays.copyOf(velX, cap); velY = Arrays.copyOf(velY, cap);
+            this.radius = Arrays.copyOf(this.radius, cap);
+            this.wallRadius = Arrays.copyOf(this.wallRadius, cap);
+            this.maxSpeed = Arrays.copyOf(this.maxSpeed, cap);
+        }
+        posX[count] = x; posY[count] = y;
+        velX[count] = vx; velY[count] = vy;
+        this.radius[count] = radius;
+        this.wallRadius[count] = wallRadius;
+        this.maxSpeed[count] = maxSpeed;
+        maxRadius = Math.max(maxRadius, radius);
+        grid.add(x - radius, y - radius, radius * 2f, radius * 2f);
+        return count++;
+    }
+
+    /** Index the agents for neighbour queries. Call after the last addAgent. */
+    public void build() {
+        grid.build();
+    }
+
+    public int size() { return count; }
+
+    // ------------------------------------------------------------------------
+    // Solve
+    // ------------------------------------------------------------------------
+
+    /**
+     * Velocity for agent h closest to (prefVx, prefVy) that avoids its
+     * neighbours and the walls, written to out. dt is the coming step, used
+     * only to push apart agents that already overlap.
+     */
+    public Vector2 solve(int h, float prefVx, float prefVy, float dt, Vector2 out) {
+        final float speed = maxSpeed[h];
+        lineCount = 0;
+        addWallLines(h);
+        final int wallLines = lineCount;
+        gatherNeighbours(h);
+        for (int k = 0; k < found.size; k++) addAgentLine(h, found.get(k), dt);
+
+        int fail = linearProgram2(pointX, pointY, dirX, dirY, lineCount, speed, prefVx, prefVy, false);
+        if (fail < lineCount) {
+            infeasible++;
+            linearProgram3(wallLines, fail, speed);
+        }
+        solves++;
+        linesTotal += lineCount;
+        return out.set(resultX, resultY);
+    }
+
+    public int getSolveCount() { return solves; }
+    public int getInfeasibleCount() { return infeasible; }
+    /** Mean half-planes per solve since the last resetStats. */
+    public float getMeanLines() { return solves == 0 ? 0f : linesTotal / (float)solves; }
+
+    public void resetStats() {
+        solves = 0;
+        infeasible = 0;
+        linesTotal = 0;
+    }
+
+    // ------------------------------------------------------------------------
+    // Half-planes
+    // ------------------------------------------------------------------------
+
+    // Up to maxNeighbours agents whose discs could meet h's within the horizon, nearest first
+    private void gatherNeighbours(int h) {
+        found.clear();
+        if (maxNeighbours == 0) return;
+        float range = radius[h] + maxSpeed[h] * timeHorizon + maxRadius;
+        grid.queryRadius(posX[h], posY[h], range, found);
+        final float range2 = range * range;
+        int kept = 0;
+        for (int k = 0; k < found.size; k++) {
+            int o = found.get(k);
+            if (o == h) continue;
+            float dx = posX[o] - posX[h], dy = posY[o] - posY[h];
+            float d2 = dx * dx + dy * dy;
+            if (d2 >= range2) continue;
+            if (kept == maxNeighbours && d2 >= nearestDist2[kept - 1]) continue;
+            int i = kept < maxNeighbours ? kept++ : kept - 1;
+            while (i > 0 && nearestDist2[i - 1] > d2) {
+                nearest[i] = nearest[i - 1];
+                nearestDist2[i] = nearestDist2[i - 1];
+                i--;
+            }
+            nearest[i] = o;
+            nearestDist2[i] = d2;
+        }
+        found.clear();
+        for (int k = 0; k < kept; k++) found.add(nearest[k]);
+    }
+
+    // Reciprocal velocity obstacle for the pair (h, o), as in RVO2
+    private void addAgentLine(int h, int o, float dt) {
+        final float relPosX = posX[o] - posX[h], relPosY = posY[o] - posY[h];
+        final float relVelX = velX[h] - velX[o], relVelY = velY[h] - velY[o];
+        final float distSq = relPosX * relPosX + relPosY * relPosY;
+        final float combined = radius[h] + radius[o];
+        final float combinedSq = combined * combined;
+        float lineDirX, lineDirY, uX, uY;
+
+        if (distSq > combinedSq) {
+            final float invTau = 1f / timeHorizon;
+            // relative velocity minus the centre of the cut-off circle
+            float wX = relVelX - invTau * relPosX, wY = relVelY - invTau * relPosY;
+            float wLenSq = wX * wX + wY * wY;
+            float dot1 = wX * relPosX + wY * relPosY;
+            if (dot1 < 0f && dot1 * dot1 > combinedSq * wLenSq) {
+                // project on the cut-off circle
+                float wLen = (float)Math.sqrt(wLenSq);
+                float unitX = wX / wLen, unitY = wY / wLen;
+                lineDirX = unitY; lineDirY = -unitX;
+                float s = combined * invTau - wLen;
+                uX = s * unitX; uY = s * unitY;
+            } else {
+                // project on the nearer leg of the cone
+                float leg = (float)Math.sqrt(distSq - combinedSq);
+                if (relPosX * wY - relPosY * wX > 0f) {
+                    lineDirX = (relPosX * leg - relPosY * combined) / distSq;
+                    lineDirY = (relPosX * combined + relPosY * leg) / distSq;
+                } else {
+                    lineDirX = -(relPosX * leg + relPosY * combined) / distSq;
+                    lineDirY = -(-relPosX * combined + relPosY * leg) / distSq;
+                }
+                float dot2 = relVelX * lineDirX + relVelY * lineDirY;
+                uX = dot2 * lineDirX - relVelX;
+                uY = dot2 * lineDirY - relVelY;
+            }
+        } else {
+            // already overlapping: separate within this step
+            final float invStep = 1f / Math.max(dt, EPSILON);
+            float wX = relVelX - invStep * relPosX, wY = relVelY - invStep * relPosY;
+            float wLen = (float)Math.sqrt(wX * wX + wY * wY);
+            if (wLen < EPSILON) return;
+            float unitX = wX / wLen, unitY = wY / wLen;
+            lineDirX = unitY; lineDirY = -unitX;
+            float s = combined * invStep - wLen;
+            uX = s * unitX; uY = s * unitY;
+        }
+        addLine(velX[h] + 0.5f * uX, velY[h] + 0.5f * uY, lineDirX, lineDirY);
+    }
+
+    // One half-plane per wall tile in reach: do not close on it faster than the gap allows
+    private void addWallLines(int h) {
+        final float x = posX[h], y = posY[h], r = wallRadius[h];
+        final float reach = r + maxSpeed[h] * wallTimeHorizon;
+        final float ts = dungeon.tileSize;
+        final float invTau = 1f / wallTimeHorizon;
+        int tx0 = (int)Math.floor((x - reach) / ts), tx1 = (int)Math.floor((x + reach) / ts);
+        int ty0 = (int)Math.floor((y - reach) / ts), ty1 = (int)Math.floor((y + reach) / ts);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                if (!dungeon.isSolid(tx, ty)) continue;
+                // buried tiles are always behind a face tile
+                if (dungeon.isSolid(tx - 1, ty) && dungeon.isSolid(tx + 1, ty)
+                        && dungeon.isSolid(tx, ty - 1) && dungeon.isSolid(tx, ty + 1)) continue;
+                float cx = Math.max(tx * ts, Math.min(x, (tx + 1) * ts));
+                float cy = Math.max(ty * ts, Math.min(y, (ty + 1) * ts));
+                float dx = cx - x, dy = cy - y;
+                float d2 = dx * dx + dy * dy;
+                if (d2 >= reach * reach || d2 < EPSILON) continue;
+                float d = (float)Math.sqrt(d2);
+                float nx = dx / d, ny = dy / d;
+                float limit = Math.max(0f, d - r) * invTau;
+                // allowed: n . v <= limit
+                addLine(nx * limit, ny * limit, -ny, nx);
+            }
+        }
+    }
+
+    private void addLine(float px, float py, float dx, float dy) {
+        if (lineCount == pointX.length) {
+            int cap = lineCount * 2;
+            pointX = Arrays.copyOf(pointX, cap); pointY = Arrays.copyOf(pointY, cap);
+            dirX = Arrays.copyOf(dirX, cap); dirY = Arrays.copyOf(dirY, cap);
+            projPointX = new float[cap]; projPointY = new float[cap];
+            projDirX = new float[cap]; projDirY = new float[cap];
+        }
+        pointX[lineCount] = px; pointY[lineCount] = py;
+        dirX[lineCount] = dx; dirY[lineCount] = dy;
+        lineCount++;
+    }
+
+    // ------------------------------------------------------------------------
+    // 2D linear programs (RVO2); results go to resultX / resultY
+    // ------------------------------------------------------------------------
+
+    // Best point on line n within the speed disc and the lines before it
+    private boolean linearProgram1(float[] px, float[] py, float[] dx, float[] dy, int n,
+                                   float speed, float optX, float optY, boolean directionOpt) {
+        float dot = px[n] * dx[n] + py[n] * dy[n];
+        float disc = dot * dot + speed * speed - (px[n] * px[n] + py[n] * py[n]);
+        if (disc < 0f) return false;   // the line misses the speed disc
+        float sqrtDisc = (float)Math.sqrt(disc);
+        float tLeft = -dot - sqrtDisc, tRight = -dot + sqrtDisc;
+
+        for (int i = 0; i < n; i++) {
+            float denominator = dx[n] * dy[i] - dy[n] * dx[i];
+            float numerator = dx[i] * (py[n] - py[i]) - dy[i] * (px[n] - px[i]);
+            if (Math.abs(denominator) <= EPSILON) {
+                if (numerator < 0f) return false;   // parallel and wholly outside line i
+                continue;
+            }
+            float t = numerator / denominator;
+            if (denominator >= 0f) tRight = Math.min(tRight, t);
+            else                   tLeft  = Math.max(tLeft, t);
+            if (tLeft > tRight) return false;
+        }
+
+        float t;
+        if (directionOpt) {
+            t = optX * dx[n] + optY * dy[n] > 0f ? tRight : tLeft;
+        } else {
+            t = dx[n] * (optX - px[n]) + dy[n] * (optY - py[n]);
+            t = Math.max(tLeft, Math.min(tRight, t));
+        }
+        resultX = px[n] + t * dx[n];
+        resultY = py[n] + t * dy[n];
+        return true;
+    }
+
+    // Incremental LP over lines [0, count); returns the first line it could not meet, or count
+    private int linearProgram2(float[] px, float[] py, float[] dx, float[] dy, int count,
+                               float speed, float optX, float optY, boolean directionOpt) {
+        if (directionOpt) {
+            resultX = optX * speed; resultY = optY * speed;
+        } else if (optX * optX + optY * optY > speed * speed) {
+            float len = (float)Math.sqrt(optX * optX + optY * optY);
+            resultX = optX / len * speed; resultY = optY / len * speed;
+        } else {
+            resultX = optX; resultY = optY;
+        }
+        for (int i = 0; i < count; i++) {
+            if (dx[i] * (py[i] - resultY) - dy[i] * (px[i] - resultX) > 0f) {
+                float keepX = resultX, keepY = resultY;
+                if (!linearProgram1(px, py, dx, dy, i, speed, optX, optY, directionOpt)) {
+                    resultX = keepX; resultY = keepY;
+                    return i;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Infeasible: keep the wall lines, minimise the largest violation of the agent lines
+    private void linearProgram3(int wallLines, int begin, float speed) {
+        float distance = 0f;
+        for (int i = begin; i < lineCount; i++) {
+            if (dirX[i] * (pointY[i] - resultY) - dirY[i] * (pointX[i] - resultX) <= distance) continue;
+            projCount = 0;
+            for (int j = 0; j < wallLines; j++) addProj(pointX[j], pointY[j], dirX[j], dirY[j]);
+            for (int j = wallLines; j < i; j++) {
+                float determinant = dirX[i] * dirY[j] - dirY[i] * dirX[j];
+                float lpX, lpY;
+                if (Math.abs(determinant) <= EPSILON) {
+                    if (dirX[i] * dirX[j] + dirY[i] * dirY[j] > 0f) continue;   // same direction
+                    lpX = 0.5f * (pointX[i] + pointX[j]);
+                    lpY = 0.5f * (pointY[i] + pointY[j]);
+                } else {
+                    float s = (dirX[j] * (pointY[i] - pointY[j]) - dirY[j] * (pointX[i] - pointX[j])) / determinant;
+                    lpX = pointX[i] + s * dirX[i];
+                    lpY = pointY[i] + s * dirY[i];
+                }
+                float ddx = dirX[j] - dirX[i], ddy = dirY[j] - dirY[i];
+                float len = (float)Math.sqrt(ddx * ddx + ddy * ddy);
+                if (len < EPSILON) continue;
+                addProj(lpX, lpY, ddx / len, ddy / len);
+            }
+            float keepX = resultX, keepY = resultY;
+            if (linearProgram2(projPointX, projPointY, projDirX, projDirY, projCount,
+                    speed, -dirY[i], dirX[i], true) < projCount) {
+                // can only fail on rounding; keep the last answer
+                resultX = keepX; resultY = keepY;
+            }
+            distance = dirX[i] * (pointY[i] - resultY) - dirY[i] * (pointX[i] - resultX);
+        }
+    }
+
+    private void addProj(float px, float py, float dx, float dy) {
+        projPointX[projCount] = px; projPointY[projCount] = py;
+        projDirX[projCount] = dx; projDirY[projCount] = dy;
+        projCount++;
+    }
+}
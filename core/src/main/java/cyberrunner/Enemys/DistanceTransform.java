@@ -0,0 +1,212 @@
+// Author: Martin Taylor
+// File: DistanceTransform.java
+// Date: 2026-10-17
+// Description:
+//   Exact linear-time distance transforms over a flat tile grid (Meijster,
+//   Roerdink & Hesselink): squared Euclidean distance and Chebyshev
+//   distance from every tile to the nearest wall, with the map edge
+//   counted as wall, plus the feature transform (index of the nearest
+//   marked tile). All passes split into bands across cores on big maps.
+
+package cyberrunner.Enemys;
+
+import java.util.stream.IntStream;
+
+/**
+ * Two separable passes. Pass one sweeps the rows forward and back to get
+ * each tile's vertical distance to a wall in its own column; pass two runs
+ * along every row and takes the lower envelope of the per-column distance
+ * functions (parabolas for Euclidean, cones for Chebyshev), all in integer
+ * arithmetic. Every tile is touched a constant number of times.
+ * <p>
+ * Columns are independent in pass one and rows in pass two, so each pass
+ * is cut into bands that run on the common fork-join pool once the map is
+ * big enough for that to pay off.
+ */
+final class DistanceTransform {
+
+    /** Maps with fewer tiles than this run single-threaded. */
+    static final int PARALLEL_MIN_TILES = 256 * 256;
+    private static final int BAND = 64;
+
+    private DistanceTransform() { }
+
+    /**
+     * Fill edtSquared with the squared Euclidean distance (tiles, centre to
+     * centre) and chebyshev with the Chebyshev distance from each tile to the
+     * nearest wall or off-map tile. Walls get 0.
+     */
+    static void compute(int W, int H, boolean[] solid, int[] edtSquared, int[] chebyshev) {
+        final int[] columnDist = new int[W * H];
+        final boolean parallel = (long)W * H >= PARALLEL_MIN_TILES;
+
+        // Pass 1: vertical distance to the nearest wall in the same column (off-map counts as wall)
+        forBands(W, parallel, (x0, x1) -> {
+            for (int x = x0; x < x1; x++) columnDist[x] = solid[x] ? 0 : 1;
+            for (int y = 1; y < H; y++) {
+                int row = y * W;
+                for (int x = x0; x < x1; x++) {
+                    int i = row + x;
+                    columnDist[i] = solid[i] ? 0 : columnDist[i - W] + 1;
+                }
+            }
+            for (int x = x0; x < x1; x++) {
+                int i = (H - 1) * W + x;
+                columnDist[i] = Math.min(columnDist[i], 1);
+            }
+            for (int y = H - 2; y >= 0; y--) {
+                int row = y * W;
+                for (int x = x0; x < x1; x++) {
+                    int i = row + x;
+                    columnDist[i] = Math.min(columnDist[i], columnDist[i + W] + 1);
+                }
+            }
+        });
+
+        // Pass 2: lower envelope along each row
+        forBands(H, parallel, (y0, y1) -> {
+            int[] s = new int[W], t = new int[W], g = new int[W];
+            for (int y = y0; y < y1; y++) {
+                int row = y * W;
+                System.arraycopy(columnDist, row, g, 0, W);
+                euclideanRow(g, W, s, t, edtSquared, row);
+                chebyshevRow(g, W, s, t, chebyshev, row);
+                // the off-map tiles to either side of the row are walls too
+                for (int x = 0; x < W; x++) {
+                    int edge = Math.min(x + 1, W - x);
+                    int i = row + x;
+                    if (edge * edge < edtSquared[i]) edtSquared[i] = edge * edge;
+                    if (edge < chebyshev[i]) chebyshev[i] = edge;
+                }
+            }
+        });
+    }
+
+    /**
+     * Fill nearest with the index (x + y * W) of the closest tile, by
+     * Euclidean distance between centres, whose target flag is set; -1 if
+     * no tile is. Ties are broken the same way every time.
+     */
+    static void nearestFeature(int W, int H, boolean[] target, int[] nearest) {
+        final int none = W + H;                       // farther than any real distance
+        final int[] featureRow = new int[W * H];      // row of the nearest target in the column, or -1
+        final boolean parallel = (long)W * H >= PARALLEL_MIN_TILES;
+
+        // Pass 1: nearest target row in each column, down then up
+        forBands(W, parallel, (x0, x1) -> {
+            for (int x = x0; x < x1; x++) {
+                int last = -1;
+                for (int y = 0; y < H; y++) {
+                    int i = y * W + x;
+                    if (target[i]) last = y;
+                    featureRow[i] = last;
+                }
+                last = -1;
+                for (int y = H - 1; y >= 0; y--) {
+                    int i = y * W + x;
+                    if (target[i]) last = y;
+                    int up = featureRow[i];
+                    if (last >= 0 && (up < 0 || last - y < y - up)) featureRow[i] = last;
+                }
+            }
+        });
+
+        // Pass 2: lower envelope of the column distances along each row, keeping the winning column
+        forBands(H, parallel, (y0, y1) -> {
+            int[] s = new int[W], t = new int[W];
+            long[] g2 = new long[W];
+            for (int y = y0; y < y1; y++) {
+                int row = y * W;
+                for (int x = 0; x < W; x++) {
+                    int fy = featureRow[row + x];
+                    long g = fy < 0 ? none : Math.abs(y - fy);
+                    g2[x] = g * g;
+                }
+                int q = 0;
+                s[0] = 0; t[0] = 0;
+                for (int u = 1; u < W; u++) {
+                    while (q >= 0 && featureF(t[q], s[q], g2) > featureF(t[q], u, g2)) q--;
+                    if (q < 0) {
+                        q = 0; s[0] = u;
+                    } else {
+                        int i = s[q];
+                        long w = 1 + ((long)u * u - (long)i * i + g2[u] - g2[i]) / (2L * (u - i));
+                        if (w < W) { q++; s[q] = u; t[q] = (int)w; }
+                    }
+                }
+                for (int u = W - 1; u >= 0; u--) {
+                    int x = s[q];
+                    int fy = featureRow[row + x];
+                    nearest[row + u] = fy < 0 ? -1 : x + fy * W;
+                    if (u == t[q]) q--;
+                }
+            }
+        });
+    }
+
+    private static long featureF(int x, int i, long[] g2) {
+        return (long)(x - i) * (x - i) + g2[i];
+    }
+
+    // f(x, i) = (x - i)^2 + g(i)^2
+    private static void euclideanRow(int[] g, int W, int[] s, int[] t, int[] out, int row) {
+        int q = 0;
+        s[0] = 0; t[0] = 0;
+        for (int u = 1; u < W; u++) {
+            while (q >= 0 && edtF(t[q], s[q], g) > edtF(t[q], u, g)) q--;
+            if (q < 0) {
+                q = 0; s[0] = u;
+            } else {
+                int i = s[q];
+                int w = 1 + (u * u - i * i + g[u] * g[u] - g[i] * g[i]) / (2 * (u - i));
+                if (w < W) { q++; s[q] = u; t[q] = w; }
+            }
+        }
+        for (int u = W - 1; u >= 0; u--) {
+            out[row + u] = edtF(u, s[q], g);
+            if (u == t[q]) q--;
+        }
+    }
+
+    private static int edtF(int x, int i, int[] g) {
+        return (x - i) * (x - i) + g[i] * g[i];
+    }
+
+    // f(x, i) = max(|x - i|, g(i))
+    private static void chebyshevRow(int[] g, int W, int[] s, int[] t, int[] out, int row) {
+        int q = 0;
+        s[0] = 0; t[0] = 0;
+        for (int u = 1; u < W; u++) {
+            while (q >= 0 && cdtF(t[q], s[q], g) > cdtF(t[q], u, g)) q--;
+            if (q < 0) {
+                q = 0; s[0] = u;
+            } else {
+                int i = s[q];
+                int sep = g[i] <= g[u] ? Math.max(i + g[u], (i + u) / 2) : Math.min(u - g[i], (i + u) / 2);
+                int w = 1 + sep;
+                if (w < W) { q++; s[q] = u; t[q] = w; }
+            }
+        }
+        for (int u = W - 1; u >= 0; u--) {
+            out[row + u] = cdtF(u, s[q], g);
+            if (u == t[q]) q--;
+        }
+    }
+
+    private static int cdtF(int x, int i, int[] g) {
+        return Math.max(Math.abs(x - i), g[i]);
+    }
+
+    private interface Band {
+        void run(int from, int to);
+    }
+
+    private static void forBands(int n, boolean parallel, Band band) {
+        int bands = (n + BAND - 1) / BAND;
+        if (!parallel || bands < 2) {
+            band.run(0, n);
+            return;
+        }
+        IntStream.range(0, bands).parallel().forEach(b -> band.run(b * BAND, Math.min(n, (b + 1) * BAND)));
+    }
+}
@@ -1,9 +1,9 @@
 // Author: Martin Taylor
 // File: Dungeon.java
 // Date: 2025-11-04
-// Description: Simple tile-based dungeon generator with random rooms and
-//              3-tile-wide L-shaped corridors. Provides collision tests and
-//              near-open queries in world space.
+// Description: Tile-based dungeon map laid out by a DungeonGenerator (random
+//              rooms and 3-tile-wide L-shaped corridors by default). Provides
+//              collision tests and near-open queries in world space.
 
 package cyberrunner.Enemys;
 
@@ -11,126 +11,137 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
 
 /**
- * Simple dungeon generator: random rooms + L-shaped corridors on a tile grid.
- * Corridors are 3 tiles wide and a thick central cross guarantees exits.
+ * Tile grid of walls and floor. Layout comes from a DungeonGenerator; the
+ * default is random rooms + L-shaped corridors, 3 tiles wide, with a thick
+ * central cross that guarantees exits (see GeneratorPipeline).
  */
 public class Dungeon {
     public final int width;     // tiles
     public final int height;    // tiles
     public final int tileSize;  // pixels per tile
 
-    // solid = true means wall; false means floor
-    private final boolean[][] solid;
+    // Solidity bitset, row-major: bit (x & 63) of word ty * wordsPerRow + (x >>> 6) is set for a wall.
+    // Bits past the last column in each row are kept clear.
+    private final long[] solid;
+    private final int wordsPerRow;
+
+    // Bumped whenever the tile layout changes (caches compare against it)
+    private int version = 0;
+
+    // Nearest-open lookup, built on first use for each layout version
+    private NearestTileTable nearestOpenTable;
+    private int nearestOpenVersion = -1;
+
+    // Half-pixel tolerance shared by rectBlocked and the sweeps
+    private static final float RECT_EPSILON = 0.5f;
+    // Scratch for moveAndSlide (game thread)
+    private final SweepHit slideHit = new SweepHit();
+
+    // Tile test handed to the raycasts (built once, so queries never allocate)
+    private final GridRaycast.TileTest openTile = (tx, ty) -> !isSolid(tx, ty);
 
     public Dungeon(int width, int height, int tileSize) {
         this.width = width;
         this.height = height;
         this.tileSize = tileSize;
-        this.solid = new boolean[width][height];
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.solid = new long[wordsPerRow * height];
     }
 
-    /** Build a new dungeon using the provided seed. */
+    /** Build a new dungeon using the provided seed (classic rooms and corridors). */
     public void generate(long seed) {
-        MathUtils.random.setSeed(seed);
-
-        // Start fully solid (all walls)
-        fill(true);
-
-        // Carve random rooms
-        int roomCount = 40;
-        for (int iRoom = 0; iRoom < roomCount; iRoom++) {
-            int roomWidthTiles  = MathUtils.random(5, 11);
-            int roomHeightTiles = MathUtils.random(5, 11);
-            int roomX = MathUtils.random(1, width - roomWidthTiles - 2);
-            int roomY = MathUtils.random(1, height - roomHeightTiles - 2);
-            carveRect(roomX, roomY, roomWidthTiles, roomHeightTiles);
-        }
+        generate(GeneratorPipeline.classic(), seed);
+    }
 
-        // Choose random open anchors and connect them with corridors
-        int anchorCount = 30;
-        int[] anchorX = new int[anchorCount];
-        int[] anchorY = new int[anchorCount];
-        for (int iAnchor = 0; iAnchor < anchorCount; iAnchor++) {
-            int attempts = 0;
-            int x, y;
-            do {
-                x = MathUtils.random(2, width - 3);
-                y = MathUtils.random(2, height - 3);
-                attempts++;
-            } while (isSolid(x, y) && attempts < 100);
-            anchorX[iAnchor] = x;
-            anchorY[iAnchor] = y;
-        }
-        for (int i = 0; i < anchorCount - 1; i++) {
-            carveCorridor(anchorX[i], anchorY[i], anchorX[i + 1], anchorY[i + 1]);
-        }
+    /** Build a new dungeon with the given generator. */
+    public void generate(DungeonGenerator generator, long seed) {
+        generator.generate(this, seed);
+        version++;
+    }
 
-        // Ensure a small spawn area around the center is open
-        int centerTileX = width / 2;
-        int centerTileY = height / 2;
-        carveRect(centerTileX - 2, centerTileY - 2, 5, 5);
+    /** Layout version; changes every time the tiles change. */
+    public int getVersion() {
+        return version;
+    }
 
-        // Thick central cross so the player can always leave spawn
-        carveLineX(centerTileX - 12, centerTileX + 12, centerTileY); // 3 tiles thick horizontally
-        carveLineY(centerTileY - 12, centerTileY + 12, centerTileX); // 3 tiles thick vertically
-        thickenAround(centerTileX, centerTileY, 3);
+    /** Bump the version after carving from outside generate() (chunked worlds build tiles this way). */
+    void markChanged() {
+        version++;
     }
 
-    private void fill(boolean value) {
-        for (int tx = 0; tx < width; tx++)
-            for (int ty = 0; ty < height; ty++)
-                solid[tx][ty] = value;
+    /** The live solidity words (row-major, wordsPerRow per row), for the level cache to write out. */
+    long[] solidWords() {
+        return solid;
     }
 
-    private void carveRect(int x, int y, int w, int h) {
-        for (int tx = x; tx < x + w; tx++) {
-            for (int ty = y; ty < y + h; ty++) {
-                if (inBounds(tx, ty)) solid[tx][ty] = false;
+    /** Unpack solidity into a flat row-major array (index = tx + ty * width), a word at a time. */
+    void copySolid(boolean[] out) {
+        for (int ty = 0; ty < height; ty++) {
+            int row = ty * wordsPerRow, base = ty * width;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long bits = solid[row + w];
+                int x0 = w << 6, x1 = Math.min(width, x0 + 64);
+                for (int tx = x0; tx < x1; tx++) out[base + tx] = (bits & (1L << tx)) != 0L;
             }
         }
     }
 
-    private void carveCorridor(int x0, int y0, int x1, int y1) {
-        // L-shaped: horizontal then vertical (randomize order). Each line is 3 tiles thick.
-        if (MathUtils.randomBoolean()) {
-            carveLineX(x0, x1, y0);
-            carveLineY(y0, y1, x1);
-        } else {
-            carveLineY(y0, y1, x0);
-            carveLineX(x0, x1, y1);
+    /** Replace every tile from words laid out like {@link #solidWords()}; bumps the version. */
+    void loadSolidWords(java.nio.LongBuffer src) {
+        src.get(solid);
+        version++;
+    }
+
+    void fill(boolean value) {
+        for (int ty = 0; ty < height; ty++) {
+            int row = ty * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) solid[row + w] = value ? rowMask(w, 0, width - 1) : 0L;
+        }
+    }
+
+    private void setOpen(int tx, int ty) {
+        solid[ty * wordsPerRow + (tx >>> 6)] &= ~(1L << tx);
+    }
+
+    void setSolid(int tx, int ty, boolean wall) {
+        if (!inBounds(tx, ty)) return;
+        int w = ty * wordsPerRow + (tx >>> 6);
+        if (wall) solid[w] |= 1L << tx; else solid[w] &= ~(1L << tx);
+    }
+
+    void carveRect(int x, int y, int w, int h) {
+        for (int tx = x; tx < x + w; tx++) {
+            for (int ty = y; ty < y + h; ty++) {
+                if (inBounds(tx, ty)) setOpen(tx, ty);
+            }
         }
     }
 
     // 3-tile thick horizontal corridor centered on y
-    private void carveLineX(int x0, int x1, int y) {
+    void carveLineX(int x0, int x1, int y) {
         if (x0 > x1) { int swap = x0; x0 = x1; x1 = swap; }
         for (int tx = x0; tx <= x1; tx++) {
             for (int offsetY = -1; offsetY <= 1; offsetY++) {
                 int ty = y + offsetY;
-                if (inBounds(tx, ty)) solid[tx][ty] = false;
+                if (inBounds(tx, ty)) setOpen(tx, ty);
             }
         }
     }
 
     // 3-tile thick vertical corridor centered on x
-    private void carveLineY(int y0, int y1, int x) {
+    void carveLineY(int y0, int y1, int x) {
         if (y0 > y1) { int swap = y0; y0 = y1; y1 = swap; }
         for (int ty = y0; ty <= y1; ty++) {
             for (int offsetX = -1; offsetX <= 1; offsetX++) {
                 int tx = x + offsetX;
-                if (inBounds(tx, ty)) solid[tx][ty] = false;
+                if (inBounds(tx, ty)) setOpen(tx, ty);
             }
         }
     }
 
-    private void thickenAround(int centerX, int centerY, int radius) {
-        for (int tx = centerX - radius; tx <= centerX + radius; tx++)
-            for (int ty = centerY - radius; ty <= centerY + radius; ty++)
-                if (inBounds(tx, ty)) solid[tx][ty] = false;
-    }
-
     private boolean inBounds(int tx, int ty) {
         return tx >= 0 && ty >= 0 && tx < width && ty < height;
     }
@@ -138,7 +149,7 @@ public class Dungeon {
     /** True if tile is a wall. */
     public boolean isSolid(int tx, int ty) {
         if (!inBounds(tx, ty)) return true;
-        return solid[tx][ty];
+        return (solid[ty * wordsPerRow + (tx >>> 6)] & (1L << tx)) != 0L;
     }
 
     /** World-space (pixels) check: is this world position inside a wall tile? */
@@ -148,40 +159,194 @@ public class Dungeon {
         return isSolid(tileX, tileY);
     }
 
-    /** Axis-aligned rectangle vs. solid tiles collision test (world space). */
+    /**
+     * Axis-aligned rectangle vs. solid tiles collision test (world space).
+     * Exact: every tile the rectangle (shrunk by half a pixel) covers is tested,
+     * not just the four corners, so bodies wider than a tile cannot straddle a wall.
+     */
     public boolean rectBlocked(Rectangle rect) {
-        float epsilon = 0.5f;
-        float left   = rect.x + epsilon;
-        float bottom = rect.y + epsilon;
-        float right  = rect.x + rect.width  - epsilon;
-        float top    = rect.y + rect.height - epsilon;
-        return isSolidWorld(left, bottom) || isSolidWorld(right, bottom) ||
-               isSolidWorld(left, top)    || isSolidWorld(right, top);
-    }
-
-    /** Find nearest open tile center to the given world position. */
-    public float[] nearestOpen(float worldX, float worldY, int maxRadiusTiles) {
-        int startTileX = MathUtils.floor(worldX / tileSize);
-        int startTileY = MathUtils.floor(worldY / tileSize);
-        if (!isSolid(startTileX, startTileY)) return new float[]{centerX(startTileX), centerY(startTileY)};
-
-        for (int radius = 1; radius <= maxRadiusTiles; radius++) {
-            for (int deltaX = -radius; deltaX <= radius; deltaX++) {
-                int x = startTileX + deltaX;
-                int yTop = startTileY + radius;
-                int yBottom = startTileY - radius;
-                if (inBounds(x, yTop) && !solid[x][yTop])    return new float[]{centerX(x), centerY(yTop)};
-                if (inBounds(x, yBottom) && !solid[x][yBottom]) return new float[]{centerX(x), centerY(yBottom)};
+        float epsilon = RECT_EPSILON;
+        int left   = (int)Math.floor((rect.x + epsilon) / tileSize);
+        int bottom = (int)Math.floor((rect.y + epsilon) / tileSize);
+        int right  = (int)Math.floor((rect.x + rect.width  - epsilon) / tileSize);
+        int top    = (int)Math.floor((rect.y + rect.height - epsilon) / tileSize);
+        return anySolid(left, bottom, Math.max(left, right), Math.max(bottom, top));
+    }
+
+    // ------------------------------------------------------------------------
+    // Continuous collision (world space)
+    // ------------------------------------------------------------------------
+    /**
+     * Sweep the box by (dx, dy) against the wall tiles. Returns true if it
+     * touches a wall on the way, with the fraction of the move done before
+     * contact, the wall normal and the tile in hit (reset when nothing is hit).
+     * <p>
+     * Walks the tile boundaries the leading edges cross in time order and
+     * tests only the newly entered column or row, so the cost follows the
+     * tiles crossed, not the pixels moved. The box stops flush against a
+     * wall; sideways it gets rectBlocked's half-pixel tolerance, so it can
+     * slide along a wall it touches. Tiles the box already overlaps at the
+     * start are not hits, so a box caught in a wall can still move out.
+     */
+    public boolean sweep(Rectangle box, float dx, float dy, SweepHit hit) {
+        final float e = RECT_EPSILON;
+        final float x0 = box.x, y0 = box.y, w = box.width, h = box.height;
+        final int stepX = dx > 0f ? 1 : (dx < 0f ? -1 : 0);
+        final int stepY = dy > 0f ? 1 : (dy < 0f ? -1 : 0);
+        // newest column / row the box covers on its leading side
+        int leadCol = stepX > 0 ? tileOf(x0 + w - e) : tileOf(x0 + e);
+        int leadRow = stepY > 0 ? tileOf(y0 + h - e) : tileOf(y0 + e);
+        float tX = crossing(leadCol, stepX, x0, w, dx);
+        float tY = crossing(leadRow, stepY, y0, h, dy);
+
+        while (true) {
+            if (tX <= tY) {
+                if (tX > 1f) break;
+                int col = leadCol + stepX;
+                float py = y0 + dy * tX;
+                int r0 = tileOf(py + e), r1 = tileOf(py + h - e);
+                if (stepY > 0) r1 = Math.max(r1, leadRow); else if (stepY < 0) r0 = Math.min(r0, leadRow);
+                for (int r = r0; r <= r1; r++) {
+                    if (isSolid(col, r)) { hit.set(tX, -stepX, 0f, col, r); return true; }
+                }
+                leadCol = col;
+                tX = crossing(leadCol, stepX, x0, w, dx);
+            } else {
+                if (tY > 1f) break;
+                int row = leadRow + stepY;
+                float px = x0 + dx * tY;
+                int c0 = tileOf(px + e), c1 = tileOf(px + w - e);
+                if (stepX > 0) c1 = Math.max(c1, leadCol); else if (stepX < 0) c0 = Math.min(c0, leadCol);
+                for (int c = c0; c <= c1; c++) {
+                    if (isSolid(c, row)) { hit.set(tY, 0f, -stepY, c, row); return true; }
+                }
+                leadRow = row;
+                tY = crossing(leadRow, stepY, y0, h, dy);
             }
-            for (int deltaY = -radius + 1; deltaY <= radius - 1; deltaY++) {
-                int y = startTileY + deltaY;
-                int xRight = startTileX + radius;
-                int xLeft  = startTileX - radius;
-                if (inBounds(xRight, y) && !solid[xRight][y]) return new float[]{centerX(xRight), centerY(y)};
-                if (inBounds(xLeft, y)  && !solid[xLeft][y])  return new float[]{centerX(xLeft),  centerY(y)};
+        }
+        hit.reset();
+        return false;
+    }
+
+    /**
+     * Move the box by (dx, dy), stopping flush at walls and sliding along
+     * them with whatever of the move is left. Returns true if it touched a
+     * wall. Exact for any step length. Game thread only (shared scratch).
+     */
+    public boolean moveAndSlide(Rectangle box, float dx, float dy) {
+        boolean touched = false;
+        // each contact removes one axis, so two sweeps always finish the move
+        for (int pass = 0; pass < 2 && (dx != 0f || dy != 0f); pass++) {
+            if (!sweep(box, dx, dy, slideHit)) {
+                box.x += dx; box.y += dy;
+                return touched;
+            }
+            touched = true;
+            float t = slideHit.time, rest = 1f - t;
+            box.x += dx * t; box.y += dy * t;
+            if (slideHit.normalX != 0f) { dx = 0f; dy *= rest; }
+            else                        { dy = 0f; dx *= rest; }
+        }
+        return touched;
+    }
+
+    // Move fraction at which the leading edge reaches the next tile on this axis (infinite if not moving)
+    private float crossing(int lead, int step, float pos, float size, float d) {
+        if (step == 0) return Float.POSITIVE_INFINITY;
+        float t = step > 0 ? ((lead + 1) * (float)tileSize - (pos + size)) / d
+                           : (lead * (float)tileSize - pos) / d;
+        return Math.max(0f, t);
+    }
+
+    private int tileOf(float world) {
+        return (int)Math.floor(world / tileSize);
+    }
+
+    // ------------------------------------------------------------------------
+    // Region queries (tile space, inclusive bounds), 64 tiles per word op
+    // ------------------------------------------------------------------------
+    /** True if any tile in [tx0,tx1] x [ty0,ty1] is a wall; tiles off the map count as walls. */
+    public boolean anySolid(int tx0, int ty0, int tx1, int ty1) {
+        if (tx0 > tx1 || ty0 > ty1) return false;
+        if (tx0 < 0 || ty0 < 0 || tx1 >= width || ty1 >= height) return true;
+        int w0 = tx0 >>> 6, w1 = tx1 >>> 6;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            int row = ty * wordsPerRow;
+            for (int w = w0; w <= w1; w++) {
+                if ((solid[row + w] & rowMask(w, tx0, tx1)) != 0L) return true;
             }
         }
-        return new float[]{0f, 0f};
+        return false;
+    }
+
+    /** Number of wall tiles in [tx0,tx1] x [ty0,ty1], clipped to the map. */
+    public int countSolid(int tx0, int ty0, int tx1, int ty1) {
+        tx0 = Math.max(tx0, 0); ty0 = Math.max(ty0, 0);
+        tx1 = Math.min(tx1, width - 1); ty1 = Math.min(ty1, height - 1);
+        if (tx0 > tx1 || ty0 > ty1) return 0;
+        int w0 = tx0 >>> 6, w1 = tx1 >>> 6, count = 0;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            int row = ty * wordsPerRow;
+            for (int w = w0; w <= w1; w++) count += Long.bitCount(solid[row + w] & rowMask(w, tx0, tx1));
+        }
+        return count;
+    }
+
+    /** First open tile x in row ty within [tx0,tx1], or -1 if they are all walls. */
+    public int firstOpenInRow(int ty, int tx0, int tx1) {
+        if (ty < 0 || ty >= height) return -1;
+        tx0 = Math.max(tx0, 0);
+        tx1 = Math.min(tx1, width - 1);
+        if (tx0 > tx1) return -1;
+        int row = ty * wordsPerRow;
+        for (int w = tx0 >>> 6; w <= tx1 >>> 6; w++) {
+            long open = ~solid[row + w] & rowMask(w, tx0, tx1);
+            if (open != 0L) return (w << 6) + Long.numberOfTrailingZeros(open);
+        }
+        return -1;
+    }
+
+    // Bits of word w that fall inside columns [tx0,tx1]
+    private static long rowMask(int w, int tx0, int tx1) {
+        int lo = w << 6, hi = lo + 63;
+        long mask = -1L;
+        if (tx0 > lo) mask &= -1L << (tx0 - lo);
+        if (tx1 < hi) mask &= -1L >>> (hi - tx1);
+        return mask;
+    }
+
+    /**
+     * World-space line of sight: true if no wall tile touches the segment.
+     * Exact grid traversal (each crossed tile once, corners included), no allocation.
+     */
+    public boolean hasLineOfSight(float x0, float y0, float x1, float y1) {
+        return GridRaycast.isClear(openTile, tileSize, x0, y0, x1, y1);
+    }
+
+    /** Thick ray: can a square of the given half-width slide along the segment without touching a wall? */
+    public boolean hasLineOfSight(float x0, float y0, float x1, float y1, float halfWidth) {
+        return GridRaycast.isSweptClear(openTile, tileSize, x0, y0, x1, y1, halfWidth);
+    }
+
+    /**
+     * Centre of the open tile nearest the world position, written to out.
+     * False (out untouched) if none lies within maxRadiusTiles. A table
+     * lookup; allocates only when rebuilding the table after a layout change.
+     */
+    public boolean nearestOpen(float worldX, float worldY, int maxRadiusTiles, Vector2 out) {
+        int hit = nearestOpenTiles().nearestWithin(MathUtils.floor(worldX / tileSize), MathUtils.floor(worldY / tileSize), maxRadiusTiles);
+        if (hit < 0) return false;
+        out.set(centerX(hit % width), centerY(hit / width));
+        return true;
+    }
+
+    /** Nearest-open-tile table for the current layout (rebuilt lazily after the tiles change). */
+    public NearestTileTable nearestOpenTiles() {
+        if (nearestOpenTable == null || nearestOpenVersion != version) {
+            nearestOpenTable = NearestTileTable.open(this);
+            nearestOpenVersion = version;
+        }
+        return nearestOpenTable;
     }
 
     private float centerX(int tileX) { return tileX * tileSize + tileSize * 0.5f; }
@@ -197,7 +362,7 @@ public class Dungeon {
 
         for (int tx = tileLeft; tx <= tileRight; tx++) {
             for (int ty = tileBottom; ty <= tileTop; ty++) {
-                Texture tileTexture = solid[tx][ty] ? wallTexture : floorTexture;
+                Texture tileTexture = isSolid(tx, ty) ? wallTexture : floorTexture;
                 batch.draw(tileTexture, tx * tileSize, ty * tileSize, tileSize, tileSize);
             }
         }
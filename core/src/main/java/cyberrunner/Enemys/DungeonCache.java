@@ -0,0 +1,237 @@
+// Author: Martin Taylor
+// File: DungeonCache.java
+// Date: 2026-10-17
+// Description:
+//   On-disk cache of generated levels: dungeon solidity bits plus the
+//   NavGrid clearance, wall-distance and gradient fields, in a small
+//   versioned binary format keyed by (generator, generator version, nav
+//   data version, seed, size). Loads through a memory-mapped FileChannel.
+
+package cyberrunner.Enemys;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * File layout (little-endian):
+ * <pre>
+ *   header      40 bytes: magic "CRDN", format version, nav data version,
+ *                         generator version, generator name hash, seed (8),
+ *                         width, height, 4 bytes padding
+ *   solidity    long[((width + 63) / 64) * height], Dungeon's row-major bitset
+ *   clearance   float[width * height]
+ *   gradient x  float[width * height]
+ *   gradient y  float[width * height]
+ *   wall dist   byte[width * height]
+ * </pre>
+ * The nav data version ({@link NavGrid#DATA_VERSION}) is part of both the
+ * file name and the header, so files written before a change to how the
+ * grid derives its fields are never loaded as if they were current.
+ * <p>
+ * Sections are copied with bulk buffer gets straight from the mapping, so a
+ * load costs about one memcpy of the file, where a rebuild runs the
+ * generator and the distance transform.
+ * <p>
+ * Files are written to a temporary name and renamed into place, so a crash
+ * mid-write never leaves a file that looks valid. A file whose header or
+ * length does not match is treated as a miss and overwritten on the next
+ * store. The directory keeps at most {@link #setMaxFiles} levels; each store
+ * deletes the least recently loaded or written ones past that. Not
+ * thread-safe; one cache per loader.
+ */
+public class DungeonCache {
+
+    /** Bump when the layout above changes. */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final int MAGIC = 0x4e445243;   // "CRDN" little-endian
+    private static final int HEADER_BYTES = 40;
+    private static final int WRITE_CHUNK = 1 << 20;
+
+    /** Level files kept unless {@link #setMaxFiles} says otherwise. */
+    public static final int DEFAULT_MAX_FILES = 32;
+
+    private final File dir;
+    private int maxFiles = DEFAULT_MAX_FILES;
+    private int hits = 0, misses = 0, writeFailures = 0, pruned = 0;
+    private IOException lastWriteError;
+
+    public DungeonCache(File dir) {
+        this.dir = dir;
+    }
+
+    /** Cap on level files in the directory (at least 1). */
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    /** Where the level for this key lives (whether or not it exists yet). */
+    public File fileFor(DungeonGenerator generator, long seed, int width, int height) {
+        String name = generator.getName().replaceAll("[^A-Za-z0-9_-]", "_");
+        return new File(dir, String.format("%s-v%d-n%d-%016x-%dx%d.dun", name, generator.getVersion(),
+                NavGrid.DATA_VERSION, seed, width, height));
+    }
+
+    /**
+     * Cached level if there is one, else generate it, build its NavGrid and
+     * store both. A failed write only costs the next run a rebuild; it is
+     * counted and kept in {@link #getLastWriteError}.
+     */
+    public NavGrid loadOrGenerate(Dungeon dungeon, DungeonGenerator generator, long seed) {
+        NavGrid grid = load(dungeon, generator, seed);
+        if (grid != null) return grid;
+        dungeon.generate(generator, seed);
+        grid = NavGrid.build(dungeon);
+        try {
+            store(dungeon, grid, generator, seed);
+        } catch (IOException e) {
+            writeFailures++;
+            lastWriteError = e;
+        }
+        return grid;
+    }
+
+    /**
+     * Load the cached level into the dungeon and return its NavGrid, or
+     * null (dungeon untouched) if there is no valid cache file.
+     */
+    public NavGrid load(Dungeon dungeon, DungeonGenerator generator, long seed) {
+        File file = fileFor(generator, seed, dungeon.width, dungeon.height);
+        if (!file.isFile()) { misses++; return null; }
+        final int n = dungeon.width * dungeon.height;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size != fileBytes(dungeon)) { misses++; return null; }
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt() != MAGIC || map.getInt() != FORMAT_VERSION || map.getInt() != NavGrid.DATA_VERSION
+                    || map.getInt() != generator.getVersion() || map.getInt() != generator.getName().hashCode()
+                    || map.getLong() != seed || map.getInt() != dungeon.width || map.getInt() != dungeon.height) {
+                misses++;
+                return null;
+            }
+
+            float[] clearance = new float[n], gradX = new float[n], gradY = new float[n];
+            byte[] wallDistance = new byte[n];
+            int pos = HEADER_BYTES;
+            map.position(pos);
+            // read everything before touching the dungeon, so a short read leaves it as it was
+            LongBuffer words = map.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            words.limit(dungeon.solidWords().length);
+            pos += dungeon.solidWords().length * 8;
+            pos = readFloats(map, pos, clearance);
+            pos = readFloats(map, pos, gradX);
+            pos = readFloats(map, pos, gradY);
+            map.position(pos);
+            map.get(wallDistance);
+
+            dungeon.loadSolidWords(words);
+            hits++;
+            file.setLastModified(System.currentTimeMillis());   // recently used, for pruning
+            return NavGrid.restore(dungeon, clearance, wallDistance, gradX, gradY);
+        } catch (IOException | RuntimeException e) {
+            misses++;
+            return null;
+        }
+    }
+
+    /** Write the level (tiles + grid built from it) under its key, then prune the directory. */
+    public void store(Dungeon dungeon, NavGrid grid, DungeonGenerator generator, long seed) throws IOException {
+        if (grid.width != dungeon.width || grid.height != dungeon.height) {
+            throw new IllegalArgumentException("grid was not built from this dungeon");
+        }
+        Files.createDirectories(dir.toPath());
+        File file = fileFor(generator, seed, dungeon.width, dungeon.height);
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(NavGrid.DATA_VERSION)
+                    .putInt(generator.getVersion()).putInt(generator.getName().hashCode());
+            buf.putLong(seed).putInt(dungeon.width).putInt(dungeon.height).putInt(0);
+            writeLongs(ch, buf, dungeon.solidWords());
+            writeFloats(ch, buf, grid.clearanceData());
+            writeFloats(ch, buf, grid.gradientXData());
+            writeFloats(ch, buf, grid.gradientYData());
+            byte[] wallDistance = grid.wallDistanceData();
+            for (int off = 0; off < wallDistance.length; ) {
+                if (!buf.hasRemaining()) flush(ch, buf);
+                int k = Math.min(wallDistance.length - off, buf.remaining());
+                buf.put(wallDistance, off, k);
+                off += k;
+            }
+            flush(ch, buf);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        prune(file);
+    }
+
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public int getWriteFailures() { return writeFailures; }
+    /** Why the last store from {@link #loadOrGenerate} failed, or null. */
+    public IOException getLastWriteError() { return lastWriteError; }
+    /** Level files deleted to stay under the cap. */
+    public int getPrunedCount() { return pruned; }
+
+    // ------------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------------
+    // Newest first by modification time, the file just written ahead of any tie
+    private void prune(File keep) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".dun"));
+        if (files == null || files.length <= maxFiles) return;
+        Arrays.sort(files, (a, b) -> a.equals(keep) ? -1 : b.equals(keep) ? 1
+                : Long.compare(b.lastModified(), a.lastModified()));
+        for (int i = maxFiles; i < files.length; i++) {
+            if (files[i].delete()) pruned++;
+        }
+    }
+
+    private static long fileBytes(Dungeon dungeon) {
+        long n = (long)dungeon.width * dungeon.height;
+        return HEADER_BYTES + dungeon.solidWords().length * 8L + n * 4L * 3 + n;
+    }
+
+    private static int readFloats(MappedByteBuffer map, int pos, float[] out) {
+        map.position(pos);
+        map.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(out);
+        return pos + out.length * 4;
+    }
+
+    // Bulk puts through a view of the chunk buffer, flushing whenever it fills
+    private static void writeFloats(FileChannel ch, ByteBuffer buf, float[] values) throws IOException {
+        for (int off = 0; off < values.length; ) {
+            if (buf.remaining() < 4) flush(ch, buf);
+            int k = Math.min(values.length - off, buf.remaining() / 4);
+            buf.asFloatBuffer().put(values, off, k);
+            buf.position(buf.position() + k * 4);
+            off += k;
+        }
+    }
+
+    private static void writeLongs(FileChannel ch, ByteBuffer buf, long[] values) throws IOException {
+        for (int off = 0; off < values.length; ) {
+            if (buf.remaining() < 8) flush(ch, buf);
+            int k = Math.min(values.length - off, buf.remaining() / 8);
+            buf.asLongBuffer().put(values, off, k);
+            buf.position(buf.position() + k * 8);
+            off += k;
+        }
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
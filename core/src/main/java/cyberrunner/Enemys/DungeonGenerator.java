@@ -0,0 +1,25 @@
+// Author: Martin Taylor
+// File: DungeonGenerator.java
+// Date: 2026-10-17
+// Description:
+//   Something that lays out the tiles of a Dungeon from a seed. The stock
+//   generators are GeneratorPipeline presets (classic rooms, BSP, caves).
+
+package cyberrunner.Enemys;
+
+/**
+ * Fills a dungeon's tiles from a seed. The same seed on the same size of map
+ * must give the same layout. Generators only write tiles; Dungeon bumps its
+ * layout version once the generator returns.
+ */
+public interface DungeonGenerator {
+
+    /** Short name for logs and the benchmark. */
+    String getName();
+
+    /** Bump whenever the layout for a given seed changes; level caches key on it. */
+    int getVersion();
+
+    /** Overwrite every tile of the dungeon. */
+    void generate(Dungeon dungeon, long seed);
+}
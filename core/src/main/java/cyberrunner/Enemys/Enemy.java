@@ -11,6 +11,7 @@ package cyberrunner.Enemys;
 
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
 
 public class Enemy {
 
@@ -32,6 +33,15 @@ public class Enemy {
     protected float speed;
     protected int touchDamage;
 
+    /** Velocity actually moved at last step (px/s); crowd steering reads it. */
+    protected final Vector2 velocity = new Vector2();
+    private final Vector2 steered = new Vector2();
+    /** Slot in the world's crowd snapshot this frame, or -1 (set by the world). */
+    int crowdHandle = -1;
+    /** Contact-solver rest time and sleep state, carried between frames (set by the world). */
+    float contactRest = 0f;
+    boolean contactAsleep = false;
+
     // ------------------------------------------------------------------------
     // Health
     // ------------------------------------------------------------------------
@@ -137,7 +147,9 @@ public class Enemy {
     // ------------------------------------------------------------------------
 
     /**
-     * Move toward a target point with per-axis collision via EnemyContext.
+     * Move toward a target point: full speed is the preferred velocity, the
+     * context's crowd steering picks the actual one, and the move slides
+     * along walls via EnemyContext.
      */
     protected void moveToward(float targetX,
                               float targetY,
@@ -152,29 +164,22 @@ public class Enemy {
         float length = (float) Math.sqrt(dx * dx + dy * dy);
 
         if (length < 1e-4f) {
+            velocity.setZero();
             return;
         }
 
         dx /= length;
         dy /= length;
 
-        float stepX = dx * speed * deltaTime;
-        float stepY = dy * speed * deltaTime;
-
-        float originalX = bounds.x;
-        float originalY = bounds.y;
-
-        // Move X
-        bounds.x = originalX + stepX;
-        if (context.isBlocked(bounds)) {
-            bounds.x = originalX;
-        }
+        context.steer(this, dx * speed, dy * speed, deltaTime, steered);
+        moveBy(steered.x * deltaTime, steered.y * deltaTime, deltaTime, context);
+    }
 
-        // Move Y
-        bounds.y = originalY + stepY;
-        if (context.isBlocked(bounds)) {
-            bounds.y = originalY;
-        }
+    /** Slide by (stepX, stepY) and record the velocity actually achieved. */
+    protected void moveBy(float stepX, float stepY, float deltaTime, EnemyContext context) {
+        float oldX = bounds.x, oldY = bounds.y;
+        context.moveAndSlide(bounds, stepX, stepY);
+        if (deltaTime > 0f) velocity.set((bounds.x - oldX) / deltaTime, (bounds.y - oldY) / deltaTime);
     }
 
     // ------------------------------------------------------------------------
@@ -309,4 +314,8 @@ public class Enemy {
         return uid;
     }
 
+    public Vector2 getVelocity() {
+        return velocity;
+    }
+
 } // End of class Enemy
@@ -26,9 +26,34 @@ public interface EnemyContext {
     // -----------------------------
     boolean isBlocked(Rectangle worldRect);    // AABB vs world (true = blocked)
 
-    Vector2 nearestOpen(Vector2 worldPos, int maxRadiusTiles);
+    // Move the box by (dx,dy), stopping at walls and sliding along them; true if it touched one.
+    // The default steps each axis whole and undoes it if blocked; worlds with swept tests override it.
+    default boolean moveAndSlide(Rectangle worldRect, float dx, float dy) {
+        float oldX = worldRect.x, oldY = worldRect.y;
+        boolean touched = false;
+        worldRect.x = oldX + dx;
+        if (isBlocked(worldRect)) { worldRect.x = oldX; touched = true; }
+        worldRect.y = oldY + dy;
+        if (isBlocked(worldRect)) { worldRect.y = oldY; touched = true; }
+        return touched;
+    }
+
+    // Crowd steering: the velocity self should take instead of (prefVx,prefVy) to avoid the
+    // others, written to out. The default does no avoidance.
+    default void steer(Enemy self, float prefVx, float prefVy, float dt, Vector2 out) {
+        out.set(prefVx, prefVy);
+    }
+
+    // Centre of the nearest open tile into out; false (out untouched) if none within the radius
+    boolean nearestOpen(float x, float y, int maxRadiusTiles, Vector2 out);
+
+    // Allocating convenience: a new Vector2 at the nearest open spot (the input point if none)
+    default Vector2 nearestOpen(Vector2 worldPos, int maxRadiusTiles) {
+        Vector2 out = new Vector2(worldPos);
+        nearestOpen(worldPos.x, worldPos.y, maxRadiusTiles, out);
+        return out;
+    }
 
-    // Float overload: return a new Vector2 at the nearest open spot
     default Vector2 nearestOpen(float x, float y, int maxRadiusTiles) {
         return nearestOpen(new Vector2(x, y), maxRadiusTiles);
     }
@@ -52,10 +77,17 @@ public interface EnemyContext {
     // Utilities
     // -----------------------------
     float getTileSize();
-    boolean hasLineOfSight(Vector2 a, Vector2 b);
+    boolean hasLineOfSight(float x0, float y0, float x1, float y1);
+
+    default boolean hasLineOfSight(Vector2 a, Vector2 b) {
+        return hasLineOfSight(a.x, a.y, b.x, b.y);
+    }
+
+    /** O(1): is tile (tx,ty) in the player's field of view? Updated when the player changes tile. */
+    boolean isTileVisibleToPlayer(int tx, int ty);
 
-    // ✅ Float overload used by EnemySandboxApp
-    default boolean hasLineOfSight(float x0, float y0, float x1, float y1) {
-        return hasLineOfSight(new Vector2(x0, y0), new Vector2(x1, y1));
+    default boolean isVisibleToPlayer(float wx, float wy) {
+        float ts = getTileSize();
+        return isTileVisibleToPlayer((int)Math.floor(wx / ts), (int)Math.floor(wy / ts));
     }
 }
@@ -26,11 +26,15 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.ObjectMap;
 
 import cyberrunner.Enemys.Berserker.State;
 import cyberrunner.game.KeybindManager;
 
+import java.util.Arrays;
+
 public class EnemySandboxApp extends ApplicationAdapter {
 	private KeybindManager keybindManager;
 	
@@ -51,6 +55,15 @@ public class EnemySandboxApp extends ApplicationAdapter {
     private Dungeon dungeon;
     private final int TILE_SIZE = 64;
 
+    // Randomness: one seed per run (-Dsandbox.seed=N replays a run), one stream per subsystem
+    private RngService rng;
+    private RngStream spawnRng, lootRng, aiRng, visualRng;
+
+    // Generated levels are cached on disk by (generator, seed, size), only for a pinned seed
+    private static final String LEVEL_CACHE_DIR = "cache/levels";
+    private final DungeonGenerator levelGenerator = GeneratorPipeline.classic();
+    private DungeonCache levelCache;
+
     // Textures
     private Texture whiteTexture, floorTexture, wallTexture;
     private Texture playerBodyTexture, goblinBodyTexture, hobgoblinBodyTexture, archerBodyTexture, bomberBodyTexture, berserkerBodyTexture;
@@ -148,12 +161,27 @@ public class EnemySandboxApp extends ApplicationAdapter {
     private float spawnInterval = 0.5f;
     private float spawnTimer    = 0f;
 
+    // Spawn sites: reachable, roomy tiles per clearance class (rebuilt with the grid)
+    private static final int   SPAWN_MAX_CLASS      = 3;
+    private static final float SPAWN_MIN_DIST_TILES = 8f;
+    private SpawnIndex spawnIndex;
+    // Nearest tile with MIN_CLEAR_TILES clearance, for snapping boxes out of walls
+    private NearestTileTable clearSnapTable;
+
     // Pathing helpers (used for simple melee enemies; Archer/Berserker self-drive)
     private static class PathState {
         final Array<Vector2> waypoints = new Array<>();
         int current = 0;
         float repathTimer = 0f;
         int lastTargetTx = Integer.MIN_VALUE, lastTargetTy = Integer.MIN_VALUE;
+        int requestStartTile = -1, requestGoalTile = -1;   // latest path request (cache key)
+        MovingTargetPlanner planner;                        // INCREMENTAL mode only, pooled
+        float requestFootprint = 0f;                        // collision width the path was planned for
+        final IntArray coopTiles = new IntArray();          // COOPERATIVE mode: reserved tile per step
+        int coopPlanStep = -1, coopGoal = -1;               // step coopTiles[0] belongs to, goal it aimed at
+        final int agentId;                                  // owner id in the reservation table
+
+        PathState(int agentId){ this.agentId = agentId; }
 
         // Stuck recovery
         float lastX, lastY;
@@ -162,9 +190,18 @@ public class EnemySandboxApp extends ApplicationAdapter {
     }
     private final float REPTH_INTERVAL = 0.35f;
 
+    // Navigation for melee chasers: one shared flow field, or A* / JPS / HPA* / incremental / navmesh per enemy,
+    // or cooperative windowed A* over the flow field (F1 cycles)
+    private enum NavMode { FLOW_FIELD, ASTAR, JPS, HPA, INCREMENTAL, NAVMESH, COOPERATIVE }
+    private NavMode navMode = NavMode.FLOW_FIELD;
+    private FlowField flowField;
+    private final Vector2 flowTarget = new Vector2();
+
     // Inset collision rect for enemies to reduce snag
     private static final float ENEMY_COLLISION_INSET = 12f;
     private final Rectangle tmpCollisionRect = new Rectangle();
+    private final Rectangle dashProbe = new Rectangle();
+    private final SweepHit arrowHit = new SweepHit();
 
     // Stuck recovery tuning
     private static final float STUCK_SPEED_EPS       = 0.25f;
@@ -172,11 +209,103 @@ public class EnemySandboxApp extends ApplicationAdapter {
     private static final float STUCK_REPATH_COOLDOWN = 0.25f;
     private static final float STUCK_RECOVER_STEP    = 10f;
 
-    // Clearance field (soft cost away from walls)
-    private float[][] tileClearance;
-    private static final float MIN_CLEAR_TILES       = 0.50f;
-    private static final float PREFERRED_CLEAR_TILES = 1.20f;
-    private static final float CLEAR_SOFTCOST        = 12f;
+    // Clearance field (soft cost away from walls) + reusable search engines
+    private static final float MIN_CLEAR_TILES       = NavGrid.MIN_CLEAR_TILES;
+    private NavGrid navGrid;
+    private AStarPathfinder pathfinder;
+    private JumpPointPathfinder jumpPointPathfinder;
+    private HierarchicalPathfinder hierarchicalPathfinder;
+    private static final int HPA_REFINE_SEGMENTS = 3;   // clusters turned into tiles per repath
+
+    // Any-angle paths on a rectangle navmesh grown by the largest chaser's inset half-width
+    private NavMesh navMesh;
+    private static final float NAVMESH_AGENT_RADIUS = (72f - 2f * 12f) * 0.5f;
+
+    // Repaths are queued and run under a per-frame time budget
+    private PathRequestScheduler<Enemy> pathScheduler;
+    private static final int   PATH_BUDGET_MICROS = 1500;
+    private static final float OFFSCREEN_PATH_PRIORITY = 40f;  // tiles of extra "distance" when off-screen
+
+    // Where repaths are solved: background workers, or the budgeted queue on this thread (F2 toggles)
+    private enum PathSolveMode { WORKERS, BUDGETED }
+    private PathSolveMode solveMode = PathSolveMode.WORKERS;
+    private PathWorkerPool<Enemy> pathWorkers;
+    private final PathWorkerPool.Listener<Enemy> workerPathListener = this::onWorkerPath;
+
+    // Smoothed paths by (start tile, goal tile); stale once navGrid.version changes
+    private final PathCache pathCache = new PathCache();
+    private final FloatArray pathPoints = new FloatArray();
+    private final Array<Vector2> pathScratch = new Array<>();
+
+    // Size-aware paths (F3 toggles): searches and smoothing use each enemy's collision footprint.
+    // Per-footprint counters show whether big bodies still snag (stuck nudges force extra repaths).
+    // Every sandbox enemy collides as 32-48 px after the inset, which fits one 64 px tile, so all of
+    // them are clearance class 1 for now and F3 only changes the smoothing sweep. Classes 2+ are only
+    // exercised by PathfindingBenchmark's wide agents until a bigger enemy exists.
+    private static class SizeMetrics {
+        final int footprint;
+        int repaths, forcedRepaths, stuckNudges, failedPaths;
+        SizeMetrics(int footprint){ this.footprint = footprint; }
+    }
+    private boolean sizeAwarePaths = true;
+    private final Array<SizeMetrics> sizeStats = new Array<>();
+    private float sizeStatsTime = 0f;
+
+    // Incremental mode: moving-target planners keep their search tree between repaths.
+    // Each holds grid-sized buffers, so they are pooled and capped; the rest use the queue.
+    private static final int MAX_PLANNERS = 64;
+    private final Array<MovingTargetPlanner> freePlanners = new Array<>();
+    private int plannersInUse = 0;
+    private int plansThisFrame = 0, planExpandedThisFrame = 0, planReroots = 0;
+    private final IntArray pathTiles = new IntArray();
+
+    // Cooperative mode: chasers reserve (tile, step) pairs so they queue instead of clumping.
+    // One global step clock; every chaser is fast enough to cross a tile within a step.
+    private static final float COOP_STEP_SECONDS = 0.25f;
+    private static final int   COOP_WINDOW       = CooperativePlanner.DEFAULT_WINDOW;
+    private static final int   COOP_REPLAN_STEPS = COOP_WINDOW / 2;
+    private ReservationTable reservationTable;
+    private CooperativePlanner coopPlanner;
+    private float coopClock = 0f;
+    private int coopStep = 0;
+    private int nextAgentId = 0;
+    private int coopPlansThisFrame = 0, coopExpandedThisFrame = 0, coopFailed = 0;
+
+    // Tiles the player can see, recast only when the player changes tile
+    private FieldOfView playerView;
+    private static final int VIEW_RADIUS_TILES = 24;
+
+    // Separation pushes per frame, averaged per nav mode, to compare clumping between modes
+    private int separationPushes = 0;
+    private final long[] pushTotals = new long[NavMode.values().length];
+    private final int[]  pushFrames = new int[NavMode.values().length];
+
+    // Broadphase for entity-vs-entity queries. Handles are indices into enemies / arrows;
+    // both grids are rebuilt once per frame after everything has moved, and removals wait
+    // in the dead lists until every query has run so the handles stay valid all frame.
+    // The flags mirror the lists by handle, so "already dead?" is one lookup.
+    private final SpatialHash enemyHash  = new SpatialHash(TILE_SIZE);
+    private final SpatialHash arrowHash  = new SpatialHash(TILE_SIZE);
+    private final IntArray deadEnemies = new IntArray();
+    private final IntArray deadArrows  = new IntArray();
+    private boolean[] enemyDead = new boolean[64];
+    private boolean[] arrowDead = new boolean[64];
+    // Orbs then coins; pickups never move, so only rebuilt after one is added or collected
+    private final SpatialHash pickupHash = new SpatialHash(TILE_SIZE);
+    private boolean pickupsDirty = true;
+    private final IntArray hits = new IntArray();
+
+    // Crowd steering (ORCA): every enemy's velocity is solved against a per-frame snapshot
+    // of its neighbours and the walls; separation only mops up what steering could not avoid
+    private CrowdSolver crowd;
+    private boolean crowdAvoidance = true;
+    private long crowdNanos = 0L;
+    private float crowdMicrosLastFrame = 0f;
+    private final Vector2 steerVel = new Vector2();
+
+    // Overlap resolution: a few position iterations over awake contacts; idle piles sleep
+    private ContactSolver contacts;
+    private static final int CONTACT_ITERATIONS = 4;
 
     // Face styles
     private enum FaceStyle { PLAYER_SMILE, GOBLIN_DEVIOUS, HOB_DEVIOUS, ARCHER_MASK, BOMBER_ANGRY, BERSERKER_HELM }
@@ -211,9 +340,15 @@ public class EnemySandboxApp extends ApplicationAdapter {
         }
         @Override public Rectangle getPlayerBounds() { return playerBounds; }
         @Override public boolean isBlocked(Rectangle worldRect) { return dungeon.rectBlocked(worldRect); }
-        @Override public Vector2 nearestOpen(Vector2 worldPos, int maxRadiusTiles) {
-            float[] p = dungeon.nearestOpen(worldPos.x, worldPos.y, maxRadiusTiles);
-            return new Vector2(p[0], p[1]);
+        @Override public boolean moveAndSlide(Rectangle worldRect, float dx, float dy) { return dungeon.moveAndSlide(worldRect, dx, dy); }
+        @Override public void steer(Enemy self, float prefVx, float prefVy, float dt, Vector2 out) {
+            if (!crowdAvoidance || self.crowdHandle < 0) { out.set(prefVx, prefVy); return; }
+            long t0 = System.nanoTime();
+            crowd.solve(self.crowdHandle, prefVx, prefVy, dt, out);
+            crowdNanos += System.nanoTime() - t0;
+        }
+        @Override public boolean nearestOpen(float x, float y, int maxRadiusTiles, Vector2 out) {
+            return dungeon.nearestOpen(x, y, maxRadiusTiles, out);
         }
         @Override public void spawnArrow(Texture tex, Vector2 origin, Vector2 velocity, int damage) {
             // Use the sandbox's arrow texture/sizing; ignore tex if you want unified visuals
@@ -222,13 +357,22 @@ public class EnemySandboxApp extends ApplicationAdapter {
         @Override public void spawnBomb(Vector2 center) { dropBombAt(center.x, center.y); }
         @Override public void damagePlayer(int amount) { playerTakeDamage(amount); }
         @Override public float getTileSize() { return TILE_SIZE; }
-        @Override public boolean hasLineOfSight(Vector2 a, Vector2 b) { return hasLineOfSight(a.x, a.y, b.x, b.y); }
+        @Override public boolean hasLineOfSight(float x0, float y0, float x1, float y1) { return navGrid.hasLineOfSight(x0, y0, x1, y1); }
+        @Override public boolean isTileVisibleToPlayer(int tx, int ty) { return playerView.isVisible(tx, ty); }
     };
 
     // ------------------------------------------------------------------------
     // LibGDX lifecycle
     // ------------------------------------------------------------------------
     @Override public void create() {
+        Long pinnedSeed = Long.getLong("sandbox.seed");
+        rng = new RngService(pinnedSeed != null ? pinnedSeed : System.nanoTime());
+        spawnRng  = rng.stream(RngService.Stream.SPAWNING);
+        lootRng   = rng.stream(RngService.Stream.LOOT);
+        aiRng     = rng.stream(RngService.Stream.AI);
+        visualRng = rng.stream(RngService.Stream.VISUALS);
+        Gdx.app.log("RNG", "seed " + rng.getSeed());
+
         spriteBatch = new SpriteBatch();
         hudFont  = new BitmapFont();
 
@@ -263,9 +407,29 @@ public class EnemySandboxApp extends ApplicationAdapter {
 
         // Dungeon
         dungeon = new Dungeon(100, 100, TILE_SIZE);
-        dungeon.generate(MathUtils.random(Long.MIN_VALUE, Long.MAX_VALUE));
-        tileClearance = new float[dungeon.width][dungeon.height];
-        buildClearanceField();
+        crowd = new CrowdSolver(dungeon, TILE_SIZE);
+        contacts = new ContactSolver(dungeon, TILE_SIZE);
+        contacts.setIterations(CONTACT_ITERATIONS);
+        // Cached levels skip generation and the clearance build entirely. A fresh
+        // random seed never comes round again, so only pinned runs use the cache.
+        long levelSeed = rng.stream(RngService.Stream.GENERATION).nextLong();
+        long loadStart = System.nanoTime();
+        NavGrid levelGrid;
+        if (pinnedSeed != null) {
+            levelCache = new DungeonCache(Gdx.files.local(LEVEL_CACHE_DIR).file());
+            levelGrid = levelCache.loadOrGenerate(dungeon, levelGenerator, levelSeed);
+            if (levelCache.getWriteFailures() > 0) {
+                Gdx.app.error("LEVEL", "could not cache level (" + levelCache.getWriteFailures() + " failures)",
+                        levelCache.getLastWriteError());
+            }
+        } else {
+            dungeon.generate(levelGenerator, levelSeed);
+            levelGrid = NavGrid.build(dungeon);
+        }
+        boolean cacheHit = levelCache != null && levelCache.getHits() > 0;
+        Gdx.app.log("LEVEL", (cacheHit ? "cache hit " : "generated ") + levelGenerator.getName()
+                + " in " + (System.nanoTime() - loadStart) / 1000000 + " ms");
+        buildNavigation(levelGrid);
 
         // Player
         float cx = (dungeon.width / 2f) * TILE_SIZE;
@@ -293,13 +457,21 @@ public class EnemySandboxApp extends ApplicationAdapter {
         handleDash();
         updateDashAnim(dt);
         handleMelee(dt);
+        handleDebugKeys();
         centerCameraOnPlayer();
 
         updateEnemies(dt);
         updateArrows(dt);
+
+        rebuildEntityHashes();
+        applyMeleeHits();
+        resolvePlayerContacts();
+        hitPlayerWithArrows();
         updateBombs(dt);
-        updateOrbs(dt);
+        removeDeadEntities();
+
         updateCoins(dt);
+        collectPickups();
 
         spawnTimer += dt;
         if (spawnTimer >= spawnInterval) { spawnTimer = 0f; spawnRandomEnemyAnywhere(); }
@@ -370,6 +542,7 @@ public class EnemySandboxApp extends ApplicationAdapter {
     }
 
     @Override public void dispose() {
+        if (pathWorkers!=null) pathWorkers.dispose();
         if (spriteBatch!=null) spriteBatch.dispose();
         if (hudFont !=null) hudFont.dispose();
         if (whiteTexture!=null) whiteTexture.dispose();
@@ -405,11 +578,7 @@ public class EnemySandboxApp extends ApplicationAdapter {
             float dx = lastMoveDirX * playerMoveSpeed * dt;
             float dy = lastMoveDirY * playerMoveSpeed * dt;
 
-            float oldX = playerBounds.x, oldY = playerBounds.y;
-            playerBounds.x += dx;
-            if (dungeon.rectBlocked(playerBounds)) playerBounds.x = oldX;
-            playerBounds.y += dy;
-            if (dungeon.rectBlocked(playerBounds)) playerBounds.y = oldY;
+            dungeon.moveAndSlide(playerBounds, dx, dy);
         }
     }
 
@@ -422,32 +591,90 @@ public class EnemySandboxApp extends ApplicationAdapter {
         float len = (float)Math.sqrt(dx*dx + dy*dy);
         dx/=len; dy/=len;
 
-        // “sweep” forward and stop before collisions
-        float step = 8f;
-        int steps = Math.max(1, (int)(dashDistancePixels/step));
-        float ox = playerBounds.x, oy = playerBounds.y;
-        float curX = ox, curY = oy;
-        Rectangle test = new Rectangle(playerBounds);
-
-        for (int i=0;i<steps;i++){
-            float tryX = curX + dx*step;
-            float tryY = curY + dy*step;
-            float keepX = tryX; test.setPosition(tryX, curY);
-            if (dungeon.rectBlocked(test)) keepX = curX;
-            float keepY = tryY; test.setPosition(keepX, tryY);
-            if (dungeon.rectBlocked(test)) keepY = curY;
-            curX = keepX; curY = keepY;
-            if (Math.abs(curX-ox)+Math.abs(curY-oy) < 0.001f) break;
-        }
+        // sweep the whole dash at once; walls stop it flush and it slides along them
+        dashProbe.set(playerBounds);
+        dungeon.moveAndSlide(dashProbe, dx*dashDistancePixels, dy*dashDistancePixels);
 
-        dashStartX = ox; dashStartY = oy;
-        dashEndX   = curX; dashEndY = curY;
-        playerBounds.x = ox; playerBounds.y = oy;
+        dashStartX = playerBounds.x; dashStartY = playerBounds.y;
+        dashEndX   = dashProbe.x;    dashEndY   = dashProbe.y;
         dashAnimT = 0f;
         isDashing = true;
         dashCooldownTimer = dashCooldownSeconds;
     }
 
+    /** (Re)build the nav grid and every engine on it; cached paths go stale via the new grid version. */
+    private void buildNavigation() {
+        buildNavigation(NavGrid.build(dungeon));
+    }
+
+    private void buildNavigation(NavGrid grid) {
+        navGrid = grid;
+        pathfinder = new AStarPathfinder(navGrid);
+        jumpPointPathfinder = new JumpPointPathfinder(navGrid);
+        hierarchicalPathfinder = new HierarchicalPathfinder(navGrid);
+        hierarchicalPathfinder.setRefineLimit(HPA_REFINE_SEGMENTS);
+        if (pathScheduler == null) {
+            pathScheduler = new PathRequestScheduler<>(activePathfinder(), this::onPathReady);
+            pathScheduler.setBudgetMicros(PATH_BUDGET_MICROS);
+        } else {
+            pathScheduler.clear();
+            pathScheduler.setEngine(activePathfinder());
+        }
+        if (pathWorkers != null) pathWorkers.dispose();
+        pathWorkers = new PathWorkerPool<>(navGrid, engineFactory());
+        flowField = new FlowField(navGrid);
+        navMesh = new NavMesh(navGrid, NAVMESH_AGENT_RADIUS);
+
+        // planners were sized for the old grid
+        for (PathState ps : pathing.values()) { ps.planner = null; ps.coopPlanStep = -1; }
+        freePlanners.clear();
+        plannersInUse = 0;
+        playerView = new FieldOfView(dungeon, VIEW_RADIUS_TILES);
+        reservationTable = new ReservationTable(COOP_WINDOW);
+        coopPlanner = new CooperativePlanner(navGrid, reservationTable, COOP_WINDOW);
+        spawnIndex = new SpawnIndex(navGrid, dungeon.width / 2, dungeon.height / 2, SPAWN_MAX_CLASS);
+        clearSnapTable = NearestTileTable.withClearance(navGrid, MIN_CLEAR_TILES);
+    }
+
+    private void handleDebugKeys() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F1)) {
+            navMode = NavMode.values()[(navMode.ordinal() + 1) % NavMode.values().length];
+            flowField.invalidate();
+            pathScheduler.clear();
+            pathScheduler.setEngine(activePathfinder());
+            pathWorkers.setEngineFactory(engineFactory());
+            pathCache.clear();
+            reservationTable.clear();
+            for (PathState ps : pathing.values()) {
+                releasePlanner(ps); ps.waypoints.clear(); ps.repathTimer = 0f; ps.coopPlanStep = -1;
+            }
+            Gdx.app.log("NAV", "mode " + navMode);
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F2)) {
+            solveMode = solveMode == PathSolveMode.WORKERS ? PathSolveMode.BUDGETED : PathSolveMode.WORKERS;
+            pathScheduler.clear();
+            pathWorkers.cancelAll();
+            for (PathState ps : pathing.values()) ps.repathTimer = 0f;
+            Gdx.app.log("NAV", "solver " + solveMode);
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            sizeAwarePaths = !sizeAwarePaths;
+            pathScheduler.clear();
+            pathWorkers.cancelAll();
+            for (PathState ps : pathing.values()) ps.repathTimer = 0f;
+            sizeStats.clear();
+            sizeStatsTime = 0f;
+            Gdx.app.log("NAV", "size-aware paths " + sizeAwarePaths);
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F4)) {
+            crowdAvoidance = !crowdAvoidance;
+            // the push averages compare modes under one steering setting
+            Arrays.fill(pushTotals, 0L);
+            Arrays.fill(pushFrames, 0);
+            Gdx.app.log("NAV", "crowd steering " + crowdAvoidance);
+        }
+    }
+
     private void updateDashAnim(float dt){
         if (!isDashing) return;
         dashAnimT += dt;
@@ -483,13 +710,21 @@ public class EnemySandboxApp extends ApplicationAdapter {
             meleeActive = false;
             showAttackBrows = false;
             currentSwingId = -1;
-            return;
         }
+    }
+
+    // Runs after movement, against this frame's hashes
+    private void applyMeleeHits() {
+        if (!meleeActive) return;
 
         // damage enemies in box (at most once per enemy per swing)
-        for (int i = enemies.size - 1; i >= 0; --i) {
+        hits.clear();
+        enemyHash.queryRect(meleeBox, hits);
+        hits.sort();
+        for (int k = hits.size - 1; k >= 0; --k) {
+            int i = hits.get(k);
+            if (enemyDead[i]) continue;
             Enemy e = enemies.get(i);
-            if (!e.getBoundingBox().overlaps(meleeBox)) continue;
             if (!e.tryRegisterMeleeSwing(currentSwingId)) continue;
 
             int before = e.getHealth();
@@ -507,15 +742,15 @@ public class EnemySandboxApp extends ApplicationAdapter {
                 Gdx.app.log("DEATH", e.getClass().getSimpleName() + " removed");
                 dropCoin(e);
                 maybeDropOrb(e);
-                enemies.removeIndex(i);
-                pathing.remove(e);
+                killEnemy(i);
+                forgetEnemyPath(e);
             }
         }
 
         // swat arrows
-        for (int i = arrows.size-1; i>=0; --i){
-            if (arrows.get(i).bounds.overlaps(meleeBox)) arrows.removeIndex(i);
-        }
+        hits.clear();
+        arrowHash.queryRect(meleeBox, hits);
+        for (int k = 0; k < hits.size; k++) killArrow(hits.get(k));
     }
 
     private void startMelee(){
@@ -565,12 +800,33 @@ public class EnemySandboxApp extends ApplicationAdapter {
 
     // ------------------------------------------------------------------------
     // Enemies update (Archer/Berserker self-update via EnemyContext;
-    // others use per-axis move + slide + stuck recovery)
+    // others use steered move + slide + stuck recovery)
     // ------------------------------------------------------------------------
     private void updateEnemies(float dt){
         int playerTileX = worldToTileX(playerBounds.x + playerBounds.width*0.5f);
         int playerTileY = worldToTileY(playerBounds.y + playerBounds.height*0.5f);
 
+        if (navGrid.dungeonVersion != dungeon.getVersion()) buildNavigation();
+        plansThisFrame = 0; planExpandedThisFrame = 0;
+        coopPlansThisFrame = 0; coopExpandedThisFrame = 0;
+        sizeStatsTime += dt;
+
+        coopClock += dt;
+        while (coopClock >= COOP_STEP_SECONDS) { coopClock -= COOP_STEP_SECONDS; coopStep++; }
+
+        playerView.update(playerTileX, playerTileY);
+
+        // Safe point: apply paths the workers finished since last frame
+        pathWorkers.drain(workerPathListener);
+
+        // One shared field toward the player; only rebuilds when the player's tile changes
+        if ((navMode == NavMode.FLOW_FIELD || navMode == NavMode.COOPERATIVE) && inBoundsTiles(playerTileX, playerTileY)) {
+            int goal = snapTargetTile(playerTileX, playerTileY);
+            flowField.update(navGrid.tileX(goal), navGrid.tileY(goal));
+        }
+
+        buildCrowdSnapshot();
+
         for (Enemy enemy : enemies){
             // Always tick via EnemyContext; Archer/Berserker implement their own behavior
             enemy.update(dt, enemyCtx);
@@ -580,41 +836,49 @@ public class EnemySandboxApp extends ApplicationAdapter {
                 // handled internally
             } else {
                 PathState ps = pathing.get(enemy);
-                if (ps == null) { ps = new PathState(); pathing.put(enemy, ps); initStuckTrack(enemy, ps); }
+                if (ps == null) { ps = new PathState(nextAgentId++); pathing.put(enemy, ps); initStuckTrack(enemy, ps); }
 
                 ps.repathTimer -= dt;
                 if (ps.nudgeCooldown > 0f) ps.nudgeCooldown -= dt;
 
-                boolean needRepath = (ps.repathTimer<=0f) || (ps.lastTargetTx!=playerTileX || ps.lastTargetTy!=playerTileY);
-
                 Rectangle rb = enemy.getBoundingBox();
                 int eTx = worldToTileX(rb.x + rb.width*0.5f);
                 int eTy = worldToTileY(rb.y + rb.height*0.5f);
 
-                if (needRepath){
-                    ps.waypoints.clear();
-                    findPathAStar(eTx, eTy, playerTileX, playerTileY, ps.waypoints);
-                    smoothWaypoints(ps.waypoints, rb.x + rb.width*0.5f, rb.y + rb.height*0.5f);
-                    ps.current = 0;
-                    ps.repathTimer = REPTH_INTERVAL;
-                    ps.lastTargetTx = playerTileX; ps.lastTargetTy = playerTileY;
-                }
-
                 // choose target waypoint (or player center as fallback)
                 Vector2 target = null;
-                while (ps.current < ps.waypoints.size) {
-                    Vector2 wp = ps.waypoints.get(ps.current);
-                    float dx = (rb.x + rb.width*0.5f) - wp.x;
-                    float dy = (rb.y + rb.height*0.5f) - wp.y;
-                    if (dx*dx + dy*dy < 14f*14f) ps.current++;
-                    else { target = wp.cpy(); target.add(clearanceNudgeAtWorld(target.x, target.y, 0.18f*TILE_SIZE)); break; }
+                if (navMode == NavMode.FLOW_FIELD) {
+                    target = flowFieldTarget(eTx, eTy);
+                } else if (navMode == NavMode.COOPERATIVE) {
+                    target = cooperativeTarget(enemy, ps, eTx, eTy);
+                } else {
+                    boolean needRepath = (ps.repathTimer<=0f) || (ps.lastTargetTx!=playerTileX || ps.lastTargetTy!=playerTileY);
+                    if (needRepath){
+                        // keep following the old waypoints until the new path lands
+                        requestPath(enemy, ps, eTx, eTy, playerTileX, playerTileY);
+                        ps.repathTimer = REPTH_INTERVAL;
+                        ps.lastTargetTx = playerTileX; ps.lastTargetTy = playerTileY;
+                    }
+
+                    while (ps.current < ps.waypoints.size) {
+                        Vector2 wp = ps.waypoints.get(ps.current);
+                        float dx = (rb.x + rb.width*0.5f) - wp.x;
+                        float dy = (rb.y + rb.height*0.5f) - wp.y;
+                        if (dx*dx + dy*dy < 14f*14f) ps.current++;
+                        else {
+                            target = wp.cpy();
+                            // navmesh paths already keep their distance from walls
+                            if (navMode != NavMode.NAVMESH) nudgeOffWalls(target, 0.18f*TILE_SIZE);
+                            break;
+                        }
+                    }
                 }
                 if (target == null) target = new Vector2(
                         playerBounds.x + playerBounds.width*0.5f,
                         playerBounds.y + playerBounds.height*0.5f
                 );
 
-                // PER-AXIS MOVE + SLIDE
+                // STEERED MOVE + SLIDE
                 float cx = rb.x + rb.width*0.5f, cy = rb.y + rb.height*0.5f;
                 float dx = target.x - cx, dy = target.y - cy;
                 float len = (float)Math.sqrt(dx*dx + dy*dy);
@@ -622,31 +886,39 @@ public class EnemySandboxApp extends ApplicationAdapter {
                 dx /= len; dy /= len;
 
                 float step = enemy.getSpeed() * dt;
-                float moveX = dx * step;
-                float moveY = dy * step;
+                // reserved tiles are held, not overshot: stop on the tile centre until the plan moves on
+                if (navMode == NavMode.COOPERATIVE && ps.coopPlanStep >= 0) step = Math.min(step, len);
+                float prefSpeed = dt > 0f ? step / dt : 0f;
+                enemyCtx.steer(enemy, dx * prefSpeed, dy * prefSpeed, dt, steerVel);
 
                 float oldX = rb.x, oldY = rb.y;
-
-                // X first
-                rb.x = oldX + moveX;
-                if (enemyRectBlockedInset(rb)) rb.x = oldX;
-
-                // Y next
-                rb.y = oldY + moveY;
-                if (enemyRectBlockedInset(rb)) rb.y = oldY;
+                moveEnemy(rb, steerVel.x * dt, steerVel.y * dt);
+                if (dt > 0f) enemy.getVelocity().set((rb.x - oldX) / dt, (rb.y - oldY) / dt);
 
                 // STUCK RECOVERY
                 updateStuckTrack(enemy, ps, dt);
             }
         }
 
-        // separate a bit (circle push)
-        separateEnemies();
+        if (navMode != NavMode.FLOW_FIELD && solveMode == PathSolveMode.BUDGETED) pathScheduler.update();
+
+        crowdMicrosLastFrame = crowdNanos / 1000f;
+
+        // resolve overlaps; with crowd steering on this only catches leftovers
+        separateEnemies(dt);
+        pushTotals[navMode.ordinal()] += separationPushes;
+        pushFrames[navMode.ordinal()]++;
+    }
 
-        // contact rules with player
-        for (int i = enemies.size-1; i>=0; --i) {
+    // contact rules with player
+    private void resolvePlayerContacts(){
+        hits.clear();
+        enemyHash.queryRect(playerBounds, hits);
+        hits.sort();
+        for (int k = hits.size-1; k>=0; --k) {
+            int i = hits.get(k);
+            if (enemyDead[i]) continue;
             Enemy e = enemies.get(i);
-            if (!e.getBoundingBox().overlaps(playerBounds)) continue;
 
             if (e instanceof Berserker) {
                 Berserker b = (Berserker)e;
@@ -669,8 +941,8 @@ public class EnemySandboxApp extends ApplicationAdapter {
 
             dropCoin(e);
             maybeDropOrb(e);
-            enemies.removeIndex(i);
-            pathing.remove(e);
+            killEnemy(i);
+            forgetEnemyPath(e);
         }
     }
 
@@ -694,22 +966,23 @@ public class EnemySandboxApp extends ApplicationAdapter {
 
         if (ps.stillTimer >= STUCK_TIME && ps.nudgeCooldown <= 0f) {
             // small perpendicular nudge to break corner pinches
-            float jitterAngle = MathUtils.randomBoolean() ? 90f : -90f;
+            float jitterAngle = aiRng.randomBoolean() ? 90f : -90f;
             float angle = MathUtils.atan2(
                     (ps.lastY - rb.y), (ps.lastX - rb.x)) * MathUtils.radiansToDegrees;
-            if (Float.isNaN(angle)) angle = MathUtils.random(0f, 360f);
+            if (Float.isNaN(angle)) angle = aiRng.random(0f, 360f);
             float nudgeDir = (angle + jitterAngle) * MathUtils.degreesToRadians;
 
             float nx = MathUtils.cos(nudgeDir) * STUCK_RECOVER_STEP;
             float ny = MathUtils.sin(nudgeDir) * STUCK_RECOVER_STEP;
 
-            float oldX = rb.x, oldY = rb.y;
-            rb.x += nx; if (enemyRectBlockedInset(rb)) rb.x = oldX;
-            rb.y += ny; if (enemyRectBlockedInset(rb)) rb.y = oldY;
+            moveEnemy(rb, nx, ny);
 
             // force a quick repath soon
             PathState ps2 = pathing.get(e);
             if (ps2 != null) ps2.repathTimer = Math.min(ps2.repathTimer, 0.05f);
+            SizeMetrics sm = sizeMetrics(e);
+            sm.stuckNudges++;
+            if (navMode != NavMode.FLOW_FIELD) sm.forcedRepaths++;
 
             // cooldown and reset
             ps.nudgeCooldown = STUCK_REPATH_COOLDOWN;
@@ -730,27 +1003,23 @@ public class EnemySandboxApp extends ApplicationAdapter {
     private void updateArrows(float dt){
         for (int i = arrows.size-1; i>=0; --i){
             Arrow a = arrows.get(i);
+            // swept, so fast arrows cannot skip through a wall on a long frame
+            if (dungeon.sweep(a.bounds, a.vx * dt, a.vy * dt, arrowHit)) { arrows.removeIndex(i); continue; }
             a.bounds.x += a.vx * dt;
             a.bounds.y += a.vy * dt;
-
-            if (dungeon.rectBlocked(a.bounds)) { arrows.removeIndex(i); continue; }
-            if (a.bounds.overlaps(playerBounds)) {
-                playerTakeDamage(a.damage);
-                arrows.removeIndex(i);
-                continue;
-            }
             // cull far away
             float m=600f, L=viewLeft()-m, B=viewBottom()-m, R=L+viewWidth()+2*m, T=B+viewHeight()+2*m;
             if (a.bounds.x < L || a.bounds.x > R || a.bounds.y < B || a.bounds.y > T) arrows.removeIndex(i);
         }
     }
 
-    private void updateOrbs(float dt){
-        for (int i = orbs.size-1; i>=0; --i){
-            if (orbs.get(i).bounds.overlaps(playerBounds)) {
-                if (playerHealth < playerHealthMax) playerHealth = Math.min(playerHealthMax, playerHealth + ORB_HEAL);
-                orbs.removeIndex(i);
-            }
+    private void hitPlayerWithArrows(){
+        hits.clear();
+        arrowHash.queryRect(playerBounds, hits);
+        for (int k = 0; k < hits.size; k++) {
+            int i = hits.get(k);
+            if (!killArrow(i)) continue;
+            playerTakeDamage(arrows.get(i).damage);
         }
     }
 
@@ -759,11 +1028,33 @@ public class EnemySandboxApp extends ApplicationAdapter {
             Coin c = coins.get(i);
             c.bobT += dt;
             c.drawOffsetY = MathUtils.sin(c.bobT * 7f) * 2f;
-            if (c.bounds.overlaps(playerBounds)) {
-                coinCount += c.value;
-                coins.removeIndex(i);
+        }
+    }
+
+    // Orbs and coins the player touches (bounds stay put; the bob is draw-only)
+    private void collectPickups(){
+        if (pickupsDirty) {
+            pickupHash.clear();
+            for (int i = 0; i < orbs.size; i++) pickupHash.add(orbs.get(i).bounds);
+            for (int i = 0; i < coins.size; i++) pickupHash.add(coins.get(i).bounds);
+            pickupHash.build();
+            pickupsDirty = false;
+        }
+        hits.clear();
+        if (pickupHash.queryRect(playerBounds, hits) == 0) return;
+        hits.sort();
+        int orbCount = orbs.size;
+        for (int k = hits.size-1; k>=0; --k) {
+            int h = hits.get(k);
+            if (h >= orbCount) {
+                coinCount += coins.get(h - orbCount).value;
+                coins.removeIndex(h - orbCount);
+            } else {
+                if (playerHealth < playerHealthMax) playerHealth = Math.min(playerHealthMax, playerHealth + ORB_HEAL);
+                orbs.removeIndex(h);
             }
         }
+        pickupsDirty = true;
     }
 
     private void updateBombs(float dt){
@@ -782,12 +1073,16 @@ public class EnemySandboxApp extends ApplicationAdapter {
                         float py = playerBounds.y + playerBounds.height*0.5f;
                         if (Vector2.dst(px,py,b.x,b.y) <= BOMB_RADIUS) playerTakeDamage(BOMB_DAMAGE);
 
-                        // swat nearby arrows
-                        for (int a = arrows.size-1; a>=0; --a){
+                        // swat nearby arrows (centre inside the blast)
+                        hits.clear();
+                        arrowHash.queryRadius(b.x, b.y, BOMB_RADIUS, hits);
+                        for (int k = 0; k < hits.size; k++){
+                            int a = hits.get(k);
+                            if (arrowDead[a]) continue;
                             Arrow ar = arrows.get(a);
                             float ax = ar.bounds.x + ar.bounds.width*0.5f;
                             float ay = ar.bounds.y + ar.bounds.height*0.5f;
-                            if (Vector2.dst(ax,ay,b.x,b.y) <= BOMB_RADIUS) arrows.removeIndex(a);
+                            if (Vector2.dst(ax,ay,b.x,b.y) <= BOMB_RADIUS) killArrow(a);
                         }
                     }
                 }
@@ -811,160 +1106,376 @@ public class EnemySandboxApp extends ApplicationAdapter {
         return dungeon.rectBlocked(tmpCollisionRect);
     }
 
-    private static class Node {
-        int x,y; float g,f; Node parent;
-        Node(int x,int y,float g,float f,Node p){this.x=x;this.y=y;this.g=g;this.f=f;this.parent=p;}
+    // Swept move of an enemy's inset collision box; the sprite box follows it
+    private void moveEnemy(Rectangle r, float dx, float dy){
+        tmpCollisionRect.set(
+                r.x + ENEMY_COLLISION_INSET,
+                r.y + ENEMY_COLLISION_INSET,
+                Math.max(1f, r.width  - 2f*ENEMY_COLLISION_INSET),
+                Math.max(1f, r.height - 2f*ENEMY_COLLISION_INSET)
+        );
+        dungeon.moveAndSlide(tmpCollisionRect, dx, dy);
+        r.x = tmpCollisionRect.x - ENEMY_COLLISION_INSET;
+        r.y = tmpCollisionRect.y - ENEMY_COLLISION_INSET;
     }
 
-    private void findPathAStar(int sx,int sy,int tx,int ty, Array<Vector2> out){
-        out.clear();
-        if (!inBoundsTiles(sx,sy) || !inBoundsTiles(tx,ty)) return;
+    /** Downhill step from the shared flow field, or null at the goal / when unreachable. */
+    private Vector2 flowFieldTarget(int eTx,int eTy){
+        int next = flowField.nextTile(eTx, eTy);
+        if (next < 0) return null;
+        float wx = navGrid.tileX(next)*TILE_SIZE + TILE_SIZE*0.5f;
+        float wy = navGrid.tileY(next)*TILE_SIZE + TILE_SIZE*0.5f;
+        nudgeOffWalls(flowTarget.set(wx, wy), 0.18f*TILE_SIZE);
+        return flowTarget;
+    }
+
+    /**
+     * Next reserved tile centre for a chaser in COOPERATIVE mode. Replans (and re-reserves) every
+     * few steps, when the player's tile changes, or after a stuck nudge; falls back to the plain
+     * flow-field step when every route through the window is blocked.
+     */
+    private Vector2 cooperativeTarget(Enemy e, PathState ps, int eTx, int eTy){
+        int k = ps.coopPlanStep < 0 ? -1 : coopStep - ps.coopPlanStep;
+        boolean replan = k < 0 || k >= COOP_REPLAN_STEPS || k >= ps.coopTiles.size - 1
+                || ps.repathTimer <= 0f || ps.coopGoal != flowField.getGoal();
+        if (replan) {
+            releaseCooperative(ps);
+            ps.repathTimer = COOP_REPLAN_STEPS * COOP_STEP_SECONDS;   // step count drives replans; stuck nudges cut this
+            sizeMetrics(e).repaths++;
+            coopPlanner.setAgentClearance(navGrid.clearanceClassFor(sizeAwarePaths ? agentFootprint(e) : 0f));
+            boolean found = inBoundsTiles(eTx, eTy)
+                    && coopPlanner.plan(ps.agentId, eTx, eTy, flowField, coopStep, ps.coopTiles);
+            coopPlansThisFrame++;
+            coopExpandedThisFrame += coopPlanner.getLastExpanded();
+            if (!found) {
+                coopFailed++;
+                sizeMetrics(e).failedPaths++;
+                return flowFieldTarget(eTx, eTy);
+            }
+            ps.coopPlanStep = coopStep;
+            ps.coopGoal = flowField.getGoal();
+            k = 0;
+        }
+        int tile = ps.coopTiles.get(Math.min(k + 1, ps.coopTiles.size - 1));
+        return flowTarget.set(navGrid.tileX(tile)*TILE_SIZE + TILE_SIZE*0.5f, navGrid.tileY(tile)*TILE_SIZE + TILE_SIZE*0.5f);
+    }
 
-        if (dungeon.isSolid(tx,ty) || clearanceAtTile(tx,ty) < MIN_CLEAR_TILES) {
+    private void releaseCooperative(PathState ps){
+        if (ps.coopPlanStep < 0) return;
+        coopPlanner.release(ps.agentId, ps.coopTiles, ps.coopPlanStep, coopStep);
+        ps.coopTiles.clear();
+        ps.coopPlanStep = -1;
+    }
+
+    /** Pull a target that sits in (or hugs) a wall onto a nearby clear tile. Returns a tile index. */
+    private int snapTargetTile(int tx,int ty){
+        return snapTargetTile(tx,ty,1);
+    }
+
+    /** Same, but the tile must also fit an agent of the given clearance class. */
+    private int snapTargetTile(int tx,int ty,int clearanceClass){
+        if (!standableTile(tx,ty,clearanceClass)) {
             int bestX=tx, bestY=ty;
             for (int r=1;r<=4;r++){
                 for (int dx=-r; dx<=r; dx++){
                     int x=tx+dx, y1=ty+r, y2=ty-r;
-                    if (inBoundsTiles(x,y1)&&!dungeon.isSolid(x,y1)&&clearanceAtTile(x,y1)>=MIN_CLEAR_TILES){bestX=x;bestY=y1;break;}
-                    if (inBoundsTiles(x,y2)&&!dungeon.isSolid(x,y2)&&clearanceAtTile(x,y2)>=MIN_CLEAR_TILES){bestX=x;bestY=y2;break;}
+                    if (standableTile(x,y1,clearanceClass)){bestX=x;bestY=y1;break;}
+                    if (standableTile(x,y2,clearanceClass)){bestX=x;bestY=y2;break;}
                 }
                 for (int dy=-r+1; dy<=r-1; dy++){
                     int y=ty+dy, x1=tx+r, x2=tx-r;
-                    if (inBoundsTiles(x1,y)&&!dungeon.isSolid(x1,y)&&clearanceAtTile(x1,y)>=MIN_CLEAR_TILES){bestX=x1;bestY=y;break;}
-                    if (inBoundsTiles(x2,y)&&!dungeon.isSolid(x2,y)&&clearanceAtTile(x2,y)>=MIN_CLEAR_TILES){bestX=x2;bestY=y;break;}
+                    if (standableTile(x1,y,clearanceClass)){bestX=x1;bestY=y;break;}
+                    if (standableTile(x2,y,clearanceClass)){bestX=x2;bestY=y;break;}
                 }
             }
             tx=bestX; ty=bestY;
         }
+        return navGrid.index(tx,ty);
+    }
+
+    private boolean standableTile(int tx,int ty,int clearanceClass){
+        return inBoundsTiles(tx,ty) && !dungeon.isSolid(tx,ty) && clearanceAtTile(tx,ty) >= MIN_CLEAR_TILES
+                && navGrid.wallDistance(tx,ty) >= clearanceClass;
+    }
+
+    private TilePathfinder activePathfinder(){
+        switch (navMode) {
+            case JPS: return jumpPointPathfinder;
+            case HPA: return hierarchicalPathfinder;
+            default:  return pathfinder;
+        }
+    }
+
+    private void requestPath(Enemy e, PathState ps, int sx,int sy,int tx,int ty){
+        if (!inBoundsTiles(sx,sy) || !inBoundsTiles(tx,ty)) {
+            ps.waypoints.clear(); pathScheduler.cancel(e); pathWorkers.cancel(e); return;
+        }
+        sizeMetrics(e).repaths++;
+        if (navMode == NavMode.NAVMESH) { planNavMesh(e, ps); return; }
+
+        // size-aware: keep to tiles this body fits on, and only take shortcuts it can slide along
+        float footprint = sizeAwarePaths ? agentFootprint(e) : 0f;
+        int clearanceClass = navGrid.clearanceClassFor(footprint);
+        int goal=snapTargetTile(tx,ty,clearanceClass);
+        tx=navGrid.tileX(goal); ty=navGrid.tileY(goal);
+
+        ps.requestStartTile = navGrid.index(sx,sy);
+        ps.requestGoalTile = goal;
+        ps.requestFootprint = footprint;
+        if (navMode == NavMode.INCREMENTAL && planIncremental(e, ps, sx,sy,tx,ty)) return;
+        if (pathCache.get(pathCacheKey(ps), navGrid.version, pathPoints)) {
+            pathScheduler.cancel(e); pathWorkers.cancel(e);
+            setWaypoints(ps, pathPoints);
+            return;
+        }
 
-        if (sx==tx && sy==ty) { out.add(tileCenter(tx,ty)); return; }
+        if (solveMode == PathSolveMode.WORKERS) {
+            // smooth from the tile centre so the result is valid for anyone on that tile
+            Vector2 from = tileCenter(sx,sy);
+            pathWorkers.submit(e, sx,sy,tx,ty, from.x, from.y, footprint);
+            return;
+        }
 
-        final int W=dungeon.width,H=dungeon.height;
-        final int[] dx8={1,-1,0,0, 1, 1,-1,-1};
-        final int[] dy8={0,0,1,-1,1,-1, 1,-1};
-        final float[] stepCost={1,1,1,1,1.41421356f,1.41421356f,1.41421356f,1.41421356f};
+        // nearest first; off-screen chasers can wait
+        float priority = AStarPathfinder.heuristicOctile(sx,sy,tx,ty);
+        if (!isOnScreen(e.getBoundingBox())) priority += OFFSCREEN_PATH_PRIORITY;
+        pathScheduler.request(e, sx,sy,tx,ty, priority, footprint);
+    }
 
-        float[][] bestG=new float[W][H];
-        for(int x=0;x<W;x++) for(int y=0;y<H;y++) bestG[x][y]=Float.POSITIVE_INFINITY;
+    /** Repair this enemy's own search tree; false if no planner is free (caller falls back to the queue). */
+    private boolean planIncremental(Enemy e, PathState ps, int sx,int sy,int tx,int ty){
+        if (ps.planner == null) {
+            if (freePlanners.size > 0) ps.planner = freePlanners.pop();
+            else if (plannersInUse < MAX_PLANNERS) ps.planner = new MovingTargetPlanner(navGrid);
+            else return false;
+            plannersInUse++;
+        }
+        pathScheduler.cancel(e); pathWorkers.cancel(e);
 
-        Array<Node> open=new Array<>(256);
-        Node start=new Node(sx,sy,0f,heuristicOctile(sx,sy,tx,ty),null);
-        open.add(start); bestG[sx][sy]=0f;
+        ps.planner.setAgentClearance(navGrid.clearanceClassFor(ps.requestFootprint));
+        boolean found = ps.planner.plan(sx,sy,tx,ty, pathTiles);
+        plansThisFrame++;
+        planExpandedThisFrame += ps.planner.getLastExpanded();
+        if (ps.planner.wasLastRerooted()) planReroots++;
 
-        Node goal=null;
-        int guard=15000;
-        while (open.size>0 && guard-- > 0){
-            int bi=0; float bf=open.get(0).f;
-            for (int i=1;i<open.size;i++){ if(open.get(i).f<bf){bf=open.get(i).f;bi=i;} }
-            Node cur=open.removeIndex(bi);
-            if (cur.x==tx && cur.y==ty) { goal=cur; break; }
+        if (found) applyTilePath(ps, pathTiles, ps.requestFootprint);
+        else { sizeMetrics(e).failedPaths++; ps.waypoints.clear(); ps.current = 0; }
+        return true;
+    }
 
-            for (int i=0;i<8;i++){
-                int nx=cur.x+dx8[i], ny=cur.y+dy8[i];
-                if (!inBoundsTiles(nx,ny) || dungeon.isSolid(nx,ny)) continue;
+    /** Centre to centre over the navmesh; cheap enough to solve inline, and already smooth. */
+    private void planNavMesh(Enemy e, PathState ps){
+        pathScheduler.cancel(e); pathWorkers.cancel(e);
+        Rectangle rb = e.getBoundingBox();
+        boolean found = navMesh.findPath(rb.x + rb.width*0.5f, rb.y + rb.height*0.5f,
+                playerBounds.x + playerBounds.width*0.5f, playerBounds.y + playerBounds.height*0.5f, pathPoints);
+        if (found) setWaypoints(ps, pathPoints);
+        else { sizeMetrics(e).failedPaths++; ps.waypoints.clear(); ps.current = 0; }
+    }
 
-                float clear = clearanceAtTile(nx,ny);
-                if (clear < MIN_CLEAR_TILES) continue;
-                if (i>=4){
-                    if (dungeon.isSolid(cur.x+dx8[i],cur.y) || dungeon.isSolid(cur.x, cur.y+dy8[i])) continue;
-                }
-                float ng = cur.g + stepCost[i];
-                if (clear < PREFERRED_CLEAR_TILES) ng += CLEAR_SOFTCOST*(PREFERRED_CLEAR_TILES - clear);
+    private void releasePlanner(PathState ps){
+        if (ps.planner == null) return;
+        ps.planner.reset();
+        freePlanners.add(ps.planner);
+        ps.planner = null;
+        plannersInUse--;
+    }
 
-                if (ng < bestG[nx][ny]){
-                    bestG[nx][ny]=ng;
-                    float nf = ng + heuristicOctile(nx,ny,tx,ty);
-                    open.add(new Node(nx,ny,ng,nf,cur));
-                }
-            }
+    private void forgetEnemyPath(Enemy e){
+        PathState ps = pathing.remove(e);
+        if (ps != null) { releasePlanner(ps); releaseCooperative(ps); }
+        pathScheduler.cancel(e);
+        pathWorkers.cancel(e);
+    }
+
+    // The pool drops results for replaced requests, so this one matches ps's latest request
+    private void onWorkerPath(Enemy e, boolean found, boolean complete, FloatArray points){
+        PathState ps = pathing.get(e);
+        if (ps == null) return;
+        if (!found) { sizeMetrics(e).failedPaths++; ps.waypoints.clear(); ps.current = 0; return; }
+        setWaypoints(ps, points);
+        if (complete) pathCache.put(pathCacheKey(ps), navGrid.version, points);
+    }
+
+    private void setWaypoints(PathState ps, FloatArray points){
+        ps.waypoints.clear();
+        ps.current = 0;
+        for (int i=0; i+1<points.size; i+=2) ps.waypoints.add(new Vector2(points.get(i), points.get(i+1)));
+    }
+
+    private PathWorkerPool.EngineFactory engineFactory(){
+        switch (navMode) {
+            case JPS: return JumpPointPathfinder::new;
+            case HPA: return grid -> {
+                HierarchicalPathfinder h = new HierarchicalPathfinder(grid);
+                h.setRefineLimit(HPA_REFINE_SEGMENTS);
+                return h;
+            };
+            default:  return AStarPathfinder::new;
         }
-        if (goal==null) return;
-
-        Array<Vector2> rev=new Array<>();
-        for(Node n=goal; n!=null; n=n.parent) rev.add(tileCenter(n.x,n.y));
-        for (int i=rev.size-1; i>=0; --i) out.add(rev.get(i));
-        if (out.size>=2){
-            Vector2 first=out.get(0), here=tileCenter(sx,sy);
-            if (first.dst2(here)<1f) out.removeIndex(0);
+    }
+
+    // Keyed by the search that ran, not ps's latest request; partial (refine-limited) paths are not cached
+    private void onPathReady(Enemy e, PathRequestScheduler.Query query, boolean found, IntArray tiles){
+        PathState ps = pathing.get(e);
+        if (ps == null) return;
+        if (!found) { sizeMetrics(e).failedPaths++; ps.waypoints.clear(); ps.current = 0; return; }
+
+        applyTilePath(ps, tiles, query.getFootprint());
+        int goal = navGrid.index(query.getGoalX(), query.getGoalY());
+        if (tiles.peek() == goal) {
+            pathCache.put(pathCacheKey(navGrid.index(query.getStartX(), query.getStartY()), goal, query.getFootprint()),
+                    navGrid.version, pathPoints);
         }
     }
 
-    private void smoothWaypoints(Array<Vector2> wps, float startX, float startY){
-        if (wps.size<=2) return;
-        Array<Vector2> out=new Array<>(wps.size);
-        Vector2 curr=new Vector2(startX,startY);
-        int i=0;
-        while (i<wps.size){
-            int far=i;
-            for (int j=i;j<wps.size;j++){
-                if (hasLineOfSight(curr.x,curr.y, wps.get(j).x, wps.get(j).y)) far=j;
-                else break;
-            }
-            Vector2 chosen=wps.get(far).cpy();
-            chosen.add(clearanceNudgeAtWorld(chosen.x, chosen.y, 0.18f*TILE_SIZE));
-            out.add(chosen);
-            curr.set(wps.get(far));
-            i=far+1;
+    /** Tile path -> smoothed waypoints on ps; leaves the packed points in pathPoints. */
+    private void applyTilePath(PathState ps, IntArray tiles, float footprint){
+        // tiles[0] is the tile the enemy asked from; skip it unless it is the whole path
+        pathScratch.clear();
+        for (int i = tiles.size>=2 ? 1 : 0; i<tiles.size; i++){
+            int idx=tiles.get(i);
+            pathScratch.add(tileCenter(navGrid.tileX(idx), navGrid.tileY(idx)));
         }
-        wps.clear(); wps.addAll(out);
+        Vector2 from = tileCenter(navGrid.tileX(tiles.get(0)), navGrid.tileY(tiles.get(0)));
+        smoothWaypoints(pathScratch, from.x, from.y, footprint);
+
+        pathPoints.clear();
+        for (int i=0; i<pathScratch.size; i++) pathPoints.add(pathScratch.get(i).x, pathScratch.get(i).y);
+        setWaypoints(ps, pathPoints);
     }
 
-    private boolean hasLineOfSight(float x0,float y0,float x1,float y1){
-        float dx=x1-x0, dy=y1-y0;
-        float dist=(float)Math.sqrt(dx*dx+dy*dy);
-        if (dist<1f) return true;
-        int steps = Math.max(2, (int)(dist/(TILE_SIZE*0.5f)));
-        float sx=dx/steps, sy=dy/steps;
-        float x=x0, y=y0;
-        Rectangle probe=new Rectangle(x,y,1f,1f);
-        for (int i=0;i<=steps;i++){
-            probe.setPosition(x,y);
-            if (dungeon.rectBlocked(probe)) return false;
-            int tx=worldToTileX(x), ty=worldToTileY(y);
-            if (clearanceAtTile(tx,ty) < MIN_CLEAR_TILES) return false;
-            x+=sx; y+=sy;
+    private void smoothWaypoints(Array<Vector2> wps, float startX, float startY, float footprint){
+        PathSmoother.smooth(navGrid, wps, startX, startY, footprint);
+    }
+
+    // Paths differ by footprint, so it is part of the cache key
+    private long pathCacheKey(PathState ps){
+        return pathCacheKey(ps.requestStartTile, ps.requestGoalTile, ps.requestFootprint);
+    }
+
+    private long pathCacheKey(int startTile, int goalTile, float footprint){
+        return PathCache.key(startTile, goalTile, Math.min(255, Math.round(footprint)));
+    }
+
+    private SizeMetrics sizeMetrics(Enemy e){
+        int footprint = Math.round(agentFootprint(e));
+        for (int i=0; i<sizeStats.size; i++) if (sizeStats.get(i).footprint == footprint) return sizeStats.get(i);
+        SizeMetrics sm = new SizeMetrics(footprint);
+        int at = 0;
+        while (at < sizeStats.size && sizeStats.get(at).footprint < footprint) at++;
+        sizeStats.insert(at, sm);
+        return sm;
+    }
+
+    /**
+     * Width of the square an enemy actually collides with (see enemyRectBlockedInset). At most
+     * 48 px for the current sprites, i.e. clearance class 1 (see sizeAwarePaths).
+     */
+    private float agentFootprint(Enemy e){
+        Rectangle rb = e.getBoundingBox();
+        return Math.max(1f, Math.max(rb.width, rb.height) - 2f*ENEMY_COLLISION_INSET);
+    }
+
+    private void nudgeOffWalls(Vector2 p,float scalePixels){
+        PathSmoother.nudgeOffWalls(navGrid, p, scalePixels);
+    }
+
+    // Push circles sit inside the box (radius min(w,h)/2); against walls each enemy uses the same
+    // circle as its steering. The solver only moves centres, so the result is applied as one
+    // swept move per enemy and boxes still never end up in a wall. Enemies that have idled
+    // in a pile for a while sleep and cost nothing until something moving presses into them.
+    private void separateEnemies(float dt){
+        contacts.clear();
+        for (int i=0;i<enemies.size;i++){
+            Enemy e = enemies.get(i);
+            Rectangle r = e.getBoundingBox();
+            contacts.addBody(r.x + r.width*0.5f, r.y + r.height*0.5f, Math.min(r.width, r.height)*0.5f,
+                    wallRadius(e), e.getVelocity().len(), e.contactRest, e.contactAsleep);
+        }
+        contacts.solve(dt);
+        separationPushes = contacts.getLastPushes();
+        for (int i=0;i<enemies.size;i++){
+            Enemy e = enemies.get(i);
+            float dx = contacts.getCorrectionX(i), dy = contacts.getCorrectionY(i);
+            if (dx != 0f || dy != 0f) moveEnemy(e.getBoundingBox(), dx, dy);
+            e.contactRest = contacts.getRestSeconds(i);
+            e.contactAsleep = contacts.isSleeping(i);
         }
-        return true;
     }
 
-    private Vector2 clearanceNudgeAtWorld(float wx,float wy,float scalePixels){
-        int tx=worldToTileX(wx), ty=worldToTileY(wy);
-        float cR=clearanceAtTile(tx+1,ty), cL=clearanceAtTile(tx-1,ty);
-        float cU=clearanceAtTile(tx,ty+1), cD=clearanceAtTile(tx,ty-1);
-        Vector2 g=new Vector2((cR-cL)*0.5f, (cU-cD)*0.5f);
-        if (g.len2()>1e-6f) g.nor().scl(scalePixels);
-        return g;
+    // Path followers avoid walls with their inset box; self-moving enemies use their sprite box
+    private float wallRadius(Enemy e){
+        Rectangle r = e.getBoundingBox();
+        return (e instanceof Archer || e instanceof Berserker) ? Math.min(r.width, r.height)*0.5f : agentFootprint(e)*0.5f;
     }
 
-    private void separateEnemies(){
+    // Positions and last velocities of every enemy, for this frame's steering solves.
+    private void buildCrowdSnapshot(){
+        crowdNanos = 0L;
+        crowd.clear();
+        crowd.resetStats();
         for (int i=0;i<enemies.size;i++){
-            Enemy a=enemies.get(i); Rectangle ra=a.getBoundingBox();
-            float ax=ra.x + ra.width*0.5f, ay=ra.y + ra.height*0.5f;
-            float ar = Math.min(ra.width,ra.height)*0.5f;
-            for (int j=i+1;j<enemies.size;j++){
-                Enemy b=enemies.get(j); Rectangle rb=b.getBoundingBox();
-                float bx=rb.x + rb.width*0.5f, by=rb.y + rb.height*0.5f;
-                float br = Math.min(rb.width,rb.height)*0.5f;
-
-                float dx=bx-ax, dy=by-ay, d2=dx*dx+dy*dy, minDist=ar+br;
-                if (d2<minDist*minDist && d2>1e-5f){
-                    float d=(float)Math.sqrt(d2), push=(minDist-d)*0.5f;
-                    float nx=dx/d, ny=dy/d;
-                    float oldAx=ra.x, oldAy=ra.y, oldBx=rb.x, oldBy=rb.y;
-                    ra.x -= nx*push; if (enemyRectBlockedInset(ra)) ra.x=oldAx;
-                    ra.y -= ny*push; if (enemyRectBlockedInset(ra)) ra.y=oldAy;
-                    rb.x += nx*push; if (enemyRectBlockedInset(rb)) rb.x=oldBx;
-                    rb.y += ny*push; if (enemyRectBlockedInset(rb)) rb.y=oldBy;
-                }
-            }
+            Enemy e = enemies.get(i);
+            Rectangle r = e.getBoundingBox();
+            float radius = Math.min(r.width, r.height)*0.5f;
+            Vector2 v = e.getVelocity();
+            e.crowdHandle = crowd.addAgent(r.x + r.width*0.5f, r.y + r.height*0.5f, radius, wallRadius(e),
+                    v.x, v.y, Math.max(e.getSpeed(), v.len()));
         }
+        crowd.build();
+    }
+
+    // Once per frame, after enemies and arrows have moved
+    private void rebuildEntityHashes(){
+        clearDeadLists();
+        if (enemyDead.length < enemies.size) enemyDead = new boolean[Math.max(enemies.size, enemyDead.length * 2)];
+        if (arrowDead.length < arrows.size)  arrowDead = new boolean[Math.max(arrows.size, arrowDead.length * 2)];
+        enemyHash.clear();
+        for (int i=0;i<enemies.size;i++) enemyHash.add(enemies.get(i).getBoundingBox());
+        enemyHash.build();
+        arrowHash.clear();
+        for (int i=0;i<arrows.size;i++) arrowHash.add(arrows.get(i).bounds);
+        arrowHash.build();
+    }
+
+    // Apply this frame's removals, highest index first so the rest stay put
+    private void removeDeadEntities(){
+        deadEnemies.sort();
+        for (int k = deadEnemies.size-1; k>=0; --k) enemies.removeIndex(deadEnemies.get(k));
+        deadArrows.sort();
+        for (int k = deadArrows.size-1; k>=0; --k) arrows.removeIndex(deadArrows.get(k));
+        clearDeadLists();
+    }
+
+    // Queue a removal for this frame; false if the handle was already queued
+    private boolean killEnemy(int i){
+        if (enemyDead[i]) return false;
+        enemyDead[i] = true;
+        deadEnemies.add(i);
+        return true;
+    }
+
+    private boolean killArrow(int i){
+        if (arrowDead[i]) return false;
+        arrowDead[i] = true;
+        deadArrows.add(i);
+        return true;
+    }
+
+    // Only the queued handles were flagged, so this is as cheap as the lists
+    private void clearDeadLists(){
+        for (int k = 0; k < deadEnemies.size; k++) enemyDead[deadEnemies.get(k)] = false;
+        for (int k = 0; k < deadArrows.size; k++)  arrowDead[deadArrows.get(k)] = false;
+        deadEnemies.clear();
+        deadArrows.clear();
     }
 
     // ------------------------------------------------------------------------
     // Spawning
     // ------------------------------------------------------------------------
     private void spawnRandomEnemyAnywhere(){
-        float r=MathUtils.random();
+        float r=spawnRng.random();
         if      (r < 0.28f) spawnGoblinAnywhere();
         else if (r < 0.52f) spawnHobgoblinAnywhere();
         else if (r < 0.72f) spawnArcherAnywhere();
@@ -982,32 +1493,32 @@ public class EnemySandboxApp extends ApplicationAdapter {
 
     private void spawnBerserkerAnywhere(){
         Berserker b = new Berserker(berserkerBodyTexture,0,0,berserkerSize.w,berserkerSize.h);
-        spawnAnywhere(b);
-        Gdx.app.log("SPAWN", "Berserker HP=" + b.getHealth() + " / " + b.getMaxHealth());
+        if (spawnAnywhere(b)) Gdx.app.log("SPAWN", "Berserker HP=" + b.getHealth() + " / " + b.getMaxHealth());
     }
 
-    private void spawnAnywhere(Enemy e){
+    // Picks from the spawn index: reachable from the player, roomy enough for the
+    // enemy, and at least SPAWN_MIN_DIST_TILES away. Skips the spawn (returns false)
+    // if nothing fits.
+    private boolean spawnAnywhere(Enemy e){
         Rectangle rb=e.getBoundingBox();
-        float minDistFromPlayer = 8f*TILE_SIZE;
-        int tries=80;
-        while (tries-- > 0){
-            int tx=MathUtils.random(1, dungeon.width-2);
-            int ty=MathUtils.random(1, dungeon.height-2);
-            if (dungeon.isSolid(tx,ty)) continue;
-            if (clearanceAtTile(tx,ty) < MIN_CLEAR_TILES) continue;
-
-            float cx=tx*TILE_SIZE+TILE_SIZE*0.5f;
-            float cy=ty*TILE_SIZE+TILE_SIZE*0.5f;
+        int clearanceClass = navGrid.clearanceClassFor(agentFootprint(e));
+        int ptx = worldToTileX(playerBounds.x + playerBounds.width*0.5f);
+        int pty = worldToTileY(playerBounds.y + playerBounds.height*0.5f);
+        int tile = -1;
+        for (int tries = 0; tries < 4 && tile < 0; tries++) {
+            tile = spawnIndex.sample(clearanceClass, ptx, pty, SPAWN_MIN_DIST_TILES, spawnRng);
+            if (tile < 0) break;
+            float cx=navGrid.tileX(tile)*TILE_SIZE+TILE_SIZE*0.5f;
+            float cy=navGrid.tileY(tile)*TILE_SIZE+TILE_SIZE*0.5f;
             rb.setPosition(cx - rb.width*0.5f, cy - rb.height*0.5f);
-            if (enemyRectBlockedInset(rb)) continue;
-
-            float px=playerBounds.x + playerBounds.width*0.5f;
-            float py=playerBounds.y + playerBounds.height*0.5f;
-            if (Vector2.dst2(cx,cy,px,py) < minDistFromPlayer*minDistFromPlayer) continue;
-            break;
+            if (enemyRectBlockedInset(rb)) tile = -1;   // class fits by construction; kept as a guard
+        }
+        if (tile < 0) {
+            Gdx.app.log("SPAWN", "no spawn tile for " + e.getClass().getSimpleName() + " (class " + clearanceClass + ")");
+            return false;
         }
         enemies.add(e);
-        PathState ps = new PathState();
+        PathState ps = new PathState(nextAgentId++);
         pathing.put(e, ps);
         initStuckTrack(e, ps);
 
@@ -1021,30 +1532,35 @@ public class EnemySandboxApp extends ApplicationAdapter {
             Gdx.app.log("WARN", "Duplicate enemy instance in list: " + e.getClass().getSimpleName()
                 + " refs=" + dupCount + " id=" + id);
         }
+        return true;
     }
 
     private void dropBombAt(float wx,float wy){ bombs.add(new Bomb(wx,wy)); }
 
     private void maybeDropOrb(Enemy e){
-        if (MathUtils.random() < ORB_DROP_CHANCE) {
+        if (lootRng.random() < ORB_DROP_CHANCE) {
             Rectangle b=e.getBoundingBox();
             float cx=b.x + b.width*0.5f, cy=b.y + b.height*0.5f;
             // orbs drawn below coins
             orbs.add(new Orb(orbTexture, cx-8, cy-8, 16, 16));
+            pickupsDirty = true;
         }
     }
 
     private void dropCoin(Enemy e) {
         Rectangle b = e.getBoundingBox();
         float cx = b.x + b.width*0.5f, cy = b.y + b.height*0.5f;
-        int value = MathUtils.random(1,3);
+        int value = lootRng.random(1,3);
         coins.add(new Coin(coinTexture, cx-8, cy-8, 16, 16, value));
+        pickupsDirty = true;
     }
 
     private void snapRectToOpen(Rectangle r){
         float cx=r.x + r.width*0.5f, cy=r.y + r.height*0.5f;
-        float[] p = nearestOpenWithClearance(cx,cy,12);
-        r.x=p[0] - r.width*0.5f; r.y=p[1] - r.height*0.5f;
+        int hit = clearSnapTable.nearestWithin(worldToTileX(cx), worldToTileY(cy), 12);
+        if (hit < 0) return;
+        r.x=navGrid.tileX(hit)*TILE_SIZE + TILE_SIZE*0.5f - r.width*0.5f;
+        r.y=navGrid.tileY(hit)*TILE_SIZE + TILE_SIZE*0.5f - r.height*0.5f;
     }
 
     // ------------------------------------------------------------------------
@@ -1089,6 +1605,64 @@ public class EnemySandboxApp extends ApplicationAdapter {
         glyphLayout.setText(hudFont, cText);
         hudFont.draw(spriteBatch, glyphLayout, cx - 8f - glyphLayout.width, cy + glyphLayout.height + 2f);
 
+        // Navigation debug (bottom-left)
+        String navText = "nav " + navMode + " [F1]";
+        if (navMode == NavMode.FLOW_FIELD)
+            navText += "  rebuilds " + flowField.getRebuildCount() + "  settled " + flowField.getLastSettled();
+        else if (navMode == NavMode.NAVMESH)
+            navText += "  polys " + navMesh.getPolyCount() + "  expanded " + navMesh.getLastExpanded()
+                    + "  corridor " + navMesh.getLastCorridorLength();
+        else if (navMode == NavMode.COOPERATIVE)
+            navText += "  step " + coopStep + "  reserved " + reservationTable.getReservedAt(coopStep + 1)
+                    + "  plans " + coopPlansThisFrame + "  expanded " + coopExpandedThisFrame
+                    + "  blocked " + coopPlanner.getBlockedMoves() + "  fallback " + coopFailed;
+        else if (navMode == NavMode.INCREMENTAL)
+            navText += "  planners " + plannersInUse + "/" + MAX_PLANNERS
+                    + "  plans " + plansThisFrame + "  expanded " + planExpandedThisFrame
+                    + "  reroots " + planReroots;
+        else if (solveMode == PathSolveMode.WORKERS)
+            navText += "  workers [F2]  queued " + pathWorkers.getQueueDepth()
+                    + "  avg " + String.format("%.2f", pathWorkers.getAverageLatencyMillis()) + "ms"
+                    + "  max " + String.format("%.2f", pathWorkers.getMaxLatencyMillis()) + "ms";
+        else
+            navText += "  budgeted [F2]  expanded " + activePathfinder().getLastExpanded()
+                    + "  queued " + pathScheduler.getPendingCount()
+                    + "  done " + pathScheduler.getCompletedLastFrame()
+                    + "  " + (int)pathScheduler.getLastFrameMicros() + "us";
+        hudFont.draw(spriteBatch, navText, 12f, 24f);
+        if (navMode != NavMode.FLOW_FIELD && navMode != NavMode.NAVMESH && navMode != NavMode.COOPERATIVE)
+            hudFont.draw(spriteBatch, "path cache " + pathCache.size() + "  hit " + (int)(pathCache.getHitRate()*100f) + "%"
+                    + "  evicted " + pathCache.getEvictions() + "  stale " + pathCache.getInvalidations(), 12f, 44f);
+
+        // per-footprint snag counters since the last F3 toggle
+        StringBuilder sizeText = new StringBuilder("size-aware " + (sizeAwarePaths ? "on" : "off") + " [F3]  "
+                + (int)sizeStatsTime + "s");
+        for (int i=0; i<sizeStats.size; i++) {
+            SizeMetrics sm = sizeStats.get(i);
+            sizeText.append("  |  ").append(sm.footprint).append("px: ").append(sm.repaths).append(" repaths, ")
+                    .append(sm.stuckNudges).append(" stuck, ").append(sm.forcedRepaths).append(" forced, ")
+                    .append(sm.failedPaths).append(" failed");
+        }
+        hudFont.draw(spriteBatch, sizeText.toString(), 12f, 64f);
+
+        // mean separation pushes per frame in each mode visited so far (lower = less clumping)
+        StringBuilder pushText = new StringBuilder("pushes/frame " + separationPushes);
+        for (NavMode m : NavMode.values()) {
+            int frames = pushFrames[m.ordinal()];
+            if (frames == 0) continue;
+            pushText.append("  |  ").append(m).append(' ')
+                    .append(String.format("%.2f", pushTotals[m.ordinal()] / (double)frames));
+        }
+        hudFont.draw(spriteBatch, pushText.toString(), 12f, 84f);
+        hudFont.draw(spriteBatch, "view " + playerView.getLastVisibleCount() + " tiles  recasts "
+                + playerView.getRecomputeCount(), 12f, 104f);
+        hudFont.draw(spriteBatch, "crowd steering " + (crowdAvoidance ? "on" : "off") + " [F4]  "
+                + (int)crowdMicrosLastFrame + "us  planes/agent " + String.format("%.1f", crowd.getMeanLines())
+                + "  packed " + crowd.getInfeasibleCount(), 12f, 124f);
+        hudFont.draw(spriteBatch, "contacts " + contacts.getLastContacts() + " (+" + contacts.getLastTileContacts()
+                + " wall)  awake " + contacts.getLastAwake() + "/" + contacts.size()
+                + "  islands " + contacts.getLastIslands(), 12f, 144f);
+
         spriteBatch.end();
         spriteBatch.setProjectionMatrix(worldCamera.combined);
     }
@@ -1364,11 +1938,12 @@ public class EnemySandboxApp extends ApplicationAdapter {
             pm.setColor(v,v,v+0.02f,1f);
             pm.drawLine(0,y, size-1,y);
         }
-        MathUtils.random.setSeed(1337);
+        // fixed seed: the wall looks the same every run, and no other stream moves
+        RngStream speckle = new RngStream(1337);
         pm.setColor(0,0,0,0.10f);
-        for (int i=0;i<size*size/24;i++) pm.drawPixel(MathUtils.random(size-1), MathUtils.random(size-1));
+        for (int i=0;i<size*size/24;i++) pm.drawPixel(speckle.random(size-1), speckle.random(size-1));
         pm.setColor(1,1,1,0.06f);
-        for (int i=0;i<size*size/32;i++) pm.drawPixel(MathUtils.random(size-1), MathUtils.random(size-1));
+        for (int i=0;i<size*size/32;i++) pm.drawPixel(speckle.random(size-1), speckle.random(size-1));
 
         int rows=2 + size/48; float mortar=Math.max(2f, size*0.02f), rowH=size/(float)rows;
         for (int r=0;r<rows;r++){
@@ -1379,7 +1954,7 @@ public class EnemySandboxApp extends ApplicationAdapter {
             int cols=3 + size/48; float colW=size/(float)cols;
             float xOff=(r%2==0)?0f:colW*0.5f;
             for (int c=0;c<=cols;c++){
-                float jitter=(MathUtils.random()-0.5f)*colW*0.08f;
+                float jitter=(speckle.random()-0.5f)*colW*0.08f;
                 float x=(c*colW + xOff + jitter);
                 int xi=wrapIndex(MathUtils.floor(x), size);
                 pm.fillRectangle(xi, MathUtils.floor(y0), (int)mortar, MathUtils.floor(rowH));
@@ -1441,79 +2016,9 @@ public class EnemySandboxApp extends ApplicationAdapter {
     private int worldToTileX(float wx){ return (int)Math.floor(wx / TILE_SIZE); }
     private int worldToTileY(float wy){ return (int)Math.floor(wy / TILE_SIZE); }
     private boolean inBoundsTiles(int tx,int ty){ return tx>=0 && ty>=0 && tx<dungeon.width && ty<dungeon.height; }
-    private float heuristicOctile(int x0,int y0,int x1,int y1){
-        float dx=Math.abs(x1-x0), dy=Math.abs(y1-y0), mi=Math.min(dx,dy), ma=Math.max(dx,dy);
-        return (float)(1.41421356*mi + (ma-mi));
-    }
-
-    private float[] nearestOpenWithClearance(float wx,float wy,int radiusTiles){
-        float[] p=dungeon.nearestOpen(wx,wy,radiusTiles);
-        int tx=worldToTileX(p[0]), ty=worldToTileY(p[1]);
-        if (clearanceAtTile(tx,ty) >= MIN_CLEAR_TILES) return p;
-        for (int r=1; r<=radiusTiles; r++){
-            for (int dx=-r; dx<=r; dx++){
-                int x=tx+dx, y1=ty+r, y2=ty-r;
-                if (inBoundsTiles(x,y1)&&!dungeon.isSolid(x,y1)&&clearanceAtTile(x,y1)>=MIN_CLEAR_TILES)
-                    return new float[]{ x*TILE_SIZE+TILE_SIZE*0.5f, y1*TILE_SIZE+TILE_SIZE*0.5f };
-                if (inBoundsTiles(x,y2)&&!dungeon.isSolid(x,y2)&&clearanceAtTile(x,y2)>=MIN_CLEAR_TILES)
-                    return new float[]{ x*TILE_SIZE+TILE_SIZE*0.5f, y2*TILE_SIZE+TILE_SIZE*0.5f };
-            }
-            for (int dy=-r+1; dy<=r-1; dy++){
-                int y=ty+dy, x1=tx+r, x2=tx-r;
-                if (inBoundsTiles(x1,y)&&!dungeon.isSolid(x1,y)&&clearanceAtTile(x1,y)>=MIN_CLEAR_TILES)
-                    return new float[]{ x1*TILE_SIZE+TILE_SIZE*0.5f, y*TILE_SIZE+TILE_SIZE*0.5f };
-                if (inBoundsTiles(x2,y)&&!dungeon.isSolid(x2,y)&&clearanceAtTile(x2,y)>=MIN_CLEAR_TILES)
-                    return new float[]{ x2*TILE_SIZE+TILE_SIZE*0.5f, y*TILE_SIZE+TILE_SIZE*0.5f };
-            }
-        }
-        return p;
-    }
-
-    private void buildClearanceField(){
-        final int W=dungeon.width, H=dungeon.height;
-        final int[] qx=new int[W*H], qy=new int[W*H];
-        int qs=0, qe=0;
-
-        for (int x=0;x<W;x++){
-            for (int y=0;y<H;y++){
-                if (dungeon.isSolid(x,y)){ tileClearance[x][y]=0f; qx[qe]=x; qy[qe]=y; qe++; }
-                else tileClearance[x][y]=Float.POSITIVE_INFINITY;
-            }
-        }
-        final int[] dx8={1,-1,0,0, 1, 1,-1,-1};
-        final int[] dy8={0,0,1,-1,1,-1, 1,-1};
-        while (qs<qe){
-            int cx=qx[qs], cy=qy[qs]; qs++;
-            float base=tileClearance[cx][cy];
-            for (int i=0;i<8;i++){
-                int nx=cx+dx8[i], ny=cy+dy8[i];
-                if (!inBoundsTiles(nx,ny)) continue;
-                float cand=base + 1f;
-                if (tileClearance[nx][ny] > cand) { tileClearance[nx][ny]=cand; qx[qe]=nx; qy[qe]=ny; qe++; }
-            }
-        }
-        // light blur
-        for (int p=0;p<1;p++){
-            for (int x=1;x<W-1;x++){
-                for (int y=1;y<H-1;y++){
-                    if (dungeon.isSolid(x,y)) continue;
-                    float s=0f; int c=0;
-                    for (int dx=-1; dx<=1; dx++){
-                        for (int dy=-1; dy<=1; dy++){
-                            float v=tileClearance[x+dx][y+dy];
-                            if (!Float.isInfinite(v)) { s+=v; c++; }
-                        }
-                    }
-                    if (c>0) tileClearance[x][y] = (tileClearance[x][y] + s/c)*0.5f;
-                }
-            }
-        }
-    }
 
     private float clearanceAtTile(int tx,int ty){
-        if (!inBoundsTiles(tx,ty)) return 0f;
-        float c=tileClearance[tx][ty];
-        return Float.isInfinite(c)?0f:c;
+        return navGrid.clearance(tx,ty);
     }
 
     private float time(){ return (float)(Gdx.graphics.getFrameId()/60.0); }
@@ -1552,6 +2057,10 @@ public class EnemySandboxApp extends ApplicationAdapter {
     // ------------------------------------------------------------------------
     // View helpers
     // ------------------------------------------------------------------------
+    private boolean isOnScreen(Rectangle r){
+        float l=viewLeft(), b=viewBottom();
+        return r.x + r.width >= l && r.x <= l + viewWidth() && r.y + r.height >= b && r.y <= b + viewHeight();
+    }
     private float viewLeft(){ return worldCamera.position.x - worldCamera.viewportWidth*worldCamera.zoom*0.5f; }
     private float viewBottom(){ return worldCamera.position.y - worldCamera.viewportHeight*worldCamera.zoom*0.5f; }
     private float viewWidth(){ return worldCamera.viewportWidth*worldCamera.zoom; }
@@ -1560,7 +2069,7 @@ public class EnemySandboxApp extends ApplicationAdapter {
     // ------------------------------------------------------------------------
     // Blink
     // ------------------------------------------------------------------------
-    private void scheduleNextPlayerBlink(){ playerBlinkTimer=MathUtils.random(BLINK_MIN, BLINK_MAX); playerBlinkDuration=0f; }
+    private void scheduleNextPlayerBlink(){ playerBlinkTimer=visualRng.random(BLINK_MIN, BLINK_MAX); playerBlinkDuration=0f; }
     private void updatePlayerBlink(float dt){
         if (playerBlinkDuration>0f){ playerBlinkDuration-=dt; if (playerBlinkDuration<=0f) scheduleNextPlayerBlink(); return; }
         playerBlinkTimer -= dt; if (playerBlinkTimer<=0f) playerBlinkDuration=BLINK_DUR;
@@ -0,0 +1,136 @@
+// Author: Martin Taylor
+// File: FieldOfView.java
+// Date: 2026-10-17
+// Description:
+//   Tiles visible from one origin tile (the player), by recursive
+//   shadowcasting over the dungeon walls. Recomputed only when the origin
+//   changes tile, so "can the player see this tile?" is an array lookup.
+
+package cyberrunner.Enemys;
+
+import java.util.Arrays;
+
+/**
+ * Recursive shadowcasting in eight octants (Bergström's formulation). Each
+ * tile within the radius is visited at most once per recompute; walls that
+ * face the origin count as visible. Results are stamped with a generation
+ * counter, so a recompute never clears the grid. Game thread only.
+ */
+public class FieldOfView {
+
+    // Octant transforms: (xx, xy, yx, yy) per octant
+    private static final int[] XX = { 1, 0, 0, -1, -1, 0, 0, 1 };
+    private static final int[] XY = { 0, 1, -1, 0, 0, -1, 1, 0 };
+    private static final int[] YX = { 0, 1, 1, 0, 0, -1, -1, 0 };
+    private static final int[] YY = { 1, 0, 0, 1, -1, 0, 0, -1 };
+
+    private final Dungeon dungeon;
+    private final int radius;
+    private final int[] visibleStamp;   // == generation when visible
+    private int generation = 0;
+
+    private int originX = Integer.MIN_VALUE, originY = Integer.MIN_VALUE;
+    private int dungeonVersion = -1;
+    private int recomputes = 0;
+    private int lastVisible = 0;
+
+    public FieldOfView(Dungeon dungeon, int radiusTiles) {
+        this.dungeon = dungeon;
+        this.radius = Math.max(1, radiusTiles);
+        this.visibleStamp = new int[dungeon.width * dungeon.height];
+    }
+
+    /**
+     * Move the origin. Recomputes only if the tile (or the dungeon layout)
+     * changed; returns true if it did.
+     */
+    public boolean update(int tx, int ty) {
+        if (tx == originX && ty == originY && dungeonVersion == dungeon.getVersion()) return false;
+        originX = tx;
+        originY = ty;
+        dungeonVersion = dungeon.getVersion();
+        recompute();
+        return true;
+    }
+
+    /** Forget the origin so the next update always recomputes. */
+    public void invalidate() { originX = Integer.MIN_VALUE; }
+
+    /** True if tile (tx,ty) was in view at the last recompute. */
+    public boolean isVisible(int tx, int ty) {
+        if (tx < 0 || ty < 0 || tx >= dungeon.width || ty >= dungeon.height) return false;
+        return visibleStamp[tx + ty * dungeon.width] == generation;
+    }
+
+    /** Same, for a world-space point. */
+    public boolean isVisibleWorld(float wx, float wy) {
+        return isVisible((int)Math.floor(wx / dungeon.tileSize), (int)Math.floor(wy / dungeon.tileSize));
+    }
+
+    public int getRadius() { return radius; }
+    public int getRecomputeCount() { return recomputes; }
+    /** Tiles marked visible by the last recompute (walls included). */
+    public int getLastVisibleCount() { return lastVisible; }
+
+    // ------------------------------------------------------------------------
+    // Shadowcasting
+    // ------------------------------------------------------------------------
+    private void recompute() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(visibleStamp, 0);
+            generation = 1;
+        }
+        recomputes++;
+        lastVisible = 0;
+        mark(originX, originY);
+        for (int oct = 0; oct < 8; oct++) {
+            castLight(1, 1f, 0f, XX[oct], XY[oct], YX[oct], YY[oct]);
+        }
+    }
+
+    // Scan row after row of one octant between the start and end slopes;
+    // every wall run splits off the light above it into a recursive scan.
+    private void castLight(int row, float start, float end, int xx, int xy, int yx, int yy) {
+        if (start < end) return;
+        final int radius2 = radius * radius;
+        float newStart = 0f;
+        for (int j = row; j <= radius; j++) {
+            boolean blocked = false;
+            int dy = -j;
+            for (int dx = -j; dx <= 0; dx++) {
+                float leftSlope = (dx - 0.5f) / (dy + 0.5f);
+                float rightSlope = (dx + 0.5f) / (dy - 0.5f);
+                if (start < rightSlope) continue;
+                if (end > leftSlope) break;
+
+                int x = originX + dx * xx + dy * xy;
+                int y = originY + dx * yx + dy * yy;
+                if (dx * dx + dy * dy <= radius2) mark(x, y);
+
+                boolean wall = dungeon.isSolid(x, y);
+                if (blocked) {
+                    if (wall) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else if (wall && j < radius) {
+                    blocked = true;
+                    castLight(j + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked) break;
+        }
+    }
+
+    private void mark(int tx, int ty) {
+        if (tx < 0 || ty < 0 || tx >= dungeon.width || ty >= dungeon.height) return;
+        int i = tx + ty * dungeon.width;
+        if (visibleStamp[i] != generation) {
+            visibleStamp[i] = generation;
+            lastVisible++;
+        }
+    }
+}
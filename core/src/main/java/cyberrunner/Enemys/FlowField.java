@@ -0,0 +1,113 @@
+// Author: Martin Taylor
+// File: FlowField.java
+// Date: 2026-10-17
+// Description:
+//   Shared Dijkstra field grown outward from one target tile (the player).
+//   Every tile stores its cost-to-target and the neighbour to step onto,
+//   so any number of chasers can read their next move in O(1).
+
+package cyberrunner.Enemys;
+
+import java.util.Arrays;
+
+/**
+ * Flow field toward a single goal tile. Uses the same movement rules and
+ * clearance soft cost as {@link AStarPathfinder}, so chasers take the same
+ * kind of routes, but the search runs once per goal instead of once per agent.
+ */
+public class FlowField {
+
+    private final NavGrid grid;
+    private final float[] cost;   // cost to reach the goal, +inf if unreachable
+    private final int[] next;     // tile to step onto next, -1 at goal / unreachable
+    private final IndexedMinHeap open;
+
+    private int goal = -1;
+    private int rebuilds = 0;
+    private int lastSettled = 0;
+
+    public FlowField(NavGrid grid) {
+        this.grid = grid;
+        int n = grid.size();
+        this.cost = new float[n];
+        this.next = new int[n];
+        this.open = new IndexedMinHeap(n);
+    }
+
+    /**
+     * Point the field at a new goal tile. Rebuilds only when the goal tile
+     * actually changed; returns true if a rebuild happened.
+     */
+    public boolean update(int goalX, int goalY) {
+        if (!grid.inBounds(goalX, goalY)) return false;
+        int newGoal = grid.index(goalX, goalY);
+        if (newGoal == goal) return false;
+        goal = newGoal;
+        rebuild();
+        return true;
+    }
+
+    /** Forget the current goal so the next update always rebuilds. */
+    public void invalidate() { goal = -1; }
+
+    public int getGoal() { return goal; }
+    public int getRebuildCount() { return rebuilds; }
+    public int getLastSettled() { return lastSettled; }
+
+    /** Tile index to move onto from (tx,ty), or -1 at the goal / if unreachable. */
+    public int nextTile(int tx, int ty) {
+        if (goal < 0 || !grid.inBounds(tx, ty)) return -1;
+        return next[grid.index(tx, ty)];
+    }
+
+    /** Path cost from (tx,ty) to the goal; +inf if unreachable. */
+    public float costAt(int tx, int ty) {
+        if (goal < 0 || !grid.inBounds(tx, ty)) return Float.POSITIVE_INFINITY;
+        return cost[grid.index(tx, ty)];
+    }
+
+    public boolean isReachable(int tx, int ty) {
+        return costAt(tx, ty) != Float.POSITIVE_INFINITY;
+    }
+
+    // Reverse Dijkstra: moving u -> v costs step + softCost(v), exactly as A* does.
+    private void rebuild() {
+        final int W = grid.width;
+        Arrays.fill(cost, Float.POSITIVE_INFINITY);
+        Arrays.fill(next, -1);
+        open.clear();
+
+        cost[goal] = 0f;
+        open.push(goal, 0f);
+        int settled = 0;
+
+        while (!open.isEmpty()) {
+            int v = open.pop();
+            settled++;
+            // Non-walkable tiles get a way out but are never routed through
+            if (v != goal && !grid.isWalkableIndex(v)) continue;
+
+            int vx = v % W, vy = v / W;
+            float stepIn = grid.softCostIndex(v);
+            float base = cost[v];
+            for (int i = 0; i < 8; i++) {
+                int ux = vx + AStarPathfinder.DX8[i], uy = vy + AStarPathfinder.DY8[i];
+                if (!grid.inBounds(ux, uy)) continue;
+                int u = ux + uy * W;
+                if (grid.isSolidIndex(u)) continue;
+                if (i >= 4) {
+                    // corner rule for the move u -> v
+                    if (grid.isSolid(vx, uy) || grid.isSolid(ux, vy)) continue;
+                }
+                float c = base + AStarPathfinder.STEP_COST[i] + stepIn;
+                if (c < cost[u]) {
+                    cost[u] = c;
+                    next[u] = v;
+                    open.push(u, c);
+                }
+            }
+        }
+        lastSettled = settled;
+        rebuilds++;
+    }
+}
@@ -0,0 +1,155 @@
+// Author: Martin Taylor
+// File: GeneratorPipeline.java
+// Date: 2026-10-17
+// Description:
+//   A DungeonGenerator built from named stages run in order over one shared
+//   context (dungeon, seeded RngStream, room list, corridor links). Times
+//   every stage, so level loading can see where generation goes.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Stages are applied in the order they were added. Each run gets a fresh
+ * {@link RngStream} seeded from the generation seed, so a pipeline never
+ * touches the global MathUtils random and two pipelines can run on
+ * different threads.
+ * The timings of the last run stay readable until the next one.
+ * <p>
+ * Presets: {@link #classic()} scatters rooms and chains them with L-shaped
+ * corridors, {@link #bsp()} splits the map recursively and puts one room in
+ * every leaf, {@link #cellular()} grows caves with a smoothing automaton. All
+ * three finish with the spawn clearing and connectivity repair, so every
+ * open tile they leave is reachable from the map centre.
+ */
+public class GeneratorPipeline implements DungeonGenerator {
+
+    /** One step of generation. Stages must only depend on the context's random. */
+    public interface Stage {
+        String getName();
+        void apply(Context ctx);
+    }
+
+    /** Told about each stage as it runs (the benchmark uses this to count allocation). */
+    public interface Listener {
+        void onStageStart(String stage);
+        void onStageEnd(String stage, long nanos);
+    }
+
+    /** State shared by the stages of one run. */
+    public static final class Context {
+        public final Dungeon dungeon;
+        public final RngStream rng;
+        /** Carved rooms as x, y, w, h quadruples (tiles). */
+        public final IntArray rooms = new IntArray();
+        /** Room pairs to join, as index pairs into rooms; empty means "let the corridor stage choose". */
+        public final IntArray links = new IntArray();
+        /** Filled by the repair stage. */
+        public int regionsJoined, regionsFilled;
+
+        Context(Dungeon dungeon, RngStream rng) {
+            this.dungeon = dungeon;
+            this.rng = rng;
+        }
+
+        public int roomCount() { return rooms.size / 4; }
+        public int roomCenterX(int room) { return rooms.get(room * 4) + rooms.get(room * 4 + 2) / 2; }
+        public int roomCenterY(int room) { return rooms.get(room * 4 + 1) + rooms.get(room * 4 + 3) / 2; }
+
+        /** Uniform int in [lo, hi]. */
+        public int random(int lo, int hi) {
+            return rng.random(lo, hi);
+        }
+    }
+
+    private final String name;
+    private final int version;
+    private final Array<Stage> stages = new Array<>();
+    private long[] lastNanos = new long[0];
+    private long lastTotalNanos = 0;
+    private int lastJoined = 0, lastFilled = 0;
+    private Listener listener;
+
+    /** A pipeline of the stock stages, versioned with them. */
+    public GeneratorPipeline(String name) {
+        this(name, GeneratorStages.VERSION);
+    }
+
+    public GeneratorPipeline(String name, int version) {
+        this.name = name;
+        this.version = version;
+    }
+
+    /** Scattered rooms, chained corridors with a few loops. */
+    public static GeneratorPipeline classic() {
+        return new GeneratorPipeline("classic")
+                .add(GeneratorStages.fillSolid())
+                .add(GeneratorStages.scatterRooms(GeneratorStages.ROOMS_PER_10K_TILES, 5, 11))
+                .add(GeneratorStages.corridors(GeneratorStages.DEFAULT_LOOP_CHANCE))
+                .add(GeneratorStages.spawnClearing())
+                .add(GeneratorStages.repairConnectivity(GeneratorStages.DEFAULT_MIN_REGION_TILES));
+    }
+
+    /** Binary space partition: one room per leaf, siblings joined bottom-up. */
+    public static GeneratorPipeline bsp() {
+        return new GeneratorPipeline("bsp")
+                .add(GeneratorStages.fillSolid())
+                .add(GeneratorStages.bspRooms(GeneratorStages.DEFAULT_BSP_LEAF))
+                .add(GeneratorStages.corridors(0f))
+                .add(GeneratorStages.spawnClearing())
+                .add(GeneratorStages.repairConnectivity(GeneratorStages.DEFAULT_MIN_REGION_TILES));
+    }
+
+    /** Cave layout from random noise and a 4-5 smoothing rule. */
+    public static GeneratorPipeline cellular() {
+        return new GeneratorPipeline("cellular")
+                .add(GeneratorStages.cellularCaves(GeneratorStages.DEFAULT_WALL_CHANCE, GeneratorStages.DEFAULT_SMOOTHING_STEPS))
+                .add(GeneratorStages.spawnClearing())
+                .add(GeneratorStages.repairConnectivity(GeneratorStages.DEFAULT_MIN_REGION_TILES));
+    }
+
+    /** Append a stage; returns this for chaining. */
+    public GeneratorPipeline add(Stage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public int getVersion() { return version; }
+
+    @Override
+    public void generate(Dungeon dungeon, long seed) {
+        Context ctx = new Context(dungeon, new RngStream(seed));
+        if (lastNanos.length != stages.size) lastNanos = new long[stages.size];
+        long start = System.nanoTime();
+        for (int i = 0; i < stages.size; i++) {
+            Stage stage = stages.get(i);
+            if (listener != null) listener.onStageStart(stage.getName());
+            long t0 = System.nanoTime();
+            stage.apply(ctx);
+            lastNanos[i] = System.nanoTime() - t0;
+            if (listener != null) listener.onStageEnd(stage.getName(), lastNanos[i]);
+        }
+        lastTotalNanos = System.nanoTime() - start;
+        lastJoined = ctx.regionsJoined;
+        lastFilled = ctx.regionsFilled;
+    }
+
+    public int getStageCount() { return stages.size; }
+    public String getStageName(int i) { return stages.get(i).getName(); }
+    /** Time the stage took in the last run. */
+    public long getLastStageNanos(int i) { return i < lastNanos.length ? lastNanos[i] : 0L; }
+    public long getLastTotalNanos() { return lastTotalNanos; }
+    /** Regions the repair stage tunnelled to / filled in during the last run. */
+    public int getLastRegionsJoined() { return lastJoined; }
+    public int getLastRegionsFilled() { return lastFilled; }
+}
@@ -0,0 +1,353 @@
+// Author: Martin Taylor
+// File: GeneratorStages.java
+// Date: 2026-10-17
+// Description:
+//   The stock GeneratorPipeline stages: fill, scattered rooms, BSP rooms,
+//   cellular caves, L-shaped corridors, the spawn clearing and a linear-time
+//   connectivity repair. None of them retries random placements.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Factory methods for pipeline stages. Every stage costs time proportional
+ * to the map area or to what it carves; nothing loops on "pick a random
+ * tile until it is open", so generation scales with the map instead of
+ * degrading as rooms get sparse.
+ */
+public final class GeneratorStages {
+
+    /** Bump whenever any stage here lays out a seed differently (cached levels go stale). */
+    public static final int VERSION = 1;
+
+    /** The old fixed 40 rooms on a 100x100 map, as a density. */
+    public static final float ROOMS_PER_10K_TILES = 40f;
+    public static final float DEFAULT_LOOP_CHANCE = 0.15f;
+    public static final int   DEFAULT_BSP_LEAF = 12;
+    public static final float DEFAULT_WALL_CHANCE = 0.45f;
+    public static final int   DEFAULT_SMOOTHING_STEPS = 5;
+    /** Open pockets smaller than this are filled in rather than joined up. */
+    public static final int   DEFAULT_MIN_REGION_TILES = 16;
+
+    private static final int SPAWN_CROSS_HALF = 12;
+
+    private GeneratorStages() { }
+
+    /** Every tile becomes wall. */
+    public static GeneratorPipeline.Stage fillSolid() {
+        return stage("fill", ctx -> ctx.dungeon.fill(true));
+    }
+
+    /** Rectangular rooms at random spots, count scaled with the map area. */
+    public static GeneratorPipeline.Stage scatterRooms(float roomsPer10kTiles, int minSize, int maxSize) {
+        return stage("rooms", ctx -> {
+            Dungeon d = ctx.dungeon;
+            int count = Math.max(1, Math.round(roomsPer10kTiles * ((long)d.width * d.height) / 10000f));
+            for (int i = 0; i < count; i++) {
+                int w = ctx.random(minSize, maxSize);
+                int h = ctx.random(minSize, maxSize);
+                if (d.width < w + 3 || d.height < h + 3) continue;
+                int x = ctx.random(1, d.width - w - 2);
+                int y = ctx.random(1, d.height - h - 2);
+                addRoom(ctx, x, y, w, h);
+            }
+        });
+    }
+
+    /**
+     * Recursive binary split of the map down to leaves of minLeaf..2*minLeaf
+     * tiles, one room per leaf. Queues a link across every split, so the
+     * corridor stage joins the rooms as a tree.
+     */
+    public static GeneratorPipeline.Stage bspRooms(int minLeaf) {
+        return stage("bsp rooms", ctx -> {
+            Dungeon d = ctx.dungeon;
+            final int leafMin = Math.max(6, minLeaf);
+            // nodes as x, y, w, h, left child, right child (-1 for leaves)
+            IntArray nodes = new IntArray();
+            nodes.add(1); nodes.add(1); nodes.add(d.width - 2); nodes.add(d.height - 2); nodes.add(-1); nodes.add(-1);
+            for (int n = 0; n < nodes.size / 6; n++) {
+                int b = n * 6;
+                int x = nodes.get(b), y = nodes.get(b + 1), w = nodes.get(b + 2), h = nodes.get(b + 3);
+                boolean canX = w >= leafMin * 2, canY = h >= leafMin * 2;
+                if (!canX && !canY) continue;
+                boolean splitX = canX && (!canY || w > h * 5 / 4 || (h <= w * 5 / 4 && ctx.rng.nextBoolean()));
+                int left = nodes.size / 6;
+                if (splitX) {
+                    int cut = ctx.random(leafMin, w - leafMin);
+                    addNode(nodes, x, y, cut, h);
+                    addNode(nodes, x + cut, y, w - cut, h);
+                } else {
+                    int cut = ctx.random(leafMin, h - leafMin);
+                    addNode(nodes, x, y, w, cut);
+                    addNode(nodes, x, y + cut, w, h - cut);
+                }
+                nodes.set(b + 4, left);
+                nodes.set(b + 5, left + 1);
+            }
+
+            // children always come after their parent, so a reverse sweep joins subtrees bottom-up
+            int nodeCount = nodes.size / 6;
+            int[] rep = new int[nodeCount];
+            for (int n = nodeCount - 1; n >= 0; n--) {
+                int b = n * 6;
+                int left = nodes.get(b + 4), right = nodes.get(b + 5);
+                if (left < 0) {
+                    int lw = nodes.get(b + 2), lh = nodes.get(b + 3);
+                    if (lw < 5 || lh < 5) { rep[n] = -1; continue; }
+                    int w = ctx.random(Math.min(5, lw - 2), lw - 2);
+                    int h = ctx.random(Math.min(5, lh - 2), lh - 2);
+                    int x = nodes.get(b) + ctx.random(1, lw - w - 1);
+                    int y = nodes.get(b + 1) + ctx.random(1, lh - h - 1);
+                    rep[n] = ctx.roomCount();
+                    addRoom(ctx, x, y, w, h);
+                } else {
+                    int a = rep[left], c = rep[right];
+                    if (a >= 0 && c >= 0) {
+                        ctx.links.add(a);
+                        ctx.links.add(c);
+                    }
+                    rep[n] = a < 0 ? c : (c < 0 ? a : (ctx.rng.nextBoolean() ? a : c));
+                }
+            }
+        });
+    }
+
+    /**
+     * 3-tile L-shaped corridors for every queued link. With no links queued
+     * the rooms are chained in Morton (Z-curve) order of their centres, so
+     * each corridor runs to a nearby room, and with loopChance a room also
+     * links a few rooms further along to make loops.
+     */
+    public static GeneratorPipeline.Stage corridors(float loopChance) {
+        return stage("corridors", ctx -> {
+            int rooms = ctx.roomCount();
+            if (ctx.links.size == 0 && rooms > 1) {
+                long[] keys = new long[rooms];
+                for (int r = 0; r < rooms; r++) {
+                    keys[r] = (morton(ctx.roomCenterX(r), ctx.roomCenterY(r)) << 31) | r;
+                }
+                Arrays.sort(keys);
+                for (int i = 0; i + 1 < rooms; i++) {
+                    int a = (int)(keys[i] & 0x7fffffffL);
+                    ctx.links.add(a);
+                    ctx.links.add((int)(keys[i + 1] & 0x7fffffffL));
+                    if (loopChance > 0f && ctx.rng.nextFloat() < loopChance) {
+                        int j = i + ctx.random(2, 4);
+                        if (j < rooms) {
+                            ctx.links.add(a);
+                            ctx.links.add((int)(keys[j] & 0x7fffffffL));
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i + 1 < ctx.links.size; i += 2) {
+                int a = ctx.links.get(i), b = ctx.links.get(i + 1);
+                carveCorridor(ctx, ctx.roomCenterX(a), ctx.roomCenterY(a), ctx.roomCenterX(b), ctx.roomCenterY(b));
+            }
+        });
+    }
+
+    /**
+     * Caves: every tile starts as wall with the given chance, then each
+     * smoothing step makes a tile wall when at least 5 of the 9 tiles around
+     * it (itself included, off-map counted as wall) are walls.
+     */
+    public static GeneratorPipeline.Stage cellularCaves(float wallChance, int steps) {
+        return stage("caves", ctx -> {
+            Dungeon d = ctx.dungeon;
+            final int W = d.width, H = d.height;
+            byte[] cur = new byte[W * H], next = new byte[W * H];
+            for (int i = 0; i < cur.length; i++) cur[i] = ctx.rng.nextFloat() < wallChance ? (byte)1 : (byte)0;
+            int[] column = new int[W];
+            for (int s = 0; s < steps; s++) {
+                for (int y = 0; y < H; y++) {
+                    // walls in each column's 3-tall window, then slide a 3-wide window along the row
+                    for (int x = 0; x < W; x++) {
+                        int i = y * W + x;
+                        column[x] = cur[i]
+                                + (y > 0 ? cur[i - W] : 1)
+                                + (y < H - 1 ? cur[i + W] : 1);
+                    }
+                    int row = y * W;
+                    for (int x = 0; x < W; x++) {
+                        int walls = column[x]
+                                + (x > 0 ? column[x - 1] : 3)
+                                + (x < W - 1 ? column[x + 1] : 3);
+                        next[row + x] = walls >= 5 ? (byte)1 : (byte)0;
+                    }
+                }
+                byte[] swap = cur; cur = next; next = swap;
+            }
+            for (int y = 0; y < H; y++) {
+                for (int x = 0; x < W; x++) d.setSolid(x, y, cur[y * W + x] != 0);
+            }
+        });
+    }
+
+    /** Open spawn room at the map centre with a thick cross so the player can always leave it. */
+    public static GeneratorPipeline.Stage spawnClearing() {
+        return stage("spawn", ctx -> {
+            Dungeon d = ctx.dungeon;
+            int cx = d.width / 2, cy = d.height / 2;
+            d.carveRect(cx - 2, cy - 2, 5, 5);
+            d.carveLineX(cx - SPAWN_CROSS_HALF, cx + SPAWN_CROSS_HALF, cy);
+            d.carveLineY(cy - SPAWN_CROSS_HALF, cy + SPAWN_CROSS_HALF, cx);
+            d.carveRect(cx - 3, cy - 3, 7, 7);
+        });
+    }
+
+    /**
+     * Make every open tile reachable from the spawn region (the region that
+     * holds the map centre, else the largest). Regions smaller than
+     * minRegionTiles are filled in. Every other region gets a 3-wide tunnel
+     * to the nearest tile already joined, found by one breadth-first sweep
+     * outward from the spawn region through walls and floor alike, so the
+     * whole repair is linear in the map area.
+     */
+    public static GeneratorPipeline.Stage repairConnectivity(int minRegionTiles) {
+        return stage("repair", ctx -> {
+            Dungeon d = ctx.dungeon;
+            final int W = d.width, H = d.height, n = W * H;
+            int[] label = new int[n];           // 0 wall, -1 filled pocket, else region id
+            int[] queue = new int[n];
+            IntArray sizes = new IntArray();
+            sizes.add(0);
+
+            // Label 4-connected open regions
+            int unjoined = 0;
+            for (int start = 0; start < n; start++) {
+                if (label[start] != 0 || d.isSolid(start % W, start / W)) continue;
+                int id = sizes.size;
+                int head = 0, tail = 0;
+                queue[tail++] = start;
+                label[start] = id;
+                while (head < tail) {
+                    int u = queue[head++];
+                    int ux = u % W, uy = u / W;
+                    if (ux > 0)     tail = visitOpen(d, label, queue, tail, u - 1, ux - 1, uy, id);
+                    if (ux < W - 1) tail = visitOpen(d, label, queue, tail, u + 1, ux + 1, uy, id);
+                    if (uy > 0)     tail = visitOpen(d, label, queue, tail, u - W, ux, uy - 1, id);
+                    if (uy < H - 1) tail = visitOpen(d, label, queue, tail, u + W, ux, uy + 1, id);
+                }
+                sizes.add(tail);
+                if (tail < minRegionTiles) {
+                    for (int q = 0; q < tail; q++) {
+                        d.setSolid(queue[q] % W, queue[q] / W, true);
+                        label[queue[q]] = -1;
+                    }
+                    ctx.regionsFilled++;
+                } else {
+                    unjoined++;
+                }
+            }
+
+            int main = label[W / 2 + (H / 2) * W];
+            if (main <= 0) {
+                main = 0;
+                for (int id = 1; id < sizes.size; id++) if (sizes.get(id) > sizes.get(main)) main = id;
+                if (main == 0) return;
+            }
+            if (--unjoined == 0) return;
+
+            // Sweep outward from the main region; parent[] points back toward it
+            byte[] parent = new byte[n];        // 0 unvisited, 1..4 = step to parent, 5 = source
+            boolean[] joined = new boolean[sizes.size];
+            joined[main] = true;
+            int head = 0, tail = 0;
+            for (int i = 0; i < n; i++) {
+                if (label[i] == main) { parent[i] = 5; queue[tail++] = i; }
+            }
+            while (head < tail && unjoined > 0) {
+                int u = queue[head++];
+                int ux = u % W, uy = u / W;
+                for (int dir = 1; dir <= 4; dir++) {
+                    int vx = ux + (dir == 1 ? 1 : dir == 2 ? -1 : 0);
+                    int vy = uy + (dir == 3 ? 1 : dir == 4 ? -1 : 0);
+                    if (vx < 0 || vy < 0 || vx >= W || vy >= H) continue;
+                    int v = vx + vy * W;
+                    if (parent[v] != 0) continue;
+                    parent[v] = (byte)dir;
+                    queue[tail++] = v;
+                    int id = label[v];
+                    if (id > 0 && !joined[id]) {
+                        joined[id] = true;
+                        unjoined--;
+                        ctx.regionsJoined++;
+                        // tunnel from the tile we came from back to anything already joined
+                        int t = u;
+                        while (!(label[t] > 0 && joined[label[t]])) {
+                            int tx = t % W, ty = t / W;
+                            d.carveRect(tx - 1, ty - 1, 3, 3);
+                            label[t] = main;
+                            int p = parent[t];
+                            t = p == 1 ? t - 1 : p == 2 ? t + 1 : p == 3 ? t - W : t + W;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    // ------------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------------
+    private interface Body {
+        void apply(GeneratorPipeline.Context ctx);
+    }
+
+    private static GeneratorPipeline.Stage stage(final String name, final Body body) {
+        return new GeneratorPipeline.Stage() {
+            @Override public String getName() { return name; }
+            @Override public void apply(GeneratorPipeline.Context ctx) { body.apply(ctx); }
+        };
+    }
+
+    private static void addRoom(GeneratorPipeline.Context ctx, int x, int y, int w, int h) {
+        ctx.dungeon.carveRect(x, y, w, h);
+        ctx.rooms.add(x);
+        ctx.rooms.add(y);
+        ctx.rooms.add(w);
+        ctx.rooms.add(h);
+    }
+
+    private static void addNode(IntArray nodes, int x, int y, int w, int h) {
+        nodes.add(x); nodes.add(y); nodes.add(w); nodes.add(h); nodes.add(-1); nodes.add(-1);
+    }
+
+    // L-shaped: horizontal then vertical (random order). Each line is 3 tiles thick.
+    private static void carveCorridor(GeneratorPipeline.Context ctx, int x0, int y0, int x1, int y1) {
+        Dungeon d = ctx.dungeon;
+        if (ctx.rng.nextBoolean()) {
+            d.carveLineX(x0, x1, y0);
+            d.carveLineY(y0, y1, x1);
+        } else {
+            d.carveLineY(y0, y1, x0);
+            d.carveLineX(x0, x1, y1);
+        }
+    }
+
+    private static int visitOpen(Dungeon d, int[] label, int[] queue, int tail, int v, int vx, int vy, int id) {
+        if (label[v] != 0 || d.isSolid(vx, vy)) return tail;
+        label[v] = id;
+        queue[tail] = v;
+        return tail + 1;
+    }
+
+    // Interleave the low 16 bits of x and y
+    private static long morton(int x, int y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    private static long spread(int v) {
+        long x = v & 0xffffL;
+        x = (x | (x << 8)) & 0x00ff00ffL;
+        x = (x | (x << 4)) & 0x0f0f0f0fL;
+        x = (x | (x << 2)) & 0x33333333L;
+        x = (x | (x << 1)) & 0x55555555L;
+        return x;
+    }
+}
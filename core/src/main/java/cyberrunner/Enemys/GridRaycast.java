@@ -0,0 +1,101 @@
+// Author: Martin Taylor
+// File: GridRaycast.java
+// Date: 2026-10-17
+// Description:
+//   Exact segment-vs-tile-grid tests shared by Dungeon and NavGrid: a thin
+//   ray walked with Amanatides–Woo voxel traversal, and a thick ray (a
+//   square swept along the segment) walked row by row. Neither allocates.
+
+package cyberrunner.Enemys;
+
+/**
+ * Line-of-sight over a tile grid in world space (pixels). The caller says
+ * which tiles are open; out-of-bounds handling is up to that test.
+ * <p>
+ * The thin ray visits every tile the segment crosses exactly once. Where it
+ * passes exactly through a tile corner, both tiles beside the corner must be
+ * open too, the same no-corner-cutting rule the pathfinders use.
+ */
+final class GridRaycast {
+
+    /** Which tiles a ray may cross. Implementations must not allocate. */
+    interface TileTest {
+        boolean isOpen(int tx, int ty);
+    }
+
+    private GridRaycast() { }
+
+    /** True if every tile the segment (x0,y0)-(x1,y1) touches is open. */
+    static boolean isClear(TileTest test, int tileSize, float x0, float y0, float x1, float y1) {
+        int tx = floorDiv(x0, tileSize), ty = floorDiv(y0, tileSize);
+        final int ex = floorDiv(x1, tileSize), ey = floorDiv(y1, tileSize);
+        if (!test.isOpen(tx, ty)) return false;
+
+        final float dx = x1 - x0, dy = y1 - y0;
+        final int stepX = dx > 0f ? 1 : (dx < 0f ? -1 : 0);
+        final int stepY = dy > 0f ? 1 : (dy < 0f ? -1 : 0);
+        // ray parameter (0..1) per tile crossed, and to the first boundary on each axis
+        final float tDeltaX = stepX != 0 ? tileSize / Math.abs(dx) : Float.POSITIVE_INFINITY;
+        final float tDeltaY = stepY != 0 ? tileSize / Math.abs(dy) : Float.POSITIVE_INFINITY;
+        float tMaxX = stepX > 0 ? ((tx + 1) * (float)tileSize - x0) / dx
+                    : stepX < 0 ? (tx * (float)tileSize - x0) / dx : Float.POSITIVE_INFINITY;
+        float tMaxY = stepY > 0 ? ((ty + 1) * (float)tileSize - y0) / dy
+                    : stepY < 0 ? (ty * (float)tileSize - y0) / dy : Float.POSITIVE_INFINITY;
+
+        // the tile count bounds the walk even if rounding makes tMax drift
+        for (int n = Math.abs(ex - tx) + Math.abs(ey - ty); n > 0; n--) {
+            if (tMaxX < tMaxY) {
+                tx += stepX; tMaxX += tDeltaX;
+            } else if (tMaxY < tMaxX) {
+                ty += stepY; tMaxY += tDeltaY;
+            } else {
+                // exactly through a corner: no squeezing between two diagonal walls
+                if (!test.isOpen(tx + stepX, ty) || !test.isOpen(tx, ty + stepY)) return false;
+                tx += stepX; tMaxX += tDeltaX;
+                ty += stepY; tMaxY += tDeltaY;
+                n--;
+            }
+            if (!test.isOpen(tx, ty)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if a square of the given half-width, centred on the segment, can
+     * slide from (x0,y0) to (x1,y1) touching only open tiles. Each tile row
+     * the swept shape covers is tested once over the exact column span the
+     * shape has in that row. A half-width of 0 is the thin ray.
+     */
+    static boolean isSweptClear(TileTest test, int tileSize, float x0, float y0, float x1, float y1, float half) {
+        if (half <= 0f) return isClear(test, tileSize, x0, y0, x1, y1);
+        final float dx = x1 - x0, dy = y1 - y0;
+        final int rowLo = floorDiv(Math.min(y0, y1) - half, tileSize);
+        final int rowHi = floorDiv(Math.max(y0, y1) + half, tileSize);
+        for (int row = rowLo; row <= rowHi; row++) {
+            // centre heights at which the box overlaps this row
+            float yLo = row * (float)tileSize - half, yHi = (row + 1) * (float)tileSize + half;
+            float tA, tB;
+            if (dy == 0f) {
+                tA = 0f; tB = 1f;
+            } else {
+                tA = (yLo - y0) / dy;
+                tB = (yHi - y0) / dy;
+                if (tA > tB) { float swap = tA; tA = tB; tB = swap; }
+                tA = Math.max(0f, tA);
+                tB = Math.min(1f, tB);
+                if (tA > tB) continue;
+            }
+            float xa = x0 + dx * tA, xb = x0 + dx * tB;
+            int colLo = floorDiv(Math.min(xa, xb) - half, tileSize);
+            int colHi = floorDiv(Math.max(xa, xb) + half, tileSize);
+            for (int col = colLo; col <= colHi; col++) {
+                if (!test.isOpen(col, row)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static int floorDiv(float v, int tileSize) {
+        return (int)Math.floor(v / tileSize);
+    }
+}
@@ -0,0 +1,495 @@
+// Author: Martin Taylor
+// File: HierarchicalPathfinder.java
+// Date: 2026-10-17
+// Description:
+//   HPA* over a NavGrid. The map is cut into square clusters; walkable gaps
+//   in cluster borders become entrance nodes, and the cost between every
+//   pair of entrances inside a cluster is computed once up front. Queries
+//   search that small abstract graph and then refine it back to tiles one
+//   cluster at a time.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical alternative to {@link AStarPathfinder} for large maps. Costs
+ * use the same step, corner and clearance soft-cost rules as A*, but paths
+ * are confined to entrance-to-entrance routes, so they can be slightly longer
+ * than the true optimum. Build after {@link Dungeon#generate(long)} (the
+ * {@link NavGrid} is a snapshot) and rebuild if the dungeon changes.
+ * <p>
+ * With a refine limit set, {@link #findPath} only expands the first few
+ * clusters of the route into tiles; callers that repath on a timer never
+ * pay for the far end of a long route.
+ * <p>
+ * The abstract search can be paused like A*'s: {@link #begin} hooks the
+ * start and goal into the graph (two single-cluster searches),
+ * {@link #step} expands abstract nodes, and {@link #buildPath} refines
+ * the route, which costs at most one cluster search per refined segment.
+ * <p>
+ * Each clearance class gets its own abstract graph, since a wider agent
+ * loses entrances and corridors a narrower one still fits through. Class 1
+ * is built up front; other classes are built the first time they are asked
+ * for. {@link #prepareClearance} builds one ahead of time so the cost does
+ * not land inside a timed query.
+ */
+public class HierarchicalPathfinder implements IncrementalPathfinder {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    // Border runs at least this long get a transition at each end instead of one in the middle
+    private static final int WIDE_ENTRANCE = 6;
+
+    private final NavGrid grid;
+    private final int clusterSize;
+    private final int clustersX, clustersY;
+
+    /** Abstract graph for one clearance class, with its search scratch. */
+    private static final class Graph {
+        final int clearance;
+        // nodes are entrance tiles, edges stored CSR-style by source node
+        int nodeCount;
+        int[] nodeTile;
+        int[] nodeCluster;
+        int[] clusterNodeStart;   // cluster -> first slot in clusterNodes (length clusters+1)
+        int[] clusterNodes;
+        int[] edgeStart;          // node -> first edge (length nodeCount+1)
+        int[] edgeTo;
+        float[] edgeCost;
+
+        // ids nodeCount and nodeCount+1 are the query's start and goal
+        float[] startCost, goalCost;
+        float[] gScore;
+        int[] parent, seen, closed;
+        int generation = 0;
+        IndexedMinHeap open;
+
+        Graph(int clearance) { this.clearance = clearance; }
+    }
+
+    private Graph[] graphs = new Graph[4];
+    private Graph graph;                  // the current agent class's graph
+    private final IntArray abstractPath = new IntArray();
+
+    // Cluster-local Dijkstra scratch
+    private final float[] localDist;
+    private final int[] localParent;
+    private final IndexedMinHeap localOpen;
+    private final IntArray segment = new IntArray();
+    private int localX0, localY0, localW;
+
+    private int maxExpansions = AStarPathfinder.DEFAULT_MAX_EXPANSIONS;
+    private int refineLimit = Integer.MAX_VALUE;
+    private int lastExpanded = 0;
+    private int lastAbstractExpanded = 0;
+
+    // In-flight search (see begin/step); the graph is pinned so a class change cannot swap it mid-search
+    private int status = FAILED;
+    private Graph queryGraph;
+    private int queryStart, queryGoal, startCluster, goalCluster;
+    private float directCost;
+
+    public HierarchicalPathfinder(NavGrid grid) {
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalPathfinder(NavGrid grid, int clusterSize) {
+        this.grid = grid;
+        this.clusterSize = Math.max(4, clusterSize);
+        this.clustersX = (grid.width + this.clusterSize - 1) / this.clusterSize;
+        this.clustersY = (grid.height + this.clusterSize - 1) / this.clusterSize;
+
+        int local = this.clusterSize * this.clusterSize;
+        this.localDist = new float[local];
+        this.localParent = new int[local];
+        this.localOpen = new IndexedMinHeap(local);
+
+        graph = graphFor(1);
+    }
+
+    @Override
+    public NavGrid getGrid() { return grid; }
+
+    public int getClusterSize() { return clusterSize; }
+    /** Entrance nodes in the current clearance class's graph. */
+    public int getNodeCount() { return graph.nodeCount; }
+    public int getEdgeCount() { return graph.edgeTo.length; }
+
+    /** Cap on abstract nodes expanded per query. */
+    public void setMaxExpansions(int maxExpansions) { this.maxExpansions = Math.max(1, maxExpansions); }
+
+    /**
+     * Number of cluster segments {@link #findPath} turns into tiles; the
+     * returned path stops at the entrance where refinement ended.
+     */
+    public void setRefineLimit(int segments) { this.refineLimit = Math.max(1, segments); }
+    public int getRefineLimit() { return refineLimit; }
+
+    /** Selects that class's graph, building it now if it was never prepared. */
+    @Override
+    public void setAgentClearance(int clearanceClass) {
+        graph = graphFor(Math.max(1, clearanceClass));
+    }
+
+    @Override
+    public void prepareClearance(int clearanceClass) {
+        graphFor(Math.max(1, clearanceClass));
+    }
+
+    public boolean isPrepared(int clearanceClass) {
+        int c = Math.max(1, clearanceClass);
+        return c < graphs.length && graphs[c] != null;
+    }
+
+    public int getGraphClearance() { return graph.clearance; }
+
+    private Graph graphFor(int clearanceClass) {
+        if (clearanceClass >= graphs.length) graphs = Arrays.copyOf(graphs, clearanceClass + 1);
+        if (graphs[clearanceClass] == null) graphs[clearanceClass] = buildAbstractGraph(clearanceClass);
+        return graphs[clearanceClass];
+    }
+
+    /** Abstract + local nodes expanded by the most recent query. */
+    @Override
+    public int getLastExpanded() { return lastExpanded; }
+
+    /** Abstract nodes expanded by the most recent query. */
+    public int getLastAbstractExpanded() { return lastAbstractExpanded; }
+
+    // ------------------------------------------------------------------------
+    // Build
+    // ------------------------------------------------------------------------
+    private Graph buildAbstractGraph(int graphClearance) {
+        final Graph g = new Graph(graphClearance);
+        final int W = grid.width, H = grid.height, C = clusterSize;
+        int[] nodeOfTile = new int[grid.size()];
+        Arrays.fill(nodeOfTile, -1);
+        IntArray tiles = new IntArray();
+        IntArray from = new IntArray(), to = new IntArray();
+        FloatArray cost = new FloatArray();
+
+        // Vertical borders (between cluster columns)
+        for (int cx = 0; cx < clustersX - 1; cx++) {
+            int xa = (cx + 1) * C - 1, xb = xa + 1;
+            for (int cy = 0; cy < clustersY; cy++) {
+                int y0 = cy * C, y1 = Math.min(H, y0 + C);
+                int run = -1;
+                for (int y = y0; y <= y1; y++) {
+                    boolean passable = y < y1 && grid.isWalkable(xa, y, graphClearance) && grid.isWalkable(xb, y, graphClearance);
+                    if (passable && run < 0) run = y;
+                    else if (!passable && run >= 0) {
+                        int len = y - run;
+                        if (len >= WIDE_ENTRANCE) {
+                            link(xa, run, xb, run, nodeOfTile, tiles, from, to, cost);
+                            link(xa, y - 1, xb, y - 1, nodeOfTile, tiles, from, to, cost);
+                        } else {
+                            int m = run + len / 2;
+                            link(xa, m, xb, m, nodeOfTile, tiles, from, to, cost);
+                        }
+                        run = -1;
+                    }
+                }
+            }
+        }
+        // Horizontal borders (between cluster rows)
+        for (int cy = 0; cy < clustersY - 1; cy++) {
+            int ya = (cy + 1) * C - 1, yb = ya + 1;
+            for (int cx = 0; cx < clustersX; cx++) {
+                int x0 = cx * C, x1 = Math.min(W, x0 + C);
+                int run = -1;
+                for (int x = x0; x <= x1; x++) {
+                    boolean passable = x < x1 && grid.isWalkable(x, ya, graphClearance) && grid.isWalkable(x, yb, graphClearance);
+                    if (passable && run < 0) run = x;
+                    else if (!passable && run >= 0) {
+                        int len = x - run;
+                        if (len >= WIDE_ENTRANCE) {
+                            link(run, ya, run, yb, nodeOfTile, tiles, from, to, cost);
+                            link(x - 1, ya, x - 1, yb, nodeOfTile, tiles, from, to, cost);
+                        } else {
+                            int m = run + len / 2;
+                            link(m, ya, m, yb, nodeOfTile, tiles, from, to, cost);
+                        }
+                        run = -1;
+                    }
+                }
+            }
+        }
+
+        final int nodeCount = tiles.size;
+        g.nodeCount = nodeCount;
+        g.nodeTile = tiles.toArray();
+        g.nodeCluster = new int[nodeCount];
+        for (int n = 0; n < nodeCount; n++) g.nodeCluster[n] = clusterOfTile(g.nodeTile[n]);
+
+        // Cluster -> nodes
+        int clusters = clustersX * clustersY;
+        g.clusterNodeStart = new int[clusters + 1];
+        for (int n = 0; n < nodeCount; n++) g.clusterNodeStart[g.nodeCluster[n] + 1]++;
+        for (int c = 0; c < clusters; c++) g.clusterNodeStart[c + 1] += g.clusterNodeStart[c];
+        g.clusterNodes = new int[nodeCount];
+        int[] fill = Arrays.copyOf(g.clusterNodeStart, clusters);
+        for (int n = 0; n < nodeCount; n++) g.clusterNodes[fill[g.nodeCluster[n]]++] = n;
+
+        // Intra-cluster edges: one bounded Dijkstra per entrance
+        for (int c = 0; c < clusters; c++) {
+            int s0 = g.clusterNodeStart[c], s1 = g.clusterNodeStart[c + 1];
+            for (int i = s0; i < s1; i++) {
+                int a = g.clusterNodes[i];
+                clusterSearch(c, g.nodeTile[a], -1, false, graphClearance);
+                for (int j = s0; j < s1; j++) {
+                    if (i == j) continue;
+                    int b = g.clusterNodes[j];
+                    float d = localDist[localIndex(g.nodeTile[b])];
+                    if (d != Float.POSITIVE_INFINITY) { from.add(a); to.add(b); cost.add(d); }
+                }
+            }
+        }
+
+        // Edges -> CSR
+        int edges = from.size;
+        g.edgeStart = new int[nodeCount + 1];
+        for (int e = 0; e < edges; e++) g.edgeStart[from.get(e) + 1]++;
+        for (int n = 0; n < nodeCount; n++) g.edgeStart[n + 1] += g.edgeStart[n];
+        g.edgeTo = new int[edges];
+        g.edgeCost = new float[edges];
+        fill = Arrays.copyOf(g.edgeStart, nodeCount);
+        for (int e = 0; e < edges; e++) {
+            int slot = fill[from.get(e)]++;
+            g.edgeTo[slot] = to.get(e);
+            g.edgeCost[slot] = cost.get(e);
+        }
+
+        int total = nodeCount + 2;
+        g.startCost = new float[nodeCount];
+        g.goalCost = new float[nodeCount];
+        g.gScore = new float[total];
+        g.parent = new int[total];
+        g.seen = new int[total];
+        g.closed = new int[total];
+        g.open = new IndexedMinHeap(total);
+        return g;
+    }
+
+    // Entrance pair across a border: a node on each side, one step each way
+    private void link(int ax, int ay, int bx, int by, int[] nodeOfTile, IntArray tiles,
+                      IntArray from, IntArray to, FloatArray cost) {
+        int a = grid.index(ax, ay), b = grid.index(bx, by);
+        int na = nodeFor(a, nodeOfTile, tiles), nb = nodeFor(b, nodeOfTile, tiles);
+        from.add(na); to.add(nb); cost.add(1f + grid.softCostIndex(b));
+        from.add(nb); to.add(na); cost.add(1f + grid.softCostIndex(a));
+    }
+
+    private static int nodeFor(int tile, int[] nodeOfTile, IntArray tiles) {
+        if (nodeOfTile[tile] < 0) { nodeOfTile[tile] = tiles.size; tiles.add(tile); }
+        return nodeOfTile[tile];
+    }
+
+    // ------------------------------------------------------------------------
+    // Query
+    // ------------------------------------------------------------------------
+    @Override
+    public boolean findPath(int sx, int sy, int tx, int ty, IntArray outTiles) {
+        begin(sx, sy, tx, ty);
+        step(Integer.MAX_VALUE);   // stops at maxExpansions
+        return buildPath(outTiles);
+    }
+
+    @Override
+    public void begin(int sx, int sy, int tx, int ty) {
+        lastExpanded = 0;
+        lastAbstractExpanded = 0;
+        status = FAILED;
+        if (!grid.inBounds(sx, sy) || !grid.inBounds(tx, ty)) return;
+
+        final Graph g = graph;
+        final int start = grid.index(sx, sy), goal = grid.index(tx, ty);
+        queryGraph = g;
+        queryStart = start;
+        queryGoal = goal;
+        if (start == goal) { status = FOUND; return; }
+
+        final int sc = clusterOfTile(start), gc = clusterOfTile(goal);
+        startCluster = sc;
+        goalCluster = gc;
+
+        // Hook the start and goal into the abstract graph with local searches
+        clusterSearch(sc, start, -1, false, g.clearance);
+        for (int i = g.clusterNodeStart[sc]; i < g.clusterNodeStart[sc + 1]; i++) {
+            int n = g.clusterNodes[i];
+            g.startCost[n] = localDist[localIndex(g.nodeTile[n])];
+        }
+        directCost = sc == gc ? localDist[localIndex(goal)] : Float.POSITIVE_INFINITY;
+
+        clusterSearch(gc, goal, -1, true, g.clearance);
+        for (int i = g.clusterNodeStart[gc]; i < g.clusterNodeStart[gc + 1]; i++) {
+            int n = g.clusterNodes[i];
+            g.goalCost[n] = localDist[localIndex(g.nodeTile[n])];
+        }
+
+        final int S = g.nodeCount;
+        nextGeneration(g);
+        g.open.clear();
+        g.seen[S] = g.generation;
+        g.gScore[S] = 0f;
+        g.parent[S] = -1;
+        g.open.push(S, AStarPathfinder.heuristicOctile(sx, sy, tx, ty));
+        status = RUNNING;
+    }
+
+    /** Expands up to maxSteps abstract nodes. */
+    @Override
+    public int step(int maxSteps) {
+        if (status != RUNNING) return status;
+
+        final Graph g = queryGraph;
+        final int S = g.nodeCount, G = g.nodeCount + 1;
+        final int goal = queryGoal, gc = goalCluster;
+        int budget = maxSteps;
+        while (!g.open.isEmpty() && lastAbstractExpanded < maxExpansions && budget-- > 0) {
+            int u = g.open.pop();
+            g.closed[u] = g.generation;
+            lastAbstractExpanded++;
+            lastExpanded++;
+            if (u == G) { status = FOUND; return status; }
+
+            if (u == S) {
+                final int sc = startCluster;
+                for (int i = g.clusterNodeStart[sc]; i < g.clusterNodeStart[sc + 1]; i++) {
+                    int n = g.clusterNodes[i];
+                    relax(g, u, n, g.startCost[n], goal);
+                }
+                relax(g, u, G, directCost, goal);
+            } else {
+                for (int e = g.edgeStart[u]; e < g.edgeStart[u + 1]; e++) relax(g, u, g.edgeTo[e], g.edgeCost[e], goal);
+                if (g.nodeCluster[u] == gc) relax(g, u, G, g.goalCost[u], goal);
+            }
+        }
+        if (g.open.isEmpty() || lastAbstractExpanded >= maxExpansions) status = FAILED;
+        return status;
+    }
+
+    /** Refines the abstract route into tiles, up to the refine limit. */
+    @Override
+    public boolean buildPath(IntArray outTiles) {
+        outTiles.clear();
+        if (status != FOUND) return false;
+        if (queryStart == queryGoal) { outTiles.add(queryStart); return true; }
+
+        final Graph g = queryGraph;
+        abstractPath.clear();
+        for (int n = g.nodeCount + 1; n != -1; n = g.parent[n]) abstractPath.add(n);
+        abstractPath.reverse();
+        refine(g, queryStart, queryGoal, outTiles);
+        return true;
+    }
+
+    private void relax(Graph g, int u, int v, float stepCost, int goal) {
+        if (stepCost == Float.POSITIVE_INFINITY || g.closed[v] == g.generation) return;
+        float ng = g.gScore[u] + stepCost;
+        if (g.seen[v] != g.generation || ng < g.gScore[v]) {
+            g.seen[v] = g.generation;
+            g.gScore[v] = ng;
+            g.parent[v] = u;
+            int tile = v == g.nodeCount + 1 ? goal : g.nodeTile[v];
+            g.open.push(v, ng + AStarPathfinder.heuristicOctile(grid.tileX(tile), grid.tileY(tile), grid.tileX(goal), grid.tileY(goal)));
+        }
+    }
+
+    // Turn the abstract route into tiles, stopping after refineLimit cluster segments
+    private void refine(Graph g, int start, int goal, IntArray out) {
+        out.add(start);
+        int refined = 0;
+        int prev = start;
+        for (int i = 1; i < abstractPath.size; i++) {
+            int id = abstractPath.get(i);
+            int tile = id == g.nodeCount + 1 ? goal : g.nodeTile[id];
+            if (tile == prev) continue;
+            int c = clusterOfTile(prev);
+            if (c != clusterOfTile(tile)) {
+                out.add(tile);   // border crossing: tiles are adjacent
+            } else {
+                if (refined == refineLimit) break;
+                appendClusterPath(c, prev, tile, g.clearance, out);
+                refined++;
+            }
+            prev = tile;
+        }
+    }
+
+    private void appendClusterPath(int cluster, int from, int to, int clearanceClass, IntArray out) {
+        clusterSearch(cluster, from, to, false, clearanceClass);
+        segment.clear();
+        int l = localIndex(to), src = localIndex(from);
+        while (l != src && l >= 0) {
+            segment.add((localX0 + l % localW) + (localY0 + l / localW) * grid.width);
+            l = localParent[l];
+        }
+        for (int i = segment.size - 1; i >= 0; i--) out.add(segment.get(i));
+    }
+
+    private static void nextGeneration(Graph g) {
+        if (++g.generation == Integer.MAX_VALUE) {
+            Arrays.fill(g.seen, 0);
+            Arrays.fill(g.closed, 0);
+            g.generation = 1;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Cluster-local Dijkstra
+    // ------------------------------------------------------------------------
+    private int clusterOfTile(int tile) {
+        return (grid.tileX(tile) / clusterSize) + (grid.tileY(tile) / clusterSize) * clustersX;
+    }
+
+    private int localIndex(int tile) {
+        return (grid.tileX(tile) - localX0) + (grid.tileY(tile) - localY0) * localW;
+    }
+
+    /**
+     * Dijkstra confined to one cluster. Forward fills cost from source;
+     * reverse fills cost to reach source. Stops once stopTile settles (-1
+     * settles the whole cluster).
+     */
+    private void clusterSearch(int cluster, int source, int stopTile, boolean reverse, int clearanceClass) {
+        final int W = grid.width;
+        final int x0 = (cluster % clustersX) * clusterSize, y0 = (cluster / clustersX) * clusterSize;
+        final int x1 = Math.min(grid.width, x0 + clusterSize), y1 = Math.min(grid.height, y0 + clusterSize);
+        localX0 = x0; localY0 = y0; localW = x1 - x0;
+        final int cells = localW * (y1 - y0);
+        Arrays.fill(localDist, 0, cells, Float.POSITIVE_INFINITY);
+        Arrays.fill(localParent, 0, cells, -1);
+        localOpen.clear();
+
+        int src = localIndex(source);
+        int stop = stopTile < 0 ? -1 : localIndex(stopTile);
+        localDist[src] = 0f;
+        localOpen.push(src, 0f);
+
+        while (!localOpen.isEmpty()) {
+            int u = localOpen.pop();
+            lastExpanded++;
+            if (u == stop) break;
+            int ux = x0 + u % localW, uy = y0 + u / localW;
+            float base = localDist[u];
+            for (int i = 0; i < 8; i++) {
+                int vx = ux + AStarPathfinder.DX8[i], vy = uy + AStarPathfinder.DY8[i];
+                if (vx < x0 || vy < y0 || vx >= x1 || vy >= y1) continue;
+                if (!grid.isWalkableIndex(vx + vy * W, clearanceClass)) continue;
+                if (i >= 4 && (grid.isSolid(vx, uy) || grid.isSolid(ux, vy))) continue;
+                float c = base + AStarPathfinder.STEP_COST[i]
+                        + (reverse ? grid.softCostIndex(ux + uy * W) : grid.softCostIndex(vx + vy * W));
+                int v = (vx - x0) + (vy - y0) * localW;
+                if (c < localDist[v]) {
+                    localDist[v] = c;
+                    localParent[v] = u;
+                    localOpen.push(v, c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+// Author: Martin Taylor
+// File: IncrementalPathfinder.java
+// Date: 2026-10-17
+// Description:
+//   A TilePathfinder whose search can be paused after a number of node
+//   expansions and resumed later (used by the frame-budgeted scheduler).
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Resumable search: {@link #begin}, then {@link #step} until it stops
+ * returning {@link #RUNNING}, then {@link #buildPath}. Only one search can be
+ * in flight per instance; calling begin (or findPath) abandons the old one.
+ */
+public interface IncrementalPathfinder extends TilePathfinder {
+
+    int RUNNING = 0;
+    int FOUND   = 1;
+    int FAILED  = 2;
+
+    /** Start a new search from (sx,sy) to (tx,ty). */
+    void begin(int sx, int sy, int tx, int ty);
+
+    /** Expand up to maxExpansions more nodes; returns RUNNING, FOUND or FAILED. */
+    int step(int maxExpansions);
+
+    /** After FOUND, write the tile path (start..goal inclusive); false otherwise. */
+    boolean buildPath(IntArray outTiles);
+}
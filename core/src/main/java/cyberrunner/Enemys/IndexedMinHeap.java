@@ -0,0 +1,137 @@
+// Author: Martin Taylor
+// File: IndexedMinHeap.java
+// Date: 2026-10-17
+// Description:
+//   Binary min-heap over int node ids (tile indices) with decrease-key.
+//   No boxing and no per-push allocation, so searches can reuse one heap.
+
+package cyberrunner.Enemys;
+
+import java.util.Arrays;
+
+/**
+ * Open list for Dijkstra-style grid searches. Each node is queued at most
+ * once; pushing a node that is already queued moves it to its new key.
+ * Equal keys pop in the order they were last pushed.
+ */
+final class IndexedMinHeap {
+
+    private final int[] heap;     // slot -> node
+    private final int[] slotOf;   // node -> slot, -1 if not queued
+    private final float[] key;    // node -> key
+    private final int[] order;    // node -> push sequence (tie-break)
+    private int size = 0;
+    private int sequence = 0;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        slotOf = new int[capacity];
+        key = new float[capacity];
+        order = new int[capacity];
+        Arrays.fill(slotOf, -1);
+    }
+
+    int size() { return size; }
+    int capacity() { return heap.length; }
+    boolean isEmpty() { return size == 0; }
+    boolean contains(int node) { return slotOf[node] >= 0; }
+    float key(int node) { return key[node]; }
+    float peekKey() { return key[heap[0]]; }
+    int peek() { return heap[0]; }
+
+    /** Drop every queued node. Cost is proportional to what is still queued. */
+    void clear() {
+        for (int i = 0; i < size; i++) slotOf[heap[i]] = -1;
+        size = 0;
+        sequence = 0;
+    }
+
+    /** Insert a node, or move an already-queued node to a new key. */
+    void push(int node, float newKey) {
+        int slot = slotOf[node];
+        key[node] = newKey;
+        order[node] = sequence++;
+        if (slot < 0) {
+            slot = size++;
+            heap[slot] = node;
+            slotOf[node] = slot;
+            siftUp(slot);
+        } else {
+            siftUp(slot);
+            siftDown(slotOf[node]);
+        }
+    }
+
+    int pop() {
+        int top = heap[0];
+        slotOf[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            slotOf[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    void remove(int node) {
+        int slot = slotOf[node];
+        if (slot < 0) return;
+        slotOf[node] = -1;
+        size--;
+        if (slot == size) return;
+        int last = heap[size];
+        heap[slot] = last;
+        slotOf[last] = slot;
+        siftUp(slot);
+        siftDown(slotOf[last]);
+    }
+
+    /** Node in heap slot i (0 <= i < size), for walking the queue. */
+    int nodeAt(int slot) { return heap[slot]; }
+
+    /** Change a queued node's key without restoring order; call heapify() after the batch. */
+    void setKeyUnordered(int node, float newKey) { key[node] = newKey; }
+
+    /** Restore heap order after setKeyUnordered calls. O(size). */
+    void heapify() {
+        for (int i = (size >>> 1) - 1; i >= 0; i--) siftDown(i);
+    }
+
+    private boolean less(int a, int b) {
+        float ka = key[a], kb = key[b];
+        if (ka != kb) return ka < kb;
+        return order[a] < order[b];
+    }
+
+    private void siftUp(int slot) {
+        int node = heap[slot];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parent = heap[parentSlot];
+            if (!less(node, parent)) break;
+            heap[slot] = parent;
+            slotOf[parent] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = node;
+        slotOf[node] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int node = heap[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && less(heap[right], heap[child])) child = right;
+            if (!less(heap[child], node)) break;
+            heap[slot] = heap[child];
+            slotOf[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = node;
+        slotOf[node] = slot;
+    }
+}
@@ -0,0 +1,230 @@
+// Author: Martin Taylor
+// File: JumpPointPathfinder.java
+// Date: 2026-10-17
+// Description:
+//   Jump Point Search over a NavGrid. Straight and diagonal runs are scanned
+//   without touching the open list, so only turning points get expanded.
+//   Diagonals need both orthogonal tiles walkable (no corner cutting).
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * JPS alternative to {@link AStarPathfinder}. "Walkable" means the same as
+ * for A* (open and at least {@link NavGrid#MIN_CLEAR_TILES} of clearance), so
+ * pinch points stay closed. JPS needs uniform step costs, so the wall-hugging
+ * soft cost is not applied here; path smoothing pulls routes off walls anyway.
+ * The returned path is expanded back into adjacent tiles.
+ */
+public class JumpPointPathfinder implements IncrementalPathfinder {
+
+    private final NavGrid grid;
+
+    // Per-tile search state, valid only where the stamp equals the generation
+    private final float[] gScore;
+    private final int[] parent;
+    private final int[] seen;
+    private final int[] closed;
+    private int generation = 0;
+
+    private final IndexedMinHeap open;
+    private final IntArray jumpPoints = new IntArray();
+
+    private int maxExpansions = AStarPathfinder.DEFAULT_MAX_EXPANSIONS;
+    private int agentClearance = 1;
+    private int lastExpanded = 0;
+
+    // In-flight search (see begin/step); jump reads the goal
+    private int status = FAILED;
+    private int goal, goalX, goalY;
+
+    public JumpPointPathfinder(NavGrid grid) {
+        this.grid = grid;
+        int n = grid.size();
+        this.gScore = new float[n];
+        this.parent = new int[n];
+        this.seen = new int[n];
+        this.closed = new int[n];
+        this.open = new IndexedMinHeap(n);
+    }
+
+    @Override
+    public NavGrid getGrid() { return grid; }
+
+    public void setMaxExpansions(int maxExpansions) { this.maxExpansions = Math.max(1, maxExpansions); }
+
+    // Jumping only needs a consistent passable test, so clearance classes just narrow it
+    @Override
+    public void setAgentClearance(int clearanceClass) { this.agentClearance = Math.max(1, clearanceClass); }
+
+    @Override
+    public int getLastExpanded() { return lastExpanded; }
+
+    @Override
+    public boolean findPath(int sx, int sy, int tx, int ty, IntArray outTiles) {
+        begin(sx, sy, tx, ty);
+        step(Integer.MAX_VALUE);
+        return buildPath(outTiles);
+    }
+
+    @Override
+    public void begin(int sx, int sy, int tx, int ty) {
+        lastExpanded = 0;
+        open.clear();
+        if (!grid.inBounds(sx, sy) || !grid.inBounds(tx, ty)) { status = FAILED; return; }
+
+        final int start = grid.index(sx, sy);
+        goalX = tx; goalY = ty;
+        goal = grid.index(tx, ty);
+
+        nextGeneration();
+        seen[start] = generation;
+        gScore[start] = 0f;
+        parent[start] = -1;
+        open.push(start, AStarPathfinder.heuristicOctile(sx, sy, tx, ty));
+        status = RUNNING;
+    }
+
+    @Override
+    public int step(int maxSteps) {
+        if (status != RUNNING) return status;
+        int budget = maxSteps;
+        while (!open.isEmpty() && lastExpanded < maxExpansions && budget-- > 0) {
+            int cur = open.pop();
+            closed[cur] = generation;
+            lastExpanded++;
+            if (cur == goal) { status = FOUND; return status; }
+            expand(cur);
+        }
+        if (open.isEmpty() || lastExpanded >= maxExpansions) status = FAILED;
+        return status;
+    }
+
+    @Override
+    public boolean buildPath(IntArray outTiles) {
+        outTiles.clear();
+        if (status != FOUND) return false;
+        jumpPoints.clear();
+        for (int n = goal; n != -1; n = parent[n]) jumpPoints.add(n);
+        jumpPoints.reverse();
+        appendTileChain(jumpPoints, outTiles);
+        return true;
+    }
+
+    private void nextGeneration() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Expansion
+    // ------------------------------------------------------------------------
+    private void expand(int cur) {
+        final int W = grid.width;
+        int x = cur % W, y = cur / W;
+        int p = parent[cur];
+
+        if (p < 0) {
+            // Start node: try every direction
+            for (int i = 0; i < 8; i++) tryDirection(cur, x, y, AStarPathfinder.DX8[i], AStarPathfinder.DY8[i]);
+            return;
+        }
+
+        int dx = Integer.signum(x - p % W);
+        int dy = Integer.signum(y - p / W);
+
+        if (dx != 0 && dy != 0) {
+            boolean walkX = walkable(x + dx, y);
+            boolean walkY = walkable(x, y + dy);
+            if (walkY) tryDirection(cur, x, y, 0, dy);
+            if (walkX) tryDirection(cur, x, y, dx, 0);
+            if (walkX && walkY) tryDirection(cur, x, y, dx, dy);
+        } else if (dx != 0) {
+            boolean up = walkable(x, y + 1), down = walkable(x, y - 1);
+            if (walkable(x + dx, y)) {
+                tryDirection(cur, x, y, dx, 0);
+                if (up) tryDirection(cur, x, y, dx, 1);
+                if (down) tryDirection(cur, x, y, dx, -1);
+            }
+            if (up) tryDirection(cur, x, y, 0, 1);
+            if (down) tryDirection(cur, x, y, 0, -1);
+        } else {
+            boolean right = walkable(x + 1, y), left = walkable(x - 1, y);
+            if (walkable(x, y + dy)) {
+                tryDirection(cur, x, y, 0, dy);
+                if (right) tryDirection(cur, x, y, 1, dy);
+                if (left) tryDirection(cur, x, y, -1, dy);
+            }
+            if (right) tryDirection(cur, x, y, 1, 0);
+            if (left) tryDirection(cur, x, y, -1, 0);
+        }
+    }
+
+    private void tryDirection(int cur, int x, int y, int dx, int dy) {
+        // Diagonal steps never cut a corner
+        if (dx != 0 && dy != 0 && (!walkable(x + dx, y) || !walkable(x, y + dy))) return;
+
+        int jp = jump(x + dx, y + dy, dx, dy);
+        if (jp < 0 || closed[jp] == generation) return;
+
+        final int W = grid.width;
+        int jx = jp % W, jy = jp / W;
+        float ng = gScore[cur] + AStarPathfinder.heuristicOctile(x, y, jx, jy);
+        if (seen[jp] != generation || ng < gScore[jp]) {
+            seen[jp] = generation;
+            gScore[jp] = ng;
+            parent[jp] = cur;
+            open.push(jp, ng + AStarPathfinder.heuristicOctile(jx, jy, goalX, goalY));
+        }
+    }
+
+    /**
+     * Scan from (x,y) in direction (dx,dy) until a jump point, the goal, or a
+     * blocked tile. Iterative, so long corridors never grow the call stack.
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        while (true) {
+            if (!walkable(x, y)) return -1;
+            if (x == goalX && y == goalY) return grid.index(x, y);
+
+            if (dx != 0 && dy != 0) {
+                if (jump(x + dx, y, dx, 0) >= 0 || jump(x, y + dy, 0, dy) >= 0) return grid.index(x, y);
+                if (!walkable(x + dx, y) || !walkable(x, y + dy)) return -1;
+            } else if (dx != 0) {
+                if ((walkable(x, y + 1) && !walkable(x - dx, y + 1))
+                        || (walkable(x, y - 1) && !walkable(x - dx, y - 1))) return grid.index(x, y);
+            } else {
+                if ((walkable(x + 1, y) && !walkable(x + 1, y - dy))
+                        || (walkable(x - 1, y) && !walkable(x - 1, y - dy))) return grid.index(x, y);
+            }
+            x += dx;
+            y += dy;
+        }
+    }
+
+    private boolean walkable(int tx, int ty) {
+        return grid.isWalkable(tx, ty, agentClearance);
+    }
+
+    // Jump points are joined by straight or pure-diagonal runs; fill in every tile.
+    private void appendTileChain(IntArray points, IntArray out) {
+        final int W = grid.width;
+        out.add(points.get(0));
+        for (int i = 1; i < points.size; i++) {
+            int a = points.get(i - 1), b = points.get(i);
+            int x = a % W, y = a / W, bx = b % W, by = b / W;
+            int dx = Integer.signum(bx - x), dy = Integer.signum(by - y);
+            while (x != bx || y != by) {
+                x += dx;
+                y += dy;
+                out.add(x + y * W);
+            }
+        }
+    }
+}
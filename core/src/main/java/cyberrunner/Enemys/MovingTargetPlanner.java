@@ -0,0 +1,210 @@
+// Author: Martin Taylor
+// File: MovingTargetPlanner.java
+// Date: 2026-10-17
+// Description:
+//   Incremental A* for chasing a moving target. The search tree rooted at
+//   the chaser is kept between calls: when the target steps to a new tile
+//   the open list is re-keyed for the new goal and the search simply
+//   continues, and while the chaser walks along its path the tree stays
+//   valid. Only when the chaser leaves the tree path is it re-rooted.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Per-agent moving-target planner (tree-reuse A*, the goal-moves half of
+ * FRA*). With a consistent heuristic every closed tile already holds its
+ * optimal cost from the root whatever the goal is, so a goal that is
+ * already closed costs no expansions at all, and a goal outside the tree
+ * costs only the expansions needed to reach it. Any suffix of an optimal
+ * path is optimal, so a chaser still on the tree path gets an optimal route
+ * without a new search.
+ * <p>
+ * Same step, corner and clearance soft-cost rules as {@link AStarPathfinder}.
+ * Holds grid-sized buffers, so keep a bounded pool of these, not one per enemy.
+ */
+public class MovingTargetPlanner {
+
+    private final NavGrid grid;
+
+    // Tree state, valid only where the stamp equals the generation
+    private final float[] gScore;
+    private final int[] parent;
+    private final int[] seen;
+    private final int[] closed;
+    private int generation = 0;
+
+    private final IndexedMinHeap open;
+    private final IntArray chain = new IntArray();
+
+    private int root = -1;
+    private int goal = -1, goalX, goalY;
+    private int treeExpanded = 0;
+    private int maxTreeExpansions = AStarPathfinder.DEFAULT_MAX_EXPANSIONS;
+    private int agentClearance = 1;
+
+    private int lastExpanded = 0;
+    private boolean lastRerooted = false;
+
+    public MovingTargetPlanner(NavGrid grid) {
+        this.grid = grid;
+        int n = grid.size();
+        this.gScore = new float[n];
+        this.parent = new int[n];
+        this.seen = new int[n];
+        this.closed = new int[n];
+        this.open = new IndexedMinHeap(n);
+    }
+
+    public NavGrid getGrid() { return grid; }
+
+    /** Tree size (expansions since the last re-root) before a fresh search is forced. */
+    public void setMaxTreeExpansions(int max) { this.maxTreeExpansions = Math.max(1, max); }
+
+    /** Clearance class of the chaser (see {@link TilePathfinder#setAgentClearance}); drops the tree if it changes. */
+    public void setAgentClearance(int clearanceClass) {
+        clearanceClass = Math.max(1, clearanceClass);
+        if (clearanceClass != agentClearance) { agentClearance = clearanceClass; reset(); }
+    }
+
+    /** Nodes expanded by the most recent plan() call (0 when the tree already had the answer). */
+    public int getLastExpanded() { return lastExpanded; }
+
+    /** True if the most recent plan() had to throw the tree away. */
+    public boolean wasLastRerooted() { return lastRerooted; }
+
+    /** Drop the search tree; the next plan() starts fresh. */
+    public void reset() { root = -1; goal = -1; }
+
+    /**
+     * Path from (sx,sy) to (tx,ty), reusing the previous search where possible.
+     * Writes tile indices start..goal (inclusive, adjacent steps) into out.
+     */
+    public boolean plan(int sx, int sy, int tx, int ty, IntArray out) {
+        out.clear();
+        lastExpanded = 0;
+        lastRerooted = false;
+        if (!grid.inBounds(sx, sy) || !grid.inBounds(tx, ty)) return false;
+
+        final int start = grid.index(sx, sy), target = grid.index(tx, ty);
+
+        if (root < 0 || treeExpanded >= maxTreeExpansions) reroot(start);
+        if (target != goal) retarget(target);
+        if (!search()) {
+            if (root == start) { reset(); return false; }
+            // the old tree ran dry; one fresh try from where the chaser stands
+            reroot(start);
+            retarget(target);
+            if (!search()) { reset(); return false; }
+        }
+        buildChain();
+
+        if (start != root) {
+            int k = joinIndex(start);
+            if (k < 0) {
+                // chaser left the tree path: plan again from its tile
+                reroot(start);
+                retarget(target);
+                if (!search()) { reset(); return false; }
+                buildChain();
+                k = 0;
+            }
+            if (chain.get(k) != start) out.add(start);
+            for (int i = k; i < chain.size; i++) out.add(chain.get(i));
+        } else {
+            out.addAll(chain);
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------------
+    // Tree maintenance
+    // ------------------------------------------------------------------------
+    private void reroot(int start) {
+        if (root >= 0) lastRerooted = true;
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        open.clear();
+        root = start;
+        goal = -1;
+        treeExpanded = 0;
+        seen[start] = generation;
+        gScore[start] = 0f;
+        parent[start] = -1;
+        open.push(start, 0f);
+    }
+
+    // New goal: closed costs stay exact, only open keys need the new heuristic
+    private void retarget(int target) {
+        goal = target;
+        goalX = grid.tileX(target);
+        goalY = grid.tileY(target);
+        for (int i = 0; i < open.size(); i++) {
+            int n = open.nodeAt(i);
+            open.setKeyUnordered(n, gScore[n] + AStarPathfinder.heuristicOctile(grid.tileX(n), grid.tileY(n), goalX, goalY));
+        }
+        open.heapify();
+    }
+
+    // Expand until the goal is closed; false if it cannot be reached within the tree budget
+    private boolean search() {
+        if (closed[goal] == generation) return true;
+        final int W = grid.width;
+        while (!open.isEmpty() && treeExpanded < maxTreeExpansions) {
+            int cur = open.pop();
+            closed[cur] = generation;
+            treeExpanded++;
+            lastExpanded++;
+
+            int cx = cur % W, cy = cur / W;
+            float cg = gScore[cur];
+            for (int i = 0; i < 8; i++) {
+                int nx = cx + AStarPathfinder.DX8[i], ny = cy + AStarPathfinder.DY8[i];
+                if (!grid.inBounds(nx, ny)) continue;
+                int ni = nx + ny * W;
+                if (closed[ni] == generation || !grid.isWalkableIndex(ni, agentClearance)) continue;
+                if (i >= 4 && (grid.isSolid(nx, cy) || grid.isSolid(cx, ny))) continue;
+                float ng = cg + AStarPathfinder.STEP_COST[i] + grid.softCostIndex(ni);
+                if (seen[ni] != generation || ng < gScore[ni]) {
+                    seen[ni] = generation;
+                    gScore[ni] = ng;
+                    parent[ni] = cur;
+                    open.push(ni, ng + AStarPathfinder.heuristicOctile(nx, ny, goalX, goalY));
+                }
+            }
+            if (cur == goal) return true;
+        }
+        return false;
+    }
+
+    private void buildChain() {
+        chain.clear();
+        for (int n = goal; n != -1; n = parent[n]) chain.add(n);
+        chain.reverse();
+    }
+
+    /**
+     * Furthest point on the tree path the chaser can join: its own tile, or
+     * a tile one legal step away. -1 if it is nowhere near the path.
+     */
+    private int joinIndex(int start) {
+        final int W = grid.width;
+        int sx = start % W, sy = start / W;
+        for (int i = chain.size - 1; i >= 0; i--) {
+            int c = chain.get(i);
+            if (c == start) return i;
+            int cx = c % W, cy = c / W;
+            int dx = cx - sx, dy = cy - sy;
+            if (Math.abs(dx) > 1 || Math.abs(dy) > 1) continue;
+            if (dx != 0 && dy != 0 && (grid.isSolid(cx, sy) || grid.isSolid(sx, cy))) continue;
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,235 @@
+// Author: Martin Taylor
+// File: NavGrid.java
+// Date: 2026-10-17
+// Description:
+//   Flat navigation view of a Dungeon: tile solidity plus the clearance
+//   field (exact Euclidean distance from walls) used by the pathfinders as
+//   a soft cost and, via its gradient table, to nudge waypoints off walls,
+//   and the Chebyshev wall distance used to fit bigger agents through gaps.
+//   Tiles are addressed by index = tx + ty * width.
+
+package cyberrunner.Enemys;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only navigation data derived from a {@link Dungeon}. Build it once
+ * after {@link Dungeon#generate(long)} and share it between pathfinders.
+ * Nothing is written after construction, so worker threads can read it
+ * while the game keeps running.
+ * <p>
+ * Agent footprints map to a clearance class (see {@link #clearanceClassFor});
+ * a tile can hold an agent of class k if its {@link #wallDistance} is at
+ * least k. Class 1 is any open tile, which covers every footprint up to one
+ * tile wide.
+ */
+public final class NavGrid {
+
+    // Clearance field tuning (tiles)
+    public static final float MIN_CLEAR_TILES       = 0.50f;
+    public static final float PREFERRED_CLEAR_TILES = 1.20f;
+    public static final float CLEAR_SOFTCOST        = 12f;
+
+    /**
+     * Version of the derived fields (clearance, wall distance, gradient).
+     * Bump whenever buildClearance changes what it computes: the level cache
+     * keys its files on it. 2 = exact distance transform.
+     */
+    public static final int DATA_VERSION = 2;
+
+    public final int width;     // tiles
+    public final int height;    // tiles
+    public final int tileSize;  // pixels per tile
+
+    /** Unique per build, so anything derived from a grid can tell it is stale. */
+    public final int version;
+    /** {@link Dungeon#getVersion()} this grid was built from. */
+    public final int dungeonVersion;
+
+    private static final AtomicInteger BUILDS = new AtomicInteger();
+
+    // Wall distances are capped so they fit a byte
+    private static final int MAX_WALL_DISTANCE = 127;
+
+    private final boolean[] solid;
+    private final float[] clearance;
+    private final byte[] wallDistance;
+    private final float[] gradX, gradY;   // unit direction away from walls, 0 where flat
+    private final GridRaycast.TileTest walkableTile = this::isWalkable;
+
+    private NavGrid(int width, int height, int tileSize, int dungeonVersion, boolean[] solid, float[] clearance, byte[] wallDistance,
+                    float[] gradX, float[] gradY) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.version = BUILDS.incrementAndGet();
+        this.dungeonVersion = dungeonVersion;
+        this.solid = solid;
+        this.clearance = clearance;
+        this.wallDistance = wallDistance;
+        this.gradX = gradX;
+        this.gradY = gradY;
+    }
+
+    /** Copy solidity out of the dungeon and build the clearance field. */
+    public static NavGrid build(Dungeon dungeon) {
+        final int W = dungeon.width, H = dungeon.height;
+        boolean[] solid = new boolean[W * H];
+        dungeon.copySolid(solid);
+
+        float[] clearance = new float[W * H];
+        byte[] wallDistance = new byte[W * H];
+        float[] gradX = new float[W * H], gradY = new float[W * H];
+        buildClearance(W, H, solid, clearance, wallDistance, gradX, gradY);
+        return new NavGrid(W, H, dungeon.tileSize, dungeon.getVersion(), solid, clearance, wallDistance, gradX, gradY);
+    }
+
+    /**
+     * Rebuild a grid from previously computed fields (the level cache), taking
+     * solidity from the dungeon. The arrays are used as-is, not copied.
+     */
+    static NavGrid restore(Dungeon dungeon, float[] clearance, byte[] wallDistance, float[] gradX, float[] gradY) {
+        final int W = dungeon.width, H = dungeon.height;
+        boolean[] solid = new boolean[W * H];
+        dungeon.copySolid(solid);
+        return new NavGrid(W, H, dungeon.tileSize, dungeon.getVersion(), solid, clearance, wallDistance, gradX, gradY);
+    }
+
+    // Raw fields for the level cache; callers must not modify them
+    float[] clearanceData() { return clearance; }
+    byte[] wallDistanceData() { return wallDistance; }
+    float[] gradientXData() { return gradX; }
+    float[] gradientYData() { return gradY; }
+
+    // Exact Euclidean clearance and Chebyshev wall distance in one transform, then the gradient table
+    private static void buildClearance(int W, int H, boolean[] solid, float[] clearance, byte[] wallDistance,
+                                       float[] gradX, float[] gradY) {
+        int[] edtSquared = new int[W * H], chebyshev = new int[W * H];
+        DistanceTransform.compute(W, H, solid, edtSquared, chebyshev);
+        for (int i = 0; i < W * H; i++) {
+            clearance[i] = (float)Math.sqrt(edtSquared[i]);
+            wallDistance[i] = (byte)Math.min(MAX_WALL_DISTANCE, chebyshev[i]);
+        }
+        // central differences (off-map reads as wall), stored as unit vectors
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int i = x + y * W;
+                float cR = x + 1 < W ? clearance[i + 1] : 0f, cL = x > 0 ? clearance[i - 1] : 0f;
+                float cU = y + 1 < H ? clearance[i + W] : 0f, cD = y > 0 ? clearance[i - W] : 0f;
+                float gx = (cR - cL) * 0.5f, gy = (cU - cD) * 0.5f;
+                float len2 = gx * gx + gy * gy;
+                if (len2 > 1e-6f) {
+                    float inv = 1f / (float)Math.sqrt(len2);
+                    gradX[i] = gx * inv;
+                    gradY[i] = gy * inv;
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Indexing
+    // ------------------------------------------------------------------------
+    public int index(int tx, int ty) { return tx + ty * width; }
+    public int tileX(int index) { return index % width; }
+    public int tileY(int index) { return index / width; }
+    public int size() { return width * height; }
+
+    public boolean inBounds(int tx, int ty) {
+        return tx >= 0 && ty >= 0 && tx < width && ty < height;
+    }
+
+    public int worldToTileX(float wx) { return (int)Math.floor(wx / tileSize); }
+    public int worldToTileY(float wy) { return (int)Math.floor(wy / tileSize); }
+
+    // ------------------------------------------------------------------------
+    // Queries
+    // ------------------------------------------------------------------------
+    /** True if tile is a wall (out of bounds counts as wall). */
+    public boolean isSolid(int tx, int ty) {
+        if (!inBounds(tx, ty)) return true;
+        return solid[tx + ty * width];
+    }
+
+    public boolean isSolidIndex(int index) { return solid[index]; }
+
+    /** Same test as {@link Dungeon#isSolidWorld}. */
+    public boolean isSolidWorld(float wx, float wy) {
+        return isSolid(worldToTileX(wx), worldToTileY(wy));
+    }
+
+    /** Euclidean distance in tiles (centre to centre) to the nearest wall; 0 for walls and out-of-bounds tiles. */
+    public float clearance(int tx, int ty) {
+        if (!inBounds(tx, ty)) return 0f;
+        return clearanceIndex(tx + ty * width);
+    }
+
+    public float clearanceIndex(int index) {
+        return clearance[index];
+    }
+
+    /** Unit step away from the nearest walls at (tx,ty) (x part); 0 where the field is flat or off-map. */
+    public float clearanceGradientX(int tx, int ty) {
+        return inBounds(tx, ty) ? gradX[tx + ty * width] : 0f;
+    }
+
+    /** Y part of {@link #clearanceGradientX}. */
+    public float clearanceGradientY(int tx, int ty) {
+        return inBounds(tx, ty) ? gradY[tx + ty * width] : 0f;
+    }
+
+    /** Open tile with enough clearance for an agent to stand on. */
+    public boolean isWalkable(int tx, int ty) {
+        return inBounds(tx, ty) && isWalkableIndex(tx + ty * width);
+    }
+
+    public boolean isWalkableIndex(int index) {
+        return !solid[index] && clearanceIndex(index) >= MIN_CLEAR_TILES;
+    }
+
+    /** Tiles (Chebyshev) to the nearest wall or map edge: 0 for walls, 1 next to one. */
+    public int wallDistance(int tx, int ty) {
+        if (!inBounds(tx, ty)) return 0;
+        return wallDistance[tx + ty * width];
+    }
+
+    public int wallDistanceIndex(int index) { return wallDistance[index]; }
+
+    /**
+     * Clearance class for a square footprint (pixels) centred on a tile: the
+     * wall distance a tile needs so the footprint overlaps no wall. Anything
+     * up to one tile wide is class 1, which today covers every sandbox enemy;
+     * only the benchmark's wide agents reach class 2 and above.
+     */
+    public int clearanceClassFor(float footprint) {
+        return Math.max(1, (int)Math.ceil(footprint / (2f * tileSize) + 0.5f));
+    }
+
+    /** Walkable, and roomy enough for an agent of the given clearance class. */
+    public boolean isWalkable(int tx, int ty, int clearanceClass) {
+        return inBounds(tx, ty) && isWalkableIndex(tx + ty * width, clearanceClass);
+    }
+
+    public boolean isWalkableIndex(int index, int clearanceClass) {
+        return isWalkableIndex(index) && wallDistance[index] >= clearanceClass;
+    }
+
+    /**
+     * True if every tile the segment (world space) crosses is walkable: open and above
+     * the clearance threshold. Exact grid traversal, corners included; no allocation.
+     */
+    public boolean hasLineOfSight(float x0, float y0, float x1, float y1) {
+        return GridRaycast.isClear(walkableTile, tileSize, x0, y0, x1, y1);
+    }
+
+    /** Thick ray: every tile a square of the given half-width sweeps over on the way must be walkable. */
+    public boolean hasLineOfSight(float x0, float y0, float x1, float y1, float halfWidth) {
+        return GridRaycast.isSweptClear(walkableTile, tileSize, x0, y0, x1, y1, halfWidth);
+    }
+
+    /** Extra cost for stepping onto a tile that hugs a wall. */
+    public float softCostIndex(int index) {
+        float clear = clearanceIndex(index);
+        return clear < PREFERRED_CLEAR_TILES ? CLEAR_SOFTCOST * (PREFERRED_CLEAR_TILES - clear) : 0f;
+    }
+}
@@ -0,0 +1,395 @@
+// Author: Martin Taylor
+// File: NavMesh.java
+// Date: 2026-10-17
+// Description:
+//   Polygonal navigation mesh built from a NavGrid. Walkable tiles are
+//   merged into axis-aligned rectangles (convex by construction), shared
+//   borders become portals, and queries run A* over the rectangles followed
+//   by funnel string pulling, giving short any-angle paths in world space.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Any-angle alternative to the tile pathfinders. The mesh is built in the
+ * agent's configuration space: every wall tile is grown by the agent radius,
+ * so each rectangle is exactly the area an agent centre can occupy and a
+ * straight line inside one never brushes a wall. Funnel paths therefore need
+ * no smoothing or clearance nudge afterwards.
+ * <p>
+ * To get there each tile column (and row) is split into a core strip
+ * [radius, tile - radius] and a seam strip of width 2*radius around every
+ * grid line. A core cell is free if its tile is walkable, a seam cell if all
+ * tiles it straddles are; the free cells are then merged into rectangles.
+ * <p>
+ * The mesh is a snapshot of the grid; build it after {@link Dungeon#generate(long)}
+ * and rebuild if the dungeon changes. Queries reuse scratch buffers, so use
+ * one instance per thread.
+ */
+public class NavMesh {
+
+    // Side normals: east, west, north, south
+    private static final int[] SIDE_DX = { 1, -1, 0,  0 };
+    private static final int[] SIDE_DY = { 0,  0, 1, -1 };
+
+    private final NavGrid grid;
+    private final float agentRadius;
+
+    // Cell grid: 2 cells per tile on each axis (even = core, odd = seam after the tile)
+    private final int cellsX, cellsY;
+    private final int[] cellPoly;     // cell -> polygon, -1 if blocked
+
+    // Polygons are cell rectangles [x, x+w) x [y, y+h)
+    private int polyCount;
+    private int[] polyX, polyY, polyW, polyH;
+
+    // Portals, CSR by source polygon; (left, right) as seen travelling out of the source
+    private int[] edgeStart;
+    private int[] edgeFrom, edgeTo;
+    private float[] portalLX, portalLY, portalRX, portalRY;
+
+    // Search scratch
+    private final float[] gScore, entryX, entryY;
+    private final int[] parentEdge, seen, closed;
+    private int generation = 0;
+    private final IndexedMinHeap open;
+    private final IntArray corridor = new IntArray();
+    private final FloatArray portals = new FloatArray();
+
+    private int maxExpansions = AStarPathfinder.DEFAULT_MAX_EXPANSIONS;
+    private int lastExpanded = 0;
+    private int lastCorridorPolys = 0;
+
+    /** @param agentRadius half-width of the agents that will follow the paths, in pixels */
+    public NavMesh(NavGrid grid, float agentRadius) {
+        this.grid = grid;
+        this.agentRadius = Math.max(0f, Math.min(agentRadius, grid.tileSize * 0.5f - 1f));
+        this.cellsX = grid.width * 2;
+        this.cellsY = grid.height * 2;
+        this.cellPoly = new int[cellsX * cellsY];
+
+        buildPolygons();
+        buildPortals();
+
+        gScore = new float[polyCount];
+        entryX = new float[polyCount];
+        entryY = new float[polyCount];
+        parentEdge = new int[polyCount];
+        seen = new int[polyCount];
+        closed = new int[polyCount];
+        open = new IndexedMinHeap(Math.max(1, polyCount));
+    }
+
+    public NavGrid getGrid() { return grid; }
+    public float getAgentRadius() { return agentRadius; }
+    public int getPolyCount() { return polyCount; }
+    public int getPortalCount() { return edgeTo.length; }
+
+    /** Cap on polygons expanded per query. */
+    public void setMaxExpansions(int maxExpansions) { this.maxExpansions = Math.max(1, maxExpansions); }
+
+    /** Polygons expanded by the most recent query. */
+    public int getLastExpanded() { return lastExpanded; }
+
+    /** Polygons the most recent path passes through (start and goal included). */
+    public int getLastCorridorLength() { return lastCorridorPolys; }
+
+    /** Polygon under a world point, -1 if an agent centred there would overlap a wall. */
+    public int polygonAt(float wx, float wy) {
+        int cx = worldToCell(wx), cy = worldToCell(wy);
+        if (cx < 0 || cy < 0 || cx >= cellsX || cy >= cellsY) return -1;
+        return cellPoly[cx + cy * cellsX];
+    }
+
+    // ------------------------------------------------------------------------
+    // Cells
+    // ------------------------------------------------------------------------
+    // World coordinate where cell c starts on its axis
+    private float cellMin(int c) {
+        int tile = c >> 1;
+        return (c & 1) == 0 ? tile * grid.tileSize + agentRadius : (tile + 1) * grid.tileSize - agentRadius;
+    }
+
+    private int worldToCell(float w) {
+        int tile = (int)Math.floor(w / grid.tileSize);
+        float off = w - tile * grid.tileSize;
+        if (off < agentRadius) return tile * 2 - 1;
+        if (off > grid.tileSize - agentRadius) return tile * 2 + 1;
+        return tile * 2;
+    }
+
+    // Core cells need their tile, seam cells every tile they straddle
+    private boolean cellWalkable(int cx, int cy) {
+        int x0 = cx >> 1, x1 = (cx & 1) == 0 ? x0 : x0 + 1;
+        int y0 = cy >> 1, y1 = (cy & 1) == 0 ? y0 : y0 + 1;
+        return grid.isWalkable(x0, y0) && grid.isWalkable(x1, y0)
+            && grid.isWalkable(x0, y1) && grid.isWalkable(x1, y1);
+    }
+
+    // ------------------------------------------------------------------------
+    // Build
+    // ------------------------------------------------------------------------
+    // Greedy rectangles: grow right along the row, then up while the whole span stays free
+    private void buildPolygons() {
+        final int W = cellsX, H = cellsY;
+        boolean[] free = new boolean[W * H];
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++) free[x + y * W] = cellWalkable(x, y);
+        Arrays.fill(cellPoly, -1);
+        IntArray rects = new IntArray();
+
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                if (!free[x + y * W]) continue;
+                int w = 1;
+                while (x + w < W && free[x + w + y * W]) w++;
+                int h = 1;
+                grow:
+                while (y + h < H) {
+                    int row = (y + h) * W;
+                    for (int i = x; i < x + w; i++) if (!free[i + row]) break grow;
+                    h++;
+                }
+                int id = rects.size / 4;
+                rects.add(x, y, w, h);
+                for (int j = y; j < y + h; j++) {
+                    for (int i = x; i < x + w; i++) {
+                        cellPoly[i + j * W] = id;
+                        free[i + j * W] = false;
+                    }
+                }
+            }
+        }
+
+        polyCount = rects.size / 4;
+        polyX = new int[polyCount]; polyY = new int[polyCount];
+        polyW = new int[polyCount]; polyH = new int[polyCount];
+        for (int p = 0; p < polyCount; p++) {
+            polyX[p] = rects.get(p * 4);
+            polyY[p] = rects.get(p * 4 + 1);
+            polyW[p] = rects.get(p * 4 + 2);
+            polyH[p] = rects.get(p * 4 + 3);
+        }
+    }
+
+    // Walk each rectangle's four borders; every run of one neighbour polygon is a portal
+    private void buildPortals() {
+        edgeStart = new int[polyCount + 1];
+        IntArray from = new IntArray(), to = new IntArray();
+        FloatArray pts = new FloatArray();
+
+        for (int p = 0; p < polyCount; p++) {
+            edgeStart[p] = to.size;
+            int x0 = polyX[p], y0 = polyY[p], w = polyW[p], h = polyH[p];
+            for (int side = 0; side < 4; side++) {
+                int nx = SIDE_DX[side], ny = SIDE_DY[side];
+                boolean vertical = nx != 0;            // border runs along y
+                int len = vertical ? h : w;
+                int base = vertical ? y0 : x0;
+                int out = vertical ? (nx > 0 ? x0 + w : x0 - 1) : (ny > 0 ? y0 + h : y0 - 1);
+                float line = cellMin(vertical ? (nx > 0 ? x0 + w : x0) : (ny > 0 ? y0 + h : y0));
+                boolean leftIsHigh = vertical ? nx > 0 : ny < 0;
+
+                int t = 0;
+                while (t < len) {
+                    int q = polyAcross(vertical, out, base + t);
+                    if (q < 0) { t++; continue; }
+                    int u = t + 1;
+                    while (u < len && polyAcross(vertical, out, base + u) == q) u++;
+
+                    float lo = cellMin(base + t), hi = cellMin(base + u);
+                    float loX = vertical ? line : lo, loY = vertical ? lo : line;
+                    float hiX = vertical ? line : hi, hiY = vertical ? hi : line;
+                    from.add(p);
+                    to.add(q);
+                    if (leftIsHigh) pts.add(hiX, hiY, loX, loY);
+                    else            pts.add(loX, loY, hiX, hiY);
+                    t = u;
+                }
+            }
+        }
+        edgeStart[polyCount] = to.size;
+
+        edgeFrom = from.toArray();
+        edgeTo = to.toArray();
+        int n = edgeTo.length;
+        portalLX = new float[n]; portalLY = new float[n];
+        portalRX = new float[n]; portalRY = new float[n];
+        for (int e = 0; e < n; e++) {
+            portalLX[e] = pts.get(e * 4);     portalLY[e] = pts.get(e * 4 + 1);
+            portalRX[e] = pts.get(e * 4 + 2); portalRY[e] = pts.get(e * 4 + 3);
+        }
+    }
+
+    private int polyAcross(boolean vertical, int across, int along) {
+        int cx = vertical ? across : along, cy = vertical ? along : across;
+        if (cx < 0 || cy < 0 || cx >= cellsX || cy >= cellsY) return -1;
+        return cellPoly[cx + cy * cellsX];
+    }
+
+    // ------------------------------------------------------------------------
+    // Query
+    // ------------------------------------------------------------------------
+    /**
+     * Any-angle path from world (sx,sy) to world (gx,gy). Writes waypoints as
+     * x,y pairs into out, excluding the start and ending at the goal (moved
+     * inside its polygon if it was closer than the agent radius to an edge).
+     */
+    public boolean findPath(float sx, float sy, float gx, float gy, FloatArray out) {
+        out.clear();
+        corridor.clear();
+        lastExpanded = 0;
+        lastCorridorPolys = 0;
+
+        int startPoly = locate(sx, sy), goalPoly = locate(gx, gy);
+        if (startPoly < 0 || goalPoly < 0) return false;
+        // points closer to a wall than the radius are pulled back into free space
+        sx = clampX(startPoly, sx); sy = clampY(startPoly, sy);
+        float goalX = clampX(goalPoly, gx), goalY = clampY(goalPoly, gy);
+
+        if (startPoly != goalPoly && !search(startPoly, goalPoly, sx, sy, goalX, goalY)) return false;
+
+        // corridor of edges goal -> start, then portals start -> goal
+        portals.clear();
+        portals.add(sx, sy, sx, sy);
+        if (startPoly != goalPoly) {
+            for (int p = goalPoly; p != startPoly; p = edgeFrom[parentEdge[p]]) corridor.add(parentEdge[p]);
+            corridor.reverse();
+            for (int i = 0; i < corridor.size; i++) {
+                int e = corridor.get(i);
+                portals.add(portalLX[e], portalLY[e], portalRX[e], portalRY[e]);
+            }
+        }
+        portals.add(goalX, goalY, goalX, goalY);
+        stringPull(out);
+        lastCorridorPolys = corridor.size + 1;
+        return true;
+    }
+
+    private boolean search(int startPoly, int goalPoly, float sx, float sy, float gx, float gy) {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        open.clear();
+        seen[startPoly] = generation;
+        gScore[startPoly] = 0f;
+        parentEdge[startPoly] = -1;
+        entryX[startPoly] = sx;
+        entryY[startPoly] = sy;
+        open.push(startPoly, distance(sx, sy, gx, gy));
+
+        while (!open.isEmpty() && lastExpanded < maxExpansions) {
+            int cur = open.pop();
+            if (cur == goalPoly) return true;
+            closed[cur] = generation;
+            lastExpanded++;
+
+            float ex = entryX[cur], ey = entryY[cur], cg = gScore[cur];
+            for (int e = edgeStart[cur]; e < edgeStart[cur + 1]; e++) {
+                int next = edgeTo[e];
+                if (closed[next] == generation) continue;
+                // enter each polygon at the portal point nearest to where we entered the last one
+                float lx = portalLX[e], ly = portalLY[e], dx = portalRX[e] - lx, dy = portalRY[e] - ly;
+                float len2 = dx * dx + dy * dy;
+                float t = len2 > 0f ? Math.max(0f, Math.min(1f, ((ex - lx) * dx + (ey - ly) * dy) / len2)) : 0f;
+                float mx = lx + dx * t, my = ly + dy * t;
+                float ng = cg + distance(ex, ey, mx, my);
+                float h = distance(mx, my, gx, gy);
+                // the last leg is known exactly once we step into the goal
+                if (next == goalPoly) { ng += h; h = 0f; }
+                if (seen[next] != generation || ng < gScore[next]) {
+                    seen[next] = generation;
+                    gScore[next] = ng;
+                    parentEdge[next] = e;
+                    entryX[next] = mx;
+                    entryY[next] = my;
+                    open.push(next, ng + h);
+                }
+            }
+        }
+        return false;
+    }
+
+    // Simple stupid funnel over the (left, right) pairs in portals
+    private void stringPull(FloatArray out) {
+        final int n = portals.size / 4;
+        float apexX = portals.get(0), apexY = portals.get(1);
+        float leftX = apexX, leftY = apexY, rightX = apexX, rightY = apexY;
+        int apexIndex = 0, leftIndex = 0, rightIndex = 0;
+
+        for (int i = 1; i < n; i++) {
+            float lx = portals.get(i * 4),     ly = portals.get(i * 4 + 1);
+            float rx = portals.get(i * 4 + 2), ry = portals.get(i * 4 + 3);
+
+            // tighten the right side
+            if (triArea2(apexX, apexY, rightX, rightY, rx, ry) <= 0f) {
+                if ((apexX == rightX && apexY == rightY) || triArea2(apexX, apexY, leftX, leftY, rx, ry) > 0f) {
+                    rightX = rx; rightY = ry; rightIndex = i;
+                } else {
+                    // right crossed left: the left point is a corner of the path
+                    out.add(leftX, leftY);
+                    apexX = leftX; apexY = leftY; apexIndex = leftIndex;
+                    rightX = apexX; rightY = apexY; rightIndex = apexIndex;
+                    i = apexIndex;
+                    continue;
+                }
+            }
+            // tighten the left side
+            if (triArea2(apexX, apexY, leftX, leftY, lx, ly) >= 0f) {
+                if ((apexX == leftX && apexY == leftY) || triArea2(apexX, apexY, rightX, rightY, lx, ly) < 0f) {
+                    leftX = lx; leftY = ly; leftIndex = i;
+                } else {
+                    out.add(rightX, rightY);
+                    apexX = rightX; apexY = rightY; apexIndex = rightIndex;
+                    leftX = apexX; leftY = apexY; leftIndex = apexIndex;
+                    i = apexIndex;
+                }
+            }
+        }
+        int last = (n - 1) * 4;
+        float gx = portals.get(last), gy = portals.get(last + 1);
+        int size = out.size;
+        if (size < 2 || out.get(size - 2) != gx || out.get(size - 1) != gy) out.add(gx, gy);
+    }
+
+    // Polygon under the point, or the nearest one within about a tile
+    private int locate(float wx, float wy) {
+        int p = polygonAt(wx, wy);
+        if (p >= 0) return p;
+        int cx = worldToCell(wx), cy = worldToCell(wy);
+        float best = Float.POSITIVE_INFINITY;
+        for (int dy = -2; dy <= 2; dy++) {
+            for (int dx = -2; dx <= 2; dx++) {
+                int q = polyAcross(true, cx + dx, cy + dy);
+                if (q < 0) continue;
+                float d = distance(wx, wy, clampX(q, wx), clampY(q, wy));
+                if (d < best) { best = d; p = q; }
+            }
+        }
+        return p;
+    }
+
+    private float clampX(int p, float wx) {
+        return Math.max(cellMin(polyX[p]), Math.min(cellMin(polyX[p] + polyW[p]), wx));
+    }
+
+    private float clampY(int p, float wy) {
+        return Math.max(cellMin(polyY[p]), Math.min(cellMin(polyY[p] + polyH[p]), wy));
+    }
+
+    // Twice the signed area of (a, b, c); negative when c is left of a->b (y up)
+    private static float triArea2(float ax, float ay, float bx, float by, float cx, float cy) {
+        return (cx - ax) * (by - ay) - (bx - ax) * (cy - ay);
+    }
+
+    private static float distance(float x0, float y0, float x1, float y1) {
+        float dx = x1 - x0, dy = y1 - y0;
+        return (float)Math.sqrt(dx * dx + dy * dy);
+    }
+}
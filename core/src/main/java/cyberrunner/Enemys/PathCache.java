@@ -0,0 +1,162 @@
+// Author: Martin Taylor
+// File: PathCache.java
+// Date: 2026-10-17
+// Description:
+//   Bounded LRU cache of smoothed paths keyed by (start tile, goal tile).
+//   Waypoints are stored as packed fixed-point ints, and every entry
+//   remembers the NavGrid version it was solved against.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Game-thread path cache. Capped both by entry count and by the number of
+ * ints held; whichever limit is hit first evicts the least recently used
+ * path. A lookup against a different grid version counts as a miss and drops
+ * the stale entry, so bumping the version invalidates everything lazily.
+ */
+public class PathCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+    public static final int DEFAULT_MAX_INTS    = 64 * 1024;   // 256 KB of waypoint data
+
+    // Waypoint coordinates are stored in 1/16 pixel units
+    private static final float FIXED_SCALE = 16f;
+
+    private static final class Entry {
+        long key;
+        int version;
+        int[] packed;          // x0,y0,x1,y1,... in fixed point
+        Entry prev, next;      // LRU list, head = most recent
+    }
+
+    private final LongMap<Entry> entries = new LongMap<>();
+    private Entry head, tail;
+    private int maxEntries, maxInts;
+    private int intsHeld = 0;
+
+    private long hits = 0, misses = 0, evictions = 0, invalidations = 0;
+
+    public PathCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_INTS);
+    }
+
+    public PathCache(int maxEntries, int maxInts) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxInts = Math.max(2, maxInts);
+    }
+
+    public static long key(int startTile, int goalTile) {
+        return key(startTile, goalTile, 0);
+    }
+
+    /**
+     * Key for callers whose paths also depend on something else, such as the
+     * agent's footprint. Tiles must fit in 28 bits and the variant in 8.
+     */
+    public static long key(int startTile, int goalTile, int variant) {
+        return ((long)(variant & 0xff) << 56) | ((long)(startTile & 0xfffffff) << 28) | (goalTile & 0xfffffff);
+    }
+
+    /**
+     * Copy the cached waypoints (world x,y pairs) for key into out. Returns
+     * false on a miss, including when the entry was solved on another version.
+     */
+    public boolean get(long key, int version, FloatArray out) {
+        Entry e = entries.get(key);
+        if (e == null) { misses++; return false; }
+        if (e.version != version) {
+            invalidations++;
+            misses++;
+            remove(e);
+            return false;
+        }
+        hits++;
+        moveToFront(e);
+        out.clear();
+        int[] p = e.packed;
+        for (int i = 0; i < p.length; i++) out.add(p[i] / FIXED_SCALE);
+        return true;
+    }
+
+    /** Store waypoints (world x,y pairs) for key, replacing any older entry. */
+    public void put(long key, int version, FloatArray waypoints) {
+        int n = waypoints.size & ~1;
+        if (n > maxInts) return;
+
+        Entry e = entries.get(key);
+        if (e != null) remove(e);
+
+        e = new Entry();
+        e.key = key;
+        e.version = version;
+        e.packed = new int[n];
+        for (int i = 0; i < n; i++) e.packed[i] = Math.round(waypoints.get(i) * FIXED_SCALE);
+        entries.put(key, e);
+        linkFront(e);
+        intsHeld += n;
+
+        while (entries.size > maxEntries || intsHeld > maxInts) {
+            remove(tail);
+            evictions++;
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        head = tail = null;
+        intsHeld = 0;
+    }
+
+    public void setLimits(int maxEntries, int maxInts) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxInts = Math.max(2, maxInts);
+        while (entries.size > this.maxEntries || intsHeld > this.maxInts) {
+            remove(tail);
+            evictions++;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // LRU list
+    // ------------------------------------------------------------------------
+    private void remove(Entry e) {
+        entries.remove(e.key);
+        intsHeld -= e.packed.length;
+        if (e.prev != null) e.prev.next = e.next; else head = e.next;
+        if (e.next != null) e.next.prev = e.prev; else tail = e.prev;
+        e.prev = e.next = null;
+    }
+
+    private void linkFront(Entry e) {
+        e.prev = null;
+        e.next = head;
+        if (head != null) head.prev = e;
+        head = e;
+        if (tail == null) tail = e;
+    }
+
+    private void moveToFront(Entry e) {
+        if (head == e) return;
+        if (e.prev != null) e.prev.next = e.next;
+        if (e.next != null) e.next.prev = e.prev; else tail = e.prev;
+        linkFront(e);
+    }
+
+    // ------------------------------------------------------------------------
+    // Stats
+    // ------------------------------------------------------------------------
+    public int size() { return entries.size; }
+    public int getIntsHeld() { return intsHeld; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getInvalidations() { return invalidations; }
+
+    public float getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0f : (float)hits / total;
+    }
+}
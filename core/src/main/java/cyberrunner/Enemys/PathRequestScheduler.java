@@ -0,0 +1,242 @@
+// Author: Martin Taylor
+// File: PathRequestScheduler.java
+// Date: 2026-10-17
+// Description:
+//   Frame-budgeted path request queue. Agents post requests instead of
+//   searching inline; update() works through them for at most a fixed
+//   number of microseconds per frame, pausing a search mid-way if needed.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Time-sliced path requests keyed by agent. A repeated request from the same
+ * agent replaces its queued one instead of adding another; if that agent's
+ * search is already running with different endpoints it is dropped and the
+ * new one queued, so a replaced request never delivers. The queue runs the
+ * most urgent request first (lowest priority value, aged by frames waited, so
+ * far agents are never starved). {@link IncrementalPathfinder}s are paused and
+ * resumed across frames. Other engines run each query in one go, so one is
+ * only started while less than half the frame's budget is spent (the first
+ * of a frame always runs, so the queue keeps moving).
+ * <p>
+ * Results are handed to the {@link Listener} from inside {@link #update()};
+ * until then agents keep following their previous path.
+ */
+public class PathRequestScheduler<K> {
+
+    /**
+     * Receives finished searches. query is the search that actually ran; it
+     * and the tile array are reused after the call returns.
+     */
+    public interface Listener<K> {
+        void onPathReady(K key, Query query, boolean found, IntArray tiles);
+    }
+
+    /** Start, goal and agent size of a search. */
+    public static class Query {
+        int sx, sy, tx, ty;
+        int clearance;
+        float footprint;
+
+        public int getStartX() { return sx; }
+        public int getStartY() { return sy; }
+        public int getGoalX() { return tx; }
+        public int getGoalY() { return ty; }
+        public int getClearanceClass() { return clearance; }
+        /** Footprint (pixels) the request was made for; 0 when only a class was given. */
+        public float getFootprint() { return footprint; }
+
+        boolean sameSearch(int sx, int sy, int tx, int ty, int clearance) {
+            return this.sx == sx && this.sy == sy && this.tx == tx && this.ty == ty && this.clearance == clearance;
+        }
+    }
+
+    public static final int DEFAULT_BUDGET_MICROS = 1500;
+
+    // Node expansions between clock checks
+    private static final int SLICE_EXPANSIONS = 128;
+    // Priority bonus per frame spent waiting
+    private static final float AGING_PER_FRAME = 1f;
+
+    private static final class Request<K> extends Query {
+        final int id;   // node id in the queue heap
+        K key;
+        float priority;
+        long queuedFrame;
+
+        Request(int id) { this.id = id; }
+    }
+
+    private final Listener<K> listener;
+    private TilePathfinder engine;
+    private long budgetNanos = DEFAULT_BUDGET_MICROS * 1000L;
+
+    // Aging shifts every waiting request by the same amount each frame, so the
+    // order is fixed at queue time: the heap key is priority + queuedFrame * aging.
+    private final ObjectMap<K, Request<K>> pending = new ObjectMap<>();
+    private final Array<Request<K>> byId = new Array<>();
+    private IndexedMinHeap queue = new IndexedMinHeap(64);
+    private final Array<Request<K>> pool = new Array<>(false, 64);
+    private Request<K> active;
+    private final IntArray result = new IntArray();
+
+    private long frame = 0;
+
+    // Counters
+    private int requested = 0, merged = 0, restarted = 0, completed = 0;
+    private int completedLastFrame = 0;
+    private long lastFrameNanos = 0;
+
+    public PathRequestScheduler(TilePathfinder engine, Listener<K> listener) {
+        this.engine = engine;
+        this.listener = listener;
+    }
+
+    /** Swap the search engine; drops the in-flight search, keeps the queue. */
+    public void setEngine(TilePathfinder engine) {
+        this.engine = engine;
+        if (active != null) { free(active); active = null; }
+        for (Request<K> r : pending.values()) engine.prepareClearance(r.clearance);
+    }
+
+    public TilePathfinder getEngine() { return engine; }
+
+    public void setBudgetMicros(int micros) { this.budgetNanos = Math.max(1, micros) * 1000L; }
+    public int getBudgetMicros() { return (int)(budgetNanos / 1000L); }
+
+    /**
+     * Queue a search for key from (sx,sy) to (tx,ty). Lower priority values
+     * run first. Replaces any request the key already has waiting.
+     */
+    public void request(K key, int sx, int sy, int tx, int ty, float priority) {
+        request(key, sx, sy, tx, ty, priority, 0f);
+    }
+
+    /**
+     * Same, for an agent with a square footprint (pixels); the search keeps to
+     * tiles of its {@link NavGrid#clearanceClassFor clearance class}.
+     */
+    public void request(K key, int sx, int sy, int tx, int ty, float priority, float footprint) {
+        int clearanceClass = engine.getGrid().clearanceClassFor(footprint);
+        requested++;
+        if (active != null && active.key.equals(key)) {
+            // the running search already answers this request; otherwise its result is stale
+            if (active.sameSearch(sx, sy, tx, ty, clearanceClass)) { merged++; return; }
+            free(active);
+            active = null;
+            restarted++;
+        }
+        Request<K> r = pending.get(key);
+        if (r != null) {
+            merged++;
+        } else {
+            r = obtain();
+            r.key = key;
+            r.queuedFrame = frame;
+            pending.put(key, r);
+        }
+        r.sx = sx; r.sy = sy; r.tx = tx; r.ty = ty;
+        r.clearance = clearanceClass;
+        r.footprint = footprint;
+        r.priority = priority;
+        queue.push(r.id, r.priority + r.queuedFrame * AGING_PER_FRAME);
+        // class setup (an HPA* graph) happens here, never inside the budgeted update
+        engine.prepareClearance(clearanceClass);
+    }
+
+    /** Forget everything queued or running for key (e.g. the agent died). */
+    public void cancel(K key) {
+        Request<K> r = pending.remove(key);
+        if (r != null) { queue.remove(r.id); free(r); }
+        if (active != null && active.key.equals(key)) { free(active); active = null; }
+    }
+
+    public boolean isQueued(K key) {
+        return pending.containsKey(key) || (active != null && active.key.equals(key));
+    }
+
+    public void clear() {
+        for (Request<K> r : pending.values()) free(r);
+        queue.clear();
+        pending.clear();
+        if (active != null) { free(active); active = null; }
+    }
+
+    /** Run searches until this frame's budget is spent. Call once per frame. */
+    public void update() {
+        final long start = System.nanoTime();
+        frame++;
+        completedLastFrame = 0;
+
+        while (System.nanoTime() - start < budgetNanos) {
+            if (active == null) {
+                if (!(engine instanceof IncrementalPathfinder) && completedLastFrame > 0
+                        && System.nanoTime() - start >= budgetNanos / 2) break;
+                active = takeMostUrgent();
+                if (active == null) break;
+                engine.setAgentClearance(active.clearance);
+                if (engine instanceof IncrementalPathfinder)
+                    ((IncrementalPathfinder) engine).begin(active.sx, active.sy, active.tx, active.ty);
+            }
+
+            boolean found;
+            if (engine instanceof IncrementalPathfinder) {
+                IncrementalPathfinder search = (IncrementalPathfinder) engine;
+                int status = search.step(SLICE_EXPANSIONS);
+                if (status == IncrementalPathfinder.RUNNING) continue;
+                found = search.buildPath(result);
+            } else {
+                found = engine.findPath(active.sx, active.sy, active.tx, active.ty, result);
+            }
+
+            Request<K> done = active;
+            active = null;
+            completed++;
+            completedLastFrame++;
+            listener.onPathReady(done.key, done, found, result);
+            free(done);
+        }
+        lastFrameNanos = System.nanoTime() - start;
+    }
+
+    private Request<K> takeMostUrgent() {
+        if (queue.isEmpty()) return null;
+        Request<K> r = byId.get(queue.pop());
+        pending.remove(r.key);
+        return r;
+    }
+
+    private Request<K> obtain() {
+        if (pool.size > 0) return pool.pop();
+        Request<K> r = new Request<>(byId.size);
+        byId.add(r);
+        if (byId.size > queue.capacity()) {
+            // more requests alive than heap slots: move the queue to a bigger heap
+            IndexedMinHeap bigger = new IndexedMinHeap(queue.capacity() * 2);
+            for (int i = 0; i < queue.size(); i++) bigger.push(queue.nodeAt(i), queue.key(queue.nodeAt(i)));
+            queue = bigger;
+        }
+        return r;
+    }
+
+    private void free(Request<K> r) {
+        r.key = null;
+        pool.add(r);
+    }
+
+    // ------------------------------------------------------------------------
+    // Stats
+    // ------------------------------------------------------------------------
+    public int getPendingCount() { return queue.size() + (active != null ? 1 : 0); }
+    public int getRequestedCount() { return requested; }
+    public int getMergedCount() { return merged; }
+    /** Running searches dropped because their agent asked for a different path. */
+    public int getRestartedCount() { return restarted; }
+    public int getCompletedCount() { return completed; }
+    public int getCompletedLastFrame() { return completedLastFrame; }
+    public float getLastFrameMicros() { return lastFrameNanos / 1000f; }
+}
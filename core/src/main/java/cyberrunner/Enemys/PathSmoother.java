@@ -0,0 +1,76 @@
+// Author: Martin Taylor
+// File: PathSmoother.java
+// Date: 2026-10-17
+// Description:
+//   Waypoint string-pulling and the clearance nudge, lifted out of the
+//   sandbox so they only read a NavGrid and can run on worker threads.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Stateless path post-processing over a {@link NavGrid}: the sandbox's
+ * original smoothWaypoints / clearance nudge, with line of sight done by
+ * exact grid traversal instead of half-tile sampling.
+ */
+final class PathSmoother {
+
+    /** Fraction of a tile the nudge pushes a waypoint away from walls. */
+    static final float NUDGE_TILES = 0.18f;
+
+    private PathSmoother() { }
+
+    /** Keep only the furthest visible waypoint from each point, nudged off walls. */
+    static void smooth(NavGrid grid, Array<Vector2> wps, float startX, float startY) {
+        smooth(grid, wps, startX, startY, 0f);
+    }
+
+    /**
+     * Same, for an agent with a square footprint (pixels): a shortcut is only
+     * taken if the whole footprint can slide along it. 0 is the point probe.
+     */
+    static void smooth(NavGrid grid, Array<Vector2> wps, float startX, float startY, float footprint) {
+        if (wps.size <= 2) return;
+        Array<Vector2> out = new Array<>(wps.size);
+        Vector2 curr = new Vector2(startX, startY);
+        int i = 0;
+        while (i < wps.size) {
+            int far = i;
+            for (int j = i; j < wps.size; j++) {
+                if (hasLineOfSight(grid, curr.x, curr.y, wps.get(j).x, wps.get(j).y, footprint)) far = j;
+                else break;
+            }
+            Vector2 chosen = wps.get(far).cpy();
+            nudgeOffWalls(grid, chosen, NUDGE_TILES * grid.tileSize);
+            out.add(chosen);
+            curr.set(wps.get(far));
+            i = far + 1;
+        }
+        wps.clear();
+        wps.addAll(out);
+    }
+
+    /** Segment test: every tile crossed must be open and clear enough to stand on. */
+    static boolean hasLineOfSight(NavGrid grid, float x0, float y0, float x1, float y1) {
+        return grid.hasLineOfSight(x0, y0, x1, y1);
+    }
+
+    /**
+     * Segment test for a square footprint centred on the line: every tile the
+     * box sweeps over must be walkable. 0 is the thin ray.
+     */
+    static boolean hasLineOfSight(NavGrid grid, float x0, float y0, float x1, float y1, float footprint) {
+        // same half-pixel inset as Dungeon.rectBlocked
+        float half = footprint > 0f ? footprint * 0.5f - 0.5f : 0f;
+        return grid.hasLineOfSight(x0, y0, x1, y1, half);
+    }
+
+    /** Move p scalePixels away from walls, along the grid's precomputed clearance gradient. */
+    static void nudgeOffWalls(NavGrid grid, Vector2 p, float scalePixels) {
+        int tx = grid.worldToTileX(p.x), ty = grid.worldToTileY(p.y);
+        p.x += grid.clearanceGradientX(tx, ty) * scalePixels;
+        p.y += grid.clearanceGradientY(tx, ty) * scalePixels;
+    }
+}
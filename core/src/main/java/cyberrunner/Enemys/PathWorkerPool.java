@@ -0,0 +1,217 @@
+// Author: Martin Taylor
+// File: PathWorkerPool.java
+// Date: 2026-10-17
+// Description:
+//   Fixed pool of background threads that run path queries (search plus
+//   waypoint smoothing) against an immutable NavGrid. Finished paths wait
+//   in a queue until the game thread drains them at a safe point.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Off-thread path solving. {@link #submit} and {@link #drain} must both be
+ * called from the game thread; workers only touch the {@link NavGrid} (which
+ * never changes) and their own pathfinder instance.
+ * <p>
+ * If an agent submits again before its last result was drained, the older
+ * result is dropped. In deterministic mode no threads are started: drain()
+ * solves everything submitted since the last drain, in submission order, on
+ * the calling thread. Use it for tests and replays.
+ */
+public class PathWorkerPool<K> implements Disposable {
+
+    /**
+     * Receives smoothed world-space waypoints as x,y pairs (array reused after the call).
+     * complete is false when the engine stopped short of the goal (an HPA* refine limit).
+     */
+    public interface Listener<K> {
+        void onPathReady(K key, boolean found, boolean complete, FloatArray waypoints);
+    }
+
+    /** Builds one search engine per worker thread. */
+    public interface EngineFactory {
+        TilePathfinder create(NavGrid grid);
+    }
+
+    private static final class Job<K> {
+        K key;
+        int sx, sy, tx, ty;
+        float startX, startY;
+        float footprint;
+        EngineFactory factory;
+        long submitNanos, doneNanos;
+        boolean found, complete;
+        final FloatArray waypoints = new FloatArray();
+    }
+
+    // Per-thread search engine and scratch
+    private static final class Worker {
+        EngineFactory factory;
+        TilePathfinder engine;
+        final IntArray tiles = new IntArray();
+        final Array<Vector2> wps = new Array<>();
+    }
+
+    private final NavGrid grid;
+    private final boolean deterministic;
+    private final ExecutorService executor;
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+        @Override protected Worker initialValue() { return new Worker(); }
+    };
+    private volatile EngineFactory factory;
+
+    private final ConcurrentLinkedQueue<Job<K>> finished = new ConcurrentLinkedQueue<>();
+    private final Array<Job<K>> deferred = new Array<>();
+    private final ObjectMap<K, Job<K>> latest = new ObjectMap<>();
+
+    // Counters (game thread only)
+    private int submitted = 0, delivered = 0, dropped = 0;
+    private long latencyTotalNanos = 0, latencyMaxNanos = 0;
+
+    /** Threaded pool using all but one core. */
+    public PathWorkerPool(NavGrid grid, EngineFactory factory) {
+        this(grid, factory, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), false);
+    }
+
+    public PathWorkerPool(NavGrid grid, EngineFactory factory, int threads, boolean deterministic) {
+        this.grid = grid;
+        this.factory = factory;
+        this.deterministic = deterministic;
+        this.executor = deterministic ? null : Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            private int count = 0;
+            @Override public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "path-worker-" + (count++));
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public boolean isDeterministic() { return deterministic; }
+
+    /** Engine for jobs submitted from now on; workers rebuild theirs lazily. */
+    public void setEngineFactory(EngineFactory factory) { this.factory = factory; }
+
+    /** Queue a search from (sx,sy) to (tx,ty); smoothing starts at world (startX,startY). */
+    public void submit(K key, int sx, int sy, int tx, int ty, float startX, float startY) {
+        submit(key, sx, sy, tx, ty, startX, startY, 0f);
+    }
+
+    /**
+     * Same, for an agent with a square footprint (pixels): the search keeps to
+     * tiles it fits on and smoothing only takes shortcuts it can slide along.
+     */
+    public void submit(K key, int sx, int sy, int tx, int ty, float startX, float startY, float footprint) {
+        final Job<K> job = new Job<>();
+        job.key = key;
+        job.sx = sx; job.sy = sy; job.tx = tx; job.ty = ty;
+        job.startX = startX; job.startY = startY;
+        job.footprint = footprint;
+        job.factory = factory;
+        job.submitNanos = System.nanoTime();
+        if (latest.put(key, job) != null) dropped++;
+        submitted++;
+
+        if (deterministic) {
+            deferred.add(job);
+        } else {
+            executor.execute(new Runnable() {
+                @Override public void run() {
+                    solve(job);
+                    finished.add(job);
+                }
+            });
+        }
+    }
+
+    /** Drop any outstanding result for key (e.g. the agent died). */
+    public void cancel(K key) {
+        if (latest.remove(key) != null) dropped++;
+    }
+
+    /** Drop every outstanding result. */
+    public void cancelAll() {
+        dropped += latest.size;
+        latest.clear();
+    }
+
+    /** Hand every finished, still-current result to the listener. Game thread only. */
+    public void drain(Listener<K> listener) {
+        if (deterministic) {
+            for (int i = 0; i < deferred.size; i++) {
+                Job<K> job = deferred.get(i);
+                solve(job);
+                finished.add(job);
+            }
+            deferred.clear();
+        }
+
+        Job<K> job;
+        while ((job = finished.poll()) != null) {
+            delivered++;
+            long latency = job.doneNanos - job.submitNanos;
+            latencyTotalNanos += latency;
+            latencyMaxNanos = Math.max(latencyMaxNanos, latency);
+
+            if (latest.get(job.key) != job) continue;   // superseded or cancelled
+            latest.remove(job.key);
+            listener.onPathReady(job.key, job.found, job.complete, job.waypoints);
+        }
+    }
+
+    // Runs on a worker (or the game thread in deterministic mode)
+    private void solve(Job<K> job) {
+        Worker w = workers.get();
+        if (w.engine == null || w.factory != job.factory) {
+            w.factory = job.factory;
+            w.engine = job.factory.create(grid);
+        }
+
+        w.engine.setAgentClearance(grid.clearanceClassFor(job.footprint));
+        job.found = w.engine.findPath(job.sx, job.sy, job.tx, job.ty, w.tiles);
+        job.complete = job.found && w.tiles.peek() == grid.index(job.tx, job.ty);
+        if (job.found) {
+            // tiles[0] is the agent's own tile; skip it unless it is the whole path
+            w.wps.clear();
+            for (int i = w.tiles.size >= 2 ? 1 : 0; i < w.tiles.size; i++) {
+                int idx = w.tiles.get(i);
+                w.wps.add(new Vector2(grid.tileX(idx) * grid.tileSize + grid.tileSize * 0.5f,
+                                      grid.tileY(idx) * grid.tileSize + grid.tileSize * 0.5f));
+            }
+            PathSmoother.smooth(grid, w.wps, job.startX, job.startY, job.footprint);
+            for (int i = 0; i < w.wps.size; i++) job.waypoints.add(w.wps.get(i).x, w.wps.get(i).y);
+        }
+        job.doneNanos = System.nanoTime();
+    }
+
+    @Override
+    public void dispose() {
+        if (executor != null) executor.shutdownNow();
+        finished.clear();
+        deferred.clear();
+        latest.clear();
+    }
+
+    // ------------------------------------------------------------------------
+    // Stats
+    // ------------------------------------------------------------------------
+    /** Jobs submitted but not yet drained. */
+    public int getQueueDepth() { return submitted - delivered; }
+    public int getSubmittedCount() { return submitted; }
+    public int getDeliveredCount() { return delivered; }
+    public int getDroppedCount() { return dropped; }
+    public float getAverageLatencyMillis() { return delivered == 0 ? 0f : latencyTotalNanos / 1e6f / delivered; }
+    public float getMaxLatencyMillis() { return latencyMaxNanos / 1e6f; }
+}
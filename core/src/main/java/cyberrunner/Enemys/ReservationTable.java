@@ -0,0 +1,96 @@
+// Author: Martin Taylor
+// File: ReservationTable.java
+// Date: 2026-10-17
+// Description:
+//   Space-time reservation table for cooperative pathfinding. Agents claim
+//   (tile, time step) pairs along their planned route so later planners can
+//   route around them. Only a short horizon is ever held in memory.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntIntMap;
+
+/**
+ * Ring of per-step tile maps covering steps [now, now + horizon]. A slot is
+ * recycled when a step that maps onto it is reserved, so reservations in the
+ * past simply disappear. Game thread only.
+ */
+public class ReservationTable {
+
+    public static final int FREE = -1;
+
+    private final IntIntMap[] slots;   // step % slots.length -> (tile -> agent)
+    private final int[] slotStep;      // step each slot currently describes
+
+    private int reservations = 0, refused = 0;
+
+    public ReservationTable(int horizon) {
+        int n = Math.max(1, horizon) + 2;
+        slots = new IntIntMap[n];
+        slotStep = new int[n];
+        for (int i = 0; i < n; i++) {
+            slots[i] = new IntIntMap();
+            slotStep[i] = Integer.MIN_VALUE;
+        }
+    }
+
+    /** Steps ahead of the current one that can be reserved. */
+    public int getHorizon() { return slots.length - 2; }
+
+    /** Agent holding tile at step, or {@link #FREE}. */
+    public int ownerAt(int tile, int step) {
+        int i = slotIndex(step);
+        if (slotStep[i] != step) return FREE;
+        return slots[i].get(tile, FREE);
+    }
+
+    /** True if nobody but agent holds tile at step. */
+    public boolean isFree(int tile, int step, int agent) {
+        int owner = ownerAt(tile, step);
+        return owner == FREE || owner == agent;
+    }
+
+    /** Claim tile at step for agent; false (and nothing changes) if someone else holds it. */
+    public boolean reserve(int tile, int step, int agent) {
+        int i = slotIndex(step);
+        if (slotStep[i] != step) {
+            slots[i].clear();
+            slotStep[i] = step;
+        }
+        int owner = slots[i].get(tile, FREE);
+        if (owner != FREE && owner != agent) { refused++; return false; }
+        if (owner == FREE) reservations++;
+        slots[i].put(tile, agent);
+        return true;
+    }
+
+    /** Drop agent's claim on tile at step, if it still has one. */
+    public void release(int tile, int step, int agent) {
+        int i = slotIndex(step);
+        if (slotStep[i] != step) return;
+        if (slots[i].get(tile, FREE) == agent) slots[i].remove(tile, FREE);
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i].clear();
+            slotStep[i] = Integer.MIN_VALUE;
+        }
+    }
+
+    private int slotIndex(int step) {
+        return Math.floorMod(step, slots.length);
+    }
+
+    // ------------------------------------------------------------------------
+    // Stats
+    // ------------------------------------------------------------------------
+    /** Tiles currently claimed at step. */
+    public int getReservedAt(int step) {
+        int i = slotIndex(step);
+        return slotStep[i] == step ? slots[i].size : 0;
+    }
+
+    public int getReservationCount() { return reservations; }
+    public int getRefusedCount() { return refused; }
+}
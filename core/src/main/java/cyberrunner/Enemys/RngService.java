@@ -0,0 +1,59 @@
+// Author: Martin Taylor
+// File: RngService.java
+// Date: 2026-10-17
+// Description:
+//   One seed per run, one independent RngStream per subsystem (generation,
+//   spawning, loot, AI, visuals). Replaces draws from the shared global
+//   MathUtils.random, so a run replays bit-for-bit from its seed.
+
+package cyberrunner.Enemys;
+
+/**
+ * Every subsystem draws from its own stream, derived from the run seed and
+ * the subsystem alone. Adding a draw to the loot code therefore cannot shift
+ * what spawns or how the dungeon is laid out.
+ * <p>
+ * {@link #stream} returns the subsystem's long-lived stream and is for its
+ * owning thread (the game thread). {@link #fork} builds a fresh stream from
+ * the seed, subsystem and a caller key (chunk coordinates, agent id, job
+ * number) and touches no shared state, so worker threads may call it freely
+ * and get the same numbers no matter which thread runs the job or when.
+ */
+public final class RngService {
+
+    /** Subsystems that own a stream. Append new ones at the end; the ordinal salts the seed. */
+    public enum Stream {
+        GENERATION, SPAWNING, LOOT, AI, VISUALS
+    }
+
+    // Sets the long-lived streams apart from every fork, including key 0
+    private static final long OWN_STREAM_SALT = 0x2545f4914f6cdd1dL;
+
+    private final long seed;
+    private final RngStream[] streams;
+
+    public RngService(long seed) {
+        this.seed = seed;
+        Stream[] all = Stream.values();
+        this.streams = new RngStream[all.length];
+        for (Stream s : all) streams[s.ordinal()] = new RngStream(RngStream.mix64(streamSeed(s, 0L) ^ OWN_STREAM_SALT));
+    }
+
+    public long getSeed() { return seed; }
+
+    /** The subsystem's own stream. Single-threaded: use it from its owner only. */
+    public RngStream stream(Stream s) {
+        return streams[s.ordinal()];
+    }
+
+    /** A new stream for (subsystem, key); safe from any thread, same result every time. */
+    public RngStream fork(Stream s, long key) {
+        return new RngStream(streamSeed(s, key));
+    }
+
+    private long streamSeed(Stream s, long key) {
+        long h = RngStream.mix64(seed ^ 0x5bd1e9955bd1e995L);
+        h = RngStream.mix64(h + (s.ordinal() + 1) * 0x9e3779b97f4a7c15L);
+        return RngStream.mix64(h ^ key);
+    }
+}
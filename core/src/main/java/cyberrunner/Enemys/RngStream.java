@@ -0,0 +1,130 @@
+// Author: Martin Taylor
+// File: RngStream.java
+// Date: 2026-10-17
+// Description:
+//   Small, fast, splittable random stream (xoroshiro128**, seeded through
+//   SplitMix64). Same seed, same numbers, on every JVM and platform.
+
+package cyberrunner.Enemys;
+
+import java.util.Random;
+
+/**
+ * A java.util.Random whose sequence is fixed by this class alone, so it can
+ * be passed anywhere a Random is expected. It also has MathUtils-style
+ * helpers so call sites read the same as before.
+ * <p>
+ * One stream belongs to one thread. For work on another thread, take a
+ * {@link #split()} on the owning thread (or an {@link RngService#fork} keyed
+ * by the job) and hand that over; the parent and child sequences are
+ * independent. No locking anywhere, unlike Random's atomic seed.
+ */
+public class RngStream extends Random {
+
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    // Set from setSeed(), which Random's constructor also calls
+    private long s0, s1;
+
+    public RngStream(long seed) {
+        super(0L);
+        setSeed(seed);
+    }
+
+    /** Restart the sequence for this seed. */
+    @Override
+    public void setSeed(long seed) {
+        long z = seed;
+        s0 = mix64(z += GOLDEN);
+        s1 = mix64(z + GOLDEN);
+        if ((s0 | s1) == 0L) s1 = GOLDEN;   // the all-zero state never leaves zero
+    }
+
+    @Override
+    public long nextLong() {
+        final long a = s0;
+        long b = s1;
+        final long result = Long.rotateLeft(a * 5, 7) * 9;
+        b ^= a;
+        s0 = Long.rotateLeft(a, 24) ^ b ^ (b << 16);
+        s1 = Long.rotateLeft(b, 37);
+        return result;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int)(nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+        // Lemire's multiply-shift with rejection: unbiased, usually no division
+        long m = (nextLong() >>> 32) * bound;
+        long low = m & 0xffffffffL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                m = (nextLong() >>> 32) * bound;
+                low = m & 0xffffffffL;
+            }
+        }
+        return (int)(m >>> 32);
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0L;
+    }
+
+    /** A new stream seeded from this one; both continue independently. */
+    public RngStream split() {
+        return new RngStream(mix64(nextLong()) ^ mix64(nextLong()));
+    }
+
+    // ------------------------------------------------------------------------
+    // MathUtils-style helpers
+    // ------------------------------------------------------------------------
+
+    /** Uniform int in [lo, hi] (inclusive). */
+    public int random(int lo, int hi) {
+        return lo + nextInt(hi - lo + 1);
+    }
+
+    /** Uniform int in [0, range] (inclusive). */
+    public int random(int range) {
+        return nextInt(range + 1);
+    }
+
+    /** Uniform float in [0, 1). */
+    public float random() {
+        return nextFloat();
+    }
+
+    /** Uniform float in [lo, hi). */
+    public float random(float lo, float hi) {
+        return lo + nextFloat() * (hi - lo);
+    }
+
+    public boolean randomBoolean() {
+        return nextBoolean();
+    }
+
+    /** SplitMix64 finaliser; also used to derive seeds. */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,291 @@
+// Author: Martin Taylor
+// File: SpatialHash.java
+// Date: 2026-10-17
+// Description:
+//   Uniform-grid broadphase: axis-aligned boxes stored as int handles in a
+//   hashed cell table, rebuilt in linear time, with box, radius, segment and
+//   all-pairs queries that write into caller-supplied IntArrays.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Usage per frame: {@link #clear()}, {@link #add} every box (the returned
+ * handle is its insertion index, so callers map handles straight back to
+ * their own arrays), {@link #build()}, then query. Queries report each
+ * handle at most once and never allocate once the buffers have grown.
+ * <p>
+ * Cells are square (a tile is the natural size) and hashed into a
+ * power-of-two bucket table sized from the entry count, so the grid is
+ * unbounded and memory follows the number of boxes, not the map. A box
+ * goes into every cell it overlaps; two cells sharing a bucket only cost
+ * an extra exact test. Results are a broadphase over the boxes as they
+ * were added: callers re-test live shapes for their own contact rules.
+ * Overlap is strict, like Rectangle.overlaps. Game thread only.
+ */
+public class SpatialHash {
+
+    private final float cellSize, invCell;
+
+    // boxes by handle
+    private float[] minX = new float[64], minY = new float[64], maxX = new float[64], maxY = new float[64];
+    private int count = 0;
+
+    // bucket b holds entries[bucketStart[b] .. bucketStart[b + 1])
+    private int[] bucketStart = new int[1];
+    private int[] entries = new int[64];
+    private int[] entryBucket = new int[64];
+    private int mask = 0;
+    private boolean built = false;
+
+    // per-handle stamp so a query reports each box once
+    private int[] stamp = new int[64];
+    private int queryId = 0;
+
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+        this.invCell = 1f / cellSize;
+    }
+
+    public float getCellSize() { return cellSize; }
+    public int size() { return count; }
+
+    /** Drop every box. Handles restart at 0. */
+    public void clear() {
+        count = 0;
+        built = false;
+    }
+
+    /** Add a box; returns its handle. Call {@link #build()} before querying. */
+    public int add(float x, float y, float w, float h) {
+        if (count == minX.length) {
+            int cap = count * 2;
+            minX = Arrays.copyOf(minX, cap); minY = Arrays.copyOf(minY, cap);
+            maxX = Arrays.copyOf(maxX, cap); maxY = Arrays.copyOf(maxY, cap);
+            stamp = Arrays.copyOf(stamp, cap);
+        }
+        minX[count] = x; minY[count] = y;
+        maxX[count] = x + w; maxY[count] = y + h;
+        built = false;
+        return count++;
+    }
+
+    public int add(Rectangle r) {
+        return add(r.x, r.y, r.width, r.height);
+    }
+
+    /** Bucket every box by the cells it covers (counting sort, linear in entries). */
+    public void build() {
+        int total = 0;
+        for (int h = 0; h < count; h++) {
+            total += (cell(maxX[h]) - cell(minX[h]) + 1) * (cell(maxY[h]) - cell(minY[h]) + 1);
+        }
+        int buckets = 64;
+        while (buckets < total * 2) buckets <<= 1;
+        mask = buckets - 1;
+        if (bucketStart.length < buckets + 1) bucketStart = new int[buckets + 1];
+        else Arrays.fill(bucketStart, 0, buckets + 1, 0);
+        if (entries.length < total) {
+            entries = new int[total];
+            entryBucket = new int[total];
+        }
+
+        int e = 0;
+        for (int h = 0; h < count; h++) {
+            int cx0 = cell(minX[h]), cx1 = cell(maxX[h]), cy0 = cell(minY[h]), cy1 = cell(maxY[h]);
+            for (int cy = cy0; cy <= cy1; cy++) {
+                for (int cx = cx0; cx <= cx1; cx++) {
+                    int b = bucket(cx, cy);
+                    entryBucket[e++] = b;
+                    bucketStart[b + 1]++;
+                }
+            }
+        }
+        for (int b = 0; b < buckets; b++) bucketStart[b + 1] += bucketStart[b];
+        // second sweep places handles back to front within each bucket
+        e = 0;
+        for (int h = 0; h < count; h++) {
+            int cells = (cell(maxX[h]) - cell(minX[h]) + 1) * (cell(maxY[h]) - cell(minY[h]) + 1);
+            for (int k = 0; k < cells; k++) {
+                int b = entryBucket[e++];
+                entries[--bucketStart[b + 1]] = h;
+            }
+        }
+        // placement walked slot b + 1 down from bucket b's end to its start; shift back
+        System.arraycopy(bucketStart, 1, bucketStart, 0, buckets);
+        bucketStart[buckets] = total;
+        built = true;
+    }
+
+    // ------------------------------------------------------------------------
+    // Queries (append handles to out; return how many were added)
+    // ------------------------------------------------------------------------
+
+    /** Boxes overlapping the rectangle [x0,x1) x [y0,y1). */
+    public int queryBox(float x0, float y0, float x1, float y1, IntArray out) {
+        requireBuilt();
+        int q = nextQuery(), added = 0;
+        int cx0 = cell(x0), cx1 = cell(x1), cy0 = cell(y0), cy1 = cell(y1);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int b = bucket(cx, cy);
+                for (int i = bucketStart[b], end = bucketStart[b + 1]; i < end; i++) {
+                    int h = entries[i];
+                    if (stamp[h] == q) continue;
+                    stamp[h] = q;
+                    if (minX[h] < x1 && maxX[h] > x0 && minY[h] < y1 && maxY[h] > y0) { out.add(h); added++; }
+                }
+            }
+        }
+        return added;
+    }
+
+    public int queryRect(Rectangle r, IntArray out) {
+        return queryBox(r.x, r.y, r.x + r.width, r.y + r.height, out);
+    }
+
+    /** Boxes that touch the circle (closest point of the box within radius). */
+    public int queryRadius(float cx, float cy, float radius, IntArray out) {
+        requireBuilt();
+        int q = nextQuery(), added = 0;
+        final float r2 = radius * radius;
+        int gx0 = cell(cx - radius), gx1 = cell(cx + radius), gy0 = cell(cy - radius), gy1 = cell(cy + radius);
+        for (int gy = gy0; gy <= gy1; gy++) {
+            for (int gx = gx0; gx <= gx1; gx++) {
+                int b = bucket(gx, gy);
+                for (int i = bucketStart[b], end = bucketStart[b + 1]; i < end; i++) {
+                    int h = entries[i];
+                    if (stamp[h] == q) continue;
+                    stamp[h] = q;
+                    float dx = cx < minX[h] ? minX[h] - cx : (cx > maxX[h] ? cx - maxX[h] : 0f);
+                    float dy = cy < minY[h] ? minY[h] - cy : (cy > maxY[h] ? cy - maxY[h] : 0f);
+                    if (dx * dx + dy * dy <= r2) { out.add(h); added++; }
+                }
+            }
+        }
+        return added;
+    }
+
+    /** Boxes the segment (x0,y0)-(x1,y1) passes through, walking only the cells it crosses. */
+    public int querySegment(float x0, float y0, float x1, float y1, IntArray out) {
+        requireBuilt();
+        int q = nextQuery(), added = 0;
+        int cx = cell(x0), cy = cell(y0);
+        final int ex = cell(x1), ey = cell(y1);
+        final float dx = x1 - x0, dy = y1 - y0;
+        final int stepX = dx > 0f ? 1 : (dx < 0f ? -1 : 0);
+        final int stepY = dy > 0f ? 1 : (dy < 0f ? -1 : 0);
+        final float tDeltaX = stepX != 0 ? cellSize / Math.abs(dx) : Float.POSITIVE_INFINITY;
+        final float tDeltaY = stepY != 0 ? cellSize / Math.abs(dy) : Float.POSITIVE_INFINITY;
+        float tMaxX = stepX > 0 ? ((cx + 1) * cellSize - x0) / dx
+                    : stepX < 0 ? (cx * cellSize - x0) / dx : Float.POSITIVE_INFINITY;
+        float tMaxY = stepY > 0 ? ((cy + 1) * cellSize - y0) / dy
+                    : stepY < 0 ? (cy * cellSize - y0) / dy : Float.POSITIVE_INFINITY;
+
+        added += segmentCell(cx, cy, q, x0, y0, dx, dy, out);
+        for (int n = Math.abs(ex - cx) + Math.abs(ey - cy); n > 0; n--) {
+            if (tMaxX < tMaxY) {
+                cx += stepX; tMaxX += tDeltaX;
+            } else if (tMaxY < tMaxX) {
+                cy += stepY; tMaxY += tDeltaY;
+            } else {
+                // through a corner: the two side cells can hold boxes touching that point
+                added += segmentCell(cx + stepX, cy, q, x0, y0, dx, dy, out);
+                added += segmentCell(cx, cy + stepY, q, x0, y0, dx, dy, out);
+                cx += stepX; tMaxX += tDeltaX;
+                cy += stepY; tMaxY += tDeltaY;
+                n--;
+            }
+            added += segmentCell(cx, cy, q, x0, y0, dx, dy, out);
+        }
+        return added;
+    }
+
+    /**
+     * Every overlapping pair once, as (a, b) with a &lt; b appended to
+     * outPairs. Cost is one box query per handle.
+     */
+    public int queryPairs(IntArray outPairs) {
+        requireBuilt();
+        int pairs = 0;
+        for (int a = 0; a < count; a++) {
+            int q = nextQuery();
+            stamp[a] = q;
+            int cx0 = cell(minX[a]), cx1 = cell(maxX[a]), cy0 = cell(minY[a]), cy1 = cell(maxY[a]);
+            for (int cy = cy0; cy <= cy1; cy++) {
+                for (int cx = cx0; cx <= cx1; cx++) {
+                    int bk = bucket(cx, cy);
+                    for (int i = bucketStart[bk], end = bucketStart[bk + 1]; i < end; i++) {
+                        int b = entries[i];
+                        if (b < a || stamp[b] == q) continue;
+                        stamp[b] = q;
+                        if (minX[b] < maxX[a] && maxX[b] > minX[a] && minY[b] < maxY[a] && maxY[b] > minY[a]) {
+                            outPairs.add(a);
+                            outPairs.add(b);
+                            pairs++;
+                        }
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    // ------------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------------
+    private int segmentCell(int cx, int cy, int q, float x0, float y0, float dx, float dy, IntArray out) {
+        int b = bucket(cx, cy), added = 0;
+        for (int i = bucketStart[b], end = bucketStart[b + 1]; i < end; i++) {
+            int h = entries[i];
+            if (stamp[h] == q) continue;
+            stamp[h] = q;
+            if (segmentHitsBox(h, x0, y0, dx, dy)) { out.add(h); added++; }
+        }
+        return added;
+    }
+
+    // Slab test over t in [0, 1]
+    private boolean segmentHitsBox(int h, float x0, float y0, float dx, float dy) {
+        float tEnter = 0f, tExit = 1f;
+        if (dx == 0f) {
+            if (x0 < minX[h] || x0 > maxX[h]) return false;
+        } else {
+            float ta = (minX[h] - x0) / dx, tb = (maxX[h] - x0) / dx;
+            tEnter = Math.max(tEnter, Math.min(ta, tb));
+            tExit = Math.min(tExit, Math.max(ta, tb));
+        }
+        if (dy == 0f) {
+            if (y0 < minY[h] || y0 > maxY[h]) return false;
+        } else {
+            float ta = (minY[h] - y0) / dy, tb = (maxY[h] - y0) / dy;
+            tEnter = Math.max(tEnter, Math.min(ta, tb));
+            tExit = Math.min(tExit, Math.max(ta, tb));
+        }
+        return tEnter <= tExit;
+    }
+
+    private int nextQuery() {
+        if (++queryId == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            queryId = 1;
+        }
+        return queryId;
+    }
+
+    private void requireBuilt() {
+        if (!built) throw new IllegalStateException("SpatialHash.build() must be called after adding boxes");
+    }
+
+    private int cell(float v) {
+        return (int)Math.floor(v * invCell);
+    }
+
+    private int bucket(int cx, int cy) {
+        return ((cx * 0x8da6b343) ^ (cy * 0xd8163841)) & mask;
+    }
+}
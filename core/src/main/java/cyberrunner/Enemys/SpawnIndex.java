@@ -0,0 +1,214 @@
+// Author: Martin Taylor
+// File: SpawnIndex.java
+// Date: 2026-10-17
+// Description:
+//   Connected-region labels for a NavGrid plus, per agent clearance class,
+//   the list of tiles an agent of that class can stand on and still reach
+//   the player's region. Spawning samples this list instead of guessing
+//   random tiles, with a minimum distance from the player.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Built once per NavGrid from an origin tile (where the player starts).
+ * <p>
+ * Regions are 4-connected open tiles, which is exactly what the 8-neighbour
+ * pathfinders can reach since they never cut corners. For clearance class k
+ * the candidates are the class-k region around the class-k tile nearest the
+ * origin (walking out from it); any candidate can path to the player.
+ * <p>
+ * Candidates are stored bucketed by square cells. Sampling away from the
+ * player tries a few uniform picks and, if they all land too close, picks
+ * uniformly among the candidates beyond the radius: cells lying wholly
+ * outside it count whole, and only the few cells the radius cuts through
+ * are checked tile by tile. Either way the cost does not depend on how many
+ * tiles are blocked. Read-only after construction.
+ */
+public class SpawnIndex {
+
+    /** Cell edge in tiles for the distance buckets. */
+    public static final int CELL_TILES = 16;
+    private static final int UNIFORM_TRIES = 8;
+
+    private final NavGrid grid;
+    private final int[] region;            // 0 = wall, else region id (1-based)
+    private final IntArray regionSizes = new IntArray();
+    private final int originRegion;
+    private final int maxClass;
+    private final int cellsX, cellsY;
+    // per class: candidate tiles grouped by cell, and each cell's start offset (cells + 1 entries)
+    private final int[][] candidates;
+    private final int[][] cellStart;
+
+    public SpawnIndex(NavGrid grid, int originTx, int originTy, int maxClass) {
+        this.grid = grid;
+        this.maxClass = Math.max(1, maxClass);
+        this.cellsX = (grid.width + CELL_TILES - 1) / CELL_TILES;
+        this.cellsY = (grid.height + CELL_TILES - 1) / CELL_TILES;
+        final int n = grid.size();
+        this.region = new int[n];
+        int[] queue = new int[n];
+
+        // Label every region; the origin's BFS order also gives, per class, its nearest roomy tile
+        regionSizes.add(0);
+        int origin = grid.inBounds(originTx, originTy) ? grid.index(originTx, originTy) : -1;
+        int[] anchor = new int[this.maxClass + 1];
+        Arrays.fill(anchor, -1);
+        if (origin >= 0 && grid.isWalkableIndex(origin)) {
+            int size = flood(origin, regionSizes.size, queue, 1, region);
+            regionSizes.add(size);
+            for (int q = 0; q < size; q++) {
+                int wd = grid.wallDistanceIndex(queue[q]);
+                for (int k = 1; k <= Math.min(wd, this.maxClass); k++) if (anchor[k] < 0) anchor[k] = queue[q];
+            }
+        }
+        this.originRegion = origin >= 0 ? region[origin] : 0;
+        for (int i = 0; i < n; i++) {
+            if (region[i] == 0 && grid.isWalkableIndex(i)) regionSizes.add(flood(i, regionSizes.size, queue, 1, region));
+        }
+
+        // Per class: flood the class-k tiles from the anchor and bucket them by cell
+        candidates = new int[this.maxClass + 1][];
+        cellStart = new int[this.maxClass + 1][];
+        int[] mark = new int[n];
+        for (int k = 1; k <= this.maxClass; k++) {
+            int count = anchor[k] < 0 ? 0 : flood(anchor[k], k, queue, k, mark);
+            int cells = cellsX * cellsY;
+            int[] start = new int[cells + 1];
+            for (int q = 0; q < count; q++) start[cellOf(queue[q]) + 1]++;
+            for (int c = 0; c < cells; c++) start[c + 1] += start[c];
+            int[] fill = Arrays.copyOf(start, cells);
+            int[] list = new int[count];
+            for (int q = 0; q < count; q++) list[fill[cellOf(queue[q])]++] = queue[q];
+            candidates[k] = list;
+            cellStart[k] = start;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Regions
+    // ------------------------------------------------------------------------
+
+    /** Region id of a tile (0 for walls and off-map). */
+    public int regionOf(int tx, int ty) {
+        return grid.inBounds(tx, ty) ? region[grid.index(tx, ty)] : 0;
+    }
+
+    /** True if both tiles are open and a path connects them. */
+    public boolean connected(int ax, int ay, int bx, int by) {
+        int a = regionOf(ax, ay);
+        return a != 0 && a == regionOf(bx, by);
+    }
+
+    /** True if the tile is open and connected to the origin. */
+    public boolean isReachable(int tx, int ty) {
+        return originRegion != 0 && regionOf(tx, ty) == originRegion;
+    }
+
+    public int getRegionCount() { return regionSizes.size - 1; }
+    public int getRegionSize(int id) { return regionSizes.get(id); }
+
+    // ------------------------------------------------------------------------
+    // Spawn candidates
+    // ------------------------------------------------------------------------
+
+    public int getMaxClass() { return maxClass; }
+
+    /** Tiles an agent of this clearance class may spawn on. */
+    public int getCandidateCount(int clearanceClass) {
+        return candidates[clampClass(clearanceClass)].length;
+    }
+
+    /**
+     * A random spawn tile index for the class at least minDistTiles (tile
+     * centre to tile centre) from (fromTx, fromTy), or -1 if there is none.
+     */
+    public int sample(int clearanceClass, int fromTx, int fromTy, float minDistTiles, Random rng) {
+        int k = clampClass(clearanceClass);
+        int[] list = candidates[k];
+        if (list.length == 0) return -1;
+        float min2 = minDistTiles * minDistTiles;
+        for (int t = 0; t < UNIFORM_TRIES; t++) {
+            int tile = list[rng.nextInt(list.length)];
+            if (dist2(tile, fromTx, fromTy) >= min2) return tile;
+        }
+
+        // Mostly near the player: count what lies beyond the radius, then pick one
+        int[] start = cellStart[k];
+        long total = 0;
+        for (int c = 0; c < cellsX * cellsY; c++) total += farCount(list, start, c, fromTx, fromTy, min2);
+        if (total == 0) return -1;
+        long pick = (long)(rng.nextDouble() * total);
+        for (int c = 0; c < cellsX * cellsY; c++) {
+            int count = farCount(list, start, c, fromTx, fromTy, min2);
+            if (pick >= count) { pick -= count; continue; }
+            if (count == start[c + 1] - start[c]) return list[start[c] + (int)pick];
+            for (int i = start[c]; i < start[c + 1]; i++) {
+                if (dist2(list[i], fromTx, fromTy) >= min2 && pick-- == 0) return list[i];
+            }
+        }
+        return -1;
+    }
+
+    // ------------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    // BFS over 4-neighbours with wall distance >= minClass; returns tiles visited (left in queue)
+    private int flood(int start, int id, int[] queue, int minClass, int[] label) {
+        final int W = grid.width, H = grid.height;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        label[start] = id;
+        while (head < tail) {
+            int u = queue[head++];
+            int ux = u % W, uy = u / W;
+            if (ux > 0)     tail = visit(u - 1, id, queue, tail, minClass, label);
+            if (ux < W - 1) tail = visit(u + 1, id, queue, tail, minClass, label);
+            if (uy > 0)     tail = visit(u - W, id, queue, tail, minClass, label);
+            if (uy < H - 1) tail = visit(u + W, id, queue, tail, minClass, label);
+        }
+        return tail;
+    }
+
+    private int visit(int v, int id, int[] queue, int tail, int minClass, int[] label) {
+        if (label[v] == id || grid.wallDistanceIndex(v) < minClass) return tail;
+        label[v] = id;
+        queue[tail] = v;
+        return tail + 1;
+    }
+
+    private int clampClass(int clearanceClass) {
+        return Math.max(1, Math.min(maxClass, clearanceClass));
+    }
+
+    private int cellOf(int tile) {
+        return (grid.tileX(tile) / CELL_TILES) + (grid.tileY(tile) / CELL_TILES) * cellsX;
+    }
+
+    private float dist2(int tile, int tx, int ty) {
+        float dx = grid.tileX(tile) - tx, dy = grid.tileY(tile) - ty;
+        return dx * dx + dy * dy;
+    }
+
+    // Candidates in the cell at least sqrt(min2) away; only cells the radius cuts are scanned
+    private int farCount(int[] list, int[] start, int cell, int tx, int ty, float min2) {
+        int count = start[cell + 1] - start[cell];
+        if (count == 0) return 0;
+        int x0 = (cell % cellsX) * CELL_TILES, y0 = (cell / cellsX) * CELL_TILES;
+        int x1 = Math.min(grid.width, x0 + CELL_TILES) - 1, y1 = Math.min(grid.height, y0 + CELL_TILES) - 1;
+        float nx = tx < x0 ? x0 - tx : (tx > x1 ? tx - x1 : 0);
+        float ny = ty < y0 ? y0 - ty : (ty > y1 ? ty - y1 : 0);
+        if (nx * nx + ny * ny >= min2) return count;
+        float fx = Math.max(Math.abs(tx - x0), Math.abs(tx - x1)), fy = Math.max(Math.abs(ty - y0), Math.abs(ty - y1));
+        if (fx * fx + fy * fy < min2) return 0;
+        int far = 0;
+        for (int i = start[cell]; i < start[cell + 1]; i++) if (dist2(list[i], tx, ty) >= min2) far++;
+        return far;
+    }
+}
@@ -0,0 +1,34 @@
+// Author: Martin Taylor
+// File: SweepHit.java
+// Date: 2026-10-17
+// Description:
+//   Result of sweeping a box against the wall tiles (Dungeon.sweep): how far
+//   along the move the box got, which way the wall faces, and which tile.
+
+package cyberrunner.Enemys;
+
+/**
+ * Filled in by {@link Dungeon#sweep}. Reuse one per caller; nothing here
+ * allocates. The normal is a unit axis vector pointing out of the wall.
+ */
+public class SweepHit {
+    /** Fraction of the move (0..1) done before the box touches the wall. */
+    public float time = 1f;
+    /** Contact normal, one of (+-1, 0) or (0, +-1); (0, 0) when nothing was hit. */
+    public float normalX, normalY;
+    /** Wall tile touched. */
+    public int tileX, tileY;
+
+    SweepHit set(float time, float normalX, float normalY, int tileX, int tileY) {
+        this.time = time;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.tileX = tileX;
+        this.tileY = tileY;
+        return this;
+    }
+
+    SweepHit reset() {
+        return set(1f, 0f, 0f, -1, -1);
+    }
+}
@@ -0,0 +1,42 @@
+// Author: Martin Taylor
+// File: TilePathfinder.java
+// Date: 2026-10-17
+// Description:
+//   Common contract for the grid pathfinders, so the sandbox (and the
+//   benchmark) can swap search strategies at runtime.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Point-to-point search over a {@link NavGrid}. Implementations keep their
+ * own scratch buffers and are not thread-safe.
+ */
+public interface TilePathfinder {
+
+    /**
+     * Search from (sx,sy) to (tx,ty). On success writes every tile index from
+     * start to goal (both inclusive, adjacent steps) into outTiles and returns true.
+     * Hierarchical searches with a refine limit may stop partway along the route.
+     */
+    boolean findPath(int sx, int sy, int tx, int ty, IntArray outTiles);
+
+    /**
+     * Agent size for the queries that follow, as a {@link NavGrid#clearanceClassFor}
+     * class: returned paths only cross tiles with at least that wall distance.
+     * The default, 1, allows any walkable tile.
+     */
+    void setAgentClearance(int clearanceClass);
+
+    /**
+     * Do any one-off setup a clearance class needs (HPA* builds an abstract
+     * graph per class) now, so it never lands inside a timed query.
+     */
+    default void prepareClearance(int clearanceClass) { }
+
+    /** Nodes expanded by the most recent query (for profiling). */
+    int getLastExpanded();
+
+    NavGrid getGrid();
+}
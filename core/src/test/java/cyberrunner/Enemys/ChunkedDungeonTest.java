@@ -0,0 +1,127 @@
+// Author: Martin Taylor
+// File: ChunkedDungeonTest.java
+// Date: 2026-10-17
+// Description:
+//   Checks that a block of chunks is connected from spawn, that an evicted
+//   chunk regenerates tile for tile, and that chunk clearance matches a
+//   brute-force nearest-wall search.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Areas are copied out of the world into a flat array first, so the
+ * brute-force side of each check never touches the world itself.
+ */
+public class ChunkedDungeonTest {
+
+    private static final long[] SEEDS = { 1L, 42L, -7L };
+    private static final int TS = 64;
+
+    @Test
+    public void everyOpenTileReachableFromSpawn() {
+        for (long seed : SEEDS) {
+            ChunkedDungeon world = new ChunkedDungeon(seed);
+            int n = world.chunkTiles, radius = 3, side = (2 * radius + 1) * n, base = -radius * n;
+            boolean[] solid = snapshot(world, base, base, side);
+
+            int sx = (int)Math.floor(world.spawnX() / TS) - base, sy = (int)Math.floor(world.spawnY() / TS) - base;
+            assertFalse(solid[sx + sy * side]);
+            boolean[] seen = new boolean[side * side];
+            IntArray queue = new IntArray();
+            queue.add(sx + sy * side);
+            seen[sx + sy * side] = true;
+            // 4-connected flood, kept inside the area: stricter than how agents move
+            for (int head = 0; head < queue.size; head++) {
+                int i = queue.get(head), x = i % side, y = i / side;
+                int[] next = { x > 0 ? i - 1 : -1, x < side - 1 ? i + 1 : -1, y > 0 ? i - side : -1, y < side - 1 ? i + side : -1 };
+                for (int j : next) {
+                    if (j < 0 || solid[j] || seen[j]) continue;
+                    seen[j] = true;
+                    queue.add(j);
+                }
+            }
+            int open = 0;
+            for (int i = 0; i < side * side; i++) {
+                if (solid[i]) continue;
+                open++;
+                assertTrue("seed " + seed + " tile " + (i % side + base) + "," + (i / side + base), seen[i]);
+            }
+            assertTrue(open > side * side / 20);
+        }
+    }
+
+    @Test
+    public void evictedChunkRegeneratesIdentically() {
+        ChunkedDungeon world = new ChunkedDungeon(99L, 32, TS, 0L);   // smallest budget allowed
+        int n = world.chunkTiles;
+        boolean[] before = snapshot(world, 0, 0, n);
+        float[] clearanceBefore = clearance(world, 0, 0, n);
+
+        // walk far enough that chunk (0,0) is the least recently used many times over
+        for (int c = 1; c <= 1000; c++) world.isSolid(c * n, 0);
+        assertTrue(world.getEvictedCount() > 0);
+        assertTrue(world.getLoadedChunks() < 1000);
+
+        long generated = world.getGeneratedCount();
+        boolean[] after = snapshot(world, 0, 0, n);
+        assertEquals(generated + 1, world.getGeneratedCount());
+        for (int i = 0; i < n * n; i++) assertEquals(before[i], after[i]);
+        float[] clearanceAfter = clearance(world, 0, 0, n);
+        for (int i = 0; i < n * n; i++) assertEquals(clearanceBefore[i], clearanceAfter[i], 0f);
+    }
+
+    @Test
+    public void sameSeedSameWorld() {
+        ChunkedDungeon a = new ChunkedDungeon(5L, 32, TS, 0L), b = new ChunkedDungeon(5L, 32, TS, 0L);
+        // b generates its chunks in the opposite order
+        boolean[] first = snapshot(a, -64, -64, 128);
+        boolean[] second = new boolean[128 * 128];
+        for (int y = 127; y >= 0; y--)
+            for (int x = 127; x >= 0; x--) second[x + y * 128] = b.isSolid(x - 64, y - 64);
+        for (int i = 0; i < first.length; i++) assertEquals(first[i], second[i]);
+    }
+
+    @Test
+    public void clearanceMatchesBruteForce() {
+        for (long seed : SEEDS) {
+            ChunkedDungeon world = new ChunkedDungeon(seed, 32, TS, 1L << 30);
+            int m = ChunkedDungeon.CLEARANCE_MARGIN;
+            // 2x2 chunks around the origin, plus the margin the brute force looks into
+            int base = -world.chunkTiles - m, side = 2 * world.chunkTiles + 2 * m;
+            boolean[] solid = snapshot(world, base, base, side);
+            for (int y = m; y < side - m; y++) {
+                for (int x = m; x < side - m; x++) {
+                    int bestSq = (m + 1) * (m + 1);
+                    for (int dy = -m; dy <= m; dy++)
+                        for (int dx = -m; dx <= m; dx++)
+                            if (solid[(x + dx) + (y + dy) * side]) bestSq = Math.min(bestSq, dx * dx + dy * dy);
+                    float expected = Math.min(m, (float)Math.sqrt(bestSq));
+                    assertEquals("seed " + seed + " tile " + (x + base) + "," + (y + base),
+                            expected, world.clearance(x + base, y + base), 1e-5);
+                }
+            }
+        }
+    }
+
+    private static boolean[] snapshot(ChunkedDungeon world, int tx0, int ty0, int side) {
+        boolean[] solid = new boolean[side * side];
+        for (int y = 0; y < side; y++)
+            for (int x = 0; x < side; x++) solid[x + y * side] = world.isSolid(tx0 + x, ty0 + y);
+        return solid;
+    }
+
+    private static float[] clearance(ChunkedDungeon world, int tx0, int ty0, int side) {
+        float[] out = new float[side * side];
+        for (int y = 0; y < side; y++)
+            for (int x = 0; x < side; x++) out[x + y * side] = world.clearance(tx0 + x, ty0 + y);
+        return out;
+    }
+}
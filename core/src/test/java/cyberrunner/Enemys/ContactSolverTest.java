@@ -0,0 +1,187 @@
+// Author: Martin Taylor
+// File: ContactSolverTest.java
+// Date: 2026-10-17
+// Description:
+//   Runs ContactSolver frame by frame on small piles: an overlapping pile
+//   separates and falls asleep, a body pressed into it wakes only what it
+//   presses, a body that merely touches wakes nothing, and a sleeping pile
+//   elsewhere is left alone throughout.
+
+package cyberrunner.Enemys;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The test keeps the per-body state the sandbox keeps (centre, rest time,
+ * sleep flag) and applies corrections directly, in a room big enough that
+ * the piles never reach a wall.
+ */
+public class ContactSolverTest {
+
+    private static final int TS = 64;
+    private static final float DT = 1f / 60f, RADIUS = 20f;
+
+    @Test
+    public void idlePileSeparatesAndSleeps() {
+        Pile pile = new Pile();
+        pile.hex(640f, 640f, 19, 36f);      // every neighbour 4 px too deep
+        ContactSolver contacts = new ContactSolver(room(20, 20), TS);
+
+        int frame = pile.settle(contacts, 300);
+        assertTrue("still awake after 300 frames", frame < 300);
+        // rested for the sleep time, plus the frames it took to stop moving
+        assertTrue(frame * DT >= ContactSolver.DEFAULT_SLEEP_TIME);
+        for (int b = 0; b < pile.n; b++) assertTrue(pile.asleep[b]);
+        assertTrue(pile.deepest() <= ContactSolver.DEFAULT_SLOP + 0.05f);
+
+        // asleep, it costs no contact work and does not move
+        pile.step(contacts, null);
+        assertEquals(0, contacts.getLastAwake());
+        assertEquals(0, contacts.getLastContacts());
+        assertEquals(0, contacts.getLastTileContacts());
+        for (int b = 0; b < pile.n; b++) {
+            assertEquals(0f, contacts.getCorrectionX(b), 0f);
+            assertEquals(0f, contacts.getCorrectionY(b), 0f);
+        }
+    }
+
+    @Test
+    public void pressedPileWakesAndSettlesAgain() {
+        Pile pile = new Pile();
+        pile.hex(640f, 640f, 19, 36f);
+        pile.hex(1600f, 640f, 7, 36f);      // a second pile, well away
+        ContactSolver contacts = new ContactSolver(room(40, 20), TS);
+        assertTrue(pile.settle(contacts, 300) < 300);
+
+        // westmost body of the first pile
+        int edge = 0;
+        for (int b = 1; b < 19; b++) if (pile.x[b] < pile.x[edge]) edge = b;
+
+        // a newcomer resting against it within the slop: nothing wakes
+        int pusher = pile.add(pile.x[edge] - 2f * RADIUS + 0.3f, pile.y[edge]);
+        pile.step(contacts, null);
+        assertFalse(pile.asleep[pusher]);
+        for (int b = 0; b < pusher; b++) assertTrue("body " + b, pile.asleep[b]);
+        assertEquals(0f, contacts.getCorrectionX(edge), 0f);
+
+        // walking east into the pile wakes the body it presses, then the ones behind it
+        float[] speed = new float[pile.n];
+        speed[pusher] = 120f;
+        int woken = 0;
+        for (int frame = 0; frame < 30; frame++) {
+            pile.x[pusher] += speed[pusher] * DT;
+            pile.step(contacts, speed);
+            woken = 0;
+            for (int b = 0; b < 19; b++) if (!pile.asleep[b]) woken++;
+            if (frame == 0) {
+                assertFalse(pile.asleep[edge]);
+                assertTrue(contacts.getCorrectionX(edge) > 0f);
+            }
+            // the far pile is never touched
+            for (int b = 19; b < 26; b++) {
+                assertTrue(pile.asleep[b]);
+                assertEquals(0f, contacts.getCorrectionX(b), 0f);
+            }
+        }
+        assertTrue(woken > 1);
+        assertTrue(pile.deepest() <= ContactSolver.DEFAULT_SLOP + 1f);
+
+        // the pusher stops; the whole island goes back to sleep
+        assertTrue(pile.settle(contacts, 300) < 300);
+        for (int b = 0; b < pile.n; b++) assertTrue(pile.asleep[b]);
+    }
+
+    @Test
+    public void restlessBodyKeepsItsIslandAwake() {
+        Pile pile = new Pile();
+        pile.hex(640f, 640f, 7, 39.6f);     // touching, within the slop
+        ContactSolver contacts = new ContactSolver(room(20, 20), TS);
+        float[] speed = new float[pile.n];
+        // the centre body jitters on its own: fast enough to count, too little to press anyone
+        for (int frame = 0; frame < 120; frame++) {
+            speed[0] = frame % 2 == 0 ? 30f : 0f;
+            pile.step(contacts, speed);
+        }
+        // the others rested long ago, but share its island
+        for (int b = 0; b < pile.n; b++) assertFalse("body " + b, pile.asleep[b]);
+        assertEquals(1, contacts.getLastIslands());
+        assertTrue(pile.settle(contacts, 120) < 120);
+    }
+
+    // Bodies and the state the caller carries between frames
+    private static final class Pile {
+        int n = 0;
+        float[] x = new float[32], y = new float[32], rest = new float[32];
+        boolean[] asleep = new boolean[32];
+
+        int add(float cx, float cy) {
+            x[n] = cx; y[n] = cy;
+            return n++;
+        }
+
+        // count bodies on hex rings around (cx, cy), spacing apart
+        void hex(float cx, float cy, int count, float spacing) {
+            add(cx, cy);
+            for (int ring = 1, placed = 1; placed < count; ring++) {
+                for (int side = 0; side < 6 && placed < count; side++) {
+                    double a0 = side * Math.PI / 3, a1 = (side + 1) * Math.PI / 3;
+                    for (int k = 0; k < ring && placed < count; k++, placed++) {
+                        double t = k / (double)ring;
+                        add(cx + (float)(ring * spacing * ((1 - t) * Math.cos(a0) + t * Math.cos(a1))),
+                            cy + (float)(ring * spacing * ((1 - t) * Math.sin(a0) + t * Math.sin(a1))));
+                    }
+                }
+            }
+        }
+
+        void step(ContactSolver contacts, float[] speed) {
+            contacts.clear();
+            for (int b = 0; b < n; b++) {
+                contacts.addBody(x[b], y[b], RADIUS, RADIUS, speed == null ? 0f : speed[b], rest[b], asleep[b]);
+            }
+            contacts.solve(DT);
+            for (int b = 0; b < n; b++) {
+                x[b] += contacts.getCorrectionX(b);
+                y[b] += contacts.getCorrectionY(b);
+                rest[b] = contacts.getRestSeconds(b);
+                asleep[b] = contacts.isSleeping(b);
+            }
+        }
+
+        // Frames until nothing is awake, or max if it never happens
+        int settle(ContactSolver contacts, int max) {
+            for (int frame = 1; frame <= max; frame++) {
+                step(contacts, null);
+                if (allAsleep()) return frame;
+            }
+            return max;
+        }
+
+        boolean allAsleep() {
+            for (int b = 0; b < n; b++) if (!asleep[b]) return false;
+            return true;
+        }
+
+        float deepest() {
+            float worst = 0f;
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    float d = (float)Math.sqrt((x[b] - x[a]) * (x[b] - x[a]) + (y[b] - y[a]) * (y[b] - y[a]));
+                    worst = Math.max(worst, 2f * RADIUS - d);
+                }
+            }
+            return worst;
+        }
+    }
+
+    private static Dungeon room(int W, int H) {
+        Dungeon d = new Dungeon(W, H, TS);
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++) d.setSolid(x, y, x == 0 || y == 0 || x == W - 1 || y == H - 1);
+        return d;
+    }
+}
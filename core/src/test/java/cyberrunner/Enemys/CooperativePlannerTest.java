@@ -0,0 +1,156 @@
+// Author: Martin Taylor
+// File: CooperativePlannerTest.java
+// Date: 2026-10-17
+// Description:
+//   Plans crowds of chasers through the reservation table and checks that
+//   no two plans ever share a tile or swap tiles on the same step, and that
+//   failed plans leave nothing reserved.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Open rooms walled at the edge, with every agent chasing the same goal so
+ * they contend for it and for the tiles around it.
+ */
+public class CooperativePlannerTest {
+
+    private static final int W = 30, H = 30, WINDOW = 8;
+
+    @Test
+    public void reservationTableRefusesOtherAgents() {
+        ReservationTable table = new ReservationTable(4);
+        assertTrue(table.reserve(10, 3, 1));
+        assertTrue(table.reserve(10, 3, 1));      // again by the owner
+        assertFalse(table.reserve(10, 3, 2));
+        assertEquals(1, table.ownerAt(10, 3));
+        assertTrue(table.isFree(10, 3, 1));
+        assertFalse(table.isFree(10, 3, 2));
+        assertTrue(table.isFree(10, 4, 2));
+
+        table.release(10, 3, 2);                  // not the owner: no effect
+        assertEquals(1, table.ownerAt(10, 3));
+        table.release(10, 3, 1);
+        assertEquals(ReservationTable.FREE, table.ownerAt(10, 3));
+    }
+
+    @Test
+    public void reservationTableForgetsRecycledSteps() {
+        ReservationTable table = new ReservationTable(4);
+        assertTrue(table.reserve(7, 0, 1));
+        // step 6 lands on step 0's slot, so step 0's claims go
+        assertTrue(table.reserve(8, 6, 2));
+        assertEquals(ReservationTable.FREE, table.ownerAt(7, 0));
+        assertTrue(table.reserve(7, 6, 3));
+    }
+
+    @Test
+    public void crowdPlansHaveNoConflicts() {
+        NavGrid grid = room();
+        FlowField field = new FlowField(grid);
+        field.update(15, 15);
+        ReservationTable table = new ReservationTable(WINDOW);
+        CooperativePlanner planner = new CooperativePlanner(grid, table, WINDOW);
+        Random rng = new Random(5L);
+
+        int agents = 40;
+        IntArray[] plans = new IntArray[agents];
+        boolean[] planned = new boolean[agents];
+        int succeeded = 0;
+        for (int a = 0; a < agents; a++) {
+            plans[a] = new IntArray();
+            int sx, sy;
+            do { sx = 9 + rng.nextInt(13); sy = 9 + rng.nextInt(13); }
+            while (table.ownerAt(grid.index(sx, sy), 0) != ReservationTable.FREE);
+            planned[a] = planner.plan(a, sx, sy, field, 0, plans[a]);
+            if (!planned[a]) continue;
+            succeeded++;
+            assertEquals(WINDOW + 1, plans[a].size);
+            assertEquals(grid.index(sx, sy), plans[a].first());
+            for (int i = 0; i < plans[a].size; i++) assertEquals(a, table.ownerAt(plans[a].get(i), i));
+        }
+        assertTrue(succeeded > agents / 2);
+
+        int atGoal = 0;
+        for (int a = 0; a < agents; a++) {
+            if (!planned[a]) continue;
+            checkMoves(grid, plans[a]);
+            if (plans[a].peek() == grid.index(15, 15)) atGoal++;
+            for (int b = a + 1; b < agents; b++) {
+                if (!planned[b]) continue;
+                for (int s = 0; s <= WINDOW; s++) {
+                    assertTrue("vertex conflict " + a + "/" + b + " step " + s, plans[a].get(s) != plans[b].get(s));
+                    if (s == 0) continue;
+                    boolean swap = plans[a].get(s) == plans[b].get(s - 1) && plans[a].get(s - 1) == plans[b].get(s);
+                    assertFalse("swap " + a + "/" + b + " step " + s, swap);
+                }
+            }
+        }
+        // the goal goes to exactly one of the agents that reach it
+        assertEquals(1, atGoal);
+    }
+
+    @Test
+    public void goalHeldLaterIsNotAnEndState() {
+        NavGrid grid = room();
+        FlowField field = new FlowField(grid);
+        field.update(15, 15);
+        ReservationTable table = new ReservationTable(WINDOW);
+        CooperativePlanner planner = new CooperativePlanner(grid, table, WINDOW);
+        int goal = grid.index(15, 15);
+        table.reserve(goal, WINDOW, 99);          // someone arrives there at the end of the window
+
+        IntArray plan = new IntArray();
+        assertTrue(planner.plan(0, 13, 15, field, 0, plan));
+        for (int i = 0; i < plan.size; i++) assertEquals(0, table.ownerAt(plan.get(i), i));
+        assertTrue(plan.peek() != goal);
+    }
+
+    @Test
+    public void heldStartFailsAndLeaksNothing() {
+        NavGrid grid = room();
+        FlowField field = new FlowField(grid);
+        field.update(15, 15);
+        ReservationTable table = new ReservationTable(WINDOW);
+        CooperativePlanner planner = new CooperativePlanner(grid, table, WINDOW);
+        table.reserve(grid.index(5, 5), 0, 99);
+        int[] reservedBefore = new int[WINDOW + 1];
+        for (int s = 0; s <= WINDOW; s++) reservedBefore[s] = table.getReservedAt(s);
+
+        IntArray plan = new IntArray();
+        assertFalse(planner.plan(7, 5, 5, field, 0, plan));
+        assertEquals(0, plan.size);
+        for (int s = 0; s <= WINDOW; s++) assertEquals(reservedBefore[s], table.getReservedAt(s));
+        for (int t = 0; t < grid.size(); t++) {
+            for (int s = 0; s <= WINDOW; s++) assertTrue(table.ownerAt(t, s) != 7);
+        }
+    }
+
+    private static NavGrid room() {
+        Dungeon dungeon = new Dungeon(W, H, 64);
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) dungeon.setSolid(x, y, x == 0 || y == 0 || x == W - 1 || y == H - 1);
+        }
+        return NavGrid.build(dungeon);
+    }
+
+    // Each step waits or moves to a walkable neighbour without cutting a corner
+    private static void checkMoves(NavGrid grid, IntArray plan) {
+        for (int i = 1; i < plan.size; i++) {
+            int a = plan.get(i - 1), b = plan.get(i);
+            int ax = grid.tileX(a), ay = grid.tileY(a), bx = grid.tileX(b), by = grid.tileY(b);
+            assertTrue(Math.abs(ax - bx) <= 1 && Math.abs(ay - by) <= 1);
+            assertTrue(grid.isWalkableIndex(b));
+            if (ax != bx && ay != by) assertTrue(grid.isWalkable(bx, ay) && grid.isWalkable(ax, by));
+        }
+    }
+}
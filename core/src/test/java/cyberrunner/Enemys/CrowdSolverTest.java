@@ -0,0 +1,160 @@
+// Author: Martin Taylor
+// File: CrowdSolverTest.java
+// Date: 2026-10-17
+// Description:
+//   Steps small crowds with CrowdSolver velocities and checks the two things
+//   the solver promises: agents heading at each other step aside instead of
+//   meeting, and no solved velocity carries an agent's wall circle into a
+//   wall tile, even in a packed crowd where the agent half-planes give way.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Vector2;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Agents are moved by plain integration (centre += velocity * dt), not by
+ * moveAndSlide, so anything that keeps them apart or off the walls is the
+ * solver's doing. Each step takes a fresh snapshot, as the sandbox does.
+ */
+public class CrowdSolverTest {
+
+    private static final int TS = 64;
+    private static final float DT = 1f / 60f, SPEED = 200f, RADIUS = 20f;
+
+    @Test
+    public void headOnAgentsPassWithoutOverlapping() {
+        // dead level, a little off-centre, and at an angle
+        float[][] starts = {
+                { 200f, 320f, 1000f, 320f },
+                { 200f, 320f, 1000f, 330f },
+                { 200f, 200f, 1000f, 440f } };
+        for (float[] s : starts) {
+            Dungeon d = room(20, 10);
+            CrowdSolver crowd = new CrowdSolver(d, TS);
+            float[] px = { s[0], s[2] }, py = { s[1], s[3] };
+            float[] vx = new float[2], vy = new float[2];
+            float[] gx = { s[2], s[0] }, gy = { s[3], s[1] };
+            Vector2 v = new Vector2();
+            float closest = Float.MAX_VALUE;
+            for (int step = 0; step < 600; step++) {
+                crowd.clear();
+                for (int a = 0; a < 2; a++) crowd.addAgent(px[a], py[a], RADIUS, RADIUS, vx[a], vy[a], SPEED);
+                crowd.build();
+                float[] nx = new float[2], ny = new float[2];
+                for (int a = 0; a < 2; a++) {
+                    float dx = gx[a] - px[a], dy = gy[a] - py[a], len = (float)Math.sqrt(dx * dx + dy * dy);
+                    float want = Math.min(SPEED, len / DT);
+                    if (len < 1e-4f) len = 1f;
+                    crowd.solve(a, dx / len * want, dy / len * want, DT, v);
+                    assertTrue(v.len() <= SPEED + 1e-2f);
+                    vx[a] = v.x; vy[a] = v.y;
+                    nx[a] = px[a] + v.x * DT; ny[a] = py[a] + v.y * DT;
+                }
+                // both move on the same snapshot
+                for (int a = 0; a < 2; a++) { px[a] = nx[a]; py[a] = ny[a]; }
+                float dx = px[1] - px[0], dy = py[1] - py[0];
+                closest = Math.min(closest, (float)Math.sqrt(dx * dx + dy * dy));
+            }
+            String at = "start " + s[0] + "," + s[1] + " / " + s[2] + "," + s[3];
+            assertTrue(at + " came within " + closest, closest >= 2f * RADIUS - 0.5f);
+            // and they got where they were going
+            for (int a = 0; a < 2; a++) {
+                assertEquals(at, gx[a], px[a], 1f);
+                assertEquals(at, gy[a], py[a], 1f);
+            }
+        }
+    }
+
+    @Test
+    public void wallHalfPlanesAreNeverViolated() {
+        Random rng = new Random(24L);
+        Vector2 v = new Vector2();
+        int checked = 0;
+        for (int map = 0; map < 6; map++) {
+            Dungeon d = room(16, 16);
+            for (int i = 0; i < 25; i++) d.setSolid(1 + rng.nextInt(14), 1 + rng.nextInt(14), true);
+            CrowdSolver crowd = new CrowdSolver(d, TS);
+            int n = 60;
+            float[] px = new float[n], py = new float[n], vx = new float[n], vy = new float[n], r = new float[n];
+            for (int a = 0; a < n; a++) {
+                r[a] = 8f + rng.nextFloat() * 20f;
+                do {
+                    px[a] = TS + rng.nextFloat() * 14 * TS;
+                    py[a] = TS + rng.nextFloat() * 14 * TS;
+                } while (wallGap(d, px[a], py[a]) < r[a]);
+            }
+            // everyone heads for one of two points, so they pile up against walls and each other
+            float[] gx = { 3 * TS, 13 * TS }, gy = { 8 * TS, 8 * TS };
+            float[] nx = new float[n], ny = new float[n];
+            for (int step = 0; step < 400; step++) {
+                crowd.clear();
+                for (int a = 0; a < n; a++) crowd.addAgent(px[a], py[a], r[a], r[a], vx[a], vy[a], SPEED);
+                crowd.build();
+                for (int a = 0; a < n; a++) {
+                    int g = (a + step / 100) % 2;
+                    float dx = gx[g] - px[a], dy = gy[g] - py[a], len = (float)Math.sqrt(dx * dx + dy * dy);
+                    if (len < 1e-4f) len = 1f;
+                    crowd.solve(a, dx / len * SPEED * 1.5f, dy / len * SPEED * 1.5f, DT, v);
+                    vx[a] = v.x; vy[a] = v.y;
+                    nx[a] = px[a] + v.x * DT; ny[a] = py[a] + v.y * DT;
+
+                    // the whole horizon is covered, not just this step
+                    float far = wallGap(d, px[a] + v.x * CrowdSolver.DEFAULT_WALL_TIME_HORIZON,
+                            py[a] + v.y * CrowdSolver.DEFAULT_WALL_TIME_HORIZON);
+                    assertTrue("map " + map + " step " + step + " agent " + a + " gap " + far + " r " + r[a],
+                            far >= r[a] - 0.05f);
+                    checked++;
+                }
+                for (int a = 0; a < n; a++) { px[a] = nx[a]; py[a] = ny[a]; }
+            }
+            // the crowd was packed enough to make the solver drop agent half-planes
+            assertTrue(crowd.getInfeasibleCount() > 0);
+        }
+        assertEquals(6 * 400 * 60, checked);
+    }
+
+    @Test
+    public void walledInAgentStaysPut() {
+        // a one-tile pocket exactly its wall radius across: every direction is closed
+        Dungeon d = room(5, 5);
+        for (int y = 1; y < 4; y++) for (int x = 1; x < 4; x++) d.setSolid(x, y, x != 2 || y != 2);
+        CrowdSolver crowd = new CrowdSolver(d, TS);
+        crowd.addAgent(2.5f * TS, 2.5f * TS, TS * 0.5f, TS * 0.5f, 0f, 0f, SPEED);
+        crowd.build();
+        Vector2 v = new Vector2();
+        for (int k = 0; k < 8; k++) {
+            double angle = k * Math.PI / 4;
+            crowd.solve(0, (float)Math.cos(angle) * SPEED, (float)Math.sin(angle) * SPEED, DT, v);
+            assertEquals(0f, v.len(), 1e-3f);
+        }
+    }
+
+    // Distance from (x, y) to the nearest solid tile (off the map counts as solid)
+    private static float wallGap(Dungeon d, float x, float y) {
+        int tx = (int)Math.floor(x / TS), ty = (int)Math.floor(y / TS);
+        float best = Float.MAX_VALUE;
+        for (int j = ty - 3; j <= ty + 3; j++) {
+            for (int i = tx - 3; i <= tx + 3; i++) {
+                if (!d.isSolid(i, j)) continue;
+                float cx = Math.max(i * TS, Math.min(x, (i + 1) * TS));
+                float cy = Math.max(j * TS, Math.min(y, (j + 1) * TS));
+                best = Math.min(best, (float)Math.sqrt((cx - x) * (cx - x) + (cy - y) * (cy - y)));
+            }
+        }
+        return best;
+    }
+
+    private static Dungeon room(int W, int H) {
+        Dungeon d = new Dungeon(W, H, TS);
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++) d.setSolid(x, y, x == 0 || y == 0 || x == W - 1 || y == H - 1);
+        return d;
+    }
+}
@@ -0,0 +1,122 @@
+// Author: Martin Taylor
+// File: DistanceTransformTest.java
+// Date: 2026-10-17
+// Description:
+//   Checks the Euclidean, Chebyshev and feature transforms against brute
+//   force over every wall, on small maps and on one big enough to take
+//   the parallel path.
+
+package cyberrunner.Enemys;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Small maps are checked tile by tile; the big map, which splits into
+ * bands across cores, is checked on a random sample of tiles.
+ */
+public class DistanceTransformTest {
+
+    @Test
+    public void distancesMatchBruteForce() {
+        Random rng = new Random(21L);
+        int[][] sizes = { { 1, 1 }, { 1, 9 }, { 9, 1 }, { 17, 13 }, { 40, 40 }, { 64, 23 } };
+        for (int[] size : sizes) {
+            for (float density : new float[] { 0f, 0.05f, 0.3f, 0.9f }) {
+                checkDistances(size[0], size[1], randomMask(size[0] * size[1], density, rng), -1, rng);
+            }
+        }
+    }
+
+    @Test
+    public void parallelDistancesMatchBruteForce() {
+        Random rng = new Random(22L);
+        int W = 300, H = 260;
+        assertTrue(W * H >= DistanceTransform.PARALLEL_MIN_TILES);
+        checkDistances(W, H, randomMask(W * H, 0.02f, rng), 3000, rng);
+    }
+
+    @Test
+    public void nearestFeatureMatchesBruteForce() {
+        Random rng = new Random(23L);
+        int[][] sizes = { { 1, 1 }, { 7, 1 }, { 1, 7 }, { 17, 13 }, { 40, 40 }, { 64, 23 } };
+        for (int[] size : sizes) {
+            for (float density : new float[] { 0.01f, 0.1f, 0.5f, 1f }) {
+                checkNearest(size[0], size[1], randomMask(size[0] * size[1], density, rng), -1, rng);
+            }
+        }
+    }
+
+    @Test
+    public void parallelNearestFeatureMatchesBruteForce() {
+        Random rng = new Random(24L);
+        int W = 300, H = 260;
+        checkNearest(W, H, randomMask(W * H, 0.001f, rng), 3000, rng);
+    }
+
+    @Test
+    public void nearestFeatureWithoutTargetsIsMinusOne() {
+        int[] nearest = new int[12 * 5];
+        DistanceTransform.nearestFeature(12, 5, new boolean[12 * 5], nearest);
+        for (int i = 0; i < nearest.length; i++) assertEquals(-1, nearest[i]);
+    }
+
+    // samples < 0 checks every tile
+    private static void checkDistances(int W, int H, boolean[] solid, int samples, Random rng) {
+        int[] edt = new int[W * H], cheb = new int[W * H];
+        DistanceTransform.compute(W, H, solid, edt, cheb);
+        int n = samples < 0 ? W * H : samples;
+        for (int k = 0; k < n; k++) {
+            int i = samples < 0 ? k : rng.nextInt(W * H);
+            int x = i % W, y = i / W;
+            // the map edge counts as wall: the nearest off-map tile is straight out
+            int edge = Math.min(Math.min(x + 1, y + 1), Math.min(W - x, H - y));
+            int bestSq = edge * edge, bestCheb = edge;
+            for (int j = 0; j < W * H; j++) {
+                if (!solid[j]) continue;
+                int dx = Math.abs(j % W - x), dy = Math.abs(j / W - y);
+                bestSq = Math.min(bestSq, dx * dx + dy * dy);
+                bestCheb = Math.min(bestCheb, Math.max(dx, dy));
+            }
+            String at = W + "x" + H + " tile " + x + "," + y;
+            assertEquals(at, bestSq, edt[i]);
+            assertEquals(at, bestCheb, cheb[i]);
+        }
+    }
+
+    private static void checkNearest(int W, int H, boolean[] target, int samples, Random rng) {
+        int[] nearest = new int[W * H];
+        DistanceTransform.nearestFeature(W, H, target, nearest);
+        int n = samples < 0 ? W * H : samples;
+        for (int k = 0; k < n; k++) {
+            int i = samples < 0 ? k : rng.nextInt(W * H);
+            int x = i % W, y = i / W;
+            int bestSq = Integer.MAX_VALUE;
+            for (int j = 0; j < W * H; j++) {
+                if (!target[j]) continue;
+                int dx = j % W - x, dy = j / W - y;
+                bestSq = Math.min(bestSq, dx * dx + dy * dy);
+            }
+            String at = W + "x" + H + " tile " + x + "," + y;
+            if (bestSq == Integer.MAX_VALUE) {
+                assertEquals(at, -1, nearest[i]);
+                continue;
+            }
+            // ties may go to any of the closest targets
+            int f = nearest[i];
+            assertTrue(at, f >= 0 && target[f]);
+            int dx = f % W - x, dy = f / W - y;
+            assertEquals(at, bestSq, dx * dx + dy * dy);
+        }
+    }
+
+    private static boolean[] randomMask(int n, float density, Random rng) {
+        boolean[] mask = new boolean[n];
+        for (int i = 0; i < n; i++) mask[i] = rng.nextFloat() < density;
+        return mask;
+    }
+}
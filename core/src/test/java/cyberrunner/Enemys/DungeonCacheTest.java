@@ -0,0 +1,123 @@
+// Author: Martin Taylor
+// File: DungeonCacheTest.java
+// Date: 2026-10-17
+// Description:
+//   Round-trips levels through the on-disk cache and checks the directory
+//   cap, the handling of a damaged file and the reporting of failed writes.
+
+package cyberrunner.Enemys;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Each test works in its own temporary directory and deletes it at the end.
+ */
+public class DungeonCacheTest {
+
+    private static final int SIZE = 40;
+
+    @Test
+    public void storedLevelLoadsBackUnchanged() throws IOException {
+        File dir = Files.createTempDirectory("dungeon-cache").toFile();
+        try {
+            DungeonGenerator generator = GeneratorPipeline.classic();
+            DungeonCache cache = new DungeonCache(dir);
+            Dungeon built = new Dungeon(SIZE, SIZE, 64);
+            NavGrid builtGrid = cache.loadOrGenerate(built, generator, 8L);
+            assertEquals(0, cache.getHits());
+            assertEquals(1, cache.getMisses());
+
+            Dungeon loaded = new Dungeon(SIZE, SIZE, 64);
+            NavGrid loadedGrid = cache.loadOrGenerate(loaded, generator, 8L);
+            assertEquals(1, cache.getHits());
+            for (int y = 0; y < SIZE; y++)
+                for (int x = 0; x < SIZE; x++) assertEquals(built.isSolid(x, y), loaded.isSolid(x, y));
+            float[] a = builtGrid.clearanceData(), b = loadedGrid.clearanceData();
+            for (int i = 0; i < a.length; i++) assertEquals(a[i], b[i], 0f);
+            byte[] da = builtGrid.wallDistanceData(), db = loadedGrid.wallDistanceData();
+            for (int i = 0; i < da.length; i++) assertEquals(da[i], db[i]);
+
+            // another seed is a miss
+            assertNull(cache.load(new Dungeon(SIZE, SIZE, 64), generator, 9L));
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    @Test
+    public void directoryStaysUnderTheCap() throws IOException {
+        File dir = Files.createTempDirectory("dungeon-cache").toFile();
+        try {
+            DungeonGenerator generator = GeneratorPipeline.bsp();
+            DungeonCache cache = new DungeonCache(dir);
+            cache.setMaxFiles(3);
+            for (long seed = 1; seed <= 6; seed++) {
+                cache.loadOrGenerate(new Dungeon(SIZE, SIZE, 64), generator, seed);
+                // keep modification times apart on coarse file systems
+                File file = cache.fileFor(generator, seed, SIZE, SIZE);
+                assertTrue(file.setLastModified(seed * 10000L));
+            }
+            assertEquals(3, dir.listFiles((d, name) -> name.endsWith(".dun")).length);
+            assertEquals(3, cache.getPrunedCount());
+            // the newest survive
+            for (long seed = 4; seed <= 6; seed++) assertTrue(cache.fileFor(generator, seed, SIZE, SIZE).isFile());
+            assertFalse(cache.fileFor(generator, 1L, SIZE, SIZE).isFile());
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    @Test
+    public void damagedFileIsAMiss() throws IOException {
+        File dir = Files.createTempDirectory("dungeon-cache").toFile();
+        try {
+            DungeonGenerator generator = GeneratorPipeline.classic();
+            DungeonCache cache = new DungeonCache(dir);
+            cache.loadOrGenerate(new Dungeon(SIZE, SIZE, 64), generator, 3L);
+            File file = cache.fileFor(generator, 3L, SIZE, SIZE);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(4);
+                raf.writeInt(0x7fffffff);   // format version
+            }
+            Dungeon dungeon = new Dungeon(SIZE, SIZE, 64);
+            assertNull(cache.load(dungeon, generator, 3L));
+            // and the next loadOrGenerate repairs it
+            cache.loadOrGenerate(dungeon, generator, 3L);
+            assertNotNull(cache.load(new Dungeon(SIZE, SIZE, 64), generator, 3L));
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    @Test
+    public void failedWriteIsReported() throws IOException {
+        File notADir = File.createTempFile("dungeon-cache", ".txt");
+        try {
+            DungeonCache cache = new DungeonCache(notADir);
+            Dungeon dungeon = new Dungeon(SIZE, SIZE, 64);
+            NavGrid grid = cache.loadOrGenerate(dungeon, GeneratorPipeline.classic(), 1L);
+            assertNotNull(grid);
+            assertEquals(1, cache.getWriteFailures());
+            assertNotNull(cache.getLastWriteError());
+        } finally {
+            notADir.delete();
+        }
+    }
+
+    private static void deleteTree(File f) {
+        File[] children = f.listFiles();
+        if (children != null) for (File c : children) deleteTree(c);
+        f.delete();
+    }
+}
@@ -0,0 +1,223 @@
+// Author: Martin Taylor
+// File: DungeonSweepTest.java
+// Date: 2026-10-17
+// Description:
+//   Pins down Dungeon.sweep and moveAndSlide on hand-made rooms (flush
+//   stops, sliding, corners, long moves, starting inside a wall, the
+//   half-pixel side tolerance) and checks random moves against rectBlocked
+//   sampled along the path.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rooms are walled at the map edge with 64-pixel tiles, so the inside runs
+ * from x = 64 to (W - 1) * 64. Boxes are 40 pixels square unless noted.
+ */
+public class DungeonSweepTest {
+
+    private static final int TS = 64;
+    private static final float EPS = 1e-3f;
+
+    @Test
+    public void stopsFlushAgainstAWall() {
+        Dungeon d = room(10, 10);
+        Rectangle box = new Rectangle(100f, 100f, 40f, 40f);
+        SweepHit hit = new SweepHit();
+        assertTrue(d.sweep(box, 1000f, 0f, hit));
+        assertEquals((536f - 100f) / 1000f, hit.time, 1e-5);
+        assertEquals(-1f, hit.normalX, 0f);
+        assertEquals(0f, hit.normalY, 0f);
+        assertEquals(9, hit.tileX);
+        assertEquals(1, hit.tileY);
+
+        assertTrue(d.moveAndSlide(box, 1000f, 0f));
+        assertEquals(576f, box.x + box.width, EPS);
+        assertEquals(100f, box.y, 0f);
+        assertFalse(d.rectBlocked(box));
+
+        // already flush: no further progress, and backing away is free
+        assertTrue(d.sweep(box, 5f, 0f, hit));
+        assertEquals(0f, hit.time, 0f);
+        assertFalse(d.sweep(box, -5f, 0f, hit));
+        assertEquals(1f, hit.time, 0f);
+        assertEquals(-1, hit.tileX);
+    }
+
+    @Test
+    public void slidesAlongAWall() {
+        Dungeon d = room(10, 10);
+        Rectangle box = new Rectangle(536f, 100f, 40f, 40f);   // flush with the east wall
+        assertTrue(d.moveAndSlide(box, 50f, 100f));
+        assertEquals(536f, box.x, EPS);
+        assertEquals(200f, box.y, EPS);
+
+        // diagonal into the wall from a distance: stop, then slide the rest of the way up
+        box.set(496f, 100f, 40f, 40f);
+        assertTrue(d.moveAndSlide(box, 80f, 80f));
+        assertEquals(536f, box.x, EPS);
+        assertEquals(180f, box.y, EPS);
+
+        // into the north-east corner: both axes stop
+        box.set(500f, 500f, 40f, 40f);
+        assertTrue(d.moveAndSlide(box, 300f, 300f));
+        assertEquals(536f, box.x, EPS);
+        assertEquals(536f, box.y, EPS);
+    }
+
+    @Test
+    public void hitsTheNearFaceOfACorner() {
+        Dungeon d = room(12, 12);
+        d.setSolid(5, 5, true);                    // pillar at [320, 384) both ways
+        SweepHit hit = new SweepHit();
+
+        // mostly sideways: the west face is reached first
+        Rectangle box = new Rectangle(200f, 300f, 40f, 40f);
+        assertTrue(d.sweep(box, 200f, 20f, hit));
+        assertEquals(-1f, hit.normalX, 0f);
+        assertEquals(80f / 200f, hit.time, 1e-5);
+        assertEquals(5, hit.tileX);
+        assertEquals(5, hit.tileY);
+
+        // mostly upward under the pillar's corner: the south face
+        box.set(300f, 200f, 40f, 40f);
+        assertTrue(d.sweep(box, 10f, 200f, hit));
+        assertEquals(0f, hit.normalX, 0f);
+        assertEquals(-1f, hit.normalY, 0f);
+        assertEquals(80f / 200f, hit.time, 1e-5);
+
+        // exactly at the corner: stops there rather than slipping past it
+        box.set(200f, 200f, 40f, 40f);
+        assertTrue(d.moveAndSlide(box, 200f, 200f));
+        assertFalse(d.rectBlocked(box));
+        assertTrue(box.x + box.width <= 320f + EPS || box.y + box.height <= 320f + EPS);
+
+        // clear of the corner by a pixel: no hit at all
+        box.set(200f, 200f, 40f, 40f);
+        assertFalse(d.sweep(box, 39f, 200f, hit));
+    }
+
+    @Test
+    public void longMovesDoNotTunnel() {
+        Dungeon d = room(120, 8);
+        d.setSolid(60, 3, true);                   // one thin wall tile across the box's path
+        Rectangle box = new Rectangle(100f, 3 * TS + 10f, 40f, 40f);
+        assertTrue(d.moveAndSlide(box, 100000f, 0f));
+        assertEquals(60f * TS, box.x + box.width, EPS);
+
+        // a 1-pixel-tall box still hits a wall it passes straight through in one step
+        Rectangle sliver = new Rectangle(100f, 3 * TS + 30f, 8f, 1f);
+        SweepHit hit = new SweepHit();
+        assertTrue(d.sweep(sliver, 50000f, 0f, hit));
+        assertEquals(60, hit.tileX);
+    }
+
+    @Test
+    public void startingInsideAWallCanMoveOut() {
+        Dungeon d = room(12, 12);
+        d.setSolid(5, 5, true);
+        Rectangle box = new Rectangle(330f, 330f, 40f, 40f);   // entirely inside the pillar
+        assertTrue(d.rectBlocked(box));
+        SweepHit hit = new SweepHit();
+        // the pillar it already overlaps does not count; open tiles around it do not stop it
+        assertFalse(d.sweep(box, -200f, 0f, hit));
+        assertFalse(d.sweep(box, 0f, 150f, hit));
+        assertFalse(d.moveAndSlide(box, -200f, 0f));
+        assertEquals(130f, box.x, EPS);
+        assertFalse(d.rectBlocked(box));
+
+        // half in the east wall: moving west is free, moving further in hits the next column
+        box.set(560f + 4 * TS, 200f, 40f, 40f);
+        Dungeon wide = room(14, 10);
+        assertTrue(wide.rectBlocked(box));
+        assertFalse(wide.sweep(box, -100f, 0f, hit));
+        assertTrue(wide.sweep(box, 100f, 0f, hit));
+        assertEquals(14, hit.tileX);                           // off the map, which counts as wall
+    }
+
+    @Test
+    public void sideToleranceIsHalfAPixel() {
+        Dungeon d = room(10, 10);
+        SweepHit hit = new SweepHit();
+        // 0.4 pixels into the east wall sideways: rectBlocked says clear, so does the sweep
+        Rectangle box = new Rectangle(536.4f, 100f, 40f, 40f);
+        assertFalse(d.rectBlocked(box));
+        assertFalse(d.sweep(box, 0f, 200f, hit));
+
+        // 0.6 pixels in: the next row the box enters along that wall is a hit
+        box.set(536.6f, 100f, 40f, 40f);
+        assertTrue(d.rectBlocked(box));
+        assertTrue(d.sweep(box, 0f, 200f, hit));
+        assertEquals(9, hit.tileX);
+        assertEquals(-1f, hit.normalY, 0f);
+        assertEquals((192f - 140f) / 200f, hit.time, 1e-5);
+
+        // moving along the wall by more than a tile per step changes nothing
+        box.set(536.4f, 100f, 40f, 40f);
+        assertFalse(d.moveAndSlide(box, 0f, 300f));
+        assertEquals(400f, box.y, EPS);
+    }
+
+    @Test
+    public void randomMovesNeverEnterWalls() {
+        Random rng = new Random(41L);
+        Rectangle box = new Rectangle(), probe = new Rectangle();
+        SweepHit hit = new SweepHit();
+        int hits = 0;
+        for (int map = 0; map < 20; map++) {
+            Dungeon d = room(24, 24);
+            for (int i = 0; i < 70; i++) d.setSolid(1 + rng.nextInt(22), 1 + rng.nextInt(22), true);
+            for (int q = 0; q < 300; q++) {
+                float w = 8f + rng.nextFloat() * 100f, h = 8f + rng.nextFloat() * 100f;
+                do box.set(TS + rng.nextFloat() * 22 * TS, TS + rng.nextFloat() * 22 * TS, w, h);
+                while (d.rectBlocked(box));
+                float dx = (rng.nextFloat() - 0.5f) * 1200f, dy = (rng.nextFloat() - 0.5f) * 1200f;
+                if (q % 4 == 0) dy = 0f;
+                if (q % 4 == 1) dx = 0f;
+                float x0 = box.x, y0 = box.y;
+                boolean touched = d.sweep(box, dx, dy, hit);
+                String at = "map " + map + " box " + x0 + "," + y0 + " " + w + "x" + h + " by " + dx + "," + dy;
+
+                // every point up to the stop is clear, at 1/4-pixel spacing
+                float len = (float)Math.sqrt(dx * dx + dy * dy);
+                int samples = (int)Math.ceil(len * hit.time * 4f) + 1;
+                for (int s = 0; s <= samples; s++) {
+                    float t = hit.time * s / samples;
+                    probe.set(x0 + dx * t, y0 + dy * t, w, h);
+                    assertFalse(at + " blocked at t=" + t, d.rectBlocked(probe));
+                }
+                if (touched) {
+                    hits++;
+                    // and the wall is really there: a pixel further into it, either straight
+                    // along the normal or along the move, is blocked (which one depends on
+                    // whether the box is leaving the tile's row or entering it sideways)
+                    probe.set(x0 + dx * hit.time - hit.normalX, y0 + dy * hit.time - hit.normalY, w, h);
+                    boolean blocked = d.rectBlocked(probe);
+                    float t = Math.min(1f, hit.time + 1f / Math.abs(hit.normalX != 0f ? dx : dy));
+                    probe.set(x0 + dx * t, y0 + dy * t, w, h);
+                    assertTrue(at + " stopped early at t=" + hit.time, blocked || d.rectBlocked(probe));
+                }
+
+                d.moveAndSlide(box, dx, dy);
+                assertFalse(at + " after slide", d.rectBlocked(box));
+            }
+        }
+        assertTrue(hits > 2000);
+    }
+
+    private static Dungeon room(int W, int H) {
+        Dungeon d = new Dungeon(W, H, TS);
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++) d.setSolid(x, y, x == 0 || y == 0 || x == W - 1 || y == H - 1);
+        return d;
+    }
+}
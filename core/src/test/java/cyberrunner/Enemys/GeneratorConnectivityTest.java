@@ -0,0 +1,98 @@
+// Author: Martin Taylor
+// File: GeneratorConnectivityTest.java
+// Date: 2026-10-17
+// Description:
+//   Floods every preset's output from the map centre and checks that the
+//   repair stage left no open tile unreachable, on several seeds and sizes.
+
+package cyberrunner.Enemys;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The flood is 4-connected, the same rule the repair stage labels regions
+ * by, so a diagonal-only gap counts as disconnected.
+ */
+public class GeneratorConnectivityTest {
+
+    private static final long[] SEEDS = { 1L, 2L, 3L, 1234L, -99L };
+    private static final int[][] SIZES = { { 48, 48 }, { 96, 64 }, { 61, 117 } };
+
+    @Test
+    public void classicIsConnected() {
+        checkPreset(GeneratorPipeline.classic());
+    }
+
+    @Test
+    public void bspIsConnected() {
+        checkPreset(GeneratorPipeline.bsp());
+    }
+
+    @Test
+    public void cellularIsConnected() {
+        checkPreset(GeneratorPipeline.cellular());
+    }
+
+    @Test
+    public void repairJoinsRoomsAndFillsPockets() {
+        GeneratorPipeline pipeline = new GeneratorPipeline("islands")
+                .add(GeneratorStages.fillSolid())
+                .add(new GeneratorPipeline.Stage() {
+                    @Override public String getName() { return "islands"; }
+                    @Override public void apply(GeneratorPipeline.Context ctx) {
+                        ctx.dungeon.carveRect(4, 4, 6, 6);      // far room
+                        ctx.dungeon.carveRect(30, 4, 5, 5);     // another
+                        ctx.dungeon.carveRect(4, 30, 2, 2);     // pocket under the minimum
+                    }
+                })
+                .add(GeneratorStages.spawnClearing())
+                .add(GeneratorStages.repairConnectivity(GeneratorStages.DEFAULT_MIN_REGION_TILES));
+        Dungeon dungeon = new Dungeon(40, 40, 64);
+        dungeon.generate(pipeline, 7L);
+        assertEquals(2, pipeline.getLastRegionsJoined());
+        assertEquals(1, pipeline.getLastRegionsFilled());
+        assertTrue(dungeon.isSolid(4, 30));
+        assertFalse(dungeon.isSolid(4, 4));
+        assertFalse(dungeon.isSolid(30, 4));
+        assertEquals(0, unreachableFromCentre(dungeon));
+    }
+
+    private static void checkPreset(GeneratorPipeline pipeline) {
+        for (int[] size : SIZES) {
+            for (long seed : SEEDS) {
+                Dungeon dungeon = new Dungeon(size[0], size[1], 64);
+                dungeon.generate(pipeline, seed);
+                String at = pipeline.getName() + " " + size[0] + "x" + size[1] + " seed " + seed;
+                assertFalse(at, dungeon.isSolid(size[0] / 2, size[1] / 2));
+                assertEquals(at, 0, unreachableFromCentre(dungeon));
+            }
+        }
+    }
+
+    // Open tiles the 4-connected flood from the centre does not reach
+    private static int unreachableFromCentre(Dungeon d) {
+        int W = d.width, H = d.height;
+        boolean[] seen = new boolean[W * H];
+        int[] queue = new int[W * H];
+        int head = 0, tail = 0;
+        int start = W / 2 + (H / 2) * W;
+        queue[tail++] = start;
+        seen[start] = true;
+        while (head < tail) {
+            int u = queue[head++], x = u % W, y = u / W;
+            int[] next = { x > 0 ? u - 1 : -1, x < W - 1 ? u + 1 : -1, y > 0 ? u - W : -1, y < H - 1 ? u + W : -1 };
+            for (int v : next) {
+                if (v < 0 || seen[v] || d.isSolid(v % W, v / W)) continue;
+                seen[v] = true;
+                queue[tail++] = v;
+            }
+        }
+        int open = 0;
+        for (int i = 0; i < W * H; i++) if (!d.isSolid(i % W, i / W)) open++;
+        return open - tail;
+    }
+}
@@ -0,0 +1,127 @@
+// Author: Martin Taylor
+// File: GridRaycastTest.java
+// Date: 2026-10-17
+// Description:
+//   Checks the thin and swept grid raycasts against a brute-force
+//   segment-vs-box test over every tile near the segment.
+
+package cyberrunner.Enemys;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Random segments over random grids. The reference clips the segment
+ * against each tile grown by the box half-width; a query is only compared
+ * when shrinking and growing every tile by a hair gives the same answer,
+ * since a segment that exactly grazes an edge or corner may go either way.
+ */
+public class GridRaycastTest {
+
+    private static final int TS = 16, W = 24, H = 24;
+    private static final double GRAZE = 0.01;   // pixels
+
+    @Test
+    public void thinRayMatchesBruteForce() {
+        check(0f, 0.12f, 11L);
+    }
+
+    @Test
+    public void sweptBoxMatchesBruteForce() {
+        check(5f, 0.06f, 12L);
+        check(13f, 0.03f, 13L);
+    }
+
+    @Test
+    public void thinRayDoesNotSlipThroughDiagonalWalls() {
+        boolean[] open = new boolean[W * H];
+        Arrays.fill(open, true);
+        open[5 + 6 * W] = false;
+        open[6 + 5 * W] = false;
+        GridRaycast.TileTest test = testFor(open);
+        // exactly through the shared corner of (5,5) and (6,6)
+        assertFalse(GridRaycast.isClear(test, TS, 5.5f * TS, 5.5f * TS, 6.5f * TS, 6.5f * TS));
+        assertTrue(GridRaycast.isClear(test, TS, 5.5f * TS, 5.5f * TS, 5.5f * TS, 1.5f * TS));
+    }
+
+    private static void check(float half, float wallDensity, long seed) {
+        Random rng = new Random(seed);
+        int compared = 0, blocked = 0;
+        for (int map = 0; map < 20; map++) {
+            boolean[] open = new boolean[W * H];
+            for (int i = 0; i < open.length; i++) open[i] = rng.nextFloat() >= wallDensity;
+            GridRaycast.TileTest test = testFor(open);
+            for (int q = 0; q < 500; q++) {
+                float x0 = rng.nextFloat() * W * TS, y0 = rng.nextFloat() * H * TS;
+                float x1 = clamp(x0 + (rng.nextFloat() - 0.5f) * 12f * TS, W * TS);
+                float y1 = clamp(y0 + (rng.nextFloat() - 0.5f) * 12f * TS, H * TS);
+                boolean strict = bruteForceClear(open, x0, y0, x1, y1, half, -GRAZE);
+                boolean loose = bruteForceClear(open, x0, y0, x1, y1, half, GRAZE);
+                if (strict != loose) continue;
+                boolean actual = half == 0f
+                        ? GridRaycast.isClear(test, TS, x0, y0, x1, y1)
+                        : GridRaycast.isSweptClear(test, TS, x0, y0, x1, y1, half);
+                assertEquals("map " + map + " segment " + x0 + "," + y0 + " -> " + x1 + "," + y1, strict, actual);
+                compared++;
+                if (!strict) blocked++;
+            }
+        }
+        // most queries are unambiguous, and both answers come up often
+        assertTrue(compared > 9000);
+        assertTrue(blocked > compared / 10 && blocked < compared * 9 / 10);
+    }
+
+    // Off-grid tiles are closed, as in NavGrid
+    private static GridRaycast.TileTest testFor(boolean[] open) {
+        return (tx, ty) -> tx >= 0 && ty >= 0 && tx < W && ty < H && open[tx + ty * W];
+    }
+
+    // Keep endpoints off the map edge, which would graze the closed border
+    private static float clamp(float v, float max) {
+        return Math.max(0.5f, Math.min(max - 0.5f, v));
+    }
+
+    // Every tile whose box, grown by half + grow, the segment meets must be open
+    private static boolean bruteForceClear(boolean[] open, float x0, float y0, float x1, float y1, float half, double grow) {
+        double r = half + grow;
+        int txLo = (int)Math.floor((Math.min(x0, x1) - r) / TS) - 1, txHi = (int)Math.floor((Math.max(x0, x1) + r) / TS) + 1;
+        int tyLo = (int)Math.floor((Math.min(y0, y1) - r) / TS) - 1, tyHi = (int)Math.floor((Math.max(y0, y1) + r) / TS) + 1;
+        for (int ty = tyLo; ty <= tyHi; ty++) {
+            for (int tx = txLo; tx <= txHi; tx++) {
+                boolean isOpen = tx >= 0 && ty >= 0 && tx < W && ty < H && open[tx + ty * W];
+                if (isOpen) continue;
+                if (segmentHitsBox(x0, y0, x1, y1, tx * TS - r, ty * TS - r, (tx + 1) * TS + r, (ty + 1) * TS + r)) return false;
+            }
+        }
+        return true;
+    }
+
+    // Liang-Barsky clip of the segment against a closed box
+    private static boolean segmentHitsBox(double x0, double y0, double x1, double y1,
+                                          double minX, double minY, double maxX, double maxY) {
+        if (minX > maxX || minY > maxY) return false;
+        double[] t = { 0.0, 1.0 };
+        double dx = x1 - x0, dy = y1 - y0;
+        return clip(-dx, x0 - minX, t) && clip(dx, maxX - x0, t)
+            && clip(-dy, y0 - minY, t) && clip(dy, maxY - y0, t);
+    }
+
+    private static boolean clip(double p, double q, double[] t) {
+        if (p == 0.0) return q >= 0.0;
+        double r = q / p;
+        if (p < 0.0) {
+            if (r > t[1]) return false;
+            t[0] = Math.max(t[0], r);
+        } else {
+            if (r < t[0]) return false;
+            t[1] = Math.min(t[1], r);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+// Author: Martin Taylor
+// File: PathWorkerPoolTest.java
+// Date: 2026-10-17
+// Description:
+//   Drives the worker pool in deterministic mode: results arrive only on
+//   drain, in submission order, superseded and cancelled requests never
+//   deliver, and the threaded pool solves to the same waypoints.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Keys are strings. Every job owns its waypoint array, so the recorder can
+ * keep what it is handed.
+ */
+public class PathWorkerPoolTest {
+
+    private static final PathWorkerPool.EngineFactory ASTAR = AStarPathfinder::new;
+
+    @Test
+    public void drainDeliversLatestRequestsInOrder() {
+        NavGrid grid = grid();
+        int[] tiles = walkableTiles(grid, 8, 1L);
+        PathWorkerPool<String> pool = new PathWorkerPool<>(grid, ASTAR, 1, true);
+        assertTrue(pool.isDeterministic());
+        Recorder rec = new Recorder();
+
+        submit(pool, "a", grid, tiles[0], tiles[1]);
+        submit(pool, "b", grid, tiles[2], tiles[3]);
+        submit(pool, "a", grid, tiles[0], tiles[4]);   // supersedes a's first request
+        submit(pool, "c", grid, tiles[5], tiles[6]);
+        pool.cancel("c");
+        assertEquals(0, rec.keys.size);                 // nothing runs before drain
+
+        pool.drain(rec);
+        assertEquals(2, rec.keys.size);
+        assertEquals("b", rec.keys.get(0));
+        assertEquals("a", rec.keys.get(1));
+        assertTrue(rec.found.get(1));
+        // a's path ends in the goal it asked for last (smoothing nudges it off walls)
+        FloatArray a = rec.waypoints.get(1);
+        assertEquals(grid.tileX(tiles[4]), (int)(a.get(a.size - 2) / grid.tileSize));
+        assertEquals(grid.tileY(tiles[4]), (int)(a.get(a.size - 1) / grid.tileSize));
+
+        assertEquals(4, pool.getSubmittedCount());
+        assertEquals(4, pool.getDeliveredCount());
+        assertEquals(2, pool.getDroppedCount());
+        assertEquals(0, pool.getQueueDepth());
+
+        // nothing left over for the next drain
+        pool.drain(rec);
+        assertEquals(2, rec.keys.size);
+        pool.dispose();
+    }
+
+    @Test
+    public void cancelAllDropsEverythingPending() {
+        NavGrid grid = grid();
+        int[] tiles = walkableTiles(grid, 6, 2L);
+        PathWorkerPool<String> pool = new PathWorkerPool<>(grid, ASTAR, 1, true);
+        Recorder rec = new Recorder();
+        for (int i = 0; i < 3; i++) submit(pool, "k" + i, grid, tiles[i * 2], tiles[i * 2 + 1]);
+        pool.cancelAll();
+        pool.drain(rec);
+        assertEquals(0, rec.keys.size);
+        assertEquals(3, pool.getDroppedCount());
+        pool.dispose();
+    }
+
+    @Test
+    public void threadedPoolMatchesDeterministicPool() throws InterruptedException {
+        NavGrid grid = grid();
+        int n = 24;
+        int[] tiles = walkableTiles(grid, n * 2, 3L);
+        PathWorkerPool<String> serial = new PathWorkerPool<>(grid, ASTAR, 1, true);
+        PathWorkerPool<String> threaded = new PathWorkerPool<>(grid, ASTAR, 3, false);
+        Recorder expected = new Recorder(), actual = new Recorder();
+        for (int i = 0; i < n; i++) {
+            submit(serial, "k" + i, grid, tiles[i * 2], tiles[i * 2 + 1]);
+            submit(threaded, "k" + i, grid, tiles[i * 2], tiles[i * 2 + 1]);
+        }
+        serial.drain(expected);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (threaded.getDeliveredCount() < n && System.currentTimeMillis() < deadline) {
+            threaded.drain(actual);
+            Thread.sleep(1);
+        }
+        assertEquals(n, actual.keys.size);
+        for (int i = 0; i < n; i++) {
+            int j = actual.keys.indexOf(expected.keys.get(i), false);
+            assertTrue(j >= 0);
+            assertEquals(expected.found.get(i), actual.found.get(j));
+            FloatArray e = expected.waypoints.get(i), a = actual.waypoints.get(j);
+            assertEquals(e.size, a.size);
+            for (int k = 0; k < e.size; k++) assertEquals(e.get(k), a.get(k), 0f);
+        }
+        serial.dispose();
+        threaded.dispose();
+    }
+
+    private static final class Recorder implements PathWorkerPool.Listener<String> {
+        final Array<String> keys = new Array<>();
+        final Array<Boolean> found = new Array<>();
+        final Array<FloatArray> waypoints = new Array<>();
+
+        @Override
+        public void onPathReady(String key, boolean ok, boolean complete, FloatArray points) {
+            keys.add(key);
+            found.add(ok);
+            waypoints.add(points);
+        }
+    }
+
+    private static void submit(PathWorkerPool<String> pool, String key, NavGrid grid, int from, int to) {
+        int sx = grid.tileX(from), sy = grid.tileY(from);
+        pool.submit(key, sx, sy, grid.tileX(to), grid.tileY(to), centre(grid, sx), centre(grid, sy));
+    }
+
+    private static float centre(NavGrid grid, int tile) {
+        return tile * grid.tileSize + grid.tileSize * 0.5f;
+    }
+
+    private static NavGrid grid() {
+        Dungeon dungeon = new Dungeon(48, 48, 64);
+        dungeon.generate(11L);
+        return NavGrid.build(dungeon);
+    }
+
+    // Distinct walkable tiles that A* can reach from the first one
+    private static int[] walkableTiles(NavGrid grid, int count, long seed) {
+        Random rng = new Random(seed);
+        AStarPathfinder astar = new AStarPathfinder(grid);
+        IntArray path = new IntArray();
+        int[] out = new int[count];
+        for (int i = 0; i < count; i++) {
+            int t;
+            do { t = rng.nextInt(grid.size()); }
+            while (!grid.isWalkableIndex(t) || (i > 0 && (t == out[0]
+                    || !astar.findPath(grid.tileX(out[0]), grid.tileY(out[0]), grid.tileX(t), grid.tileY(t), path))));
+            out[i] = t;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,189 @@
+// Author: Martin Taylor
+// File: PathfinderAgreementTest.java
+// Date: 2026-10-17
+// Description:
+//   Runs A*, JPS and HPA* on generated dungeons and compares what they
+//   find with a brute-force Dijkstra over the same tiles and move rules.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A* must be optimal under its own cost (step plus clearance soft cost),
+ * JPS under plain octile steps. HPA* uses A*'s cost but is confined to
+ * entrance-to-entrance routes: it must find a path exactly when A* does and
+ * never beat it. On these maps it averages about 12% over A* on routes
+ * longer than two clusters, worse on short hops that have to detour to an
+ * entrance, so its bounds only catch a clear regression. Every returned
+ * path must be a chain of legal moves from start to goal.
+ */
+public class PathfinderAgreementTest {
+
+    private static final long[] SEEDS = { 3L, 17L, 29L };
+    private static final int SIZE = 56, QUERIES = 150;
+    private static final double EPS = 1e-2;
+    /** Worst HPA* cost over A* cost allowed on a route of at least LONG_ROUTE. */
+    private static final double HPA_MAX_EXCESS = 0.75;
+    /** Mean HPA* cost over A* cost allowed across every query. */
+    private static final double HPA_MEAN_EXCESS = 0.25;
+    private static final double LONG_ROUTE = 2 * HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE;
+
+    @Test
+    public void enginesAgreeWithDijkstra() {
+        int compared = 0;
+        double hpaExcess = 0;
+        for (long seed : SEEDS) {
+            Dungeon dungeon = new Dungeon(SIZE, SIZE, 64);
+            dungeon.generate(seed);
+            NavGrid grid = NavGrid.build(dungeon);
+            AStarPathfinder astar = new AStarPathfinder(grid);
+            JumpPointPathfinder jps = new JumpPointPathfinder(grid);
+            HierarchicalPathfinder hpa = new HierarchicalPathfinder(grid);
+            IntArray path = new IntArray();
+            Random rng = new Random(seed);
+
+            for (int q = 0; q < QUERIES; q++) {
+                int s = randomWalkable(grid, rng), t;
+                do { t = randomWalkable(grid, rng); } while (t == s);
+                int sx = grid.tileX(s), sy = grid.tileY(s), tx = grid.tileX(t), ty = grid.tileY(t);
+                String at = "seed " + seed + " " + sx + "," + sy + " -> " + tx + "," + ty;
+
+                double weighted = dijkstra(grid, s, true, false)[t];
+                boolean found = astar.findPath(sx, sy, tx, ty, path);
+                assertEquals(at + " astar found", weighted < Double.MAX_VALUE, found);
+                double astarCost = 0;
+                if (found) {
+                    checkPath(grid, path, s, t, false);
+                    astarCost = cost(grid, path, true);
+                    assertEquals(at + " astar cost", weighted, astarCost, EPS);
+                }
+
+                double octile = dijkstra(grid, s, false, true)[t];
+                found = jps.findPath(sx, sy, tx, ty, path);
+                assertEquals(at + " jps found", octile < Double.MAX_VALUE, found);
+                if (found) {
+                    checkPath(grid, path, s, t, true);
+                    assertEquals(at + " jps length", octile, cost(grid, path, false), EPS);
+                }
+
+                found = hpa.findPath(sx, sy, tx, ty, path);
+                assertEquals(at + " hpa found", weighted < Double.MAX_VALUE, found);
+                if (found) {
+                    checkPath(grid, path, s, t, false);
+                    double hpaCost = cost(grid, path, true);
+                    assertTrue(at + " hpa beat the optimum", hpaCost >= weighted - EPS);
+                    if (weighted >= LONG_ROUTE)
+                        assertTrue(at + " hpa cost " + hpaCost + " vs " + weighted, hpaCost <= weighted * (1 + HPA_MAX_EXCESS));
+                    hpaExcess += hpaCost / astarCost - 1.0;
+                    compared++;
+                }
+            }
+        }
+        assertTrue(compared > QUERIES * SEEDS.length / 2);
+        assertTrue("mean hpa excess " + hpaExcess / compared, hpaExcess / compared < HPA_MEAN_EXCESS);
+    }
+
+    @Test
+    public void pausedSearchesMatchOneShot() {
+        Dungeon dungeon = new Dungeon(SIZE, SIZE, 64);
+        dungeon.generate(SEEDS[0]);
+        NavGrid grid = NavGrid.build(dungeon);
+        IncrementalPathfinder[] engines = {
+                new AStarPathfinder(grid), new JumpPointPathfinder(grid), new HierarchicalPathfinder(grid) };
+        IntArray oneShot = new IntArray(), sliced = new IntArray();
+        Random rng = new Random(SEEDS[0] + 1);
+        int paused = 0;
+        for (int q = 0; q < 60; q++) {
+            int s = randomWalkable(grid, rng), t = randomWalkable(grid, rng);
+            int sx = grid.tileX(s), sy = grid.tileY(s), tx = grid.tileX(t), ty = grid.tileY(t);
+            for (IncrementalPathfinder engine : engines) {
+                boolean found = engine.findPath(sx, sy, tx, ty, oneShot);
+                engine.begin(sx, sy, tx, ty);
+                int steps = 0, status;
+                while ((status = engine.step(1)) == IncrementalPathfinder.RUNNING) steps++;
+                if (steps > 1) paused++;
+                assertEquals(found, status == IncrementalPathfinder.FOUND);
+                assertEquals(found, engine.buildPath(sliced));
+                assertEquals(engine.getClass().getSimpleName() + " query " + q, oneShot.size, sliced.size);
+                for (int i = 0; i < oneShot.size; i++) assertEquals(oneShot.get(i), sliced.get(i));
+            }
+        }
+        assertTrue(paused > 60);
+    }
+
+    // Adjacent steps over walkable tiles, diagonals only past open corners
+    private static void checkPath(NavGrid grid, IntArray path, int start, int goal, boolean walkableCorners) {
+        assertTrue(path.size >= 2);
+        assertEquals(start, path.first());
+        assertEquals(goal, path.peek());
+        for (int i = 1; i < path.size; i++) {
+            int a = path.get(i - 1), b = path.get(i);
+            int ax = grid.tileX(a), ay = grid.tileY(a), bx = grid.tileX(b), by = grid.tileY(b);
+            assertTrue(grid.isWalkableIndex(b));
+            assertTrue(Math.abs(ax - bx) <= 1 && Math.abs(ay - by) <= 1 && a != b);
+            if (ax != bx && ay != by) assertTrue(cornerOpen(grid, ax, ay, bx, by, walkableCorners));
+        }
+    }
+
+    private static boolean cornerOpen(NavGrid grid, int ax, int ay, int bx, int by, boolean walkableCorners) {
+        if (walkableCorners) return grid.isWalkable(bx, ay) && grid.isWalkable(ax, by);
+        return !grid.isSolid(bx, ay) && !grid.isSolid(ax, by);
+    }
+
+    private static double cost(NavGrid grid, IntArray path, boolean softCost) {
+        double total = 0;
+        for (int i = 1; i < path.size; i++) total += stepCost(grid, path.get(i - 1), path.get(i), softCost);
+        return total;
+    }
+
+    private static double stepCost(NavGrid grid, int a, int b, boolean softCost) {
+        boolean diagonal = grid.tileX(a) != grid.tileX(b) && grid.tileY(a) != grid.tileY(b);
+        return (diagonal ? Math.sqrt(2.0) : 1.0) + (softCost ? grid.softCostIndex(b) : 0.0);
+    }
+
+    // Plain Dijkstra from start over every tile; MAX_VALUE where unreachable
+    private static double[] dijkstra(NavGrid grid, int start, boolean softCost, boolean walkableCorners) {
+        double[] dist = new double[grid.size()];
+        Arrays.fill(dist, Double.MAX_VALUE);
+        dist[start] = 0;
+        PriorityQueue<double[]> open = new PriorityQueue<>((p, q) -> Double.compare(p[0], q[0]));
+        open.add(new double[] { 0, start });
+        while (!open.isEmpty()) {
+            double[] top = open.poll();
+            int cur = (int)top[1];
+            if (top[0] > dist[cur]) continue;
+            int cx = grid.tileX(cur), cy = grid.tileY(cur);
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = cx + dx, ny = cy + dy;
+                    if ((dx == 0 && dy == 0) || !grid.inBounds(nx, ny) || !grid.isWalkable(nx, ny)) continue;
+                    if (dx != 0 && dy != 0 && !cornerOpen(grid, cx, cy, nx, ny, walkableCorners)) continue;
+                    int ni = grid.index(nx, ny);
+                    double nd = dist[cur] + stepCost(grid, cur, ni, softCost);
+                    if (nd < dist[ni]) {
+                        dist[ni] = nd;
+                        open.add(new double[] { nd, ni });
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+
+    private static int randomWalkable(NavGrid grid, Random rng) {
+        while (true) {
+            int i = rng.nextInt(grid.size());
+            if (grid.isWalkableIndex(i)) return i;
+        }
+    }
+}
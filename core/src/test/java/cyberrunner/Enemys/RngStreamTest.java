@@ -0,0 +1,149 @@
+// Author: Martin Taylor
+// File: RngStreamTest.java
+// Date: 2026-10-17
+// Description:
+//   Pins the first outputs of RngStream so a change to the generator or its
+//   seeding shows up here before it silently changes every level, and checks
+//   that RngService's forks and streams do not depend on each other or on
+//   the thread that asks.
+
+package cyberrunner.Enemys;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * If a pinned value changes on purpose, bump GeneratorStages.VERSION as
+ * well: cached levels and replays keyed on a seed are no longer valid.
+ */
+public class RngStreamTest {
+
+    @Test
+    public void seedingIsSplitMix64() {
+        // First output of the published SplitMix64 for seed 0
+        assertEquals(0xE220A8397B1DCDAFL, RngStream.mix64(0x9e3779b97f4a7c15L));
+    }
+
+    @Test
+    public void firstOutputsArePinned() {
+        long[] expected = {
+                0x69E85B3631381BAAL, 0x3BC32C541D626E1DL, 0x3E35DE64B3B378D8L,
+                0x106E3C0092B088BFL, 0x03CCA1710D00CA12L, 0x2BE7B432D869FD48L };
+        RngStream rng = new RngStream(42L);
+        for (long e : expected) assertEquals(e, rng.nextLong());
+
+        int[] ints = { 41, 85, 62, 82, 0, 64, 77, 96 };
+        rng = new RngStream(7L);
+        for (int e : ints) assertEquals(e, rng.nextInt(100));
+
+        // setSeed restarts the sequence
+        rng.setSeed(42L);
+        assertEquals(expected[0], rng.nextLong());
+    }
+
+    @Test
+    public void forkIsPinnedAndSameOnEveryThread() throws Exception {
+        final RngService service = new RngService(2026L);
+        RngStream fork = service.fork(RngService.Stream.SPAWNING, 12L);
+        assertEquals(0x4465D5F6698BB06CL, fork.nextLong());
+        assertEquals(0xF4CB57970A6237F4L, fork.nextLong());
+        assertEquals(0x816AFE9053EB0D75L, fork.nextLong());
+
+        final int keys = 64, draws = 32;
+        long[][] expected = new long[keys][];
+        for (int k = 0; k < keys; k++) expected[k] = draw(service.fork(RngService.Stream.AI, k), draws);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            // every key forked many times over, concurrently, in no particular order
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int rep = 0; rep < 8; rep++) {
+                for (int k = keys - 1; k >= 0; k--) {
+                    final long key = k;
+                    results.add(pool.submit(new Callable<long[]>() {
+                        @Override public long[] call() {
+                            return draw(service.fork(RngService.Stream.AI, key), draws);
+                        }
+                    }));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                long[] got = results.get(i).get();
+                long[] want = expected[keys - 1 - i % keys];
+                for (int d = 0; d < draws; d++) assertEquals(want[d], got[d]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void streamsDoNotShiftEachOther() {
+        RngService quiet = new RngService(99L), busy = new RngService(99L);
+        // drawing heavily from one subsystem leaves the others where they were
+        for (int i = 0; i < 10000; i++) busy.stream(RngService.Stream.LOOT).nextInt(6);
+        for (RngService.Stream s : RngService.Stream.values()) {
+            if (s == RngService.Stream.LOOT) continue;
+            long[] a = draw(quiet.stream(s), 16), b = draw(busy.stream(s), 16);
+            for (int i = 0; i < a.length; i++) assertEquals(s.name(), a[i], b[i]);
+        }
+    }
+
+    @Test
+    public void streamsAreUncorrelated() {
+        RngService service = new RngService(5L);
+        RngService.Stream[] all = RngService.Stream.values();
+        int n = 4096;
+        long[][] seqs = new long[all.length + 3][];
+        for (int i = 0; i < all.length; i++) seqs[i] = draw(service.stream(all[i]), n);
+        // key 0 included: a fork must not replay the subsystem's own stream
+        seqs[all.length] = draw(service.fork(RngService.Stream.AI, 0L), n);
+        seqs[all.length + 1] = draw(service.fork(RngService.Stream.AI, 1L), n);
+        RngStream parent = new RngStream(5L);
+        RngStream child = parent.split();
+        seqs[all.length + 2] = draw(child, n);
+
+        for (int i = 0; i < seqs.length; i++) {
+            for (int j = i + 1; j < seqs.length; j++) {
+                assertNotEquals(seqs[i][0], seqs[j][0]);
+                // matching bits across the two sequences: 50% +- about 6 sigma
+                long same = 0;
+                for (int k = 0; k < n; k++) same += 64 - Long.bitCount(seqs[i][k] ^ seqs[j][k]);
+                double fraction = same / (64.0 * n);
+                assertTrue(i + "/" + j + " agree on " + fraction, Math.abs(fraction - 0.5) < 0.006);
+            }
+        }
+        // the parent carries on with numbers of its own
+        long[] rest = draw(parent, n);
+        for (int k = 0; k < 16; k++) assertNotEquals(rest[k], seqs[all.length + 2][k]);
+    }
+
+    @Test
+    public void boundedDrawsStayInRange() {
+        RngStream rng = new RngStream(3L);
+        int[] counts = new int[7];
+        for (int i = 0; i < 70000; i++) counts[rng.random(2, 8) - 2]++;
+        for (int c : counts) assertTrue(Math.abs(c - 10000) < 500);
+        for (int i = 0; i < 10000; i++) {
+            float f = rng.nextFloat();
+            double d = rng.nextDouble();
+            assertTrue(f >= 0f && f < 1f && d >= 0.0 && d < 1.0);
+        }
+    }
+
+    private static long[] draw(RngStream rng, int n) {
+        long[] out = new long[n];
+        for (int i = 0; i < n; i++) out[i] = rng.nextLong();
+        return out;
+    }
+}
@@ -0,0 +1,239 @@
+// Author: Martin Taylor
+// File: SpatialHashTest.java
+// Date: 2026-10-17
+// Description:
+//   Checks every SpatialHash query against a scan over all boxes: pairs,
+//   boxes, circles and segments, on random layouts with boxes that span
+//   many cells, sit at negative coordinates or share edges exactly.
+
+package cyberrunner.Enemys;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Half the layouts snap every coordinate to an 8-pixel grid, so boxes often
+ * share an edge exactly and the strict overlap rule gets exercised. A
+ * segment is only compared where nudging every box by a hair gives the same
+ * answer, since one that exactly grazes a box may go either way.
+ */
+public class SpatialHashTest {
+
+    private static final float CELL = 64f;
+    private static final double GRAZE = 0.01;   // pixels
+
+    @Test
+    public void pairsMatchAllPairs() {
+        Random rng = new Random(31L);
+        for (int layout = 0; layout < 24; layout++) {
+            Boxes boxes = Boxes.random(rng, new int[] { 0, 1, 2, 40, 300 }[layout % 5], layout % 2 == 0);
+            SpatialHash hash = boxes.build();
+            IntArray pairs = new IntArray();
+            int n = hash.queryPairs(pairs);
+            assertEquals(n * 2, pairs.size);
+
+            Set<Long> found = new HashSet<>();
+            for (int k = 0; k < pairs.size; k += 2) {
+                int a = pairs.get(k), b = pairs.get(k + 1);
+                assertTrue(a < b);
+                assertTrue("pair reported twice", found.add((long)a << 32 | b));
+            }
+            int expected = 0;
+            for (int a = 0; a < boxes.n; a++) {
+                for (int b = a + 1; b < boxes.n; b++) {
+                    boolean overlap = boxes.overlaps(a, boxes.x[b], boxes.y[b], boxes.x[b] + boxes.w[b], boxes.y[b] + boxes.h[b]);
+                    assertEquals("layout " + layout + " pair " + a + "/" + b, overlap, found.contains((long)a << 32 | b));
+                    if (overlap) expected++;
+                }
+            }
+            assertEquals(expected, n);
+        }
+    }
+
+    @Test
+    public void boxAndRadiusQueriesMatchScan() {
+        Random rng = new Random(32L);
+        IntArray out = new IntArray();
+        int nonEmpty = 0;
+        for (int layout = 0; layout < 12; layout++) {
+            boolean snapped = layout % 2 == 0;
+            Boxes boxes = Boxes.random(rng, 200, snapped);
+            SpatialHash hash = boxes.build();
+            for (int q = 0; q < 300; q++) {
+                float x0 = boxes.coord(rng, snapped), y0 = boxes.coord(rng, snapped);
+                float x1 = x0 + boxes.size(rng, snapped), y1 = y0 + boxes.size(rng, snapped);
+                out.clear();
+                hash.queryBox(x0, y0, x1, y1, out);
+                boolean[] expected = new boolean[boxes.n];
+                for (int i = 0; i < boxes.n; i++) expected[i] = boxes.overlaps(i, x0, y0, x1, y1);
+                nonEmpty += check(out, expected, "box " + x0 + "," + y0);
+
+                float r = rng.nextFloat() * 150f;
+                out.clear();
+                hash.queryRadius(x0, y0, r, out);
+                for (int i = 0; i < boxes.n; i++) {
+                    float dx = x0 < boxes.x[i] ? boxes.x[i] - x0 : Math.max(0f, x0 - (boxes.x[i] + boxes.w[i]));
+                    float dy = y0 < boxes.y[i] ? boxes.y[i] - y0 : Math.max(0f, y0 - (boxes.y[i] + boxes.h[i]));
+                    expected[i] = dx * dx + dy * dy <= r * r;
+                }
+                check(out, expected, "radius " + x0 + "," + y0 + " r " + r);
+            }
+        }
+        assertTrue(nonEmpty > 1000);
+    }
+
+    @Test
+    public void segmentQueriesMatchScan() {
+        Random rng = new Random(33L);
+        IntArray out = new IntArray();
+        int compared = 0, hitsSeen = 0;
+        for (int layout = 0; layout < 12; layout++) {
+            boolean snapped = layout % 2 == 0;
+            Boxes boxes = Boxes.random(rng, 150, snapped);
+            SpatialHash hash = boxes.build();
+            for (int q = 0; q < 300; q++) {
+                float x0 = boxes.coord(rng, snapped), y0 = boxes.coord(rng, snapped);
+                // a third of them axis-aligned, which walks a single row or column of cells
+                int kind = q % 3;
+                float x1 = kind == 1 ? x0 : x0 + (rng.nextFloat() - 0.5f) * 800f;
+                float y1 = kind == 2 ? y0 : y0 + (rng.nextFloat() - 0.5f) * 800f;
+                out.clear();
+                hash.querySegment(x0, y0, x1, y1, out);
+                Set<Integer> got = unique(out, "segment");
+                for (int i = 0; i < boxes.n; i++) {
+                    boolean strict = segmentHits(boxes, i, x0, y0, x1, y1, -GRAZE);
+                    boolean loose = segmentHits(boxes, i, x0, y0, x1, y1, GRAZE);
+                    if (strict != loose) continue;
+                    assertEquals("segment " + x0 + "," + y0 + " -> " + x1 + "," + y1 + " box " + i,
+                            strict, got.contains(i));
+                    compared++;
+                    if (strict) hitsSeen++;
+                }
+            }
+        }
+        assertTrue(compared > 500000);
+        assertTrue(hitsSeen > 1000);
+    }
+
+    @Test
+    public void clearRestartsHandles() {
+        SpatialHash hash = new SpatialHash(CELL);
+        assertEquals(0, hash.add(0f, 0f, 10f, 10f));
+        assertEquals(1, hash.add(5f, 5f, 10f, 10f));
+        hash.build();
+        hash.clear();
+        assertEquals(0, hash.size());
+        assertEquals(0, hash.add(-500f, -500f, 10f, 10f));
+        hash.build();
+        IntArray out = new IntArray();
+        assertEquals(0, hash.queryBox(0f, 0f, 20f, 20f, out));
+        assertEquals(1, hash.queryBox(-505f, -505f, -495f, -495f, out));
+        assertEquals(0, out.get(0));
+    }
+
+    @Test
+    public void queryBeforeBuildThrows() {
+        SpatialHash hash = new SpatialHash(CELL);
+        hash.add(0f, 0f, 10f, 10f);
+        try {
+            hash.queryBox(0f, 0f, 1f, 1f, new IntArray());
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // build() was skipped
+        }
+    }
+
+    // Returns 1 if anything was expected, for coverage counting
+    private static int check(IntArray out, boolean[] expected, String at) {
+        Set<Integer> got = unique(out, at);
+        int any = 0;
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(at + " box " + i, expected[i], got.contains(i));
+            if (expected[i]) any = 1;
+        }
+        return any;
+    }
+
+    private static Set<Integer> unique(IntArray out, String at) {
+        Set<Integer> got = new HashSet<>();
+        for (int k = 0; k < out.size; k++) assertTrue(at + " reported twice", got.add(out.get(k)));
+        return got;
+    }
+
+    // Slab test in double against the box grown by grow on every side
+    private static boolean segmentHits(Boxes b, int i, double x0, double y0, double x1, double y1, double grow) {
+        double minX = b.x[i] - grow, maxX = b.x[i] + b.w[i] + grow;
+        double minY = b.y[i] - grow, maxY = b.y[i] + b.h[i] + grow;
+        double dx = x1 - x0, dy = y1 - y0, tEnter = 0, tExit = 1;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) return false;
+        } else {
+            double ta = (minX - x0) / dx, tb = (maxX - x0) / dx;
+            tEnter = Math.max(tEnter, Math.min(ta, tb));
+            tExit = Math.min(tExit, Math.max(ta, tb));
+        }
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) return false;
+        } else {
+            double ta = (minY - y0) / dy, tb = (maxY - y0) / dy;
+            tEnter = Math.max(tEnter, Math.min(ta, tb));
+            tExit = Math.min(tExit, Math.max(ta, tb));
+        }
+        return tEnter <= tExit;
+    }
+
+    private static final class Boxes {
+        final int n;
+        final float[] x, y, w, h;
+        final float extent;
+
+        Boxes(int n, float extent) {
+            this.n = n;
+            this.extent = extent;
+            x = new float[n]; y = new float[n]; w = new float[n]; h = new float[n];
+        }
+
+        // Mostly enemy-sized boxes around the origin, some much bigger than a cell
+        static Boxes random(Random rng, int n, boolean snapped) {
+            Boxes b = new Boxes(n, (float)Math.sqrt(Math.max(1, n)) * 90f);
+            for (int i = 0; i < n; i++) {
+                b.x[i] = b.coord(rng, snapped);
+                b.y[i] = b.coord(rng, snapped);
+                b.w[i] = b.size(rng, snapped);
+                b.h[i] = b.size(rng, snapped);
+            }
+            return b;
+        }
+
+        float coord(Random rng, boolean snapped) {
+            float v = (rng.nextFloat() * 2f - 1f) * extent;
+            return snapped ? Math.round(v / 8f) * 8f : v;
+        }
+
+        float size(Random rng, boolean snapped) {
+            float v = rng.nextFloat() < 0.1f ? 100f + rng.nextFloat() * 300f : 8f + rng.nextFloat() * 60f;
+            return snapped ? Math.max(8f, Math.round(v / 8f) * 8f) : v;
+        }
+
+        SpatialHash build() {
+            SpatialHash hash = new SpatialHash(CELL);
+            for (int i = 0; i < n; i++) assertEquals(i, hash.add(x[i], y[i], w[i], h[i]));
+            hash.build();
+            return hash;
+        }
+
+        // Strict overlap with [x0,x1) x [y0,y1), as Rectangle.overlaps
+        boolean overlaps(int i, float x0, float y0, float x1, float y1) {
+            return x[i] < x1 && x[i] + w[i] > x0 && y[i] < y1 && y[i] + h[i] > y0;
+        }
+    }
+}
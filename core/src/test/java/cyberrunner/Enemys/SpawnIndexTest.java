@@ -0,0 +1,133 @@
+// Author: Martin Taylor
+// File: SpawnIndexTest.java
+// Date: 2026-10-17
+// Description:
+//   Samples spawn tiles on generated levels and checks each one against a
+//   brute-force flood: roomy enough for its class, connected to the player,
+//   and at least the minimum distance away.
+
+package cyberrunner.Enemys;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * "Connected" for class k means the tile's 4-connected region of class-k
+ * tiles holds the class-k tile a flood from the origin meets first, which
+ * is the tile the index anchors that class on.
+ */
+public class SpawnIndexTest {
+
+    private static final long[] SEEDS = { 4L, 19L, 77L };
+    private static final int SIZE = 64, MAX_CLASS = 3;
+
+    @Test
+    public void samplesAreReachableAndFarEnough() {
+        for (long seed : SEEDS) {
+            Dungeon dungeon = new Dungeon(SIZE, SIZE, 64);
+            dungeon.generate(GeneratorPipeline.classic(), seed);
+            NavGrid grid = NavGrid.build(dungeon);
+            int ox = SIZE / 2, oy = SIZE / 2;
+            SpawnIndex index = new SpawnIndex(grid, ox, oy, MAX_CLASS);
+            Random rng = new Random(seed);
+
+            for (int k = 1; k <= MAX_CLASS; k++) {
+                boolean[] reachable = classRegion(grid, ox, oy, k);
+                int expected = 0;
+                for (boolean r : reachable) if (r) expected++;
+                assertEquals("seed " + seed + " class " + k, expected, index.getCandidateCount(k));
+
+                // a near and a far radius; the far one mostly falls back to whole cells
+                for (float minDist : new float[] { 8f, 30f }) {
+                    int sampled = 0;
+                    for (int q = 0; q < 400; q++) {
+                        int px = rng.nextInt(SIZE), py = rng.nextInt(SIZE);
+                        int tile = index.sample(k, px, py, minDist, rng);
+                        if (tile < 0) {
+                            assertFalse(anyFarEnough(grid, reachable, px, py, minDist));
+                            continue;
+                        }
+                        sampled++;
+                        String at = "seed " + seed + " class " + k + " tile " + grid.tileX(tile) + "," + grid.tileY(tile);
+                        assertTrue(at, grid.isWalkableIndex(tile, k));
+                        assertTrue(at, reachable[tile]);
+                        float dx = grid.tileX(tile) - px, dy = grid.tileY(tile) - py;
+                        assertTrue(at + " from " + px + "," + py, dx * dx + dy * dy >= minDist * minDist);
+                    }
+                    assertTrue(sampled > 200);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sealedRoomIsNeverUsed() {
+        Dungeon dungeon = new Dungeon(40, 30, 64);
+        dungeon.fill(true);
+        dungeon.carveRect(2, 2, 20, 20);     // player's room
+        dungeon.carveRect(27, 5, 10, 10);    // sealed off
+        NavGrid grid = NavGrid.build(dungeon);
+        SpawnIndex index = new SpawnIndex(grid, 10, 10, 2);
+
+        assertTrue(index.isReachable(5, 5));
+        assertFalse(index.isReachable(30, 8));
+        assertFalse(index.connected(5, 5, 30, 8));
+        assertTrue(index.connected(28, 6, 35, 13));
+        assertEquals(2, index.getRegionCount());
+
+        Random rng = new Random(1L);
+        for (int q = 0; q < 500; q++) {
+            int tile = index.sample(1, 10, 10, 5f, rng);
+            assertTrue(grid.tileX(tile) < 22);
+        }
+        // nothing in the player's room is 40 tiles away
+        assertEquals(-1, index.sample(1, 10, 10, 40f, rng));
+    }
+
+    // Class-k tiles connected to the first class-k tile met flooding out from the origin
+    private static boolean[] classRegion(NavGrid grid, int ox, int oy, int k) {
+        int W = grid.width, H = grid.height;
+        int[] queue = new int[W * H];
+        boolean[] seen = new boolean[W * H];
+        int head = 0, tail = 0, anchor = -1;
+        queue[tail++] = grid.index(ox, oy);
+        seen[queue[0]] = true;
+        while (head < tail && anchor < 0) {
+            int u = queue[head++];
+            if (grid.wallDistanceIndex(u) >= k) { anchor = u; break; }
+            tail = push(grid, u, queue, tail, seen, 1);
+        }
+        boolean[] region = new boolean[W * H];
+        if (anchor < 0) return region;
+        head = 0; tail = 0;
+        queue[tail++] = anchor;
+        region[anchor] = true;
+        while (head < tail) tail = push(grid, queue[head++], queue, tail, region, k);
+        return region;
+    }
+
+    private static int push(NavGrid grid, int u, int[] queue, int tail, boolean[] seen, int k) {
+        int W = grid.width, x = u % W, y = u / W;
+        int[] next = { x > 0 ? u - 1 : -1, x < W - 1 ? u + 1 : -1, y > 0 ? u - W : -1, y < grid.height - 1 ? u + W : -1 };
+        for (int v : next) {
+            if (v < 0 || seen[v] || grid.wallDistanceIndex(v) < k) continue;
+            seen[v] = true;
+            queue[tail++] = v;
+        }
+        return tail;
+    }
+
+    private static boolean anyFarEnough(NavGrid grid, boolean[] reachable, int px, int py, float minDist) {
+        for (int i = 0; i < reachable.length; i++) {
+            if (!reachable[i]) continue;
+            float dx = grid.tileX(i) - px, dy = grid.tileY(i) - py;
+            if (dx * dx + dy * dy >= minDist * minDist) return true;
+        }
+        return false;
+    }
+}